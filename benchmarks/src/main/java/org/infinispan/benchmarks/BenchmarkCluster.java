@@ -0,0 +1,88 @@
+package org.infinispan.benchmarks;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.remoting.transport.jgroups.JGroupsTransport;
+import org.infinispan.statetransfer.StateTransferManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cache managers started by the clustered benchmarks, connected through the in-JVM JGroups stack in
+ * <tt>benchmark-jgroups.xml</tt>.
+ *
+ * @since 7.0
+ */
+final class BenchmarkCluster {
+
+   private static final String JGROUPS_CONFIGURATION = "benchmark-jgroups.xml";
+
+   private final List<DefaultCacheManager> cacheManagers = new ArrayList<DefaultCacheManager>();
+   private final String cacheName;
+
+   /**
+    * Starts <tt>numNodes</tt> cache managers defining <tt>builder</tt> as their default configuration, and waits until
+    * the cache named <tt>cacheName</tt> has been started on all of them and state transfer is over.
+    */
+   BenchmarkCluster(int numNodes, String cacheName, ConfigurationBuilder builder) throws InterruptedException {
+      this.cacheName = cacheName;
+      for (int i = 0; i < numNodes; i++) {
+         cacheManagers.add(startCacheManager(builder));
+      }
+      waitForStateTransfer();
+   }
+
+   /**
+    * Starts one more cache manager defining <tt>builder</tt> as its default configuration, and waits until the cache
+    * has been started on it and state transfer is over.
+    */
+   void addNode(ConfigurationBuilder builder) throws InterruptedException {
+      cacheManagers.add(startCacheManager(builder));
+      waitForStateTransfer();
+   }
+
+   /**
+    * Stops the cache manager of the given node, and waits until the other nodes have removed it from the cache topology
+    * and state transfer is over.
+    */
+   void stopNode(int node) throws InterruptedException {
+      cacheManagers.remove(node).stop();
+      waitForStateTransfer();
+   }
+
+   private DefaultCacheManager startCacheManager(ConfigurationBuilder builder) {
+      GlobalConfigurationBuilder global = GlobalConfigurationBuilder.defaultClusteredBuilder();
+      global.transport().addProperty(JGroupsTransport.CONFIGURATION_FILE, JGROUPS_CONFIGURATION);
+      global.globalJmxStatistics().allowDuplicateDomains(true);
+      DefaultCacheManager cacheManager = new DefaultCacheManager(global.build(), builder.build());
+      cacheManager.getCache(cacheName);
+      return cacheManager;
+   }
+
+   private void waitForStateTransfer() throws InterruptedException {
+      int numNodes = cacheManagers.size();
+      for (DefaultCacheManager cacheManager : cacheManagers) {
+         StateTransferManager stateTransferManager = cacheManager.getCache(cacheName).getAdvancedCache()
+               .getComponentRegistry().getStateTransferManager();
+         while (stateTransferManager.getCacheTopology() == null
+               || stateTransferManager.getCacheTopology().getMembers().size() != numNodes
+               || stateTransferManager.isStateTransferInProgress()) {
+            Thread.sleep(100);
+         }
+      }
+   }
+
+   <K, V> Cache<K, V> cache(int node) {
+      return cacheManagers.get(node).getCache(cacheName);
+   }
+
+   void stop() {
+      for (int i = cacheManagers.size() - 1; i >= 0; i--) {
+         cacheManagers.get(i).stop();
+      }
+      cacheManagers.clear();
+   }
+}
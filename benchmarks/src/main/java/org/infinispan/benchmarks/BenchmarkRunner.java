@@ -0,0 +1,41 @@
+package org.infinispan.benchmarks;
+
+import org.infinispan.Version;
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. It accepts the options of the JMH command line, but unless told otherwise writes
+ * the results as JSON to <tt>jmh-result-&lt;version&gt;.json</tt>, so that the results of two Infinispan versions can
+ * be compared with any JSON tool.
+ * <p/>
+ * <pre>
+ *    java -jar benchmarks/target/benchmarks.jar CacheBenchmark
+ * </pre>
+ *
+ * @since 7.0
+ */
+public class BenchmarkRunner {
+
+   public static void main(String[] args) throws Exception {
+      CommandLineOptions commandLine = new CommandLineOptions(args);
+      if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+            || commandLine.shouldListResultFormats()) {
+         Main.main(args);
+         return;
+      }
+
+      ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+      if (!commandLine.getResultFormat().hasValue()) {
+         options.resultFormat(ResultFormatType.JSON);
+      }
+      if (!commandLine.getResult().hasValue()) {
+         options.result("jmh-result-" + Version.VERSION + ".json");
+      }
+      new Runner(options.build()).run();
+   }
+}
@@ -0,0 +1,88 @@
+package org.infinispan.benchmarks;
+
+import org.infinispan.commons.equivalence.AnyEquivalence;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link BoundedConcurrentHashMap#get(Object)} hits with and without eviction, where
+ * every hit has to be recorded for the eviction policy.
+ * <p/>
+ * Run with {@link #main(String[])} to measure scaling from 1 to 64 threads, or through the JMH command line with
+ * <tt>-t</tt> to pick the number of threads.
+ *
+ * @since 7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BoundedConcurrentHashMapGetBenchmark {
+
+   private static final int CAPACITY = 1 << 16;
+   private static final int MASK = CAPACITY - 1;
+
+   @Param({"NONE", "LRU", "LIRS", "TINYLFU"})
+   public Eviction eviction;
+
+   /**
+    * Number of distinct keys read; a small key set reproduces the hot key contention of a real workload.
+    */
+   @Param({"16", "65536"})
+   public int hotKeys;
+
+   private BoundedConcurrentHashMap<Integer, Integer> map;
+   private Integer[] keys;
+
+   @Setup
+   public void setup() {
+      map = new BoundedConcurrentHashMap<Integer, Integer>(CAPACITY * 2, 64, eviction,
+            AnyEquivalence.INT, AnyEquivalence.INT);
+      keys = new Integer[CAPACITY];
+      Random random = new Random(0);
+      for (int i = 0; i < CAPACITY; i++) {
+         keys[i] = random.nextInt(hotKeys);
+         map.put(keys[i], i);
+      }
+   }
+
+   @State(Scope.Thread)
+   public static class ThreadIndex {
+      int index = (int) Thread.currentThread().getId() * 0x61c88647;
+   }
+
+   @Benchmark
+   public Integer get(ThreadIndex threadIndex) {
+      return map.get(keys[threadIndex.index++ & MASK]);
+   }
+
+   public static void main(String[] args) throws RunnerException {
+      for (int threads = 1; threads <= 64; threads <<= 1) {
+         Options options = new OptionsBuilder()
+               .include(BoundedConcurrentHashMapGetBenchmark.class.getSimpleName())
+               .threads(threads)
+               .build();
+         new Runner(options).run();
+      }
+   }
+}
@@ -0,0 +1,112 @@
+package org.infinispan.benchmarks;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of {@link Cache#get(Object)} and {@link Cache#put(Object, Object)} in local, replicated and
+ * distributed caches.
+ * <p/>
+ * Clustered caches run on 3 nodes connected through {@link BenchmarkCluster}, and distributed caches keep 2 owners, so
+ * a third of the keys read and written by the first node are remote.
+ *
+ * @since 7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CacheBenchmark {
+
+   private static final String CACHE_NAME = "benchmark";
+   private static final int NUM_NODES = 3;
+   private static final int NUM_KEYS = 1 << 12;
+   private static final int MASK = NUM_KEYS - 1;
+
+   @Param({"LOCAL", "REPL_SYNC", "DIST_SYNC"})
+   public CacheMode cacheMode;
+
+   private DefaultCacheManager localCacheManager;
+   private BenchmarkCluster cluster;
+   private Cache<String, String> cache;
+   private String[] keys;
+   private String[] values;
+
+   @Setup
+   public void setup() throws InterruptedException {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.clustering().cacheMode(cacheMode);
+      if (cacheMode.isDistributed()) {
+         builder.clustering().hash().numOwners(2);
+      }
+      if (cacheMode.isClustered()) {
+         cluster = new BenchmarkCluster(NUM_NODES, CACHE_NAME, builder);
+         cache = cluster.cache(0);
+      } else {
+         localCacheManager = new DefaultCacheManager(builder.build());
+         cache = localCacheManager.getCache(CACHE_NAME);
+      }
+
+      keys = new String[NUM_KEYS];
+      values = new String[NUM_KEYS];
+      for (int i = 0; i < NUM_KEYS; i++) {
+         keys[i] = "key" + i;
+         values[i] = "value" + i;
+         cache.put(keys[i], values[i]);
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      if (cluster != null) {
+         cluster.stop();
+      } else {
+         localCacheManager.stop();
+      }
+   }
+
+   @State(Scope.Thread)
+   public static class ThreadIndex {
+      int index = (int) Thread.currentThread().getId() * 0x61c88647;
+   }
+
+   @Benchmark
+   public String get(ThreadIndex threadIndex) {
+      return cache.get(keys[threadIndex.index++ & MASK]);
+   }
+
+   @Benchmark
+   public String put(ThreadIndex threadIndex) {
+      int i = threadIndex.index++ & MASK;
+      return cache.put(keys[i], values[i]);
+   }
+
+   public static void main(String[] args) throws RunnerException {
+      Options options = new OptionsBuilder()
+            .include(CacheBenchmark.class.getSimpleName())
+            .build();
+      new Runner(options).run();
+   }
+}
@@ -0,0 +1,145 @@
+package org.infinispan.benchmarks;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.CustomStoreConfigurationBuilder;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.spi.BatchCacheWriter;
+import org.infinispan.persistence.spi.CacheWriter;
+import org.infinispan.persistence.spi.InitializationContext;
+import org.infinispan.transaction.TransactionMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.transaction.TransactionManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the commit throughput of transactions writing 100 keys to a cache with a write-through store. The store
+ * simulates the round trip to an external storage by spinning for a fixed time on each call: with <tt>batching</tt>
+ * it implements {@link BatchCacheWriter} and the commit costs a single round trip, otherwise one per key.
+ *
+ * @since 7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CacheWriterBatchBenchmark {
+
+   private static final String CACHE_NAME = "benchmark";
+   private static final int KEYS_PER_TX = 100;
+   private static final long ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+   @Param({"false", "true"})
+   public boolean batching;
+
+   private BenchmarkCluster cluster;
+   private Cache<String, String> cache;
+   private TransactionManager tm;
+   private String[] keys;
+   private int tx;
+
+   @Setup
+   public void setup() throws Exception {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.transaction().transactionMode(TransactionMode.TRANSACTIONAL);
+      builder.persistence().addStore(CustomStoreConfigurationBuilder.class)
+            .customStoreClass(batching ? RoundTripBatchWriter.class : RoundTripWriter.class);
+      cluster = new BenchmarkCluster(1, CACHE_NAME, builder);
+      cache = cluster.cache(0);
+      tm = cache.getAdvancedCache().getTransactionManager();
+
+      keys = new String[KEYS_PER_TX];
+      for (int i = 0; i < KEYS_PER_TX; i++) {
+         keys[i] = "key" + i;
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      cluster.stop();
+   }
+
+   @Benchmark
+   public void commit() throws Exception {
+      String value = "value" + tx++;
+      tm.begin();
+      try {
+         for (String key : keys) {
+            cache.put(key, value);
+         }
+      } catch (Exception e) {
+         tm.rollback();
+         throw e;
+      }
+      tm.commit();
+   }
+
+   private static void roundTrip() {
+      long end = System.nanoTime() + ROUND_TRIP_NANOS;
+      while (System.nanoTime() < end) {
+         // simulate the latency of the external storage
+      }
+   }
+
+   public static class RoundTripWriter implements CacheWriter {
+      @Override
+      public void init(InitializationContext ctx) {
+      }
+
+      @Override
+      public void start() {
+      }
+
+      @Override
+      public void stop() {
+      }
+
+      @Override
+      public void write(MarshalledEntry entry) {
+         roundTrip();
+      }
+
+      @Override
+      public boolean delete(Object key) {
+         roundTrip();
+         return true;
+      }
+   }
+
+   public static class RoundTripBatchWriter extends RoundTripWriter implements BatchCacheWriter {
+      @Override
+      public void writeBatch(Iterable entries) {
+         roundTrip();
+      }
+
+      @Override
+      public void deleteBatch(Iterable keys) {
+         roundTrip();
+      }
+   }
+
+   public static void main(String[] args) throws RunnerException {
+      Options options = new OptionsBuilder()
+            .include(CacheWriterBatchBenchmark.class.getSimpleName())
+            .build();
+      new Runner(options).run();
+   }
+}
@@ -0,0 +1,108 @@
+package org.infinispan.benchmarks;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the {@link org.infinispan.container.DefaultDataContainer} of a local cache whose key set
+ * is four times bigger than its <tt>maxEntries</tt>, so that most writes evict an entry and reads miss as often as the
+ * eviction policy lets them.
+ * <p/>
+ * Keys are picked with a skewed distribution, so that policies retaining frequently used entries get more hits.
+ *
+ * @since 7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DataContainerBenchmark {
+
+   private static final String CACHE_NAME = "benchmark";
+   private static final int MAX_ENTRIES = 1 << 14;
+   private static final int NUM_KEYS = MAX_ENTRIES * 4;
+   private static final int SAMPLES = 1 << 16;
+   private static final int MASK = SAMPLES - 1;
+
+   @Param({"NONE", "LRU", "LIRS", "TINYLFU"})
+   public EvictionStrategy evictionStrategy;
+
+   private DefaultCacheManager cacheManager;
+   private DataContainer<Object, Object> dataContainer;
+   private Metadata metadata;
+   private Integer[] keys;
+
+   @Setup
+   public void setup() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      if (evictionStrategy != EvictionStrategy.NONE) {
+         builder.eviction().strategy(evictionStrategy).maxEntries(MAX_ENTRIES);
+      }
+      cacheManager = new DefaultCacheManager(builder.build());
+      dataContainer = cacheManager.getCache(CACHE_NAME).getAdvancedCache().getDataContainer();
+      metadata = new EmbeddedMetadata.Builder().build();
+
+      // squaring a uniform sample favours the low keys
+      keys = new Integer[SAMPLES];
+      Random random = new Random(0);
+      for (int i = 0; i < SAMPLES; i++) {
+         double sample = random.nextDouble();
+         keys[i] = (int) (sample * sample * NUM_KEYS);
+         dataContainer.put(keys[i], keys[i], metadata);
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      cacheManager.stop();
+   }
+
+   @State(Scope.Thread)
+   public static class ThreadIndex {
+      int index = (int) Thread.currentThread().getId() * 0x61c88647;
+   }
+
+   @Benchmark
+   public InternalCacheEntry<Object, Object> get(ThreadIndex threadIndex) {
+      return dataContainer.get(keys[threadIndex.index++ & MASK]);
+   }
+
+   @Benchmark
+   public void put(ThreadIndex threadIndex) {
+      Integer key = keys[threadIndex.index++ & MASK];
+      dataContainer.put(key, key, metadata);
+   }
+
+   public static void main(String[] args) throws RunnerException {
+      Options options = new OptionsBuilder()
+            .include(DataContainerBenchmark.class.getSimpleName())
+            .build();
+      new Runner(options).run();
+   }
+}
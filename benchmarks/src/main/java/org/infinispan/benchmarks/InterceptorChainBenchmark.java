@@ -0,0 +1,156 @@
+package org.infinispan.benchmarks;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.interceptors.base.CommandInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures gets and puts through the default interceptor chain of a <tt>LOCAL</tt> cache and of a <tt>DIST_SYNC</tt>
+ * cache on a single node, i.e. the dispatch through the chain without any remote call. With <tt>passThrough</tt>, an
+ * interceptor that only passes the commands on is added at the head of the chain, which the compiled dispatch of the
+ * chain skips. <tt>extraInterceptors</tt> interceptors that handle gets and puts by passing them on deepen the chain,
+ * to measure how the cost of an invocation grows with its depth. The interceptor chain accepts a single instance of
+ * each interceptor class, so each of them has its own class.
+ *
+ * @since 7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class InterceptorChainBenchmark {
+
+   private static final String CACHE_NAME = "benchmark";
+   private static final int NUM_KEYS = 1 << 10;
+   private static final int MASK = NUM_KEYS - 1;
+
+   @Param({"LOCAL", "DIST_SYNC"})
+   public CacheMode cacheMode;
+
+   @Param({"false", "true"})
+   public boolean passThrough;
+
+   @Param({"0", "4", "8"})
+   public int extraInterceptors;
+
+   private BenchmarkCluster cluster;
+   private Cache<String, String> cache;
+   private String[] keys;
+   private int index;
+
+   @Setup
+   public void setup() throws Exception {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.clustering().cacheMode(cacheMode);
+      cluster = new BenchmarkCluster(1, CACHE_NAME, builder);
+      cache = cluster.cache(0);
+      CommandInterceptor[] forwarding = forwardingInterceptors();
+      if (extraInterceptors > forwarding.length) {
+         throw new IllegalArgumentException("At most " + forwarding.length + " extra interceptors are supported");
+      }
+      for (int i = 0; i < extraInterceptors; i++) {
+         cache.getAdvancedCache().addInterceptor(forwarding[i], 0);
+      }
+      if (passThrough) {
+         cache.getAdvancedCache().addInterceptor(new PassThroughInterceptor(), 0);
+      }
+
+      keys = new String[NUM_KEYS];
+      for (int i = 0; i < NUM_KEYS; i++) {
+         keys[i] = "key" + i;
+         cache.put(keys[i], keys[i]);
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      cluster.stop();
+   }
+
+   @Benchmark
+   public String get() {
+      return cache.get(keys[index++ & MASK]);
+   }
+
+   @Benchmark
+   public String put() {
+      String key = keys[index++ & MASK];
+      return cache.put(key, key);
+   }
+
+   public static class PassThroughInterceptor extends CommandInterceptor {
+   }
+
+   private static CommandInterceptor[] forwardingInterceptors() {
+      return new CommandInterceptor[]{
+            new Forwarding1(), new Forwarding2(), new Forwarding3(), new Forwarding4(),
+            new Forwarding5(), new Forwarding6(), new Forwarding7(), new Forwarding8()};
+   }
+
+   public abstract static class ForwardingInterceptor extends CommandInterceptor {
+      @Override
+      public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand command) throws Throwable {
+         return invokeNextInterceptor(ctx, command);
+      }
+
+      @Override
+      public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) throws Throwable {
+         return invokeNextInterceptor(ctx, command);
+      }
+   }
+
+   public static class Forwarding1 extends ForwardingInterceptor {
+   }
+
+   public static class Forwarding2 extends ForwardingInterceptor {
+   }
+
+   public static class Forwarding3 extends ForwardingInterceptor {
+   }
+
+   public static class Forwarding4 extends ForwardingInterceptor {
+   }
+
+   public static class Forwarding5 extends ForwardingInterceptor {
+   }
+
+   public static class Forwarding6 extends ForwardingInterceptor {
+   }
+
+   public static class Forwarding7 extends ForwardingInterceptor {
+   }
+
+   public static class Forwarding8 extends ForwardingInterceptor {
+   }
+
+   public static void main(String[] args) throws RunnerException {
+      Options options = new OptionsBuilder()
+            .include(InterceptorChainBenchmark.class.getSimpleName())
+            .build();
+      new Runner(options).run();
+   }
+}
@@ -0,0 +1,103 @@
+package org.infinispan.benchmarks;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.context.InvocationContextFactory;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.util.concurrent.locks.LockManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures a lock acquisition and release through the {@link LockManager} of a local cache, as done by every non
+ * transactional write.
+ * <p/>
+ * With <tt>sharedKey</tt> all the threads lock the same key, otherwise each thread locks its own key; run with
+ * <tt>-t</tt> to pick the number of threads.
+ *
+ * @since 7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class LockManagerBenchmark {
+
+   private static final String CACHE_NAME = "benchmark";
+   private static final long LOCK_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+   @Param({"false", "true"})
+   public boolean useLockStriping;
+
+   @Param({"false", "true"})
+   public boolean sharedKey;
+
+   private DefaultCacheManager cacheManager;
+   private LockManager lockManager;
+   private InvocationContextFactory invocationContextFactory;
+   private final AtomicInteger threadCount = new AtomicInteger();
+
+   @Setup
+   public void setup() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.locking().useLockStriping(useLockStriping).lockAcquisitionTimeout(LOCK_TIMEOUT);
+      cacheManager = new DefaultCacheManager(builder.build());
+      AdvancedCache<Object, Object> cache = cacheManager.getCache(CACHE_NAME).getAdvancedCache();
+      lockManager = cache.getLockManager();
+      invocationContextFactory = cache.getComponentRegistry().getComponent(InvocationContextFactory.class);
+   }
+
+   @TearDown
+   public void tearDown() {
+      cacheManager.stop();
+   }
+
+   @State(Scope.Thread)
+   public static class ThreadState {
+      InvocationContext ctx;
+      String key;
+
+      @Setup
+      public void setup(LockManagerBenchmark benchmark) {
+         ctx = benchmark.invocationContextFactory.createNonTxInvocationContext();
+         key = benchmark.sharedKey ? "key" : "key" + benchmark.threadCount.getAndIncrement();
+      }
+   }
+
+   @Benchmark
+   public boolean lockAndUnlock(ThreadState state) throws InterruptedException {
+      boolean locked = lockManager.acquireLock(state.ctx, state.key, LOCK_TIMEOUT, false);
+      lockManager.unlockAll(state.ctx);
+      return locked;
+   }
+
+   public static void main(String[] args) throws RunnerException {
+      for (int threads = 1; threads <= 8; threads <<= 1) {
+         Options options = new OptionsBuilder()
+               .include(LockManagerBenchmark.class.getSimpleName())
+               .threads(threads)
+               .build();
+         new Runner(options).run();
+      }
+   }
+}
@@ -0,0 +1,166 @@
+package org.infinispan.benchmarks;
+
+import org.infinispan.commands.tx.PrepareCommand;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.commands.write.WriteCommand;
+import org.infinispan.commons.equivalence.AnyEquivalence;
+import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.global.GlobalConfigurationBuilder;
+import org.infinispan.container.InternalEntryFactoryImpl;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.context.Flag;
+import org.infinispan.factories.KnownComponentNames;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.remoting.transport.jgroups.JGroupsAddress;
+import org.infinispan.statetransfer.StateChunk;
+import org.infinispan.statetransfer.StateResponseCommand;
+import org.infinispan.transaction.xa.GlobalTransaction;
+import org.infinispan.transaction.xa.TransactionFactory;
+import org.infinispan.util.DefaultTimeService;
+import org.jgroups.util.UUID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of marshalling the commands that dominate replication traffic through the global marshaller, as
+ * the transport does, and of their round trips through the marshaller from the sender to the receiver.
+ * <p/>
+ * The time per operation is reported by JMH; the bytes allocated per operation are reported as
+ * <tt>gc.alloc.rate.norm</tt> when running with the GC profiler, as {@link #main(String[])} does, or with
+ * <tt>-prof gc</tt> from the command line.
+ *
+ * @since 7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MarshallingBenchmark {
+
+   private static final String CACHE_NAME = "benchmark";
+
+   /**
+    * Size of each value, in bytes.
+    */
+   @Param({"32", "1024", "16384"})
+   public int valueSize;
+
+   private DefaultCacheManager cacheManager;
+   private StreamingMarshaller marshaller;
+   private PutKeyValueCommand putCommand;
+   private PrepareCommand prepareCommand;
+   private StateResponseCommand stateResponseCommand;
+
+   @Setup
+   public void setup() {
+      cacheManager = new DefaultCacheManager(new GlobalConfigurationBuilder().build(),
+                                             new ConfigurationBuilder().build());
+      // starts the global components, and the cache the commands are addressed to
+      cacheManager.getCache(CACHE_NAME);
+      marshaller = cacheManager.getGlobalComponentRegistry().getComponent(StreamingMarshaller.class,
+                                                                          KnownComponentNames.GLOBAL_MARSHALLER);
+
+      Address address = new JGroupsAddress(UUID.randomUUID());
+      Metadata metadata = new EmbeddedMetadata.Builder().lifespan(1, TimeUnit.MINUTES).build();
+
+      putCommand = put("key", metadata);
+
+      GlobalTransaction gtx = TransactionFactory.TxFactoryEnum.NODLD_NORECOVERY_XA.newGlobalTransaction(
+            address, false, null, true);
+      List<WriteCommand> modifications = new ArrayList<WriteCommand>();
+      for (int i = 0; i < 10; i++) {
+         modifications.add(put("key" + i, metadata));
+      }
+      prepareCommand = new PrepareCommand(CACHE_NAME, gtx, modifications, false);
+
+      InternalEntryFactoryImpl entryFactory = new InternalEntryFactoryImpl();
+      entryFactory.injectTimeService(new DefaultTimeService());
+      List<InternalCacheEntry> entries = new ArrayList<InternalCacheEntry>();
+      for (int i = 0; i < 100; i++) {
+         entries.add(entryFactory.create("key" + i, new byte[valueSize], metadata));
+      }
+      StateChunk chunk = new StateChunk(0, entries, true);
+      stateResponseCommand = new StateResponseCommand(CACHE_NAME, address, 1, Collections.singletonList(chunk));
+   }
+
+   @TearDown
+   public void tearDown() {
+      cacheManager.stop();
+   }
+
+   private PutKeyValueCommand put(String key, Metadata metadata) {
+      return new PutKeyValueCommand(key, new byte[valueSize], false, null, metadata,
+                                    EnumSet.of(Flag.SKIP_REMOTE_LOOKUP), AnyEquivalence.getInstance());
+   }
+
+   @Benchmark
+   public ByteBuffer marshallPutKeyValueCommand() throws Exception {
+      return marshaller.objectToBuffer(putCommand);
+   }
+
+   @Benchmark
+   public ByteBuffer marshallPrepareCommand() throws Exception {
+      return marshaller.objectToBuffer(prepareCommand);
+   }
+
+   @Benchmark
+   public ByteBuffer marshallStateResponseCommand() throws Exception {
+      return marshaller.objectToBuffer(stateResponseCommand);
+   }
+
+   @Benchmark
+   public Object roundTripPutKeyValueCommand() throws Exception {
+      return roundTrip(putCommand);
+   }
+
+   @Benchmark
+   public Object roundTripPrepareCommand() throws Exception {
+      return roundTrip(prepareCommand);
+   }
+
+   @Benchmark
+   public Object roundTripStateResponseCommand() throws Exception {
+      return roundTrip(stateResponseCommand);
+   }
+
+   private Object roundTrip(Object command) throws Exception {
+      ByteBuffer buffer = marshaller.objectToBuffer(command);
+      return marshaller.objectFromByteBuffer(buffer.getBuf(), buffer.getOffset(), buffer.getLength());
+   }
+
+   public static void main(String[] args) throws RunnerException {
+      Options options = new OptionsBuilder()
+            .include(MarshallingBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+      new Runner(options).run();
+   }
+}
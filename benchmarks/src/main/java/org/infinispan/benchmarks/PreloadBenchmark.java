@@ -0,0 +1,135 @@
+package org.infinispan.benchmarks;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.PersistenceConfigurationBuilder;
+import org.infinispan.configuration.cache.SingleFileStoreConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.persistence.leveldb.configuration.LevelDBStoreConfigurationBuilder;
+import org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfigurationBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the startup time of a local cache preloading <tt>numEntries</tt> entries from a
+ * {@link org.infinispan.persistence.file.SingleFileStore}, a
+ * {@link org.infinispan.persistence.sifs.SoftIndexFileStore} or a
+ * {@link org.infinispan.persistence.leveldb.LevelDBStore}.
+ *
+ * @since 7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PreloadBenchmark {
+
+   private static final String CACHE_NAME = "benchmark";
+
+   public enum StoreType {
+      SINGLE_FILE, SOFT_INDEX, LEVELDB
+   }
+
+   @Param({"SINGLE_FILE", "SOFT_INDEX", "LEVELDB"})
+   public StoreType storeType;
+
+   @Param("1000000")
+   public int numEntries;
+
+   @Param("100")
+   public int valueSize;
+
+   private File location;
+   private DefaultCacheManager cacheManager;
+   private Cache<String, byte[]> cache;
+
+   @Setup
+   public void setup() throws Exception {
+      location = Files.createTempDirectory(CACHE_NAME).toFile();
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      addStore(builder.persistence());
+      cacheManager = new DefaultCacheManager(builder.build());
+      cache = cacheManager.getCache(CACHE_NAME);
+      byte[] value = new byte[valueSize];
+      for (int i = 0; i < numEntries; i++) {
+         cache.put("key" + i, value);
+      }
+      cache.stop();
+   }
+
+   private void addStore(PersistenceConfigurationBuilder persistence) {
+      switch (storeType) {
+         case SINGLE_FILE:
+            persistence.addStore(SingleFileStoreConfigurationBuilder.class)
+                  .location(location.getPath()).preload(true);
+            break;
+         case SOFT_INDEX:
+            persistence.addStore(SoftIndexFileStoreConfigurationBuilder.class)
+                  .dataLocation(new File(location, "data").getPath())
+                  .indexLocation(new File(location, "index").getPath()).preload(true);
+            break;
+         case LEVELDB:
+            persistence.addStore(LevelDBStoreConfigurationBuilder.class)
+                  .location(new File(location, "data").getPath())
+                  .expiredLocation(new File(location, "expired").getPath()).preload(true);
+            break;
+         default:
+            throw new IllegalArgumentException(String.valueOf(storeType));
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      cacheManager.stop();
+      delete(location);
+   }
+
+   @TearDown(Level.Invocation)
+   public void stopCache() {
+      cache.stop();
+   }
+
+   @Benchmark
+   public int start() {
+      cache.start();
+      return cache.getAdvancedCache().getDataContainer().size();
+   }
+
+   private static void delete(File file) {
+      File[] children = file.listFiles();
+      if (children != null) {
+         for (File child : children) {
+            delete(child);
+         }
+      }
+      file.delete();
+   }
+
+   public static void main(String[] args) throws RunnerException {
+      Options options = new OptionsBuilder()
+            .include(PreloadBenchmark.class.getSimpleName())
+            .build();
+      new Runner(options).run();
+   }
+}
@@ -0,0 +1,142 @@
+package org.infinispan.benchmarks;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.SingleFileStoreConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.file.SingleFileStore;
+import org.infinispan.persistence.manager.PersistenceManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a {@link SingleFileStore} holding <tt>numEntries</tt> entries: the latency distribution of loading random
+ * keys straight from the store, with and without memory mapped reads and the off-heap index, and the throughput of
+ * concurrent writes through a cache, with and without syncing them to disk.
+ *
+ * @since 7.0
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SingleFileStoreBenchmark {
+
+   private static final String CACHE_NAME = "benchmark";
+
+   @Param({"false", "true"})
+   public boolean memoryMappedReads;
+
+   @Param({"false", "true"})
+   public boolean offHeapIndex;
+
+   @Param({"false", "true"})
+   public boolean syncWrites;
+
+   @Param("100000")
+   public int numEntries;
+
+   @Param("100")
+   public int valueSize;
+
+   private File location;
+   private DefaultCacheManager cacheManager;
+   private Cache<String, byte[]> cache;
+   private SingleFileStore<String, byte[]> store;
+   private String[] keys;
+   private byte[] value;
+
+   @Setup
+   @SuppressWarnings("unchecked")
+   public void setup() throws Exception {
+      location = Files.createTempDirectory(CACHE_NAME).toFile();
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.persistence().addStore(SingleFileStoreConfigurationBuilder.class)
+            .location(location.getPath())
+            .memoryMappedReads(memoryMappedReads)
+            .offHeapIndex(offHeapIndex)
+            .syncWrites(syncWrites);
+      cacheManager = new DefaultCacheManager(builder.build());
+      cache = cacheManager.getCache(CACHE_NAME);
+      PersistenceManager persistenceManager = cache.getAdvancedCache().getComponentRegistry()
+            .getComponent(PersistenceManager.class);
+      store = persistenceManager.getStores(SingleFileStore.class).iterator().next();
+
+      keys = new String[numEntries];
+      value = new byte[valueSize];
+      for (int i = 0; i < numEntries; i++) {
+         keys[i] = "key" + i;
+         cache.put(keys[i], value);
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      cacheManager.stop();
+      delete(location);
+   }
+
+   @State(Scope.Thread)
+   public static class ThreadRandom {
+      int seed = (int) Thread.currentThread().getId() * 0x61c88647 | 1;
+
+      int nextInt(int bound) {
+         seed ^= seed << 13;
+         seed ^= seed >>> 17;
+         seed ^= seed << 5;
+         return (seed & Integer.MAX_VALUE) % bound;
+      }
+   }
+
+   @Benchmark
+   @BenchmarkMode(Mode.SampleTime)
+   @Threads(4)
+   public MarshalledEntry<String, byte[]> randomRead(ThreadRandom random) {
+      return store.load(keys[random.nextInt(numEntries)]);
+   }
+
+   @Benchmark
+   @BenchmarkMode(Mode.Throughput)
+   @Threads(8)
+   public byte[] durableWrite(ThreadRandom random) {
+      return cache.put(keys[random.nextInt(numEntries)], value);
+   }
+
+   private static void delete(File file) {
+      File[] children = file.listFiles();
+      if (children != null) {
+         for (File child : children) {
+            delete(child);
+         }
+      }
+      file.delete();
+   }
+
+   public static void main(String[] args) throws RunnerException {
+      Options options = new OptionsBuilder()
+            .include(SingleFileStoreBenchmark.class.getSimpleName())
+            .build();
+      new Runner(options).run();
+   }
+}
@@ -0,0 +1,124 @@
+package org.infinispan.benchmarks;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.marshall.core.MarshalledEntryFactory;
+import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.persistence.sifs.SoftIndexFileStore;
+import org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfigurationBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of writes straight to a {@link SoftIndexFileStore}, with and without syncing them to disk.
+ * The entries are marshalled up front, so only the store is measured. {@link #main(String[])} runs the benchmark with
+ * 1 to 32 writer threads; from the benchmarks jar the number of threads is set with <tt>-t</tt>.
+ *
+ * @since 7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SoftIndexFileStoreWriteBenchmark {
+
+   private static final String CACHE_NAME = "benchmark";
+   private static final int NUM_KEYS = 1 << 16;
+   private static final int MASK = NUM_KEYS - 1;
+   private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+
+   @Param({"false", "true"})
+   public boolean syncWrites;
+
+   @Param("100")
+   public int valueSize;
+
+   private File location;
+   private DefaultCacheManager cacheManager;
+   private SoftIndexFileStore store;
+   private MarshalledEntry[] entries;
+
+   @Setup
+   public void setup() throws Exception {
+      location = Files.createTempDirectory(CACHE_NAME).toFile();
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.persistence().addStore(SoftIndexFileStoreConfigurationBuilder.class)
+            .dataLocation(new File(location, "data").getPath())
+            .indexLocation(new File(location, "index").getPath())
+            .syncWrites(syncWrites);
+      cacheManager = new DefaultCacheManager(builder.build());
+      Cache<String, byte[]> cache = cacheManager.getCache(CACHE_NAME);
+      PersistenceManager persistenceManager = cache.getAdvancedCache().getComponentRegistry()
+            .getComponent(PersistenceManager.class);
+      store = persistenceManager.getStores(SoftIndexFileStore.class).iterator().next();
+      MarshalledEntryFactory factory = cache.getAdvancedCache().getComponentRegistry()
+            .getComponent(MarshalledEntryFactory.class);
+
+      entries = new MarshalledEntry[NUM_KEYS];
+      byte[] value = new byte[valueSize];
+      for (int i = 0; i < NUM_KEYS; i++) {
+         entries[i] = factory.newMarshalledEntry("key" + i, value, null);
+         // marshall the key and the value before the measurement
+         entries[i].getKeyBytes();
+         entries[i].getValueBytes();
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      cacheManager.stop();
+      delete(location);
+   }
+
+   @State(Scope.Thread)
+   public static class ThreadIndex {
+      int index = (int) Thread.currentThread().getId() * 0x61c88647;
+   }
+
+   @Benchmark
+   public void write(ThreadIndex threadIndex) {
+      store.write(entries[threadIndex.index++ & MASK]);
+   }
+
+   private static void delete(File file) {
+      File[] children = file.listFiles();
+      if (children != null) {
+         for (File child : children) {
+            delete(child);
+         }
+      }
+      file.delete();
+   }
+
+   public static void main(String[] args) throws RunnerException {
+      for (int threads : THREADS) {
+         Options options = new OptionsBuilder()
+               .include(SoftIndexFileStoreWriteBenchmark.class.getSimpleName())
+               .threads(threads)
+               .build();
+         new Runner(options).run();
+      }
+   }
+}
@@ -0,0 +1,147 @@
+package org.infinispan.benchmarks;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the storage modes of a two node replicated cache: values stored as object references, values stored as
+ * binary, and values stored as binary with a cache of deserialized values for local reads.
+ * <p/>
+ * {@link #replicatedPut()} measures the replication throughput of writes from the first node and {@link #backupGet()}
+ * the throughput of reads of a hot subset of the keys on the second node, which only received the values through
+ * replication. The heap retained by
+ * the entries of both nodes is measured while populating the cache and printed to the benchmark output.
+ *
+ * @since 7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class StoreAsBinaryBenchmark {
+
+   private static final String CACHE_NAME = "benchmark";
+   private static final int NUM_KEYS = 1 << 12;
+   private static final int MASK = NUM_KEYS - 1;
+   private static final int HOT_KEYS = NUM_KEYS / 4;
+
+   public enum StorageMode {
+      OBJECT, BINARY, BINARY_CACHED
+   }
+
+   @Param({"OBJECT", "BINARY", "BINARY_CACHED"})
+   public StorageMode storageMode;
+
+   /**
+    * Number of <tt>long</tt> fields of each value.
+    */
+   @Param({"4", "128"})
+   public int valueSize;
+
+   private BenchmarkCluster cluster;
+   private Cache<String, Payload> origin;
+   private Cache<String, Payload> backup;
+   private String[] keys;
+   private Payload[] values;
+   private int index;
+
+   @Setup
+   public void setup() throws InterruptedException {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.clustering().cacheMode(CacheMode.REPL_SYNC);
+      if (storageMode != StorageMode.OBJECT) {
+         builder.storeAsBinary().enable().storeKeysAsBinary(false)
+               .deserializedCacheSize(storageMode == StorageMode.BINARY_CACHED ? HOT_KEYS : 0);
+      }
+      cluster = new BenchmarkCluster(2, CACHE_NAME, builder);
+      origin = cluster.cache(0);
+      backup = cluster.cache(1);
+
+      keys = new String[NUM_KEYS];
+      for (int i = 0; i < NUM_KEYS; i++) {
+         keys[i] = "key" + i;
+      }
+
+      long before = usedHeap();
+      for (int i = 0; i < NUM_KEYS; i++) {
+         origin.put(keys[i], new Payload(i, valueSize));
+      }
+      long after = usedHeap();
+      System.out.printf("%nHeap retained by %d entries with %d long fields stored as %s on both nodes: %d bytes%n",
+                        NUM_KEYS, valueSize, storageMode, after - before);
+
+      values = new Payload[NUM_KEYS];
+      for (int i = 0; i < NUM_KEYS; i++) {
+         values[i] = new Payload(i, valueSize);
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      cluster.stop();
+   }
+
+   private static long usedHeap() {
+      Runtime runtime = Runtime.getRuntime();
+      for (int i = 0; i < 3; i++) {
+         System.gc();
+      }
+      return runtime.totalMemory() - runtime.freeMemory();
+   }
+
+   @Benchmark
+   public Payload replicatedPut() {
+      int i = index++ & MASK;
+      return origin.put(keys[i], values[i]);
+   }
+
+   @Benchmark
+   public Payload backupGet() {
+      return backup.get(keys[index++ & (HOT_KEYS - 1)]);
+   }
+
+   public static class Payload implements Serializable {
+      private static final long serialVersionUID = 2396183425826429411L;
+
+      private final String name;
+      private final long[] fields;
+
+      Payload(int id, int size) {
+         name = "payload" + id;
+         fields = new long[size];
+         Arrays.fill(fields, id);
+      }
+   }
+
+   public static void main(String[] args) throws RunnerException {
+      Options options = new OptionsBuilder()
+            .include(StoreAsBinaryBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+      new Runner(options).run();
+   }
+}
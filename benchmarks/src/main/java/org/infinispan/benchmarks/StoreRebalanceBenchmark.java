@@ -0,0 +1,112 @@
+package org.infinispan.benchmarks;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.SingleFileStoreConfigurationBuilder;
+import org.infinispan.eviction.EvictionStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time it takes for a node to join a <tt>DIST_SYNC</tt> cache whose entries are kept in a
+ * {@link org.infinispan.persistence.file.SingleFileStore}, with only a few of them in memory, until the rebalance is
+ * over. The size of the stored data is <tt>numEntries * valueSize</tt>, e.g. <tt>-p numEntries=50000000 -p
+ * valueSize=1024</tt> for 50 GB.
+ *
+ * @since 7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StoreRebalanceBenchmark {
+
+   private static final String CACHE_NAME = "benchmark";
+   private static final int IN_MEMORY_ENTRIES = 1000;
+
+   @Param("100000")
+   public int numEntries;
+
+   @Param("1024")
+   public int valueSize;
+
+   private File location;
+   private BenchmarkCluster cluster;
+
+   @Setup
+   public void setup() throws Exception {
+      location = Files.createTempDirectory(CACHE_NAME).toFile();
+      cluster = new BenchmarkCluster(1, CACHE_NAME, builder("node0", false));
+      Cache<String, byte[]> cache = cluster.cache(0);
+      byte[] value = new byte[valueSize];
+      for (int i = 0; i < numEntries; i++) {
+         cache.put("key" + i, value);
+      }
+   }
+
+   @TearDown
+   public void tearDown() {
+      cluster.stop();
+      delete(location);
+   }
+
+   @TearDown(Level.Invocation)
+   public void leave() throws InterruptedException {
+      cluster.stopNode(1);
+   }
+
+   @Benchmark
+   public void join() throws InterruptedException {
+      cluster.addNode(builder("node1", true));
+   }
+
+   private ConfigurationBuilder builder(String node, boolean purgeOnStartup) {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.clustering().cacheMode(CacheMode.DIST_SYNC)
+            .stateTransfer().timeout(1, TimeUnit.HOURS);
+      builder.eviction().strategy(EvictionStrategy.LRU).maxEntries(IN_MEMORY_ENTRIES);
+      builder.persistence().addStore(SingleFileStoreConfigurationBuilder.class)
+            .location(new File(location, node).getPath())
+            .purgeOnStartup(purgeOnStartup);
+      return builder;
+   }
+
+   private static void delete(File file) {
+      File[] children = file.listFiles();
+      if (children != null) {
+         for (File child : children) {
+            delete(child);
+         }
+      }
+      file.delete();
+   }
+
+   public static void main(String[] args) throws RunnerException {
+      Options options = new OptionsBuilder()
+            .include(StoreRebalanceBenchmark.class.getSimpleName())
+            .build();
+      new Runner(options).run();
+   }
+}
@@ -0,0 +1,99 @@
+package org.infinispan.benchmarks;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.transaction.TransactionMode;
+import org.infinispan.transaction.impl.RemoteTransaction;
+import org.infinispan.transaction.impl.TransactionTable;
+import org.infinispan.transaction.xa.GlobalTransaction;
+import org.infinispan.transaction.xa.TransactionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the transaction bookkeeping done by the {@link TransactionTable} of the node owning the keys of a
+ * transaction: allocating the {@link GlobalTransaction}, checking that it is not completed and registering it on
+ * prepare, marking it completed and removing it on commit.
+ * <p/>
+ * The completed transactions are forgotten after 5 seconds and the reaper runs every second, so the measurement
+ * includes their cleanup; run with <tt>-t</tt> to pick the number of threads and with <tt>-prof gc</tt> to see the
+ * allocation rate.
+ *
+ * @since 7.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class TransactionTableBenchmark {
+
+   private static final String CACHE_NAME = "benchmark";
+
+   private BenchmarkCluster cluster;
+   private TransactionTable txTable;
+   private TransactionFactory txFactory;
+   private Address originator;
+
+   @Setup
+   public void setup() throws Exception {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.clustering().cacheMode(CacheMode.DIST_SYNC)
+            .transaction().transactionMode(TransactionMode.TRANSACTIONAL)
+            .completedTxTimeout(5000).reaperWakeUpInterval(1000);
+      cluster = new BenchmarkCluster(1, CACHE_NAME, builder);
+      AdvancedCache<Object, Object> cache = cluster.<Object, Object>cache(0).getAdvancedCache();
+      txTable = cache.getComponentRegistry().getComponent(TransactionTable.class);
+      txFactory = cache.getComponentRegistry().getComponent(TransactionFactory.class);
+      originator = cache.getRpcManager().getAddress();
+   }
+
+   @TearDown
+   public void tearDown() {
+      cluster.stop();
+   }
+
+   @Benchmark
+   public GlobalTransaction newGlobalTransaction() {
+      return txFactory.newGlobalTransaction(originator, false);
+   }
+
+   @Benchmark
+   public RemoteTransaction prepareAndCommit() {
+      GlobalTransaction gtx = txFactory.newGlobalTransaction(originator, true);
+      if (txTable.isTransactionCompleted(gtx)) {
+         throw new IllegalStateException("Transaction " + gtx + " already completed");
+      }
+      txTable.getOrCreateRemoteTransaction(gtx, null);
+      txTable.markTransactionCompleted(gtx);
+      return txTable.removeRemoteTransaction(gtx);
+   }
+
+   public static void main(String[] args) throws RunnerException {
+      for (int threads = 1; threads <= 8; threads <<= 1) {
+         Options options = new OptionsBuilder()
+               .include(TransactionTableBenchmark.class.getSimpleName())
+               .threads(threads)
+               .build();
+         new Runner(options).run();
+      }
+   }
+}
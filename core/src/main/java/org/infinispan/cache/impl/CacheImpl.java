@@ -147,6 +147,7 @@
    private PartitionHandlingManager partitionHandlingManager;
    private GlobalConfiguration globalCfg;
    private boolean isClassLoaderInContext;
+   private GetInvocationPool getInvocationPool;
    private EntryRetriever<K, V> entryRetriever;
 
    public CacheImpl(String name) {
@@ -411,6 +412,18 @@ public final V get(Object key) {
    @SuppressWarnings("unchecked")
    final V get(Object key, EnumSet<Flag> explicitFlags, ClassLoader explicitClassLoader) {
       assertKeyNotNull(key);
+      GetInvocationPool pool = getInvocationPool;
+      if (pool != null) {
+         GetInvocationPool.PooledGet pooled = pool.acquire(key, explicitFlags);
+         if (pooled != null) {
+            try {
+               return (V) invoker.invoke(setInvocationContextClassLoader(pooled.ctx, explicitClassLoader),
+                                         pooled.command);
+            } finally {
+               pool.release(pooled);
+            }
+         }
+      }
       InvocationContext ctx = getInvocationContextForRead(explicitClassLoader, 1);
       GetKeyValueCommand command = commandsFactory.buildGetKeyValueCommand(key, explicitFlags, false);
       return (V) invoker.invoke(ctx, command);
@@ -788,6 +801,9 @@ public void start() {
       isClassLoaderInContext = config.clustering().cacheMode().isClustered()
             || config.persistence().usingStores()
             || config.storeAsBinary().enabled();
+      // Non transactional gets always run in a single key context, which can be reused once the invocation is over
+      getInvocationPool = config.transaction().transactionMode().isTransactional() ? null
+            : new GetInvocationPool(invocationContextFactory, commandsFactory);
 
       if (log.isDebugEnabled()) log.debugf("Started cache %s on %s", getName(), getCacheManager().getAddress());
    }
@@ -0,0 +1,70 @@
+package org.infinispan.cache.impl;
+
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.context.Flag;
+import org.infinispan.context.InvocationContextFactory;
+import org.infinispan.context.SingleKeyNonTxInvocationContext;
+
+import java.util.Set;
+
+/**
+ * Per thread invocation context and command reused by the gets of a non transactional cache, so that a read served by
+ * the local data container doesn't allocate them.
+ * <p/>
+ * Each thread owns a single context and command, which are reset before being handed out and cleared when released.
+ * A get invoked while the thread's instances are in use, e.g. by a listener notified during an outer get, is not
+ * given pooled instances and has to allocate its own.
+ *
+ * @since 7.0
+ */
+final class GetInvocationPool {
+
+   private final InvocationContextFactory invocationContextFactory;
+   private final CommandsFactory commandsFactory;
+   private final ThreadLocal<PooledGet> pooledGets = new ThreadLocal<PooledGet>();
+
+   GetInvocationPool(InvocationContextFactory invocationContextFactory, CommandsFactory commandsFactory) {
+      this.invocationContextFactory = invocationContextFactory;
+      this.commandsFactory = commandsFactory;
+   }
+
+   /**
+    * Returns the current thread's context and command, set up to read <tt>key</tt>, or <tt>null</tt> if they are
+    * already used by an invocation on this thread. The returned instances must be handed back through {@link
+    * #release(PooledGet)} once the invocation is over.
+    */
+   PooledGet acquire(Object key, Set<Flag> flags) {
+      PooledGet pooled = pooledGets.get();
+      if (pooled == null) {
+         pooled = new PooledGet(
+               (SingleKeyNonTxInvocationContext) invocationContextFactory.createSingleKeyNonTxInvocationContext(),
+               commandsFactory.buildGetKeyValueCommand(key, flags, false));
+         pooledGets.set(pooled);
+      } else if (pooled.inUse) {
+         return null;
+      } else {
+         pooled.command.reset(key, flags, false);
+      }
+      pooled.inUse = true;
+      return pooled;
+   }
+
+   void release(PooledGet pooled) {
+      pooled.ctx.resetState();
+      pooled.ctx.setClassLoader(null);
+      pooled.command.reset(null, null, false);
+      pooled.inUse = false;
+   }
+
+   static final class PooledGet {
+      final SingleKeyNonTxInvocationContext ctx;
+      final GetKeyValueCommand command;
+      boolean inUse;
+
+      PooledGet(SingleKeyNonTxInvocationContext ctx, GetKeyValueCommand command) {
+         this.ctx = ctx;
+         this.command = command;
+      }
+   }
+}
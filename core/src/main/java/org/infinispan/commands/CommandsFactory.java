@@ -19,6 +19,7 @@
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
+import org.infinispan.commands.remote.DeadlockProbeCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commands.remote.recovery.CompleteTransactionCommand;
@@ -42,6 +43,7 @@
 import org.infinispan.statetransfer.StateRequestCommand;
 import org.infinispan.statetransfer.StateResponseCommand;
 import org.infinispan.remoting.transport.Address;
+import org.infinispan.transaction.xa.DldGlobalTransaction;
 import org.infinispan.transaction.xa.GlobalTransaction;
 import org.infinispan.xsite.SingleXSiteRpcCommand;
 import org.infinispan.xsite.XSiteAdminCommand;
@@ -463,4 +465,19 @@ <K, C> EntryResponseCommand buildEntryResponseCommand(UUID identifier, Set<Integ
     * @return the GetKeysInGroup created.
     */
    GetKeysInGroupCommand buildGetKeysInGroupCommand(Set<Flag> flags, String groupName);
+
+   /**
+    * Builds {@link DeadlockProbeCommand} used to follow the wait-for graph of the deadlock detection on another node.
+    *
+    * @param initiator the transaction that started the probe
+    * @param victim the youngest of the waiting transactions the probe went through
+    * @param victimNode the node where the victim waits
+    * @param target the transaction to follow, or to abort if <tt>abort</tt> is true
+    * @param visited the waiting transactions the probe went through
+    * @param abort true if the command asks to abort the wait of the target rather than to follow it
+    * @return the DeadlockProbeCommand created
+    */
+   DeadlockProbeCommand buildDeadlockProbeCommand(DldGlobalTransaction initiator, DldGlobalTransaction victim,
+                                                  Address victimNode, DldGlobalTransaction target,
+                                                  Set<DldGlobalTransaction> visited, boolean abort);
 }
@@ -22,6 +22,7 @@
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
+import org.infinispan.commands.remote.DeadlockProbeCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commands.remote.recovery.CompleteTransactionCommand;
@@ -482,6 +483,10 @@ public void initializeReplicableCommand(ReplicableCommand c, boolean isRemote) {
             GetKeysInGroupCommand getKeysInGroupCommand = (GetKeysInGroupCommand) c;
             getKeysInGroupCommand.setGroupManager(groupManager);
             break;
+         case DeadlockProbeCommand.COMMAND_ID:
+            DeadlockProbeCommand deadlockProbeCommand = (DeadlockProbeCommand) c;
+            deadlockProbeCommand.init(lockManager);
+            break;
          default:
             ModuleCommandInitializer mci = moduleCommandInitializers.get(c.getCommandId());
             if (mci != null) {
@@ -628,4 +633,11 @@ public <K, C> EntryResponseCommand buildEntryResponseCommand(UUID identifier, Se
    public GetKeysInGroupCommand buildGetKeysInGroupCommand(Set<Flag> flags, String groupName) {
       return new GetKeysInGroupCommand(flags, groupName).setGroupManager(groupManager);
    }
+
+   @Override
+   public DeadlockProbeCommand buildDeadlockProbeCommand(DldGlobalTransaction initiator, DldGlobalTransaction victim,
+                                                         Address victimNode, DldGlobalTransaction target,
+                                                         Set<DldGlobalTransaction> visited, boolean abort) {
+      return new DeadlockProbeCommand(cacheName, initiator, victim, victimNode, target, visited, abort);
+   }
 }
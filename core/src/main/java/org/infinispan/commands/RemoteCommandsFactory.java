@@ -9,6 +9,7 @@
 import org.infinispan.commands.read.ReduceCommand;
 import org.infinispan.commands.remote.CacheRpcCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
+import org.infinispan.commands.remote.DeadlockProbeCommand;
 import org.infinispan.commands.remote.GetKeysInGroupCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
@@ -253,6 +254,9 @@ public CacheRpcCommand fromStream(byte id, Object[] parameters, byte type, Strin
             case EntryResponseCommand.COMMAND_ID:
                command = new EntryResponseCommand(cacheName);
                break;
+            case DeadlockProbeCommand.COMMAND_ID:
+               command = new DeadlockProbeCommand(cacheName);
+               break;
             default:
                throw new CacheException("Unknown command id " + id + "!");
          }
@@ -39,6 +39,18 @@ public GetKeyValueCommand(Object key, Set<Flag> flags, boolean returnEntry, Inte
    public GetKeyValueCommand() {
    }
 
+   /**
+    * Prepares this command to be invoked again, for another key, as if it had just been created with these parameters.
+    * The command must not be used by any other invocation when it's reset.
+    */
+   public void reset(Object key, Set<Flag> flags, boolean returnEntry) {
+      this.key = key;
+      this.flags = flags;
+      this.returnEntry = returnEntry;
+      this.remotelyFetchedValue = null;
+      setTopologyId(-1);
+   }
+
    @Override
    public Object acceptVisitor(InvocationContext ctx, Visitor visitor) throws Throwable {
       return visitor.visitGetKeyValueCommand(ctx, this);
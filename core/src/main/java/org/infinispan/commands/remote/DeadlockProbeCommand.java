@@ -0,0 +1,167 @@
+package org.infinispan.commands.remote;
+
+import org.infinispan.context.InvocationContext;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.transaction.xa.DldGlobalTransaction;
+import org.infinispan.util.concurrent.locks.DeadlockDetectingLockManager;
+import org.infinispan.util.concurrent.locks.LockManager;
+
+import java.util.Set;
+
+/**
+ * Carries a deadlock detection probe along the edges of the wait-for graph that span several nodes, or asks the node
+ * where the transaction chosen as the victim of a deadlock waits to abort its wait.
+ *
+ * @see DeadlockDetectingLockManager
+ * @since 7.0
+ */
+public class DeadlockProbeCommand extends BaseRpcCommand {
+
+   public static final byte COMMAND_ID = 44;
+
+   private DldGlobalTransaction initiator;
+   private DldGlobalTransaction victim;
+   private Address victimNode;
+   private DldGlobalTransaction target;
+   private Set<DldGlobalTransaction> visited;
+   private boolean abort;
+   private LockManager lockManager;
+
+   private DeadlockProbeCommand() {
+      super(null); // For command id uniqueness test
+   }
+
+   public DeadlockProbeCommand(String cacheName) {
+      super(cacheName);
+   }
+
+   public DeadlockProbeCommand(String cacheName, DldGlobalTransaction initiator, DldGlobalTransaction victim,
+                               Address victimNode, DldGlobalTransaction target, Set<DldGlobalTransaction> visited,
+                               boolean abort) {
+      super(cacheName);
+      this.initiator = initiator;
+      this.victim = victim;
+      this.victimNode = victimNode;
+      this.target = target;
+      this.visited = visited;
+      this.abort = abort;
+   }
+
+   public void init(LockManager lockManager) {
+      this.lockManager = lockManager;
+   }
+
+   @Override
+   public Object perform(InvocationContext ctx) throws Throwable {
+      // the lock manager is a different one if deadlock detection is disabled on this node
+      if (lockManager instanceof DeadlockDetectingLockManager) {
+         ((DeadlockDetectingLockManager) lockManager).handleProbe(this);
+      }
+      return null;
+   }
+
+   /**
+    * @return the transaction that started the probe, which is in a deadlock if the probe comes back to it
+    */
+   public DldGlobalTransaction getInitiator() {
+      return initiator;
+   }
+
+   /**
+    * @return the youngest of the waiting transactions the probe went through
+    */
+   public DldGlobalTransaction getVictim() {
+      return victim;
+   }
+
+   /**
+    * @return the node where the victim waits for a lock
+    */
+   public Address getVictimNode() {
+      return victimNode;
+   }
+
+   /**
+    * @return the transaction the probe is sent for, or the transaction to abort if {@link #isAbort()}
+    */
+   public DldGlobalTransaction getTarget() {
+      return target;
+   }
+
+   /**
+    * @return the waiting transactions the probe went through
+    */
+   public Set<DldGlobalTransaction> getVisited() {
+      return visited;
+   }
+
+   public boolean isAbort() {
+      return abort;
+   }
+
+   @Override
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   @Override
+   public Object[] getParameters() {
+      return new Object[]{initiator, victim, victimNode, target, visited, abort};
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public void setParameters(int commandId, Object[] parameters) {
+      if (commandId != COMMAND_ID)
+         throw new IllegalStateException("Invalid method id " + commandId + " but "
+                                               + this.getClass() + " has id " + getCommandId());
+      int i = 0;
+      initiator = (DldGlobalTransaction) parameters[i++];
+      victim = (DldGlobalTransaction) parameters[i++];
+      victimNode = (Address) parameters[i++];
+      target = (DldGlobalTransaction) parameters[i++];
+      visited = (Set<DldGlobalTransaction>) parameters[i++];
+      abort = (Boolean) parameters[i++];
+   }
+
+   @Override
+   public boolean isReturnValueExpected() {
+      return false;
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof DeadlockProbeCommand)) return false;
+
+      DeadlockProbeCommand that = (DeadlockProbeCommand) o;
+
+      if (abort != that.abort) return false;
+      if (initiator != null ? !initiator.equals(that.initiator) : that.initiator != null) return false;
+      if (target != null ? !target.equals(that.target) : that.target != null) return false;
+      if (victim != null ? !victim.equals(that.victim) : that.victim != null) return false;
+      return true;
+   }
+
+   @Override
+   public int hashCode() {
+      int result = initiator != null ? initiator.hashCode() : 0;
+      result = 31 * result + (target != null ? target.hashCode() : 0);
+      result = 31 * result + (victim != null ? victim.hashCode() : 0);
+      result = 31 * result + (abort ? 1 : 0);
+      return result;
+   }
+
+   @Override
+   public String toString() {
+      return "DeadlockProbeCommand{" +
+            "initiator=" + initiator +
+            ", victim=" + victim +
+            ", victimNode=" + victimNode +
+            ", target=" + target +
+            ", visited=" + visited +
+            ", abort=" + abort +
+            ", cacheName='" + cacheName + '\'' +
+            '}';
+   }
+}
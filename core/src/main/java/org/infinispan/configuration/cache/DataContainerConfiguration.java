@@ -16,14 +16,18 @@ public class DataContainerConfiguration extends AbstractTypedPropertiesConfigura
    private final DataContainer dataContainer;
    private final Equivalence keyEquivalence;
    private final Equivalence valueEquivalence;
+   private final StorageType storageType;
+   private final int addressCount;
 
    DataContainerConfiguration(DataContainer dataContainer,
          TypedProperties properties, Equivalence keyEquivalence,
-         Equivalence valueEquivalence) {
+         Equivalence valueEquivalence, StorageType storageType, int addressCount) {
       super(properties);
       this.dataContainer = dataContainer;
       this.keyEquivalence = keyEquivalence;
       this.valueEquivalence = valueEquivalence;
+      this.storageType = storageType;
+      this.addressCount = addressCount;
    }
    
    /**
@@ -44,12 +48,29 @@ public <V> Equivalence<V> valueEquivalence() {
       return valueEquivalence;
    }
 
+   /**
+    * How entries are stored by the default data container
+    */
+   public StorageType storageType() {
+      return storageType;
+   }
+
+   /**
+    * Number of hash buckets of the off-heap index. Only used when {@link #storageType()} is
+    * {@link StorageType#OFF_HEAP}.
+    */
+   public int addressCount() {
+      return addressCount;
+   }
+
    @Override
    public String toString() {
       return "DataContainerConfiguration{" +
             "dataContainer=" + dataContainer +
             ", keyEquivalence=" + keyEquivalence +
             ", valueEquivalence=" + valueEquivalence +
+            ", storageType=" + storageType +
+            ", addressCount=" + addressCount +
             '}';
    }
 
@@ -67,6 +88,10 @@ public boolean equals(Object o) {
          return false;
       if (valueEquivalence != null ? !valueEquivalence.equals(that.valueEquivalence) : that.valueEquivalence != null)
          return false;
+      if (storageType != that.storageType)
+         return false;
+      if (addressCount != that.addressCount)
+         return false;
 
       return true;
    }
@@ -77,6 +102,8 @@ public int hashCode() {
       result = 31 * result + (dataContainer != null ? dataContainer.hashCode() : 0);
       result = 31 * result + (keyEquivalence != null ? keyEquivalence.hashCode() : 0);
       result = 31 * result + (valueEquivalence != null ? valueEquivalence.hashCode() : 0);
+      result = 31 * result + (storageType != null ? storageType.hashCode() : 0);
+      result = 31 * result + addressCount;
       return result;
    }
 
@@ -2,6 +2,7 @@
 
 import java.util.Properties;
 
+import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.commons.equivalence.AnyEquivalence;
 import org.infinispan.commons.equivalence.Equivalence;
@@ -21,6 +22,8 @@ public class DataContainerConfigurationBuilder extends AbstractConfigurationChil
    private DataContainer dataContainer;
    private Equivalence keyEquivalence = AnyEquivalence.getInstance();
    private Equivalence valueEquivalence = AnyEquivalence.getInstance();
+   private StorageType storageType = StorageType.OBJECT;
+   private int addressCount = 1 << 20;
    // TODO: What are properties used for? Is it just legacy?
    private Properties properties = new Properties();
 
@@ -76,6 +79,10 @@ public <K> DataContainerConfigurationBuilder keyEquivalence(Equivalence<K> keyEq
       return this;
    }
 
+   Equivalence<?> keyEquivalence() {
+      return keyEquivalence;
+   }
+
    /**
     * Set the {@link org.infinispan.commons.equivalence.Equivalence} instance to use to compare values stored in
     * data container. {@link org.infinispan.commons.equivalence.Equivalence} implementations allow for custom
@@ -91,8 +98,48 @@ public <V> DataContainerConfigurationBuilder valueEquivalence(Equivalence<V> val
       return this;
    }
 
+   /**
+    * Specify how entries are stored by the default data container. {@link StorageType#OFF_HEAP} keeps marshalled
+    * entries in native memory, which reduces garbage collection pressure for large data sets at the cost of
+    * unmarshalling entries on every read. Off-heap storage cannot be combined with eviction or with a custom key
+    * equivalence.
+    *
+    * @param storageType the storage type to use
+    * @return this configuration builder
+    */
+   public DataContainerConfigurationBuilder storageType(StorageType storageType) {
+      this.storageType = storageType;
+      return this;
+   }
+
+   /**
+    * Number of hash buckets used by the off-heap index. The value is rounded up to the next power of two. The
+    * index is allocated up front and never resized, so it should be in the order of magnitude of the expected
+    * number of entries. Defaults to 1048576.
+    *
+    * @param addressCount number of hash buckets
+    * @return this configuration builder
+    */
+   public DataContainerConfigurationBuilder addressCount(int addressCount) {
+      this.addressCount = addressCount;
+      return this;
+   }
+
    @Override
    public void validate() {
+      if (storageType == StorageType.OFF_HEAP) {
+         if (addressCount <= 0)
+            throw new CacheConfigurationException("Off-heap address count must be greater than zero");
+         if (dataContainer != null)
+            throw new CacheConfigurationException("A custom data container cannot be used together with " + storageType + " storage");
+         if (!(keyEquivalence instanceof AnyEquivalence))
+            throw new CacheConfigurationException("The keys of " + storageType + " storage are compared in their marshalled form, so the key equivalence "
+                  + keyEquivalence + " cannot be used");
+         EvictionConfigurationBuilder eviction = getBuilder().eviction();
+         if (eviction.strategy().isEnabled() || eviction.maxEntries() > 0 || eviction.maxMemory() > 0)
+            throw new CacheConfigurationException("Eviction (strategy " + eviction.strategy() + ", maxEntries " + eviction.maxEntries()
+                  + ", maxMemory " + eviction.maxMemory() + ") is not supported with " + storageType + " storage");
+      }
    }
 
    @Override
@@ -103,7 +150,7 @@ public void validate(GlobalConfiguration globalConfig) {
    public DataContainerConfiguration create() {
       return new DataContainerConfiguration(dataContainer,
             TypedProperties.toTypedProperties(properties), keyEquivalence,
-            valueEquivalence);
+            valueEquivalence, storageType, addressCount);
    }
 
    @Override
@@ -112,6 +159,8 @@ public DataContainerConfigurationBuilder read(DataContainerConfiguration templat
       this.properties = template.properties();
       this.keyEquivalence = template.keyEquivalence();
       this.valueEquivalence = template.valueEquivalence();
+      this.storageType = template.storageType();
+      this.addressCount = template.addressCount();
 
       return this;
    }
@@ -123,6 +172,8 @@ public String toString() {
             ", properties=" + properties +
             ", keyEquivalence=" + keyEquivalence +
             ", valueEquivalence=" + valueEquivalence +
+            ", storageType=" + storageType +
+            ", addressCount=" + addressCount +
             '}';
    }
 }
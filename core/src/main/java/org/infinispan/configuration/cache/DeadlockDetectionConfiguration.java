@@ -14,8 +14,8 @@ public class DeadlockDetectionConfiguration {
    }
    
    /**
-    * Time period that determines how often is lock acquisition attempted within maximum time
-    * allowed to acquire a particular lock
+    * Time period after which a transaction still waiting for a lock runs the deadlock detection again. The period
+    * doubles after every run, so that a long wait doesn't keep the detection busy.
     */
    public long spinDuration() {
       return spinDuration;
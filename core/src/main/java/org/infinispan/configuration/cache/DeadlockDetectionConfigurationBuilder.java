@@ -18,8 +18,8 @@ public class DeadlockDetectionConfigurationBuilder extends AbstractConfiguration
    }
 
    /**
-    * Time period that determines how often is lock acquisition attempted within maximum time
-    * allowed to acquire a particular lock
+    * Time period after which a transaction still waiting for a lock runs the deadlock detection again. The period
+    * doubles after every run, so that a long wait doesn't keep the detection busy.
     */
    public DeadlockDetectionConfigurationBuilder spinDuration(long l) {
       this.spinDuration = l;
@@ -27,8 +27,8 @@ public DeadlockDetectionConfigurationBuilder spinDuration(long l) {
    }
 
    /**
-    * Time period that determines how often is lock acquisition attempted within maximum time
-    * allowed to acquire a particular lock
+    * Time period after which a transaction still waiting for a lock runs the deadlock detection again. The period
+    * doubles after every run, so that a long wait doesn't keep the detection busy.
     */
    public DeadlockDetectionConfigurationBuilder spinDuration(long l, TimeUnit unit) {
       return spinDuration(unit.toMillis(l));
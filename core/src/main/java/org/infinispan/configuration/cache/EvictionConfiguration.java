@@ -1,7 +1,9 @@
 package org.infinispan.configuration.cache;
 
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.eviction.EvictionType;
 
 /**
  * Controls the eviction settings for the cache.
@@ -11,11 +13,18 @@ public class EvictionConfiguration {
    private final int maxEntries;
    private final EvictionStrategy strategy;
    private final EvictionThreadPolicy threadPolicy;
-   
-   EvictionConfiguration(int maxEntries, EvictionStrategy strategy, EvictionThreadPolicy threadPolicy) {
+   private final EvictionType type;
+   private final long maxMemory;
+   private final EntrySizeCalculator sizeCalculator;
+
+   EvictionConfiguration(int maxEntries, EvictionStrategy strategy, EvictionThreadPolicy threadPolicy,
+                         EvictionType type, long maxMemory, EntrySizeCalculator sizeCalculator) {
       this.maxEntries = maxEntries;
       this.strategy = strategy;
       this.threadPolicy = threadPolicy;
+      this.type = type;
+      this.maxMemory = maxMemory;
+      this.sizeCalculator = sizeCalculator;
    }
    
    /**
@@ -42,12 +51,39 @@ public int maxEntries() {
       return maxEntries;
    }
 
+   /**
+    * Whether the cache is bounded by number of entries or by memory footprint.
+    */
+   public EvictionType type() {
+      return type;
+   }
+
+   /**
+    * Maximum estimated memory footprint, in bytes, of the entries of a cache instance. Only used when
+    * {@link #type()} is {@link EvictionType#MEMORY}.
+    */
+   public long maxMemory() {
+      return maxMemory;
+   }
+
+   /**
+    * The calculator used to estimate the memory footprint of entries, or null to use the marshalled size of keys
+    * and values. Only used when {@link #type()} is {@link EvictionType#MEMORY}.
+    */
+   @SuppressWarnings("unchecked")
+   public <K, V> EntrySizeCalculator<K, V> sizeCalculator() {
+      return sizeCalculator;
+   }
+
    @Override
    public String toString() {
       return "EvictionConfiguration{" +
             "maxEntries=" + maxEntries +
             ", strategy=" + strategy +
             ", threadPolicy=" + threadPolicy +
+            ", type=" + type +
+            ", maxMemory=" + maxMemory +
+            ", sizeCalculator=" + sizeCalculator +
             '}';
    }
 
@@ -61,6 +97,9 @@ public boolean equals(Object o) {
       if (maxEntries != that.maxEntries) return false;
       if (strategy != that.strategy) return false;
       if (threadPolicy != that.threadPolicy) return false;
+      if (type != that.type) return false;
+      if (maxMemory != that.maxMemory) return false;
+      if (sizeCalculator != null ? !sizeCalculator.equals(that.sizeCalculator) : that.sizeCalculator != null) return false;
 
       return true;
    }
@@ -70,6 +109,9 @@ public int hashCode() {
       int result = maxEntries;
       result = 31 * result + (strategy != null ? strategy.hashCode() : 0);
       result = 31 * result + (threadPolicy != null ? threadPolicy.hashCode() : 0);
+      result = 31 * result + (type != null ? type.hashCode() : 0);
+      result = 31 * result + (int) (maxMemory ^ (maxMemory >>> 32));
+      result = 31 * result + (sizeCalculator != null ? sizeCalculator.hashCode() : 0);
       return result;
    }
 
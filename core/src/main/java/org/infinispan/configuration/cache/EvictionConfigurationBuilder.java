@@ -3,8 +3,10 @@
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.configuration.global.GlobalConfiguration;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.eviction.EvictionType;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -18,6 +20,9 @@ public class EvictionConfigurationBuilder extends AbstractConfigurationChildBuil
    private int maxEntries = -1;
    private EvictionStrategy strategy = EvictionStrategy.NONE;
    private EvictionThreadPolicy threadPolicy = EvictionThreadPolicy.DEFAULT;
+   private EvictionType type = EvictionType.COUNT;
+   private long maxMemory = -1;
+   private EntrySizeCalculator sizeCalculator;
 
    EvictionConfigurationBuilder(ConfigurationBuilder builder) {
       super(builder);
@@ -61,17 +66,73 @@ public EvictionConfigurationBuilder maxEntries(int maxEntries) {
       return this;
    }
 
+   int maxEntries() {
+      return maxEntries;
+   }
+
+   /**
+    * Whether the cache is bounded by number of entries ({@link EvictionType#COUNT}, the default) or by the estimated
+    * memory footprint of its entries ({@link EvictionType#MEMORY}). With memory based eviction, {@link #maxEntries(int)}
+    * is optional and, when set, is used to size the container and as an additional bound.
+    *
+    * @param type
+    */
+   public EvictionConfigurationBuilder type(EvictionType type) {
+      this.type = type;
+      return this;
+   }
+
+   EvictionType type() {
+      return type;
+   }
+
+   /**
+    * Maximum estimated memory footprint, in bytes, of the entries in a cache instance. Only used with
+    * {@link EvictionType#MEMORY} eviction. As with entry count bounds, the bound applies per segment of the data
+    * container, so the actual footprint may be slightly below the configured value when entries are evicted.
+    *
+    * @param maxMemory
+    */
+   public EvictionConfigurationBuilder maxMemory(long maxMemory) {
+      this.maxMemory = maxMemory;
+      return this;
+   }
+
+   long maxMemory() {
+      return maxMemory;
+   }
+
+   /**
+    * Sets the {@link EntrySizeCalculator} used to estimate the memory footprint of entries with
+    * {@link EvictionType#MEMORY} eviction. If not set, the marshalled size of keys and values is used.
+    *
+    * @param sizeCalculator
+    */
+   public <K, V> EvictionConfigurationBuilder sizeCalculator(EntrySizeCalculator<K, V> sizeCalculator) {
+      this.sizeCalculator = sizeCalculator;
+      return this;
+   }
+
    @Override
    public void validate() {
       if (!strategy.isEnabled() && getBuilder().persistence().passivation())
          log.passivationWithoutEviction();
       if(strategy == EvictionStrategy.FIFO)
          log.warnFifoStrategyIsDeprecated();
-      if (strategy.isEnabled() && maxEntries <= 0)
-         throw new CacheConfigurationException("Eviction maxEntries value cannot be less than or equal to zero if eviction is enabled");
-      if (maxEntries > 0 && !strategy.isEnabled()) {
-         strategy = EvictionStrategy.LIRS;
-         log.debugf("Max entries configured (%d) without eviction strategy. Eviction strategy overriden to %s", maxEntries, strategy);
+      if (type == EvictionType.MEMORY) {
+         if (strategy.isEnabled() && maxMemory <= 0)
+            throw new CacheConfigurationException("Eviction maxMemory value cannot be less than or equal to zero if memory based eviction is enabled");
+         if (maxMemory > 0 && !strategy.isEnabled()) {
+            strategy = EvictionStrategy.LIRS;
+            log.debugf("Max memory configured (%d) without eviction strategy. Eviction strategy overriden to %s", maxMemory, strategy);
+         }
+      } else {
+         if (strategy.isEnabled() && maxEntries <= 0)
+            throw new CacheConfigurationException("Eviction maxEntries value cannot be less than or equal to zero if eviction is enabled");
+         if (maxEntries > 0 && !strategy.isEnabled()) {
+            strategy = EvictionStrategy.LIRS;
+            log.debugf("Max entries configured (%d) without eviction strategy. Eviction strategy overriden to %s", maxEntries, strategy);
+         }
       }
    }
 
@@ -81,7 +142,7 @@ public void validate(GlobalConfiguration globalConfig) {
 
    @Override
    public EvictionConfiguration create() {
-      return new EvictionConfiguration(maxEntries, strategy, threadPolicy);
+      return new EvictionConfiguration(maxEntries, strategy, threadPolicy, type, maxMemory, sizeCalculator);
    }
 
    @Override
@@ -89,6 +150,9 @@ public EvictionConfigurationBuilder read(EvictionConfiguration template) {
       this.maxEntries = template.maxEntries();
       this.strategy = template.strategy();
       this.threadPolicy = template.threadPolicy();
+      this.type = template.type();
+      this.maxMemory = template.maxMemory();
+      this.sizeCalculator = template.sizeCalculator();
 
       return this;
    }
@@ -99,6 +163,9 @@ public String toString() {
             "maxEntries=" + maxEntries +
             ", strategy=" + strategy +
             ", threadPolicy=" + threadPolicy +
+            ", type=" + type +
+            ", maxMemory=" + maxMemory +
+            ", sizeCalculator=" + sizeCalculator +
             '}';
    }
 }
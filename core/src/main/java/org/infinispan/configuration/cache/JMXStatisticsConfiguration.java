@@ -9,24 +9,35 @@
 public class JMXStatisticsConfiguration {
 
    private final boolean enabled;
+   private final boolean interceptorTimings;
 
    /**
     * Enable or disable statistics gathering and reporting
     * 
     * @param enabled
+    * @param interceptorTimings
     */
-   JMXStatisticsConfiguration(boolean enabled) {
+   JMXStatisticsConfiguration(boolean enabled, boolean interceptorTimings) {
       this.enabled = enabled;
+      this.interceptorTimings = interceptorTimings;
    }
    
    public boolean enabled() {
       return enabled;
    }
 
+   /**
+    * Whether the time spent in each interceptor is recorded, per command type.
+    */
+   public boolean interceptorTimings() {
+      return interceptorTimings;
+   }
+
    @Override
    public String toString() {
       return "JMXStatisticsConfiguration{" +
             "enabled=" + enabled +
+            ", interceptorTimings=" + interceptorTimings +
             '}';
    }
 
@@ -38,13 +49,16 @@ public boolean equals(Object o) {
       JMXStatisticsConfiguration that = (JMXStatisticsConfiguration) o;
 
       if (enabled != that.enabled) return false;
+      if (interceptorTimings != that.interceptorTimings) return false;
 
       return true;
    }
 
    @Override
    public int hashCode() {
-      return (enabled ? 1 : 0);
+      int result = (enabled ? 1 : 0);
+      result = 31 * result + (interceptorTimings ? 1 : 0);
+      return result;
    }
 
 }
@@ -12,6 +12,7 @@
 public class JMXStatisticsConfigurationBuilder extends AbstractConfigurationChildBuilder implements Builder<JMXStatisticsConfiguration> {
 
    private boolean enabled = false;
+   private boolean interceptorTimings = false;
 
    JMXStatisticsConfigurationBuilder(ConfigurationBuilder builder) {
       super(builder);
@@ -41,6 +42,16 @@ public JMXStatisticsConfigurationBuilder enabled(boolean enabled) {
       return this;
    }
 
+   /**
+    * Records the time spent in each interceptor, excluding the interceptors it invokes, per command type, and exposes
+    * it through the <tt>InterceptorTimings</tt> component. Each interceptor invocation is then timed, so this is meant
+    * to find which interceptor makes an operation slow rather than to be always enabled.
+    */
+   public JMXStatisticsConfigurationBuilder interceptorTimings(boolean interceptorTimings) {
+      this.interceptorTimings = interceptorTimings;
+      return this;
+   }
+
    @Override
    public void validate() {
    }
@@ -51,12 +62,13 @@ public void validate(GlobalConfiguration globalConfig) {
 
    @Override
    public JMXStatisticsConfiguration create() {
-      return new JMXStatisticsConfiguration(enabled);
+      return new JMXStatisticsConfiguration(enabled, interceptorTimings);
    }
 
    @Override
    public JMXStatisticsConfigurationBuilder read(JMXStatisticsConfiguration template) {
       this.enabled = template.enabled();
+      this.interceptorTimings = template.interceptorTimings();
 
       return this;
    }
@@ -65,6 +77,7 @@ public JMXStatisticsConfigurationBuilder read(JMXStatisticsConfiguration templat
    public String toString() {
       return "JMXStatisticsConfigurationBuilder{" +
             "enabled=" + enabled +
+            ", interceptorTimings=" + interceptorTimings +
             '}';
    }
 }
@@ -22,14 +22,24 @@ public class SingleFileStoreConfiguration extends AbstractStoreConfiguration {
 
    private final float fragmentationFactor;
 
+   private final boolean memoryMappedReads;
+
+   private final boolean syncWrites;
+
+   private final boolean offHeapIndex;
+
    public SingleFileStoreConfiguration(boolean purgeOnStartup, boolean fetchPersistentState,
                                        boolean ignoreModifications, AsyncStoreConfiguration async,
                                        SingletonStoreConfiguration singletonStore, boolean preload, boolean shared,
-                                       Properties properties, String location, int maxEntries, float fragmentationFactor) {
+                                       Properties properties, String location, int maxEntries, float fragmentationFactor,
+                                       boolean memoryMappedReads, boolean syncWrites, boolean offHeapIndex) {
       super(purgeOnStartup, fetchPersistentState, ignoreModifications, async, singletonStore, preload, shared, properties);
       this.location = location;
       this.maxEntries = maxEntries;
       this.fragmentationFactor  = fragmentationFactor;
+      this.memoryMappedReads = memoryMappedReads;
+      this.syncWrites = syncWrites;
+      this.offHeapIndex = offHeapIndex;
    }
 
    public String location() {
@@ -44,6 +54,18 @@ public float fragmentationFactor () {
       return fragmentationFactor;
    }
 
+   public boolean memoryMappedReads() {
+      return memoryMappedReads;
+   }
+
+   public boolean syncWrites() {
+      return syncWrites;
+   }
+
+   public boolean offHeapIndex() {
+      return offHeapIndex;
+   }
+
    @Override
    public boolean equals(Object o) {
       if (this == o) return true;
@@ -56,6 +78,9 @@ public boolean equals(Object o) {
       if (location != null ? !location.equals(that.location) : that.location != null)
          return false;
       if (fragmentationFactor  != that.fragmentationFactor) return false;
+      if (memoryMappedReads != that.memoryMappedReads) return false;
+      if (syncWrites != that.syncWrites) return false;
+      if (offHeapIndex != that.offHeapIndex) return false;
 
       return true;
    }
@@ -66,6 +91,9 @@ public int hashCode() {
       result = 31 * result + (location != null ? location.hashCode() : 0);
       result = 31 * result + maxEntries;
       result = 31 * result + Float.floatToIntBits(fragmentationFactor);
+      result = 31 * result + (memoryMappedReads ? 1 : 0);
+      result = 31 * result + (syncWrites ? 1 : 0);
+      result = 31 * result + (offHeapIndex ? 1 : 0);
       return result;
    }
 
@@ -75,6 +103,9 @@ public String toString() {
             "location='" + location + '\'' +
             ", maxEntries=" + maxEntries +
             ", fragmentationFactor =" + fragmentationFactor  +
+            ", memoryMappedReads=" + memoryMappedReads +
+            ", syncWrites=" + syncWrites +
+            ", offHeapIndex=" + offHeapIndex +
             '}';
    }
 
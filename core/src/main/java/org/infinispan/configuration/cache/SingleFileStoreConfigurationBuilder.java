@@ -1,6 +1,9 @@
 package org.infinispan.configuration.cache;
 
+import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.configuration.Builder;
+import org.infinispan.commons.equivalence.AnyEquivalence;
+import org.infinispan.commons.equivalence.Equivalence;
 
 /**
  * Single file cache store configuration builder.
@@ -17,6 +20,12 @@
 
    private float fragmentationFactor  = 0.75f;
 
+   private boolean memoryMappedReads = false;
+
+   private boolean syncWrites = false;
+
+   private boolean offHeapIndex = false;
+
    public SingleFileStoreConfigurationBuilder(PersistenceConfigurationBuilder builder) {
       super(builder);
    }
@@ -69,11 +78,55 @@ public SingleFileStoreConfigurationBuilder fragmentationFactor(float fragmentati
       return this;
    }
 
+   /**
+    * If true, the entries are read through memory mappings of the data file instead of positional reads from the file
+    * channel, saving a system call per read once the pages are cached. The file is mapped in regions of up to 1 GB of
+    * address space, so this mainly makes sense on 64-bit JVMs. It is ignored on Windows, where a mapped file cannot be
+    * truncated. Defaults to false.
+    */
+   public SingleFileStoreConfigurationBuilder memoryMappedReads(boolean memoryMappedReads) {
+      this.memoryMappedReads = memoryMappedReads;
+      return this;
+   }
+
+   /**
+    * If true, writes and removals only return once they have been forced to the disk. Concurrent writers are grouped
+    * so that a single sync makes the modifications of all of them durable. Defaults to false, leaving the flushing to
+    * the operating system.
+    */
+   public SingleFileStoreConfigurationBuilder syncWrites(boolean syncWrites) {
+      this.syncWrites = syncWrites;
+      return this;
+   }
+
+   /**
+    * If true, the index of the keys and their position in the file is kept in native memory, outside of the Java
+    * heap, with the keys in their marshalled form. Lookups then require the keys to marshall deterministically, and
+    * iterations unmarshall the keys. Cannot be combined with {@link #maxEntries(int)} or with a custom key
+    * equivalence. Defaults to false.
+    */
+   public SingleFileStoreConfigurationBuilder offHeapIndex(boolean offHeapIndex) {
+      this.offHeapIndex = offHeapIndex;
+      return this;
+   }
+
+   @Override
+   public void validate() {
+      super.validate();
+      if (offHeapIndex && maxEntries > 0)
+         throw new CacheConfigurationException("The off-heap index of the single file store cannot be bounded by maxEntries");
+      Equivalence<?> keyEquivalence = dataContainer().keyEquivalence();
+      if (offHeapIndex && !(keyEquivalence instanceof AnyEquivalence))
+         throw new CacheConfigurationException("The off-heap index of the single file store compares the keys in their marshalled form, so the key equivalence "
+               + keyEquivalence + " cannot be used");
+   }
+
    @Override
    public SingleFileStoreConfiguration create() {
       return new SingleFileStoreConfiguration(purgeOnStartup, fetchPersistentState,ignoreModifications,
                                                     async.create(), singletonStore.create(), preload,
-                                                    shared, properties, location, maxEntries, fragmentationFactor);
+                                                    shared, properties, location, maxEntries, fragmentationFactor,
+                                                    memoryMappedReads, syncWrites, offHeapIndex);
    }
 
    @Override
@@ -84,6 +137,9 @@ public Builder<?> read(SingleFileStoreConfiguration template) {
       location = template.location();
       maxEntries = template.maxEntries();
       fragmentationFactor  = template.fragmentationFactor();
+      memoryMappedReads = template.memoryMappedReads();
+      syncWrites = template.syncWrites();
+      offHeapIndex = template.offHeapIndex();
 
       return this;
    }
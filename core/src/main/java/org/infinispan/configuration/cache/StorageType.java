@@ -0,0 +1,18 @@
+package org.infinispan.configuration.cache;
+
+/**
+ * Enumeration defining how entries are stored by the default data container.
+ *
+ * @since 7.0
+ */
+public enum StorageType {
+   /**
+    * Entries are stored in the Java heap as {@link org.infinispan.container.entries.InternalCacheEntry} instances.
+    */
+   OBJECT,
+   /**
+    * Keys, values and metadata are marshalled and stored in native memory outside of the Java heap. Entries are
+    * unmarshalled whenever they are read.
+    */
+   OFF_HEAP
+}
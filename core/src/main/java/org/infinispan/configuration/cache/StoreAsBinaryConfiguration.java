@@ -16,11 +16,14 @@ public class StoreAsBinaryConfiguration {
    private boolean enabled;
    private final boolean storeKeysAsBinary;
    private final boolean storeValuesAsBinary;
+   private final int deserializedCacheSize;
 
-   StoreAsBinaryConfiguration(boolean enabled, boolean storeKeysAsBinary, boolean storeValuesAsBinary) {
+   StoreAsBinaryConfiguration(boolean enabled, boolean storeKeysAsBinary, boolean storeValuesAsBinary,
+                              int deserializedCacheSize) {
       this.enabled = enabled;
       this.storeKeysAsBinary = storeKeysAsBinary;
       this.storeValuesAsBinary = storeValuesAsBinary;
+      this.deserializedCacheSize = deserializedCacheSize;
    }
 
    /**
@@ -49,6 +52,14 @@ public boolean storeValuesAsBinary() {
       return storeValuesAsBinary;
    }
 
+   /**
+    * Maximum number of deserialized values each node keeps for local reads of values stored as binary, or 0 if values
+    * are deserialized on every read.
+    */
+   public int deserializedCacheSize() {
+      return deserializedCacheSize;
+   }
+
    /**
     * Enables defensive copies.
     *
@@ -65,6 +76,7 @@ public String toString() {
             "enabled=" + enabled +
             ", storeKeysAsBinary=" + storeKeysAsBinary +
             ", storeValuesAsBinary=" + storeValuesAsBinary +
+            ", deserializedCacheSize=" + deserializedCacheSize +
             '}';
    }
 
@@ -78,6 +90,7 @@ public boolean equals(Object o) {
       if (enabled != that.enabled) return false;
       if (storeKeysAsBinary != that.storeKeysAsBinary) return false;
       if (storeValuesAsBinary != that.storeValuesAsBinary) return false;
+      if (deserializedCacheSize != that.deserializedCacheSize) return false;
 
       return true;
    }
@@ -87,6 +100,7 @@ public int hashCode() {
       int result = (enabled ? 1 : 0);
       result = 31 * result + (storeKeysAsBinary ? 1 : 0);
       result = 31 * result + (storeValuesAsBinary ? 1 : 0);
+      result = 31 * result + deserializedCacheSize;
       return result;
    }
 
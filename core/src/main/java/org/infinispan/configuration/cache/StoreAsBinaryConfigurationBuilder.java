@@ -1,5 +1,6 @@
 package org.infinispan.configuration.cache;
 
+import org.infinispan.commons.CacheConfigurationException;
 import org.infinispan.commons.configuration.Builder;
 import org.infinispan.configuration.global.GlobalConfiguration;
 
@@ -19,6 +20,7 @@ public class StoreAsBinaryConfigurationBuilder extends AbstractConfigurationChil
    private boolean enabled = false;
    private boolean storeKeysAsBinary = true;
    private boolean storeValuesAsBinary = true;
+   private int deserializedCacheSize = 0;
 
    StoreAsBinaryConfigurationBuilder(ConfigurationBuilder builder) {
       super(builder);
@@ -66,6 +68,17 @@ public StoreAsBinaryConfigurationBuilder storeValuesAsBinary(boolean storeValues
       return this;
    }
 
+   /**
+    * Sets the maximum number of deserialized values each node keeps for local reads of values stored as binary, so
+    * that frequently read values are not deserialized on every read. The instances returned from this cache are shared
+    * between readers and must not be modified. Defaults to 0, which deserializes values on every read.
+    * @param deserializedCacheSize maximum number of deserialized values, or 0 to disable the cache
+    */
+   public StoreAsBinaryConfigurationBuilder deserializedCacheSize(int deserializedCacheSize) {
+      this.deserializedCacheSize = deserializedCacheSize;
+      return this;
+   }
+
    /**
     * When defensive copying is disabled, Infinispan keeps object references
     * around and marshalls keys lazily. So clients can modify entries via
@@ -93,7 +106,9 @@ public StoreAsBinaryConfigurationBuilder defensive(boolean defensive) {
 
    @Override
    public void validate() {
-      // Nothing to validate.
+      if (deserializedCacheSize < 0) {
+         throw new CacheConfigurationException("Deserialized cache size must not be negative: " + deserializedCacheSize);
+      }
    }
 
    @Override
@@ -103,7 +118,7 @@ public void validate(GlobalConfiguration globalConfig) {
    @Override
    public StoreAsBinaryConfiguration create() {
       return new StoreAsBinaryConfiguration(
-            enabled, storeKeysAsBinary, storeValuesAsBinary);
+            enabled, storeKeysAsBinary, storeValuesAsBinary, deserializedCacheSize);
    }
 
    @Override
@@ -111,6 +126,7 @@ public StoreAsBinaryConfigurationBuilder read(StoreAsBinaryConfiguration templat
       this.enabled = template.enabled();
       this.storeKeysAsBinary = template.storeKeysAsBinary();
       this.storeValuesAsBinary = template.storeValuesAsBinary();
+      this.deserializedCacheSize = template.deserializedCacheSize();
 
       return this;
    }
@@ -121,6 +137,7 @@ public String toString() {
             "enabled=" + enabled +
             ", storeKeysAsBinary=" + storeKeysAsBinary +
             ", storeValuesAsBinary=" + storeValuesAsBinary +
+            ", deserializedCacheSize=" + deserializedCacheSize +
             '}';
    }
 }
@@ -8,10 +8,12 @@
 public class SyncConfiguration {
 
    private long replTimeout;
+   private final boolean coalesceWrites;
 
 
-   SyncConfiguration(long replTimeout) {
+   SyncConfiguration(long replTimeout, boolean coalesceWrites) {
       this.replTimeout = replTimeout;
+      this.coalesceWrites = coalesceWrites;
    }
 
    /**
@@ -31,10 +33,19 @@ public SyncConfiguration replTimeout(long l) {
       return this;
    }
 
+   /**
+    * If true, the non-transactional writes sent to the same owners while a write to them is in progress are grouped
+    * in a single remote call.
+    */
+   public boolean coalesceWrites() {
+      return coalesceWrites;
+   }
+
    @Override
    public String toString() {
       return "SyncConfiguration{" +
             "replTimeout=" + replTimeout +
+            ", coalesceWrites=" + coalesceWrites +
             '}';
    }
 
@@ -46,13 +57,16 @@ public boolean equals(Object o) {
       SyncConfiguration that = (SyncConfiguration) o;
 
       if (replTimeout != that.replTimeout) return false;
+      if (coalesceWrites != that.coalesceWrites) return false;
 
       return true;
    }
 
    @Override
    public int hashCode() {
-      return (int) (replTimeout ^ (replTimeout >>> 32));
+      int result = (int) (replTimeout ^ (replTimeout >>> 32));
+      result = 31 * result + (coalesceWrites ? 1 : 0);
+      return result;
    }
 
 }
@@ -13,6 +13,7 @@
 public class SyncConfigurationBuilder extends AbstractClusteringConfigurationChildBuilder implements Builder<SyncConfiguration> {
 
    private long replTimeout = TimeUnit.SECONDS.toMillis(15);
+   private boolean coalesceWrites = false;
 
    protected SyncConfigurationBuilder(ClusteringConfigurationBuilder builder) {
       super(builder);
@@ -35,6 +36,16 @@ public SyncConfigurationBuilder replTimeout(long l, TimeUnit unit) {
       return replTimeout(unit.toMillis(l));
    }
 
+   /**
+    * If true, the non-transactional writes sent to the same owners while a write to them is in progress are grouped
+    * in a single remote call. A write sent while no other is in progress is sent immediately, so the groups only grow
+    * with the load. Applies to the distributed and replicated caches. Defaults to false.
+    */
+   public SyncConfigurationBuilder coalesceWrites(boolean coalesceWrites) {
+      this.coalesceWrites = coalesceWrites;
+      return this;
+   }
+
    @Override
    public void validate() {
    }
@@ -45,12 +56,13 @@ public void validate(GlobalConfiguration globalConfig) {
 
    @Override
    public SyncConfiguration create() {
-      return new SyncConfiguration(replTimeout);
+      return new SyncConfiguration(replTimeout, coalesceWrites);
    }
 
    @Override
    public SyncConfigurationBuilder read(SyncConfiguration template) {
       this.replTimeout = template.replTimeout();
+      this.coalesceWrites = template.coalesceWrites();
       return this;
    }
 
@@ -58,6 +70,7 @@ public SyncConfigurationBuilder read(SyncConfiguration template) {
    public String toString() {
       return "SyncConfigurationBuilder{" +
             "replTimeout=" + replTimeout +
+            ", coalesceWrites=" + coalesceWrites +
             '}';
    }
 }
@@ -28,6 +28,7 @@ public class TransactionConfiguration {
    private final boolean useSynchronization;
    private final RecoveryConfiguration recovery;
    private final boolean use1PcForAutoCommitTransactions;
+   private final boolean use1PcForSingleOwnerTransactions;
    private final long reaperWakeUpInterval;
    private final long completedTxTimeout;
    private final TransactionProtocol transactionProtocol; //2PC or Total order protocol
@@ -37,6 +38,7 @@ public class TransactionConfiguration {
                             boolean syncCommitPhase, boolean syncRollbackPhase, TransactionManagerLookup transactionManagerLookup,
                             TransactionSynchronizationRegistryLookup transactionSynchronizationRegistryLookup, TransactionMode transactionMode,
                             boolean useEagerLocking, boolean useSynchronization, boolean use1PcForAutoCommitTransactions,
+                            boolean use1PcForSingleOwnerTransactions,
                             long reaperWakeUpInterval, long completedTxTimeout, RecoveryConfiguration recovery, TransactionProtocol transactionProtocol) {
       this.autoCommit = autoCommit;
       this.cacheStopTimeout = cacheStopTimeout;
@@ -51,6 +53,7 @@ public class TransactionConfiguration {
       this.useSynchronization = useSynchronization;
       this.recovery = recovery;
       this.use1PcForAutoCommitTransactions = use1PcForAutoCommitTransactions;
+      this.use1PcForSingleOwnerTransactions = use1PcForSingleOwnerTransactions;
       this.reaperWakeUpInterval = reaperWakeUpInterval;
       this.completedTxTimeout = completedTxTimeout;
       this.transactionProtocol = transactionProtocol;
@@ -269,6 +272,13 @@ public boolean use1PcForAutoCommitTransactions() {
       return use1PcForAutoCommitTransactions;
    }
 
+   /**
+    * @see TransactionConfigurationBuilder#use1PcForSingleOwnerTransactions(boolean)
+    */
+   public boolean use1PcForSingleOwnerTransactions() {
+      return use1PcForSingleOwnerTransactions;
+   }
+
    @Override
    public String toString() {
       return "TransactionConfiguration{" +
@@ -287,6 +297,7 @@ public String toString() {
             ", reaperWakeUpInterval=" + reaperWakeUpInterval +
             ", completedTxTimeout=" + completedTxTimeout +
             ", use1PcForAutoCommitTransactions=" + use1PcForAutoCommitTransactions +
+            ", use1PcForSingleOwnerTransactions=" + use1PcForSingleOwnerTransactions +
             '}';
    }
 
@@ -304,6 +315,8 @@ public boolean equals(Object o) {
       if (syncRollbackPhase != that.syncRollbackPhase) return false;
       if (use1PcForAutoCommitTransactions != that.use1PcForAutoCommitTransactions)
          return false;
+      if (use1PcForSingleOwnerTransactions != that.use1PcForSingleOwnerTransactions)
+         return false;
       if (useEagerLocking != that.useEagerLocking) return false;
       if (useSynchronization != that.useSynchronization) return false;
       if (lockingMode != that.lockingMode) return false;
@@ -336,6 +349,7 @@ public int hashCode() {
       result = 31 * result + (useSynchronization ? 1 : 0);
       result = 31 * result + (recovery != null ? recovery.hashCode() : 0);
       result = 31 * result + (use1PcForAutoCommitTransactions ? 1 : 0);
+      result = 31 * result + (use1PcForSingleOwnerTransactions ? 1 : 0);
       result = 31 * result + (transactionProtocol != null ? transactionProtocol.hashCode() : 0);
       return result;
    }
@@ -37,6 +37,7 @@ public class TransactionConfigurationBuilder extends AbstractConfigurationChildB
    private boolean useSynchronization = true;
    private final RecoveryConfigurationBuilder recovery;
    private boolean use1PcForAutoCommitTransactions = false;
+   private boolean use1PcForSingleOwnerTransactions = false;
    private long reaperWakeUpInterval = 30000;
    private long completedTxTimeout = 60000;
    private TransactionProtocol transactionProtocol = TransactionProtocol.DEFAULT;
@@ -236,6 +237,22 @@ public TransactionConfigurationBuilder use1PcForAutoCommitTransactions(boolean b
       return this;
    }
 
+   /**
+    * Commits the optimistic transactions of a synchronous distributed cache in a single phase, when the primary owner
+    * of all the keys they modify is the same node (e.g. because the keys belong to the same group) and either it is the
+    * local node or it is the only owner of the keys. The primary owner acquires the locks and performs the write skew
+    * check, so this keeps the consistency guarantees of 2PC, but saves the commit RPC and the transaction completion
+    * notification. <p/>
+    *
+    * The transaction is committed when it is prepared, so the option should NOT be used when the cache takes part in
+    * XA transactions with other resources, as the cache cannot roll back if another resource fails to prepare.
+    * It is ignored when recovery is enabled.
+    */
+   public TransactionConfigurationBuilder use1PcForSingleOwnerTransactions(boolean b) {
+      this.use1PcForSingleOwnerTransactions = b;
+      return this;
+   }
+
    /**
     *The time interval (millis) at which the thread that cleans up transaction completion information kicks in. Defaults to 30000.
     */
@@ -296,7 +313,7 @@ else if (transactionMode == null)
          transactionMode = TransactionMode.NON_TRANSACTIONAL;
       return new TransactionConfiguration(autoCommit, cacheStopTimeout, eagerLockingSingleNode, lockingMode, syncCommitPhase,
             syncRollbackPhase, transactionManagerLookup, transactionSynchronizationRegistryLookup, transactionMode,
-            useEagerLocking, useSynchronization, use1PcForAutoCommitTransactions, reaperWakeUpInterval, completedTxTimeout, recovery.create(), transactionProtocol);
+            useEagerLocking, useSynchronization, use1PcForAutoCommitTransactions, use1PcForSingleOwnerTransactions, reaperWakeUpInterval, completedTxTimeout, recovery.create(), transactionProtocol);
    }
 
    @Override
@@ -313,6 +330,7 @@ public TransactionConfigurationBuilder read(TransactionConfiguration template) {
       this.useEagerLocking = template.useEagerLocking();
       this.useSynchronization = template.useSynchronization();
       this.use1PcForAutoCommitTransactions = template.use1PcForAutoCommitTransactions();
+      this.use1PcForSingleOwnerTransactions = template.use1PcForSingleOwnerTransactions();
       this.recovery.read(template.recovery());
       this.reaperWakeUpInterval = template.reaperWakeUpInterval();
       this.completedTxTimeout = template.completedTxTimeout();
@@ -337,6 +355,7 @@ public String toString() {
             ", useSynchronization=" + useSynchronization +
             ", recovery=" + recovery +
             ", use1PcForAutoCommitTransactions=" + use1PcForAutoCommitTransactions +
+            ", use1PcForSingleOwnerTransactions=" + use1PcForSingleOwnerTransactions +
             ", completedTxTimeout=" + completedTxTimeout +
             ", reaperWakeUpInterval=" + reaperWakeUpInterval +
             '}';
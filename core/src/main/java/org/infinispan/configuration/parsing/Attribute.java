@@ -15,6 +15,7 @@ public enum Attribute {
     // KEEP THESE IN ALPHABETICAL ORDER!
 
     ACQUIRE_TIMEOUT("acquire-timeout"),
+    ADDRESS_COUNT("address-count"),
     AFTER("after"),
     ALIASES("aliases"),
     ALLOW_DUPLICATE_DOMAINS("duplicate-domains"),
@@ -29,12 +30,14 @@ public enum Attribute {
     CHUNK_SIZE("chunk-size"),
     CLASS("class"),
     CLUSTER("cluster"),
+    COALESCE_WRITES("coalesce-writes"),
     COMPLETED_TX_TIMEOUT("complete-timeout"),
     CONCURRENCY_LEVEL("concurrency-level"),
     CONSISTENT_HASH_FACTORY("consistent-hash-factory"),
     CORE_THREADS("core-threads"),
     DATA_CONTAINER("data-container"),
     DEFAULT_CACHE("default-cache"),
+    DESERIALIZED_CACHE_SIZE("deserialized-cache-size"),
     ENABLED("enabled"),
     EXECUTOR("executor"),
     EVICTION_EXECUTOR("eviction-executor"),
@@ -44,6 +47,7 @@ public enum Attribute {
     GROUP_NAME("group-name"),
     ID("id"),
     INDEX("index"),
+    INTERCEPTOR_TIMINGS("interceptor-timings"),
     INTERVAL("interval"),
     INVALIDATION_CLEANUP_TASK_FREQUENCY("l1-cleanup-interval"),
     ISOLATION("isolation"),
@@ -62,14 +66,17 @@ public enum Attribute {
     MARSHALLER_CLASS("marshaller"),
     MAX_ENTRIES("max-entries"),
     MAX_IDLE("max-idle"),
+    MAX_MEMORY("max-memory"),
     MAX_RETRIES("max-retries"),
     MAX_THREADS("max-threads"),
     MBEAN_SERVER_LOOKUP("mbean-server-lookup"),
+    MEMORY_MAPPED_READS("memory-mapped-reads"),
     MODE("mode"),
     NODE_NAME("node-name"),
     MODIFICATION_QUEUE_SIZE("modification-queue-size"),
     MODULE("module"),
     NAME("name"),
+    OFF_HEAP_INDEX("off-heap-index"),
     ON_REHASH("onRehash"),
     OWNERS("owners"),
     PATH("path"),
@@ -107,8 +114,10 @@ public enum Attribute {
     STORE_VALUES_AS_BINARY("values"),
     STRATEGY("strategy"),
     STRIPING("striping"),
+    SYNC_WRITES("sync-writes"),
     STACK("stack"),
     STOP_TIMEOUT("stop-timeout"),
+    STORAGE("storage"),
     TAKE_BACKUP_OFFLINE_AFTER_FAILURES("after-failures"),
     TAKE_BACKUP_OFFLINE_MIN_WAIT("min-wait"),
     THREAD_FACTORY("thread-factory"),
@@ -120,6 +129,7 @@ public enum Attribute {
     TRANSACTION_MANAGER_LOOKUP_CLASS("transaction-manager-lookup"),
     TRANSACTION_PROTOCOL("protocol"),
     TRANSPORT("transport"),
+    TYPE("type"),
     UNRELIABLE_RETURN_VALUES("unreliable-return-values"),
     USE_TWO_PHASE_COMMIT("two-phase-commit"),
     VALUE("value"),
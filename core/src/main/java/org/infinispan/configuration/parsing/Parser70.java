@@ -23,6 +23,7 @@
 import org.infinispan.distribution.group.Grouper;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.eviction.EvictionType;
 import org.infinispan.factories.threads.DefaultThreadFactory;
 import org.infinispan.interceptors.base.CommandInterceptor;
 import org.infinispan.jmx.MBeanServerLookup;
@@ -809,6 +810,10 @@ private void parseCacheAttribute(XMLExtendedStreamReader reader,
             builder.jmxStatistics().enabled(Boolean.valueOf(value));
             break;
          }
+         case INTERCEPTOR_TIMINGS: {
+            builder.jmxStatistics().interceptorTimings(Boolean.valueOf(value));
+            break;
+         }
          case SPIN_DURATION: {
             long spin = Long.parseLong(value);
             if (spin > 0)
@@ -1134,6 +1139,12 @@ private void parseDataContainer(final XMLExtendedStreamReader reader, final Conf
             case VALUE_EQUIVALENCE:
                builder.dataContainer().valueEquivalence(Util.<Equivalence>getInstance(value, holder.getClassLoader()));
                break;
+            case STORAGE:
+               builder.dataContainer().storageType(StorageType.valueOf(value));
+               break;
+            case ADDRESS_COUNT:
+               builder.dataContainer().addressCount(Integer.parseInt(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1160,6 +1171,9 @@ private void parseStoreAsBinary(final XMLExtendedStreamReader reader, final Conf
                binaryValues = Boolean.parseBoolean(value);
                builder.storeAsBinary().storeValuesAsBinary(binaryValues);
                break;
+            case DESERIALIZED_CACHE_SIZE:
+               builder.storeAsBinary().deserializedCacheSize(Integer.parseInt(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1363,6 +1377,14 @@ protected void parseEviction(XMLExtendedStreamReader reader, ConfigurationBuilde
                builder.eviction().threadPolicy(EvictionThreadPolicy.valueOf(value));
                break;
             }
+            case TYPE: {
+               builder.eviction().type(EvictionType.valueOf(value));
+               break;
+            }
+            case MAX_MEMORY: {
+               builder.eviction().maxMemory(Long.parseLong(value));
+               break;
+            }
             default: {
                throw ParseUtils.unexpectedAttribute(reader, i);
             }
@@ -1446,6 +1468,10 @@ private void parseClusteredCacheAttribute(XMLExtendedStreamReader reader,
             builder.clustering().sync().replTimeout(Long.parseLong(value));
             break;
          }
+         case COALESCE_WRITES: {
+            builder.clustering().sync().coalesceWrites(Boolean.parseBoolean(value));
+            break;
+         }
          default: {
             this.parseCacheAttribute(reader, index, attribute, value, builder);
          }
@@ -1680,6 +1706,18 @@ protected void parseFileStore(XMLExtendedStreamReader reader, ConfigurationBuild
                storeBuilder.fragmentationFactor(Float.parseFloat(value));
                break;
             }
+            case MEMORY_MAPPED_READS: {
+               storeBuilder.memoryMappedReads(Boolean.parseBoolean(value));
+               break;
+            }
+            case SYNC_WRITES: {
+               storeBuilder.syncWrites(Boolean.parseBoolean(value));
+               break;
+            }
+            case OFF_HEAP_INDEX: {
+               storeBuilder.offHeapIndex(Boolean.parseBoolean(value));
+               break;
+            }
             default: {
                parseStoreAttribute(reader, i, storeBuilder);
             }
@@ -10,13 +10,16 @@
 import org.infinispan.commons.util.concurrent.ParallelIterableMap;
 import org.infinispan.commons.util.concurrent.ParallelIterableMap.KeyValueAction;
 import org.infinispan.commons.util.concurrent.jdk8backported.EquivalentConcurrentHashMapV8;
+import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.eviction.EvictionManager;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
 import org.infinispan.eviction.PassivationManager;
 import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
 import org.infinispan.filter.KeyFilter;
 import org.infinispan.metadata.Metadata;
 import org.infinispan.filter.KeyValueFilter;
@@ -55,6 +58,7 @@
 
    private static final Log log = LogFactory.getLog(DefaultDataContainer.class);
    private static final boolean trace = log.isTraceEnabled();
+   private static final long MAX_EXPIRATION_RESOLUTION = 1000;
 
    private final ConcurrentMap<K, InternalCacheEntry<K, V>> entries;
    private final DefaultEvictionListener evictionListener;
@@ -65,12 +69,19 @@
    private ActivationManager activator;
    private PersistenceManager pm;
    private TimeService timeService;
+   private Configuration configuration;
+   private final Equivalence<? super K> keyEquivalence;
+   /**
+    * Keys of the expirable entries by expiration time, only maintained when the expiration reaper is enabled
+    */
+   private volatile ExpirationIndex<K> expirationIndex;
 
    public DefaultDataContainer(int concurrencyLevel) {
       // If no comparing implementations passed, could fallback on JDK CHM
       entries = CollectionFactory.makeConcurrentParallelMap(128, concurrencyLevel);
       evictionListener = null;
       extendedMap = new EquivalentConcurrentExtendedMap();
+      keyEquivalence = null;
    }
 
    public DefaultDataContainer(int concurrencyLevel,
@@ -79,11 +90,19 @@ public DefaultDataContainer(int concurrencyLevel,
       entries = CollectionFactory.makeConcurrentParallelMap(128, concurrencyLevel, keyEq, AnyEquivalence.getInstance());
       evictionListener = null;
       extendedMap = new EquivalentConcurrentExtendedMap();
+      keyEquivalence = keyEq;
    }
 
    protected DefaultDataContainer(int concurrencyLevel, int maxEntries,
          EvictionStrategy strategy, EvictionThreadPolicy policy,
          Equivalence<? super K> keyEquivalence) {
+      this(concurrencyLevel, maxEntries, strategy, policy, keyEquivalence, null, -1);
+   }
+
+   protected DefaultDataContainer(int concurrencyLevel, int maxEntries,
+         EvictionStrategy strategy, EvictionThreadPolicy policy,
+         Equivalence<? super K> keyEquivalence, EntrySizeCalculator<? super K, ? super V> sizeCalculator,
+         long maxMemory) {
       // translate eviction policy and strategy
       switch (policy) {
          case PIGGYBACK:
@@ -104,13 +123,20 @@ protected DefaultDataContainer(int concurrencyLevel, int maxEntries,
          case LIRS:
             eviction = Eviction.LIRS;
             break;
+         case TINYLFU:
+            eviction = Eviction.TINYLFU;
+            break;
          default:
             throw new IllegalArgumentException("No such eviction strategy " + strategy);
       }
 
+      EntrySizeCalculator<K, InternalCacheEntry<K, V>> entrySizeCalculator = sizeCalculator == null ? null :
+            new InternalEntrySizeCalculator<K, V>(sizeCalculator);
       entries = new BoundedConcurrentHashMap<K, InternalCacheEntry<K, V>>(maxEntries, concurrencyLevel, eviction, evictionListener,
-                                                                          keyEquivalence, AnyEquivalence.getInstance());
+                                                                          keyEquivalence, AnyEquivalence.getInstance(),
+                                                                          entrySizeCalculator, maxMemory);
       extendedMap = new BoundedConcurrentExtendedMap();
+      this.keyEquivalence = keyEquivalence;
    }
 
    @Inject
@@ -124,6 +150,21 @@ public void initialize(EvictionManager evictionManager, PassivationManager passi
       this.timeService = timeService;
    }
 
+   @Inject
+   public void injectConfiguration(Configuration configuration) {
+      this.configuration = configuration;
+   }
+
+   @Start(priority = 1)
+   public void start() {
+      // the index only pays off if something purges expired entries periodically
+      if (configuration != null && configuration.expiration().reaperEnabled()
+            && configuration.expiration().wakeUpInterval() > 0) {
+         long resolution = Math.min(configuration.expiration().wakeUpInterval(), MAX_EXPIRATION_RESOLUTION);
+         expirationIndex = new ExpirationIndex<K>(keyEquivalence, resolution);
+      }
+   }
+
    public static <K, V> DataContainer<K, V> boundedDataContainer(int concurrencyLevel, int maxEntries,
             EvictionStrategy strategy, EvictionThreadPolicy policy,
             Equivalence<? super K> keyEquivalence) {
@@ -131,6 +172,14 @@ public static <K, V> DataContainer<K, V> boundedDataContainer(int concurrencyLev
             policy, keyEquivalence);
    }
 
+   public static <K, V> DataContainer<K, V> boundedDataContainer(int concurrencyLevel, int maxEntries,
+            EvictionStrategy strategy, EvictionThreadPolicy policy,
+            Equivalence<? super K> keyEquivalence, EntrySizeCalculator<? super K, ? super V> sizeCalculator,
+            long maxMemory) {
+      return new DefaultDataContainer<K, V>(concurrencyLevel, maxEntries, strategy,
+            policy, keyEquivalence, sizeCalculator, maxMemory);
+   }
+
    public static <K, V> DataContainer<K, V> unBoundedDataContainer(int concurrencyLevel,
          Equivalence<? super K> keyEquivalence) {
       return new DefaultDataContainer(concurrencyLevel, keyEquivalence);
@@ -140,6 +189,17 @@ public static DataContainer unBoundedDataContainer(int concurrencyLevel) {
       return new DefaultDataContainer(concurrencyLevel);
    }
 
+   /**
+    * Returns the estimated memory used by the entries in this container, or <code>-1</code> if the container is not
+    * bounded by memory.
+    */
+   public long getMemoryUsed() {
+      if (entries instanceof BoundedConcurrentHashMap) {
+         return ((BoundedConcurrentHashMap<K, InternalCacheEntry<K, V>>) entries).memoryUsed();
+      }
+      return -1;
+   }
+
    @Override
    public InternalCacheEntry<K, V> peek(Object key) {
       return entries.get(key);
@@ -205,6 +265,10 @@ public int size() {
    public void clear() {
       log.tracef("Clearing data container");
       entries.clear();
+      ExpirationIndex<K> index = expirationIndex;
+      if (index != null) {
+         index.clear();
+      }
    }
 
    @Override
@@ -224,13 +288,71 @@ public Set<InternalCacheEntry<K, V>> entrySet() {
 
    @Override
    public void purgeExpired() {
+      purgeExpiredEntries();
+   }
+
+   /**
+    * Removes the expired entries from the container. When the expiration reaper is enabled, only the entries
+    * registered in the expiration index as due are checked; otherwise, all the entries are scanned.
+    *
+    * @return the number of entries removed
+    */
+   public int purgeExpiredEntries() {
       long currentTimeMillis = timeService.wallClockTime();
+      ExpirationIndex<K> index = expirationIndex;
+      if (index == null) {
+         return purgeExpiredByScan(currentTimeMillis);
+      }
+      int purged = 0;
+      Set<K> dueKeys;
+      while ((dueKeys = index.pollDue(currentTimeMillis)) != null) {
+         for (K key : dueKeys) {
+            InternalCacheEntry<K, V> e = entries.get(key);
+            if (e == null || !e.canExpire()) {
+               continue;
+            }
+            if (e.isExpired(currentTimeMillis)) {
+               if (entries.remove(key, e)) {
+                  purged++;
+               }
+            } else {
+               // touched or updated since it was indexed
+               index.add(key, e.getExpiryTime());
+            }
+         }
+         if (Thread.currentThread().isInterrupted()) {
+            break;
+         }
+      }
+      return purged;
+   }
+
+   private int purgeExpiredByScan(long currentTimeMillis) {
+      int purged = 0;
       for (Iterator<InternalCacheEntry<K, V>> purgeCandidates = entries.values().iterator(); purgeCandidates.hasNext();) {
          InternalCacheEntry e = purgeCandidates.next();
          if (e.isExpired(currentTimeMillis)) {
             purgeCandidates.remove();
+            purged++;
          }
       }
+      return purged;
+   }
+
+   /**
+    * Keeps the expiration index up to date after the entry for the key changed from <tt>oldEntry</tt> to
+    * <tt>newEntry</tt>. Must be invoked while the key is locked in the underlying map, so that index updates for a
+    * key happen in the same order as the map updates.
+    */
+   private void updateExpirationIndex(K key, InternalCacheEntry<K, V> oldEntry, InternalCacheEntry<K, V> newEntry) {
+      ExpirationIndex<K> index = expirationIndex;
+      if (index != null) {
+         index.update(key, expiryTime(oldEntry), expiryTime(newEntry));
+      }
+   }
+
+   private static long expiryTime(InternalCacheEntry<?, ?> entry) {
+      return entry != null && entry.canExpire() ? entry.getExpiryTime() : -1;
    }
 
    @Override
@@ -272,6 +394,25 @@ public void onEntryRemoved(Object key) {
       }
    }
 
+   /**
+    * Adapts a user supplied {@link EntrySizeCalculator} to the entries stored in the container, adding a fixed
+    * estimate for the internal cache entry and the map entry holding it.
+    */
+   private static final class InternalEntrySizeCalculator<K, V> implements EntrySizeCalculator<K, InternalCacheEntry<K, V>> {
+      private static final long ENTRY_OVERHEAD = 96;
+
+      private final EntrySizeCalculator<? super K, ? super V> calculator;
+
+      InternalEntrySizeCalculator(EntrySizeCalculator<? super K, ? super V> calculator) {
+         this.calculator = calculator;
+      }
+
+      @Override
+      public long calculateSize(K key, InternalCacheEntry<K, V> entry) {
+         return calculator.calculateSize(key, entry.getValue()) + ENTRY_OVERHEAD;
+      }
+   }
+
    private static class ImmutableEntryIterator<K, V> extends EntryIterator<K, V> {
       ImmutableEntryIterator(Iterator<InternalCacheEntry<K, V>> it){
          super(it);
@@ -462,7 +603,9 @@ public InternalCacheEntry<K, V> apply(K key, InternalCacheEntry<K, V> oldEntry)
                      InternalCacheEntry<K, V> newEntry = action.compute(key, oldEntry, entryFactory);
                      if (newEntry == oldEntry) {
                         return oldEntry;
-                     } else if (newEntry == null) {
+                     }
+                     updateExpirationIndex(key, oldEntry, newEntry);
+                     if (newEntry == null) {
                         activator.onRemove(key, false);
                         return null;
                      }
@@ -481,6 +624,7 @@ public void putAndActivate(final InternalCacheEntry<K, V> newEntry) {
                   @Override
                   public InternalCacheEntry<K, V> apply(K key, InternalCacheEntry<K, V> entry) {
                      activator.onUpdate(key, entry == null);
+                     updateExpirationIndex(key, entry, newEntry);
                      return newEntry;
                   }
                });
@@ -494,6 +638,9 @@ public InternalCacheEntry<K, V> removeAndActivate(Object key) {
                   @Override
                   public InternalCacheEntry<K, V> apply(Object key, InternalCacheEntry<K, V> entry) {
                      activator.onRemove(key, entry == null);
+                     if (entry != null) {
+                        updateExpirationIndex(entry.getKey(), entry, null);
+                     }
                      reference.set(entry);
                      return null;
                   }
@@ -518,7 +665,9 @@ public InternalCacheEntry<K, V> compute(K key, final ComputeAction<K, V> action)
             InternalCacheEntry<K, V> newEntry = action.compute(key, oldEntry, entryFactory);
             if (oldEntry == newEntry) {
                return newEntry;
-            } else if (newEntry == null) {
+            }
+            updateExpirationIndex(key, oldEntry, newEntry);
+            if (newEntry == null) {
                activator.onRemove(key, false);
                boundedMap.remove(key);
                return null;
@@ -535,8 +684,22 @@ public InternalCacheEntry<K, V> compute(K key, final ComputeAction<K, V> action)
 
       @Override
       public void putAndActivate(InternalCacheEntry<K, V> newEntry) {
-         //put already activate the entry if it is new.
-         entries.put(newEntry.getKey(), newEntry);
+         if (expirationIndex == null) {
+            //put already activate the entry if it is new.
+            entries.put(newEntry.getKey(), newEntry);
+            return;
+         }
+         final BoundedConcurrentHashMap<K, InternalCacheEntry<K, V>> boundedMap =
+               ((BoundedConcurrentHashMap<K, InternalCacheEntry<K, V>>) entries);
+         K key = newEntry.getKey();
+         boundedMap.lock(key);
+         try {
+            //put already activate the entry if it is new.
+            InternalCacheEntry<K, V> oldEntry = boundedMap.put(key, newEntry);
+            updateExpirationIndex(key, oldEntry, newEntry);
+         } finally {
+            boundedMap.unlock(key);
+         }
       }
 
       @Override
@@ -547,6 +710,9 @@ public InternalCacheEntry<K, V> removeAndActivate(Object key) {
          try {
             InternalCacheEntry<K, V> oldEntry = boundedMap.remove(key);
             activator.onRemove(key, oldEntry == null);
+            if (oldEntry != null) {
+               updateExpirationIndex(oldEntry.getKey(), oldEntry, null);
+            }
             return oldEntry;
          } finally {
             boundedMap.unlock(key);
@@ -0,0 +1,122 @@
+package org.infinispan.container;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.commons.equivalence.AnyEquivalence;
+import org.infinispan.commons.equivalence.Equivalence;
+import org.infinispan.commons.util.CollectionFactory;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Index of the keys of expirable entries, grouped in buckets by expiration time, so that expired entries can be found
+ * without scanning the whole data container.
+ * <p/>
+ * A bucket covers <tt>resolution</tt> milliseconds and only becomes due once its whole time span is in the past, so
+ * entries are reaped at most one resolution interval after they expire. The index is a hint: it may hold keys whose
+ * entry was removed, updated or touched in the meantime, and the container is expected to check each key it polls
+ * and re-index those whose entries have not expired yet. Callers must however make sure that every expirable entry
+ * in the container has been {@link #add(Object, long) added}.
+ *
+ * @since 7.0
+ */
+@ThreadSafe
+final class ExpirationIndex<K> {
+
+   private final ConcurrentSkipListMap<Long, Set<K>> buckets = new ConcurrentSkipListMap<Long, Set<K>>();
+   private final Equivalence<? super K> keyEquivalence;
+   private final long resolution;
+
+   ExpirationIndex(Equivalence<? super K> keyEquivalence, long resolution) {
+      if (resolution <= 0)
+         throw new IllegalArgumentException("Resolution must be positive: " + resolution);
+      this.keyEquivalence = keyEquivalence == null ? AnyEquivalence.getInstance() : keyEquivalence;
+      this.resolution = resolution;
+   }
+
+   /**
+    * Records that the entry for the given key expires at the given time.
+    */
+   void add(K key, long expiryTime) {
+      Long bucket = bucketOf(expiryTime);
+      while (true) {
+         Set<K> keys = buckets.get(bucket);
+         if (keys == null) {
+            Set<K> newKeys = newKeySet();
+            keys = buckets.putIfAbsent(bucket, newKeys);
+            if (keys == null) {
+               keys = newKeys;
+            }
+         }
+         keys.add(key);
+         // the bucket may have been polled concurrently, in which case the key must go to a new bucket
+         if (buckets.get(bucket) == keys) {
+            return;
+         }
+      }
+   }
+
+   /**
+    * Removes the key from the bucket of the given expiration time. Removal is only an optimisation, stale keys are
+    * discarded once their bucket is polled.
+    */
+   void remove(Object key, long expiryTime) {
+      Set<K> keys = buckets.get(bucketOf(expiryTime));
+      if (keys != null) {
+         keys.remove(key);
+      }
+   }
+
+   /**
+    * Moves the key from the bucket of the old expiration time to the bucket of the new one. A negative time means the
+    * entry is not expirable.
+    */
+   void update(K key, long oldExpiryTime, long newExpiryTime) {
+      if (oldExpiryTime >= 0 && (newExpiryTime < 0 || bucketOf(oldExpiryTime) != bucketOf(newExpiryTime))) {
+         remove(key, oldExpiryTime);
+      }
+      if (newExpiryTime >= 0) {
+         add(key, newExpiryTime);
+      }
+   }
+
+   /**
+    * Removes and returns the keys of the first bucket whose time span ended before <tt>now</tt>, or <tt>null</tt>
+    * if no bucket is due.
+    */
+   Set<K> pollDue(long now) {
+      Map.Entry<Long, Set<K>> first = buckets.firstEntry();
+      if (first == null || (first.getKey() + 1) * resolution > now) {
+         return null;
+      }
+      buckets.remove(first.getKey(), first.getValue());
+      return first.getValue();
+   }
+
+   /**
+    * @return the number of keys in the index, including stale ones
+    */
+   long size() {
+      long size = 0;
+      for (Set<K> keys : buckets.values()) {
+         size += keys.size();
+      }
+      return size;
+   }
+
+   void clear() {
+      buckets.clear();
+   }
+
+   private Set<K> newKeySet() {
+      ConcurrentMap<K, Boolean> map = CollectionFactory.makeConcurrentMap(keyEquivalence, AnyEquivalence.BOOLEAN);
+      return Collections.newSetFromMap(map);
+   }
+
+   private long bucketOf(long expiryTime) {
+      return expiryTime / resolution;
+   }
+}
@@ -21,6 +21,11 @@
 import org.infinispan.container.entries.metadata.MetadataTransientCacheValue;
 import org.infinispan.container.entries.metadata.MetadataTransientMortalCacheEntry;
 import org.infinispan.container.entries.metadata.MetadataTransientMortalCacheValue;
+import org.infinispan.container.entries.versioned.Versioned;
+import org.infinispan.container.entries.versioned.VersionedImmortalCacheEntry;
+import org.infinispan.container.entries.versioned.VersionedMortalCacheEntry;
+import org.infinispan.container.entries.versioned.VersionedTransientCacheEntry;
+import org.infinispan.container.entries.versioned.VersionedTransientMortalCacheEntry;
 import org.infinispan.container.versioning.EntryVersion;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.util.CoreImmutables;
@@ -28,6 +33,9 @@
 
 /**
  * An implementation that generates non-versioned entries
+ * <p/>
+ * Entries whose metadata is an {@link EmbeddedMetadata} only keep lifespan, max idle and version as fields, without
+ * the metadata object. Entries with any other type of metadata keep the metadata object.
  *
  * @author Manik Surtani
  * @since 5.1
@@ -50,6 +58,9 @@ public InternalCacheEntry create(Object key, Object value, Metadata metadata) {
          if (lifespan > -1 && maxIdle < 0) return new MortalCacheEntry(key, value, lifespan, timeService.wallClockTime());
          if (lifespan < 0 && maxIdle > -1) return new TransientCacheEntry(key, value, maxIdle, timeService.wallClockTime());
          return new TransientMortalCacheEntry(key, value, maxIdle, lifespan, timeService.wallClockTime());
+      } else if (isEmbeddedMetadata(metadata)) {
+         long ctm = timeService.wallClockTime();
+         return createVersioned(key, value, metadata.version(), ctm, lifespan, ctm, maxIdle);
       } else {
          if (lifespan < 0 && maxIdle < 0) return new MetadataImmortalCacheEntry(key, value, metadata);
          if (lifespan > -1 && maxIdle < 0) return new MetadataMortalCacheEntry(key, value, metadata, timeService.wallClockTime());
@@ -79,12 +90,7 @@ public InternalCacheEntry create(Object key, Object value, EntryVersion version,
          return new TransientMortalCacheEntry(key, value, maxIdle, lifespan, lastUsed, created);
       } else {
          // If no metadata passed, assumed embedded metadata
-         Metadata metadata = new EmbeddedMetadata.Builder()
-               .lifespan(lifespan).maxIdle(maxIdle).version(version).build();
-         if (lifespan < 0 && maxIdle < 0) return new MetadataImmortalCacheEntry(key, value, metadata);
-         if (lifespan > -1 && maxIdle < 0) return new MetadataMortalCacheEntry(key, value, metadata, created);
-         if (lifespan < 0 && maxIdle > -1) return new MetadataTransientCacheEntry(key, value, metadata, lastUsed);
-         return new MetadataTransientMortalCacheEntry(key, value, metadata, lastUsed, created);
+         return createVersioned(key, value, version, created, lifespan, lastUsed, maxIdle);
       }
    }
 
@@ -95,6 +101,8 @@ public InternalCacheEntry create(Object key, Object value, Metadata metadata, lo
          if (lifespan > -1 && maxIdle < 0) return new MortalCacheEntry(key, value, lifespan, created);
          if (lifespan < 0 && maxIdle > -1) return new TransientCacheEntry(key, value, maxIdle, lastUsed);
          return new TransientMortalCacheEntry(key, value, maxIdle, lifespan, lastUsed, created);
+      } else if (isEmbeddedMetadata(metadata)) {
+         return createVersioned(key, value, metadata.version(), created, metadata.lifespan(), lastUsed, metadata.maxIdle());
       } else {
          // Metadata to store, take lifespan and maxIdle settings from it
          long metaLifespan = metadata.lifespan();
@@ -132,6 +140,9 @@ public InternalCacheEntry create(Object key, Object value, Metadata metadata, lo
          if (lifespan > -1 && maxIdle < 0) return new MortalCacheEntry(key, value, lifespan, timeService.wallClockTime());
          if (lifespan < 0 && maxIdle > -1) return new TransientCacheEntry(key, value, maxIdle, timeService.wallClockTime());
          return new TransientMortalCacheEntry(key, value, maxIdle, lifespan, timeService.wallClockTime());
+      } else if (isEmbeddedMetadata(metadata)) {
+         long ctm = timeService.wallClockTime();
+         return createVersioned(key, value, metadata.version(), ctm, metadata.lifespan(), ctm, metadata.maxIdle());
       } else {
          // Metadata to store, take lifespan and maxIdle settings from it
          long metaLifespan = metadata.lifespan();
@@ -148,6 +159,8 @@ public InternalCacheEntry create(Object key, Object value, Metadata metadata, lo
    public InternalCacheEntry update(InternalCacheEntry ice, Metadata metadata) {
       if (!isStoreMetadata(metadata))
          return updateMetadataUnawareEntry(ice, metadata.lifespan(), metadata.maxIdle());
+      else if (isEmbeddedMetadata(metadata))
+         return updateVersionedEntry(ice, metadata.version(), metadata.lifespan(), metadata.maxIdle());
       else
          return updateMetadataAwareEntry(ice, metadata);
    }
@@ -176,8 +189,53 @@ public CacheEntry copy(CacheEntry cacheEntry) {
       }
    }
 
+   private InternalCacheEntry createVersioned(Object key, Object value, EntryVersion version, long created,
+                                              long lifespan, long lastUsed, long maxIdle) {
+      if (lifespan < 0 && maxIdle < 0) return new VersionedImmortalCacheEntry(key, value, version);
+      if (lifespan > -1 && maxIdle < 0) return new VersionedMortalCacheEntry(key, value, version, lifespan, created);
+      if (lifespan < 0 && maxIdle > -1) return new VersionedTransientCacheEntry(key, value, version, maxIdle, lastUsed);
+      return new VersionedTransientMortalCacheEntry(key, value, version, lifespan, created, maxIdle, lastUsed);
+   }
+
+   private InternalCacheEntry updateVersionedEntry(InternalCacheEntry ice, EntryVersion version, long lifespan,
+                                                   long maxIdle) {
+      if (lifespan < 0 && maxIdle < 0) {
+         if (ice instanceof VersionedImmortalCacheEntry) {
+            ((VersionedImmortalCacheEntry) ice).setVersion(version);
+            return ice;
+         }
+         return new VersionedImmortalCacheEntry(ice.getKey(), ice.getValue(), version);
+      } else if (maxIdle < 0) {
+         if (ice instanceof VersionedMortalCacheEntry) {
+            VersionedMortalCacheEntry mortalEntry = (VersionedMortalCacheEntry) ice;
+            mortalEntry.setLifespan(lifespan);
+            mortalEntry.setVersion(version);
+            return ice;
+         }
+      } else if (lifespan < 0) {
+         if (ice instanceof VersionedTransientCacheEntry) {
+            VersionedTransientCacheEntry transientEntry = (VersionedTransientCacheEntry) ice;
+            transientEntry.setMaxIdle(maxIdle);
+            transientEntry.setVersion(version);
+            return ice;
+         }
+      } else if (ice instanceof VersionedTransientMortalCacheEntry) {
+         VersionedTransientMortalCacheEntry transientMortalEntry = (VersionedTransientMortalCacheEntry) ice;
+         transientMortalEntry.setLifespan(lifespan);
+         transientMortalEntry.setMaxIdle(maxIdle);
+         transientMortalEntry.setVersion(version);
+         return ice;
+      }
+      long ctm = timeService.wallClockTime();
+      return createVersioned(ice.getKey(), ice.getValue(), version, ctm, lifespan, ctm, maxIdle);
+   }
+
    private InternalCacheEntry updateMetadataUnawareEntry(InternalCacheEntry ice, long lifespan, long maxIdle) {
-      if (ice instanceof ImmortalCacheEntry) {
+      if (ice instanceof Versioned) {
+         // the version must not survive the update
+         long ctm = timeService.wallClockTime();
+         return create(ice.getKey(), ice.getValue(), (EntryVersion) null, ctm, lifespan, ctm, maxIdle);
+      } else if (ice instanceof ImmortalCacheEntry) {
          if (lifespan < 0) {
             if (maxIdle < 0) {
                return ice;
@@ -248,7 +306,9 @@ private InternalCacheEntry updateMetadataUnawareEntry(InternalCacheEntry ice, lo
    private InternalCacheEntry updateMetadataAwareEntry(InternalCacheEntry ice, Metadata metadata) {
       long lifespan = metadata.lifespan();
       long maxIdle = metadata.maxIdle();
-      if (ice instanceof MetadataImmortalCacheEntry) {
+      if (ice instanceof Versioned) {
+         return create(ice.getKey(), ice.getValue(), metadata);
+      } else if (ice instanceof MetadataImmortalCacheEntry) {
          if (lifespan < 0) {
             if (maxIdle < 0) {
                ice.setMetadata(metadata);
@@ -332,4 +392,12 @@ private boolean isStoreMetadata(Metadata metadata) {
                       || !(metadata instanceof EmbeddedMetadata));
    }
 
+   /**
+    * Indicates whether the metadata only holds lifespan, maxIdle and version, all of which can be stored as fields of
+    * the {@link Versioned} cache entries without keeping the metadata object around.
+    */
+   private boolean isEmbeddedMetadata(Metadata metadata) {
+      return metadata instanceof EmbeddedMetadata;
+   }
+
 }
@@ -0,0 +1,195 @@
+package org.infinispan.container.entries.versioned;
+
+import org.infinispan.commons.marshall.AbstractExternalizer;
+import org.infinispan.commons.util.Util;
+import org.infinispan.container.entries.AbstractInternalCacheEntry;
+import org.infinispan.container.entries.InternalCacheValue;
+import org.infinispan.container.entries.metadata.MetadataImmortalCacheValue;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.marshall.core.Ids;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Set;
+
+import static org.infinispan.commons.util.Util.toStr;
+
+/**
+ * An immortal cache entry carrying the version of its {@link EmbeddedMetadata}.
+ * <p/>
+ * The version is stored as a field of the entry instead of keeping the {@link EmbeddedMetadata} it came from, saving
+ * the metadata object. The metadata is rebuilt when requested.
+ *
+ * @since 7.0
+ */
+public class VersionedImmortalCacheEntry extends AbstractInternalCacheEntry implements Versioned {
+
+   protected Object value;
+   protected EntryVersion version;
+
+   public VersionedImmortalCacheEntry(Object key, Object value, EntryVersion version) {
+      super(key);
+      this.value = value;
+      this.version = version;
+   }
+
+   @Override
+   public Object getValue() {
+      return value;
+   }
+
+   @Override
+   public Object setValue(Object value) {
+      return this.value = value;
+   }
+
+   @Override
+   public EntryVersion getVersion() {
+      return version;
+   }
+
+   @Override
+   public void setVersion(EntryVersion version) {
+      this.version = version;
+   }
+
+   @Override
+   public final boolean isExpired(long now) {
+      return false;
+   }
+
+   @Override
+   public final boolean isExpired() {
+      return false;
+   }
+
+   @Override
+   public final boolean canExpire() {
+      return false;
+   }
+
+   @Override
+   public final long getCreated() {
+      return -1;
+   }
+
+   @Override
+   public final long getLastUsed() {
+      return -1;
+   }
+
+   @Override
+   public final long getLifespan() {
+      return -1;
+   }
+
+   @Override
+   public final long getMaxIdle() {
+      return -1;
+   }
+
+   @Override
+   public final long getExpiryTime() {
+      return -1;
+   }
+
+   @Override
+   public final void touch() {
+      // no-op
+   }
+
+   @Override
+   public final void touch(long currentTimeMillis) {
+      // no-op
+   }
+
+   @Override
+   public final void reincarnate() {
+      // no-op
+   }
+
+   @Override
+   public void reincarnate(long now) {
+      // no-op
+   }
+
+   @Override
+   public InternalCacheValue toInternalCacheValue() {
+      return new MetadataImmortalCacheValue(value, getMetadata());
+   }
+
+   @Override
+   public Metadata getMetadata() {
+      return new EmbeddedMetadata.Builder().version(version).build();
+   }
+
+   @Override
+   public void setMetadata(Metadata metadata) {
+      throw new IllegalStateException(
+            "Metadata cannot be set on versioned entries. They need to be recreated via the entry factory.");
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      VersionedImmortalCacheEntry that = (VersionedImmortalCacheEntry) o;
+
+      if (key != null ? !key.equals(that.key) : that.key != null) return false;
+      if (value != null ? !value.equals(that.value) : that.value != null) return false;
+      return version != null ? version.equals(that.version) : that.version == null;
+   }
+
+   @Override
+   public int hashCode() {
+      int result = key != null ? key.hashCode() : 0;
+      result = 31 * result + (value != null ? value.hashCode() : 0);
+      result = 31 * result + (version != null ? version.hashCode() : 0);
+      return result;
+   }
+
+   @Override
+   public VersionedImmortalCacheEntry clone() {
+      return (VersionedImmortalCacheEntry) super.clone();
+   }
+
+   @Override
+   public String toString() {
+      return "VersionedImmortalCacheEntry{" +
+            "key=" + toStr(key) +
+            ", value=" + toStr(value) +
+            ", version=" + version +
+            "}";
+   }
+
+   public static class Externalizer extends AbstractExternalizer<VersionedImmortalCacheEntry> {
+      @Override
+      public void writeObject(ObjectOutput output, VersionedImmortalCacheEntry ice) throws IOException {
+         output.writeObject(ice.key);
+         output.writeObject(ice.value);
+         output.writeObject(ice.version);
+      }
+
+      @Override
+      public VersionedImmortalCacheEntry readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+         Object k = input.readObject();
+         Object v = input.readObject();
+         EntryVersion version = (EntryVersion) input.readObject();
+         return new VersionedImmortalCacheEntry(k, v, version);
+      }
+
+      @Override
+      public Integer getId() {
+         return Ids.VERSIONED_IMMORTAL_ENTRY;
+      }
+
+      @Override
+      public Set<Class<? extends VersionedImmortalCacheEntry>> getTypeClasses() {
+         return Util.<Class<? extends VersionedImmortalCacheEntry>>asSet(VersionedImmortalCacheEntry.class);
+      }
+   }
+}
@@ -0,0 +1,213 @@
+package org.infinispan.container.entries.versioned;
+
+import org.infinispan.commons.io.UnsignedNumeric;
+import org.infinispan.commons.marshall.AbstractExternalizer;
+import org.infinispan.commons.util.Util;
+import org.infinispan.container.entries.AbstractInternalCacheEntry;
+import org.infinispan.container.entries.ExpiryHelper;
+import org.infinispan.container.entries.InternalCacheValue;
+import org.infinispan.container.entries.metadata.MetadataMortalCacheValue;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.marshall.core.Ids;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Set;
+
+import static org.infinispan.commons.util.Util.toStr;
+
+/**
+ * A mortal cache entry carrying the version of its {@link EmbeddedMetadata}.
+ * <p/>
+ * Lifespan and version are stored as fields of the entry instead of keeping the {@link EmbeddedMetadata}
+ * they came from, saving the metadata object. The metadata is rebuilt when requested.
+ *
+ * @since 7.0
+ */
+public class VersionedMortalCacheEntry extends AbstractInternalCacheEntry implements Versioned {
+
+   protected Object value;
+   protected EntryVersion version;
+   protected long lifespan;
+   protected long created;
+
+   public VersionedMortalCacheEntry(Object key, Object value, EntryVersion version, long lifespan, long created) {
+      super(key);
+      this.value = value;
+      this.version = version;
+      this.lifespan = lifespan;
+      this.created = created;
+   }
+
+   @Override
+   public Object getValue() {
+      return value;
+   }
+
+   @Override
+   public Object setValue(Object value) {
+      return this.value = value;
+   }
+
+   @Override
+   public EntryVersion getVersion() {
+      return version;
+   }
+
+   @Override
+   public void setVersion(EntryVersion version) {
+      this.version = version;
+   }
+
+   public void setLifespan(long lifespan) {
+      this.lifespan = lifespan;
+   }
+
+   @Override
+   public final boolean isExpired(long now) {
+      return ExpiryHelper.isExpiredMortal(lifespan, created, now);
+   }
+
+   @Override
+   public final boolean isExpired() {
+      return isExpired(System.currentTimeMillis());
+   }
+
+   @Override
+   public final boolean canExpire() {
+      return true;
+   }
+
+   @Override
+   public final long getCreated() {
+      return created;
+   }
+
+   @Override
+   public final long getLastUsed() {
+      return -1;
+   }
+
+   @Override
+   public final long getLifespan() {
+      return lifespan;
+   }
+
+   @Override
+   public final long getMaxIdle() {
+      return -1;
+   }
+
+   @Override
+   public final long getExpiryTime() {
+      return lifespan > -1 ? created + lifespan : -1;
+   }
+
+   @Override
+   public final void touch() {
+      // no-op
+   }
+
+   @Override
+   public final void touch(long currentTimeMillis) {
+      // no-op
+   }
+
+   @Override
+   public final void reincarnate() {
+      reincarnate(System.currentTimeMillis());
+   }
+
+   @Override
+   public void reincarnate(long now) {
+      this.created = now;
+   }
+
+   @Override
+   public InternalCacheValue toInternalCacheValue() {
+      return new MetadataMortalCacheValue(value, getMetadata(), created);
+   }
+
+   @Override
+   public Metadata getMetadata() {
+      return new EmbeddedMetadata.Builder().lifespan(lifespan).version(version).build();
+   }
+
+   @Override
+   public void setMetadata(Metadata metadata) {
+      throw new IllegalStateException(
+            "Metadata cannot be set on versioned entries. They need to be recreated via the entry factory.");
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      VersionedMortalCacheEntry that = (VersionedMortalCacheEntry) o;
+
+      if (key != null ? !key.equals(that.key) : that.key != null) return false;
+      if (value != null ? !value.equals(that.value) : that.value != null) return false;
+      if (created != that.created) return false;
+      if (lifespan != that.lifespan) return false;
+      return version != null ? version.equals(that.version) : that.version == null;
+   }
+
+   @Override
+   public int hashCode() {
+      int result = key != null ? key.hashCode() : 0;
+      result = 31 * result + (value != null ? value.hashCode() : 0);
+      result = 31 * result + (int) (created ^ (created >>> 32));
+      result = 31 * result + (int) (lifespan ^ (lifespan >>> 32));
+      result = 31 * result + (version != null ? version.hashCode() : 0);
+      return result;
+   }
+
+   @Override
+   public VersionedMortalCacheEntry clone() {
+      return (VersionedMortalCacheEntry) super.clone();
+   }
+
+   @Override
+   public String toString() {
+      return "VersionedMortalCacheEntry{" +
+            "key=" + toStr(key) +
+            ", value=" + toStr(value) +
+            ", version=" + version +
+            "}";
+   }
+
+   public static class Externalizer extends AbstractExternalizer<VersionedMortalCacheEntry> {
+      @Override
+      public void writeObject(ObjectOutput output, VersionedMortalCacheEntry ice) throws IOException {
+         output.writeObject(ice.key);
+         output.writeObject(ice.value);
+         output.writeObject(ice.version);
+         UnsignedNumeric.writeUnsignedLong(output, ice.created);
+         output.writeLong(ice.lifespan); // could be negative so should not use unsigned longs
+      }
+
+      @Override
+      public VersionedMortalCacheEntry readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+         Object k = input.readObject();
+         Object v = input.readObject();
+         EntryVersion version = (EntryVersion) input.readObject();
+         long created = UnsignedNumeric.readUnsignedLong(input);
+         long lifespan = input.readLong();
+         return new VersionedMortalCacheEntry(k, v, version, lifespan, created);
+      }
+
+      @Override
+      public Integer getId() {
+         return Ids.VERSIONED_MORTAL_ENTRY;
+      }
+
+      @Override
+      public Set<Class<? extends VersionedMortalCacheEntry>> getTypeClasses() {
+         return Util.<Class<? extends VersionedMortalCacheEntry>>asSet(VersionedMortalCacheEntry.class);
+      }
+   }
+}
@@ -0,0 +1,213 @@
+package org.infinispan.container.entries.versioned;
+
+import org.infinispan.commons.io.UnsignedNumeric;
+import org.infinispan.commons.marshall.AbstractExternalizer;
+import org.infinispan.commons.util.Util;
+import org.infinispan.container.entries.AbstractInternalCacheEntry;
+import org.infinispan.container.entries.ExpiryHelper;
+import org.infinispan.container.entries.InternalCacheValue;
+import org.infinispan.container.entries.metadata.MetadataTransientCacheValue;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.marshall.core.Ids;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Set;
+
+import static org.infinispan.commons.util.Util.toStr;
+
+/**
+ * A transient cache entry carrying the version of its {@link EmbeddedMetadata}.
+ * <p/>
+ * Max idle and version are stored as fields of the entry instead of keeping the {@link EmbeddedMetadata}
+ * they came from, saving the metadata object. The metadata is rebuilt when requested.
+ *
+ * @since 7.0
+ */
+public class VersionedTransientCacheEntry extends AbstractInternalCacheEntry implements Versioned {
+
+   protected Object value;
+   protected EntryVersion version;
+   protected long maxIdle;
+   protected long lastUsed;
+
+   public VersionedTransientCacheEntry(Object key, Object value, EntryVersion version, long maxIdle, long lastUsed) {
+      super(key);
+      this.value = value;
+      this.version = version;
+      this.maxIdle = maxIdle;
+      this.lastUsed = lastUsed;
+   }
+
+   @Override
+   public Object getValue() {
+      return value;
+   }
+
+   @Override
+   public Object setValue(Object value) {
+      return this.value = value;
+   }
+
+   @Override
+   public EntryVersion getVersion() {
+      return version;
+   }
+
+   @Override
+   public void setVersion(EntryVersion version) {
+      this.version = version;
+   }
+
+   public void setMaxIdle(long maxIdle) {
+      this.maxIdle = maxIdle;
+   }
+
+   @Override
+   public final boolean isExpired(long now) {
+      return ExpiryHelper.isExpiredTransient(maxIdle, lastUsed, now);
+   }
+
+   @Override
+   public final boolean isExpired() {
+      return isExpired(System.currentTimeMillis());
+   }
+
+   @Override
+   public final boolean canExpire() {
+      return true;
+   }
+
+   @Override
+   public final long getCreated() {
+      return -1;
+   }
+
+   @Override
+   public final long getLastUsed() {
+      return lastUsed;
+   }
+
+   @Override
+   public final long getLifespan() {
+      return -1;
+   }
+
+   @Override
+   public final long getMaxIdle() {
+      return maxIdle;
+   }
+
+   @Override
+   public final long getExpiryTime() {
+      return maxIdle > -1 ? lastUsed + maxIdle : -1;
+   }
+
+   @Override
+   public final void touch() {
+      touch(System.currentTimeMillis());
+   }
+
+   @Override
+   public final void touch(long currentTimeMillis) {
+      this.lastUsed = currentTimeMillis;
+   }
+
+   @Override
+   public final void reincarnate() {
+      // no-op
+   }
+
+   @Override
+   public void reincarnate(long now) {
+      // no-op
+   }
+
+   @Override
+   public InternalCacheValue toInternalCacheValue() {
+      return new MetadataTransientCacheValue(value, getMetadata(), lastUsed);
+   }
+
+   @Override
+   public Metadata getMetadata() {
+      return new EmbeddedMetadata.Builder().maxIdle(maxIdle).version(version).build();
+   }
+
+   @Override
+   public void setMetadata(Metadata metadata) {
+      throw new IllegalStateException(
+            "Metadata cannot be set on versioned entries. They need to be recreated via the entry factory.");
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      VersionedTransientCacheEntry that = (VersionedTransientCacheEntry) o;
+
+      if (key != null ? !key.equals(that.key) : that.key != null) return false;
+      if (value != null ? !value.equals(that.value) : that.value != null) return false;
+      if (lastUsed != that.lastUsed) return false;
+      if (maxIdle != that.maxIdle) return false;
+      return version != null ? version.equals(that.version) : that.version == null;
+   }
+
+   @Override
+   public int hashCode() {
+      int result = key != null ? key.hashCode() : 0;
+      result = 31 * result + (value != null ? value.hashCode() : 0);
+      result = 31 * result + (int) (lastUsed ^ (lastUsed >>> 32));
+      result = 31 * result + (int) (maxIdle ^ (maxIdle >>> 32));
+      result = 31 * result + (version != null ? version.hashCode() : 0);
+      return result;
+   }
+
+   @Override
+   public VersionedTransientCacheEntry clone() {
+      return (VersionedTransientCacheEntry) super.clone();
+   }
+
+   @Override
+   public String toString() {
+      return "VersionedTransientCacheEntry{" +
+            "key=" + toStr(key) +
+            ", value=" + toStr(value) +
+            ", version=" + version +
+            "}";
+   }
+
+   public static class Externalizer extends AbstractExternalizer<VersionedTransientCacheEntry> {
+      @Override
+      public void writeObject(ObjectOutput output, VersionedTransientCacheEntry ice) throws IOException {
+         output.writeObject(ice.key);
+         output.writeObject(ice.value);
+         output.writeObject(ice.version);
+         UnsignedNumeric.writeUnsignedLong(output, ice.lastUsed);
+         output.writeLong(ice.maxIdle); // could be negative so should not use unsigned longs
+      }
+
+      @Override
+      public VersionedTransientCacheEntry readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+         Object k = input.readObject();
+         Object v = input.readObject();
+         EntryVersion version = (EntryVersion) input.readObject();
+         long lastUsed = UnsignedNumeric.readUnsignedLong(input);
+         long maxIdle = input.readLong();
+         return new VersionedTransientCacheEntry(k, v, version, maxIdle, lastUsed);
+      }
+
+      @Override
+      public Integer getId() {
+         return Ids.VERSIONED_TRANSIENT_ENTRY;
+      }
+
+      @Override
+      public Set<Class<? extends VersionedTransientCacheEntry>> getTypeClasses() {
+         return Util.<Class<? extends VersionedTransientCacheEntry>>asSet(VersionedTransientCacheEntry.class);
+      }
+   }
+}
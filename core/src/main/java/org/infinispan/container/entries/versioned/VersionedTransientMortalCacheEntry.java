@@ -0,0 +1,235 @@
+package org.infinispan.container.entries.versioned;
+
+import org.infinispan.commons.io.UnsignedNumeric;
+import org.infinispan.commons.marshall.AbstractExternalizer;
+import org.infinispan.commons.util.Util;
+import org.infinispan.container.entries.AbstractInternalCacheEntry;
+import org.infinispan.container.entries.ExpiryHelper;
+import org.infinispan.container.entries.InternalCacheValue;
+import org.infinispan.container.entries.metadata.MetadataTransientMortalCacheValue;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.marshall.core.Ids;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.Set;
+
+import static java.lang.Math.min;
+import static org.infinispan.commons.util.Util.toStr;
+
+/**
+ * A transient and mortal cache entry carrying the version of its {@link EmbeddedMetadata}.
+ * <p/>
+ * Lifespan, max idle and version are stored as fields of the entry instead of keeping the {@link EmbeddedMetadata}
+ * they came from, saving the metadata object. The metadata is rebuilt when requested.
+ *
+ * @since 7.0
+ */
+public class VersionedTransientMortalCacheEntry extends AbstractInternalCacheEntry implements Versioned {
+
+   protected Object value;
+   protected EntryVersion version;
+   protected long lifespan;
+   protected long created;
+   protected long maxIdle;
+   protected long lastUsed;
+
+   public VersionedTransientMortalCacheEntry(Object key, Object value, EntryVersion version, long lifespan,
+                                             long created, long maxIdle, long lastUsed) {
+      super(key);
+      this.value = value;
+      this.version = version;
+      this.lifespan = lifespan;
+      this.created = created;
+      this.maxIdle = maxIdle;
+      this.lastUsed = lastUsed;
+   }
+
+   @Override
+   public Object getValue() {
+      return value;
+   }
+
+   @Override
+   public Object setValue(Object value) {
+      return this.value = value;
+   }
+
+   @Override
+   public EntryVersion getVersion() {
+      return version;
+   }
+
+   @Override
+   public void setVersion(EntryVersion version) {
+      this.version = version;
+   }
+
+   public void setLifespan(long lifespan) {
+      this.lifespan = lifespan;
+   }
+
+   public void setMaxIdle(long maxIdle) {
+      this.maxIdle = maxIdle;
+   }
+
+   @Override
+   public final boolean isExpired(long now) {
+      return ExpiryHelper.isExpiredTransientMortal(maxIdle, lastUsed, lifespan, created, now);
+   }
+
+   @Override
+   public final boolean isExpired() {
+      return isExpired(System.currentTimeMillis());
+   }
+
+   @Override
+   public final boolean canExpire() {
+      return true;
+   }
+
+   @Override
+   public final long getCreated() {
+      return created;
+   }
+
+   @Override
+   public final long getLastUsed() {
+      return lastUsed;
+   }
+
+   @Override
+   public final long getLifespan() {
+      return lifespan;
+   }
+
+   @Override
+   public final long getMaxIdle() {
+      return maxIdle;
+   }
+
+   @Override
+   public final long getExpiryTime() {
+      long lset = lifespan > -1 ? created + lifespan : -1;
+      long muet = maxIdle > -1 ? lastUsed + maxIdle : -1;
+      if (lset == -1) return muet;
+      if (muet == -1) return lset;
+      return min(lset, muet);
+   }
+
+   @Override
+   public final void touch() {
+      touch(System.currentTimeMillis());
+   }
+
+   @Override
+   public final void touch(long currentTimeMillis) {
+      this.lastUsed = currentTimeMillis;
+   }
+
+   @Override
+   public final void reincarnate() {
+      reincarnate(System.currentTimeMillis());
+   }
+
+   @Override
+   public void reincarnate(long now) {
+      this.created = now;
+   }
+
+   @Override
+   public InternalCacheValue toInternalCacheValue() {
+      return new MetadataTransientMortalCacheValue(value, getMetadata(), created, lastUsed);
+   }
+
+   @Override
+   public Metadata getMetadata() {
+      return new EmbeddedMetadata.Builder().lifespan(lifespan).maxIdle(maxIdle).version(version).build();
+   }
+
+   @Override
+   public void setMetadata(Metadata metadata) {
+      throw new IllegalStateException(
+            "Metadata cannot be set on versioned entries. They need to be recreated via the entry factory.");
+   }
+
+   @Override
+   public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      VersionedTransientMortalCacheEntry that = (VersionedTransientMortalCacheEntry) o;
+
+      if (key != null ? !key.equals(that.key) : that.key != null) return false;
+      if (value != null ? !value.equals(that.value) : that.value != null) return false;
+      if (created != that.created) return false;
+      if (lifespan != that.lifespan) return false;
+      if (lastUsed != that.lastUsed) return false;
+      if (maxIdle != that.maxIdle) return false;
+      return version != null ? version.equals(that.version) : that.version == null;
+   }
+
+   @Override
+   public int hashCode() {
+      int result = key != null ? key.hashCode() : 0;
+      result = 31 * result + (value != null ? value.hashCode() : 0);
+      result = 31 * result + (int) (created ^ (created >>> 32));
+      result = 31 * result + (int) (lifespan ^ (lifespan >>> 32));
+      result = 31 * result + (int) (lastUsed ^ (lastUsed >>> 32));
+      result = 31 * result + (int) (maxIdle ^ (maxIdle >>> 32));
+      result = 31 * result + (version != null ? version.hashCode() : 0);
+      return result;
+   }
+
+   @Override
+   public VersionedTransientMortalCacheEntry clone() {
+      return (VersionedTransientMortalCacheEntry) super.clone();
+   }
+
+   @Override
+   public String toString() {
+      return "VersionedTransientMortalCacheEntry{" +
+            "key=" + toStr(key) +
+            ", value=" + toStr(value) +
+            ", version=" + version +
+            "}";
+   }
+
+   public static class Externalizer extends AbstractExternalizer<VersionedTransientMortalCacheEntry> {
+      @Override
+      public void writeObject(ObjectOutput output, VersionedTransientMortalCacheEntry ice) throws IOException {
+         output.writeObject(ice.key);
+         output.writeObject(ice.value);
+         output.writeObject(ice.version);
+         UnsignedNumeric.writeUnsignedLong(output, ice.created);
+         output.writeLong(ice.lifespan); // could be negative so should not use unsigned longs
+         UnsignedNumeric.writeUnsignedLong(output, ice.lastUsed);
+         output.writeLong(ice.maxIdle); // could be negative so should not use unsigned longs
+      }
+
+      @Override
+      public VersionedTransientMortalCacheEntry readObject(ObjectInput input) throws IOException, ClassNotFoundException {
+         Object k = input.readObject();
+         Object v = input.readObject();
+         EntryVersion version = (EntryVersion) input.readObject();
+         long created = UnsignedNumeric.readUnsignedLong(input);
+         long lifespan = input.readLong();
+         long lastUsed = UnsignedNumeric.readUnsignedLong(input);
+         long maxIdle = input.readLong();
+         return new VersionedTransientMortalCacheEntry(k, v, version, lifespan, created, maxIdle, lastUsed);
+      }
+
+      @Override
+      public Integer getId() {
+         return Ids.VERSIONED_TRANSIENT_MORTAL_ENTRY;
+      }
+
+      @Override
+      public Set<Class<? extends VersionedTransientMortalCacheEntry>> getTypeClasses() {
+         return Util.<Class<? extends VersionedTransientMortalCacheEntry>>asSet(VersionedTransientMortalCacheEntry.class);
+      }
+   }
+}
@@ -0,0 +1,852 @@
+package org.infinispan.container.offheap;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.commons.CacheException;
+import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.commons.util.concurrent.ParallelIterableMap.KeyValueAction;
+import org.infinispan.commons.util.concurrent.jdk8backported.ForkJoinPool;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.entries.ExpiryHelper;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.offheap.impl.OffHeapMemory;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.PassivationManager;
+import org.infinispan.executors.ExecutorAllCompletionService;
+import org.infinispan.factories.annotations.ComponentName;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.filter.KeyFilter;
+import org.infinispan.filter.KeyValueFilter;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.util.CoreImmutables;
+import org.infinispan.util.TimeService;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
+
+/**
+ * A {@link DataContainer} that keeps marshalled entries in native memory, outside of the Java heap, so that the
+ * amount of cached data does not affect garbage collection pause times.
+ * <p/>
+ * The index is a fixed-size off-heap array of bucket addresses. Each bucket is a singly linked list of entries laid
+ * out as follows:
+ * <pre>
+ * | next (8) | hash (4) | key length (4) | entry length (4) | padding (4) |
+ * | lifespan (8) | created (8) | max idle (8) | last used (8) | key bytes | entry bytes |
+ * </pre>
+ * The key is marshalled on its own so that lookups only need to compare bytes, hence keys must marshall
+ * deterministically. The entry bytes hold the whole marshalled {@link InternalCacheEntry}. Expiration metadata is
+ * duplicated in the header so that expiration checks and {@link #purgeExpired()} never need to unmarshall entries,
+ * and the last used timestamp is updated in place.
+ * <p/>
+ * Buckets are guarded by a fixed set of striped read/write locks. Entries returned by this container are copies, so
+ * modifying them does not change the stored entry.
+ *
+ * @since 7.0
+ */
+@ThreadSafe
+public class OffHeapDataContainer<K, V> implements DataContainer<K, V> {
+
+   private static final Log log = LogFactory.getLog(OffHeapDataContainer.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private static final int NEXT_OFFSET = 0;
+   private static final int HASH_OFFSET = 8;
+   private static final int KEY_LENGTH_OFFSET = 12;
+   private static final int ENTRY_LENGTH_OFFSET = 16;
+   private static final int LIFESPAN_OFFSET = 24;
+   private static final int CREATED_OFFSET = 32;
+   private static final int MAX_IDLE_OFFSET = 40;
+   private static final int LAST_USED_OFFSET = 48;
+   private static final int HEADER_SIZE = 56;
+
+   private static final int PARALLELISM_THRESHOLD = 32;
+   private static final int MAX_LOCKS = 1 << 10;
+
+   private final int addressCount;
+   private final int addressMask;
+   private final ReentrantReadWriteLock[] locks;
+   private final int lockMask;
+   private final AtomicInteger size = new AtomicInteger();
+   private final AtomicLong allocatedBytes = new AtomicLong();
+   private final ExecutorService executor = ForkJoinPool.commonPool();
+
+   /**
+    * Address of the bucket array; 0 when the container is not started.
+    */
+   private volatile long buckets;
+
+   private StreamingMarshaller marshaller;
+   private InternalEntryFactory entryFactory;
+   private PassivationManager passivator;
+   private ActivationManager activator;
+   private TimeService timeService;
+
+   public OffHeapDataContainer(int addressCount, int concurrencyLevel) {
+      if (addressCount <= 0 || concurrencyLevel <= 0)
+         throw new IllegalArgumentException();
+      this.addressCount = nextPowerOfTwo(addressCount);
+      this.addressMask = this.addressCount - 1;
+      int lockCount = Math.min(nextPowerOfTwo(concurrencyLevel), Math.min(MAX_LOCKS, this.addressCount));
+      this.locks = new ReentrantReadWriteLock[lockCount];
+      for (int i = 0; i < lockCount; i++) {
+         locks[i] = new ReentrantReadWriteLock();
+      }
+      this.lockMask = lockCount - 1;
+   }
+
+   @Inject
+   public void initialize(@ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller, PassivationManager passivator,
+                          InternalEntryFactory entryFactory, ActivationManager activator, TimeService timeService) {
+      this.marshaller = marshaller;
+      this.passivator = passivator;
+      this.entryFactory = entryFactory;
+      this.activator = activator;
+      this.timeService = timeService;
+   }
+
+   @Start(priority = 1)
+   public void allocate() {
+      if (buckets != 0)
+         return;
+      long bytes = (long) addressCount * 8;
+      long address = OffHeapMemory.allocate(bytes);
+      OffHeapMemory.zero(address, bytes);
+      allocatedBytes.addAndGet(bytes);
+      buckets = address;
+      if (trace)
+         log.tracef("Allocated off-heap index with %d buckets", addressCount);
+   }
+
+   /**
+    * Releases all native memory held by this container. Invoked after {@link #clear()}.
+    */
+   @Stop(priority = 1000)
+   public void deallocate() {
+      lockAll();
+      try {
+         long address = buckets;
+         if (address == 0)
+            return;
+         releaseEntries(address);
+         buckets = 0;
+         OffHeapMemory.free(address);
+         allocatedBytes.addAndGet(-(long) addressCount * 8);
+      } finally {
+         unlockAll();
+      }
+   }
+
+   /**
+    * @return the number of bytes of native memory currently allocated by this container
+    */
+   public long getAllocatedBytes() {
+      return allocatedBytes.get();
+   }
+
+   @Override
+   public InternalCacheEntry<K, V> get(Object k) {
+      ByteBuffer key = marshall(k);
+      int hash = hash(key);
+      ReentrantReadWriteLock.ReadLock lock = lockFor(hash).readLock();
+      lock.lock();
+      try {
+         long address = find(hash, key);
+         if (address == 0)
+            return null;
+         if (canExpire(address)) {
+            long now = timeService.wallClockTime();
+            if (!isExpired(address, now)) {
+               OffHeapMemory.putLongVolatile(address + LAST_USED_OFFSET, now);
+               return read(address);
+            }
+         } else {
+            return read(address);
+         }
+      } finally {
+         lock.unlock();
+      }
+      removeExpired(key, hash);
+      return null;
+   }
+
+   @Override
+   public InternalCacheEntry<K, V> peek(Object k) {
+      ByteBuffer key = marshall(k);
+      int hash = hash(key);
+      ReentrantReadWriteLock.ReadLock lock = lockFor(hash).readLock();
+      lock.lock();
+      try {
+         long address = find(hash, key);
+         return address == 0 ? null : read(address);
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   @Override
+   public void put(K k, V v, Metadata metadata) {
+      InternalCacheEntry<K, V> e = peek(k);
+
+      if (trace) {
+         log.tracef("Creating new ICE for writing. Existing=%s, metadata=%s, new value=%s", e, metadata, v);
+      }
+      if (e != null) {
+         e = entryFactory.update(e, v, metadata);
+      } else {
+         // this is a brand-new entry
+         e = entryFactory.create(k, v, metadata);
+      }
+
+      if (trace)
+         log.tracef("Store %s in container", e);
+
+      ByteBuffer key = marshall(k);
+      int hash = hash(key);
+      long address = allocateEntry(hash, key, e);
+      long oldAddress;
+      ReentrantReadWriteLock.WriteLock lock = lockFor(hash).writeLock();
+      lock.lock();
+      try {
+         oldAddress = replace(hash, key, address);
+         activator.onUpdate(k, oldAddress == 0);
+      } finally {
+         lock.unlock();
+      }
+      if (oldAddress != 0) {
+         release(oldAddress);
+      } else {
+         size.incrementAndGet();
+      }
+   }
+
+   @Override
+   public boolean containsKey(Object k) {
+      ByteBuffer key = marshall(k);
+      int hash = hash(key);
+      ReentrantReadWriteLock.ReadLock lock = lockFor(hash).readLock();
+      lock.lock();
+      try {
+         long address = find(hash, key);
+         if (address == 0)
+            return false;
+         if (!canExpire(address) || !isExpired(address, timeService.wallClockTime()))
+            return true;
+      } finally {
+         lock.unlock();
+      }
+      removeExpired(key, hash);
+      return false;
+   }
+
+   @Override
+   public InternalCacheEntry<K, V> remove(Object k) {
+      ByteBuffer key = marshall(k);
+      int hash = hash(key);
+      long address;
+      InternalCacheEntry<K, V> e = null;
+      ReentrantReadWriteLock.WriteLock lock = lockFor(hash).writeLock();
+      lock.lock();
+      try {
+         address = unlink(hash, key);
+         activator.onRemove(k, address == 0);
+         if (address != 0 && (!canExpire(address) || !isExpired(address, timeService.wallClockTime()))) {
+            e = read(address);
+         }
+      } finally {
+         lock.unlock();
+      }
+      if (address != 0) {
+         release(address);
+         size.decrementAndGet();
+      }
+      return e;
+   }
+
+   @Override
+   public int size() {
+      return size.get();
+   }
+
+   @Override
+   public void clear() {
+      log.tracef("Clearing data container");
+      lockAll();
+      try {
+         long address = buckets;
+         if (address != 0)
+            releaseEntries(address);
+      } finally {
+         unlockAll();
+      }
+   }
+
+   @Override
+   public Set<K> keySet() {
+      return new KeySet();
+   }
+
+   @Override
+   public Collection<V> values() {
+      return new Values();
+   }
+
+   @Override
+   public Set<InternalCacheEntry<K, V>> entrySet() {
+      return new EntrySet();
+   }
+
+   @Override
+   public void purgeExpired() {
+      long now = timeService.wallClockTime();
+      for (int bucket = 0; bucket < addressCount; bucket++) {
+         if (bucketHead(bucket) == 0)
+            continue;
+         ReentrantReadWriteLock.WriteLock lock = locks[bucket & lockMask].writeLock();
+         lock.lock();
+         try {
+            long slot = bucketSlot(bucket);
+            long prev = 0;
+            long address = OffHeapMemory.getLong(slot);
+            while (address != 0) {
+               long next = OffHeapMemory.getLong(address + NEXT_OFFSET);
+               if (canExpire(address) && isExpired(address, now)) {
+                  if (prev == 0) {
+                     OffHeapMemory.putLong(slot, next);
+                  } else {
+                     OffHeapMemory.putLong(prev + NEXT_OFFSET, next);
+                  }
+                  release(address);
+                  size.decrementAndGet();
+               } else {
+                  prev = address;
+               }
+               address = next;
+            }
+         } finally {
+            lock.unlock();
+         }
+      }
+   }
+
+   @Override
+   public void evict(K k) {
+      ByteBuffer key = marshall(k);
+      int hash = hash(key);
+      long address;
+      ReentrantReadWriteLock.WriteLock lock = lockFor(hash).writeLock();
+      lock.lock();
+      try {
+         address = find(hash, key);
+         if (address == 0)
+            return;
+         passivator.passivate(read(address));
+         unlink(hash, key);
+      } finally {
+         lock.unlock();
+      }
+      release(address);
+      size.decrementAndGet();
+   }
+
+   @Override
+   public InternalCacheEntry<K, V> compute(K k, ComputeAction<K, V> action) {
+      ByteBuffer key = marshall(k);
+      int hash = hash(key);
+      long oldAddress;
+      InternalCacheEntry<K, V> newEntry;
+      ReentrantReadWriteLock.WriteLock lock = lockFor(hash).writeLock();
+      lock.lock();
+      try {
+         oldAddress = find(hash, key);
+         InternalCacheEntry<K, V> oldEntry = oldAddress == 0 ? null : read(oldAddress);
+         newEntry = action.compute(k, oldEntry, entryFactory);
+         if (newEntry == oldEntry) {
+            return oldEntry;
+         } else if (newEntry == null) {
+            activator.onRemove(k, false);
+            unlink(hash, key);
+         } else {
+            activator.onUpdate(k, oldEntry == null);
+            if (trace)
+               log.tracef("Store %s in container", newEntry);
+            replace(hash, key, allocateEntry(hash, key, newEntry));
+         }
+      } finally {
+         lock.unlock();
+      }
+      if (oldAddress != 0) {
+         release(oldAddress);
+         if (newEntry == null)
+            size.decrementAndGet();
+      } else if (newEntry != null) {
+         size.incrementAndGet();
+      }
+      return newEntry;
+   }
+
+   @Override
+   public Iterator<InternalCacheEntry<K, V>> iterator() {
+      return new EntryIterator();
+   }
+
+   @Override
+   public void executeTask(final KeyFilter<? super K> filter, final KeyValueAction<? super K, InternalCacheEntry<K, V>> action)
+         throws InterruptedException {
+      if (filter == null)
+         throw new IllegalArgumentException("No filter specified");
+      if (action == null)
+         throw new IllegalArgumentException("No action specified");
+
+      forEach(new KeyValueAction<K, InternalCacheEntry<K, V>>() {
+         @Override
+         public void apply(K key, InternalCacheEntry<K, V> value) {
+            if (filter.accept(key)) {
+               action.apply(key, value);
+            }
+         }
+      });
+   }
+
+   @Override
+   public void executeTask(final KeyValueFilter<? super K, ? super V> filter, final KeyValueAction<? super K, InternalCacheEntry<K, V>> action)
+         throws InterruptedException {
+      if (filter == null)
+         throw new IllegalArgumentException("No filter specified");
+      if (action == null)
+         throw new IllegalArgumentException("No action specified");
+
+      forEach(new KeyValueAction<K, InternalCacheEntry<K, V>>() {
+         @Override
+         public void apply(K key, InternalCacheEntry<K, V> value) {
+            if (filter.accept(key, value.getValue(), value.getMetadata())) {
+               action.apply(key, value);
+            }
+         }
+      });
+   }
+
+   /**
+    * Splits the bucket array in ranges and processes them in parallel. Every bucket is copied to the heap under its
+    * read lock and the action is applied outside of the lock, so actions are free to modify the container.
+    */
+   private void forEach(final KeyValueAction<K, InternalCacheEntry<K, V>> action) throws InterruptedException {
+      if (size() <= PARALLELISM_THRESHOLD) {
+         applyToBuckets(0, addressCount, action);
+      } else {
+         int partitions = Runtime.getRuntime().availableProcessors() << 2;
+         int partitionSize = Math.max(addressCount / partitions, 1);
+         ExecutorAllCompletionService eacs = new ExecutorAllCompletionService(executor);
+         for (int start = 0; start < addressCount; start += partitionSize) {
+            final int from = start;
+            final int to = Math.min(start + partitionSize, addressCount);
+            eacs.submit(new Runnable() {
+               @Override
+               public void run() {
+                  applyToBuckets(from, to, action);
+               }
+            }, null);
+         }
+         eacs.waitUntilAllCompleted();
+         if (eacs.isExceptionThrown()) {
+            throw new CacheException(eacs.getFirstException());
+         }
+      }
+      //TODO figure out the way how to do interruption better (during iteration)
+      if (Thread.currentThread().isInterrupted()) {
+         throw new InterruptedException();
+      }
+   }
+
+   private void applyToBuckets(int from, int to, KeyValueAction<K, InternalCacheEntry<K, V>> action) {
+      for (int bucket = from; bucket < to; bucket++) {
+         if (Thread.currentThread().isInterrupted())
+            return;
+         for (InternalCacheEntry<K, V> e : readBucket(bucket)) {
+            action.apply(e.getKey(), e);
+         }
+      }
+   }
+
+   private ReentrantReadWriteLock lockFor(int hash) {
+      return locks[hash & lockMask];
+   }
+
+   private void lockAll() {
+      for (ReentrantReadWriteLock lock : locks) {
+         lock.writeLock().lock();
+      }
+   }
+
+   private void unlockAll() {
+      for (int i = locks.length - 1; i >= 0; i--) {
+         locks[i].writeLock().unlock();
+      }
+   }
+
+   private long bucketSlot(int bucket) {
+      long address = buckets;
+      if (address == 0)
+         throw new IllegalStateException("Off-heap data container is not started");
+      return address + ((long) bucket << 3);
+   }
+
+   private long bucketHead(int bucket) {
+      return OffHeapMemory.getLongVolatile(bucketSlot(bucket));
+   }
+
+   /**
+    * Must be invoked while holding the lock of the bucket.
+    */
+   private long find(int hash, ByteBuffer key) {
+      long address = OffHeapMemory.getLong(bucketSlot(hash & addressMask));
+      while (address != 0) {
+         if (matches(address, hash, key))
+            return address;
+         address = OffHeapMemory.getLong(address + NEXT_OFFSET);
+      }
+      return 0;
+   }
+
+   /**
+    * Removes the entry for the given key from its bucket and returns its address, or 0 if not found. The entry
+    * memory is not released. Must be invoked while holding the write lock of the bucket.
+    */
+   private long unlink(int hash, ByteBuffer key) {
+      long slot = bucketSlot(hash & addressMask);
+      long prev = 0;
+      long address = OffHeapMemory.getLong(slot);
+      while (address != 0) {
+         long next = OffHeapMemory.getLong(address + NEXT_OFFSET);
+         if (matches(address, hash, key)) {
+            if (prev == 0) {
+               OffHeapMemory.putLong(slot, next);
+            } else {
+               OffHeapMemory.putLong(prev + NEXT_OFFSET, next);
+            }
+            return address;
+         }
+         prev = address;
+         address = next;
+      }
+      return 0;
+   }
+
+   /**
+    * Links the new entry at the head of its bucket, unlinking any previous entry for the same key. Returns the
+    * address of the previous entry, or 0. Must be invoked while holding the write lock of the bucket.
+    */
+   private long replace(int hash, ByteBuffer key, long newAddress) {
+      long oldAddress = unlink(hash, key);
+      long slot = bucketSlot(hash & addressMask);
+      OffHeapMemory.putLong(newAddress + NEXT_OFFSET, OffHeapMemory.getLong(slot));
+      OffHeapMemory.putLongVolatile(slot, newAddress);
+      return oldAddress;
+   }
+
+   private boolean matches(long address, int hash, ByteBuffer key) {
+      return OffHeapMemory.getInt(address + HASH_OFFSET) == hash
+            && OffHeapMemory.getInt(address + KEY_LENGTH_OFFSET) == key.getLength()
+            && OffHeapMemory.equals(address + HEADER_SIZE, key.getBuf(), key.getOffset(), key.getLength());
+   }
+
+   private void removeExpired(ByteBuffer key, int hash) {
+      long address;
+      ReentrantReadWriteLock.WriteLock lock = lockFor(hash).writeLock();
+      lock.lock();
+      try {
+         address = find(hash, key);
+         if (address == 0 || !canExpire(address) || !isExpired(address, timeService.wallClockTime()))
+            return;
+         unlink(hash, key);
+      } finally {
+         lock.unlock();
+      }
+      release(address);
+      size.decrementAndGet();
+   }
+
+   private long allocateEntry(int hash, ByteBuffer key, InternalCacheEntry<K, V> e) {
+      ByteBuffer entry = marshall(e);
+      long bytes = HEADER_SIZE + key.getLength() + entry.getLength();
+      long address = OffHeapMemory.allocate(bytes);
+      allocatedBytes.addAndGet(bytes);
+      OffHeapMemory.putLong(address + NEXT_OFFSET, 0);
+      OffHeapMemory.putInt(address + HASH_OFFSET, hash);
+      OffHeapMemory.putInt(address + KEY_LENGTH_OFFSET, key.getLength());
+      OffHeapMemory.putInt(address + ENTRY_LENGTH_OFFSET, entry.getLength());
+      OffHeapMemory.putLong(address + LIFESPAN_OFFSET, e.getLifespan());
+      OffHeapMemory.putLong(address + CREATED_OFFSET, e.getCreated());
+      OffHeapMemory.putLong(address + MAX_IDLE_OFFSET, e.getMaxIdle());
+      OffHeapMemory.putLong(address + LAST_USED_OFFSET, e.getLastUsed());
+      OffHeapMemory.putBytes(address + HEADER_SIZE, key.getBuf(), key.getOffset(), key.getLength());
+      OffHeapMemory.putBytes(address + HEADER_SIZE + key.getLength(), entry.getBuf(), entry.getOffset(), entry.getLength());
+      return address;
+   }
+
+   private void release(long address) {
+      long bytes = HEADER_SIZE + OffHeapMemory.getInt(address + KEY_LENGTH_OFFSET)
+            + OffHeapMemory.getInt(address + ENTRY_LENGTH_OFFSET);
+      OffHeapMemory.free(address);
+      allocatedBytes.addAndGet(-bytes);
+   }
+
+   /**
+    * Releases every entry and empties all buckets. Must be invoked while holding all the write locks.
+    */
+   private void releaseEntries(long bucketsAddress) {
+      for (int bucket = 0; bucket < addressCount; bucket++) {
+         long slot = bucketsAddress + ((long) bucket << 3);
+         long address = OffHeapMemory.getLong(slot);
+         while (address != 0) {
+            long next = OffHeapMemory.getLong(address + NEXT_OFFSET);
+            release(address);
+            address = next;
+         }
+         OffHeapMemory.putLong(slot, 0);
+      }
+      size.set(0);
+   }
+
+   private static boolean canExpire(long address) {
+      return OffHeapMemory.getLong(address + LIFESPAN_OFFSET) > -1 || OffHeapMemory.getLong(address + MAX_IDLE_OFFSET) > -1;
+   }
+
+   private static boolean isExpired(long address, long now) {
+      return ExpiryHelper.isExpiredTransientMortal(OffHeapMemory.getLong(address + MAX_IDLE_OFFSET),
+            OffHeapMemory.getLongVolatile(address + LAST_USED_OFFSET), OffHeapMemory.getLong(address + LIFESPAN_OFFSET),
+            OffHeapMemory.getLong(address + CREATED_OFFSET), now);
+   }
+
+   /**
+    * Unmarshalls the entry stored at the given address. Must be invoked while holding the lock of the bucket.
+    */
+   @SuppressWarnings("unchecked")
+   private InternalCacheEntry<K, V> read(long address) {
+      int keyLength = OffHeapMemory.getInt(address + KEY_LENGTH_OFFSET);
+      byte[] bytes = new byte[OffHeapMemory.getInt(address + ENTRY_LENGTH_OFFSET)];
+      OffHeapMemory.getBytes(address + HEADER_SIZE + keyLength, bytes, 0, bytes.length);
+      InternalCacheEntry<K, V> e = (InternalCacheEntry<K, V>) unmarshall(bytes);
+      if (OffHeapMemory.getLong(address + MAX_IDLE_OFFSET) > -1) {
+         // the last used timestamp is only maintained in the header
+         e.touch(OffHeapMemory.getLongVolatile(address + LAST_USED_OFFSET));
+      }
+      return e;
+   }
+
+   private List<InternalCacheEntry<K, V>> readBucket(int bucket) {
+      if (bucketHead(bucket) == 0)
+         return Collections.emptyList();
+      ReentrantReadWriteLock.ReadLock lock = locks[bucket & lockMask].readLock();
+      lock.lock();
+      try {
+         List<InternalCacheEntry<K, V>> entries = new ArrayList<InternalCacheEntry<K, V>>(2);
+         long address = OffHeapMemory.getLong(bucketSlot(bucket));
+         while (address != 0) {
+            entries.add(read(address));
+            address = OffHeapMemory.getLong(address + NEXT_OFFSET);
+         }
+         return entries;
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   private ByteBuffer marshall(Object o) {
+      try {
+         return marshaller.objectToBuffer(o);
+      } catch (IOException e) {
+         throw new CacheException("Unable to marshall " + o + " for off-heap storage", e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException(e);
+      }
+   }
+
+   private Object unmarshall(byte[] bytes) {
+      try {
+         return marshaller.objectFromByteBuffer(bytes);
+      } catch (IOException e) {
+         throw new CacheException("Unable to unmarshall off-heap entry", e);
+      } catch (ClassNotFoundException e) {
+         throw new CacheException("Unable to unmarshall off-heap entry", e);
+      }
+   }
+
+   private static int hash(ByteBuffer key) {
+      byte[] buf = key.getBuf();
+      int h = 1;
+      for (int i = key.getOffset(), end = key.getOffset() + key.getLength(); i < end; i++) {
+         h = 31 * h + buf[i];
+      }
+      return h ^ (h >>> 16);
+   }
+
+   private static int nextPowerOfTwo(int value) {
+      int result = 1;
+      while (result < value && result < (1 << 30)) {
+         result <<= 1;
+      }
+      return result;
+   }
+
+   private class EntryIterator implements Iterator<InternalCacheEntry<K, V>> {
+      private int nextBucket;
+      private Iterator<InternalCacheEntry<K, V>> current = Collections.<InternalCacheEntry<K, V>>emptyList().iterator();
+
+      @Override
+      public boolean hasNext() {
+         while (!current.hasNext()) {
+            if (nextBucket >= addressCount)
+               return false;
+            current = readBucket(nextBucket++).iterator();
+         }
+         return true;
+      }
+
+      @Override
+      public InternalCacheEntry<K, V> next() {
+         if (!hasNext())
+            throw new NoSuchElementException();
+         return current.next();
+      }
+
+      @Override
+      public void remove() {
+         throw new UnsupportedOperationException();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Set
+    */
+   private class KeySet extends AbstractSet<K> {
+      @Override
+      public Iterator<K> iterator() {
+         final Iterator<InternalCacheEntry<K, V>> it = new EntryIterator();
+         return new Iterator<K>() {
+            @Override
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            @Override
+            public K next() {
+               return it.next().getKey();
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public boolean contains(Object o) {
+         return peek(o) != null;
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Set
+    */
+   private class EntrySet extends AbstractSet<InternalCacheEntry<K, V>> {
+      @Override
+      public boolean contains(Object o) {
+         if (!(o instanceof Map.Entry)) {
+            return false;
+         }
+
+         @SuppressWarnings("rawtypes")
+         Map.Entry e = (Map.Entry) o;
+         InternalCacheEntry ice = peek(e.getKey());
+         if (ice == null) {
+            return false;
+         }
+         return ice.getValue().equals(e.getValue());
+      }
+
+      @Override
+      public Iterator<InternalCacheEntry<K, V>> iterator() {
+         final Iterator<InternalCacheEntry<K, V>> it = new EntryIterator();
+         return new Iterator<InternalCacheEntry<K, V>>() {
+            @Override
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            @Override
+            public InternalCacheEntry<K, V> next() {
+               return CoreImmutables.immutableInternalCacheEntry(it.next());
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+
+   /**
+    * Minimal implementation needed for unmodifiable Collection
+    */
+   private class Values extends AbstractCollection<V> {
+      @Override
+      public Iterator<V> iterator() {
+         final Iterator<InternalCacheEntry<K, V>> it = new EntryIterator();
+         return new Iterator<V>() {
+            @Override
+            public boolean hasNext() {
+               return it.hasNext();
+            }
+
+            @Override
+            public V next() {
+               return it.next().getValue();
+            }
+
+            @Override
+            public void remove() {
+               throw new UnsupportedOperationException();
+            }
+         };
+      }
+
+      @Override
+      public int size() {
+         return OffHeapDataContainer.this.size();
+      }
+   }
+}
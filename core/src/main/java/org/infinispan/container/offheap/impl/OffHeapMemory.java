@@ -0,0 +1,105 @@
+package org.infinispan.container.offheap.impl;
+
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.security.AccessController;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+
+/**
+ * Thin wrapper around {@link sun.misc.Unsafe} providing the native memory primitives needed by the off-heap data
+ * container and the off-heap index of the {@link org.infinispan.persistence.file.SingleFileStore}. Addresses returned
+ * by {@link #allocate(long)} must be released with {@link #free(long)}.
+ * <p/>
+ * This is an internal class: the package is not exported, and nothing outside of Infinispan should use it.
+ *
+ * @since 7.0
+ */
+public final class OffHeapMemory {
+
+   private static final Unsafe UNSAFE = getUnsafe();
+   private static final long BYTE_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+
+   private OffHeapMemory() {
+   }
+
+   public static long allocate(long size) {
+      return UNSAFE.allocateMemory(size);
+   }
+
+   public static void free(long address) {
+      UNSAFE.freeMemory(address);
+   }
+
+   public static void zero(long address, long size) {
+      UNSAFE.setMemory(address, size, (byte) 0);
+   }
+
+   public static long getLong(long address) {
+      return UNSAFE.getLong(address);
+   }
+
+   public static void putLong(long address, long value) {
+      UNSAFE.putLong(address, value);
+   }
+
+   public static long getLongVolatile(long address) {
+      return UNSAFE.getLongVolatile(null, address);
+   }
+
+   public static void putLongVolatile(long address, long value) {
+      UNSAFE.putLongVolatile(null, address, value);
+   }
+
+   public static int getInt(long address) {
+      return UNSAFE.getInt(address);
+   }
+
+   public static void putInt(long address, int value) {
+      UNSAFE.putInt(address, value);
+   }
+
+   public static byte getByte(long address) {
+      return UNSAFE.getByte(address);
+   }
+
+   public static void putBytes(long address, byte[] src, int offset, int length) {
+      UNSAFE.copyMemory(src, BYTE_ARRAY_BASE_OFFSET + offset, null, address, length);
+   }
+
+   public static void getBytes(long address, byte[] dst, int offset, int length) {
+      UNSAFE.copyMemory(null, address, dst, BYTE_ARRAY_BASE_OFFSET + offset, length);
+   }
+
+   /**
+    * Compares {@code length} bytes stored at {@code address} with the given array region.
+    */
+   public static boolean equals(long address, byte[] bytes, int offset, int length) {
+      for (int i = 0; i < length; i++) {
+         if (UNSAFE.getByte(address + i) != bytes[offset + i])
+            return false;
+      }
+      return true;
+   }
+
+   private static Unsafe getUnsafe() {
+      try {
+         return Unsafe.getUnsafe();
+      } catch (SecurityException tryReflectionInstead) {
+         // fall through
+      }
+      try {
+         return AccessController.doPrivileged(new PrivilegedExceptionAction<Unsafe>() {
+            @Override
+            public Unsafe run() throws Exception {
+               Field f = Unsafe.class.getDeclaredField("theUnsafe");
+               f.setAccessible(true);
+               return (Unsafe) f.get(null);
+            }
+         });
+      } catch (PrivilegedActionException e) {
+         throw new IllegalStateException("Off-heap storage requires sun.misc.Unsafe", e.getCause());
+      }
+   }
+}
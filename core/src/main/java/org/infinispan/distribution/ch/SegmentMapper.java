@@ -0,0 +1,65 @@
+package org.infinispan.distribution.ch;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.HashConfiguration;
+import org.infinispan.distribution.group.GroupManager;
+import org.infinispan.distribution.group.GroupingConsistentHash;
+import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.factories.GlobalComponentRegistry;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.remoting.transport.Transport;
+import org.infinispan.statetransfer.StateTransferManagerImpl;
+
+import java.util.Collections;
+
+/**
+ * Maps the keys of a cache to the segments of its consistent hash.
+ * <p/>
+ * The segment of a key only depends on the hash function, the number of segments and the grouping configured for the
+ * cache, not on the owners of the segments, so the mapping is available before the cache joins the cluster, e.g. to
+ * the cache stores while they start. All the keys of a non-clustered cache are mapped to a single segment.
+ *
+ * @since 7.0
+ */
+public final class SegmentMapper {
+
+   private final ConsistentHash ch;
+
+   private SegmentMapper(ConsistentHash ch) {
+      this.ch = ch;
+   }
+
+   /**
+    * Creates the mapping of a cache, once its components are wired.
+    */
+   public static SegmentMapper forCache(Cache<?, ?> cache) {
+      AdvancedCache<?, ?> advancedCache = cache.getAdvancedCache();
+      Configuration configuration = advancedCache.getCacheConfiguration();
+      if (!configuration.clustering().cacheMode().isClustered()) {
+         return new SegmentMapper(null);
+      }
+      ComponentRegistry componentRegistry = advancedCache.getComponentRegistry();
+      GlobalComponentRegistry globalComponentRegistry = componentRegistry.getGlobalComponentRegistry();
+      ConsistentHashFactory factory = StateTransferManagerImpl.pickConsistentHashFactory(
+            globalComponentRegistry.getGlobalConfiguration(), configuration);
+      HashConfiguration hash = configuration.clustering().hash();
+      // any member would do, the local address is also topology aware when the factory needs it
+      Address self = globalComponentRegistry.getComponent(Transport.class).getAddress();
+      ConsistentHash ch = factory.create(hash.hash(), 1, hash.numSegments(), Collections.singletonList(self), null);
+      GroupManager groupManager = componentRegistry.getComponent(GroupManager.class);
+      if (groupManager != null) {
+         ch = new GroupingConsistentHash(ch, groupManager);
+      }
+      return new SegmentMapper(ch);
+   }
+
+   public int getNumSegments() {
+      return ch == null ? 1 : ch.getNumSegments();
+   }
+
+   public int getSegment(Object key) {
+      return ch == null ? 0 : ch.getSegment(key);
+   }
+}
@@ -0,0 +1,20 @@
+package org.infinispan.eviction;
+
+/**
+ * Estimates the memory footprint of a cache entry. Used by {@link EvictionType#MEMORY} eviction to keep the data
+ * container under its configured memory budget.
+ * <p/>
+ * Implementations must be thread safe and should be cheap, since they are invoked on every write to the data
+ * container. The same key and value must always produce the same estimate.
+ *
+ * @since 7.0
+ */
+public interface EntrySizeCalculator<K, V> {
+
+   /**
+    * @param key   the key of the entry
+    * @param value the value of the entry
+    * @return the estimated number of bytes retained by the entry
+    */
+   long calculateSize(K key, V value);
+}
@@ -16,7 +16,12 @@ public enum EvictionStrategy {
    @Deprecated
    FIFO, 
    LRU, 
-   LIRS;
+   LIRS,
+   /**
+    * Window TinyLFU: a small LRU admission window in front of a segmented LRU main region, where a frequency sketch
+    * decides whether entries leaving the window replace the main region's eviction candidate.
+    */
+   TINYLFU;
 
    public boolean isEnabled() {
       return this != NONE;
@@ -0,0 +1,19 @@
+package org.infinispan.eviction;
+
+/**
+ * Supported eviction types, i.e. the unit in which the eviction bound of a cache is expressed.
+ *
+ * @since 7.0
+ */
+public enum EvictionType {
+   /**
+    * The cache is bounded by the number of entries, see
+    * {@link org.infinispan.configuration.cache.EvictionConfiguration#maxEntries()}
+    */
+   COUNT,
+   /**
+    * The cache is bounded by the estimated memory footprint of its entries, see
+    * {@link org.infinispan.configuration.cache.EvictionConfiguration#maxMemory()}
+    */
+   MEMORY
+}
@@ -6,6 +6,7 @@
 import org.infinispan.commons.util.Util;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.DefaultDataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.impl.ImmutableContext;
@@ -15,6 +16,12 @@
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
+import org.infinispan.jmx.annotations.DisplayType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Units;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.util.TimeService;
@@ -25,8 +32,10 @@
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @ThreadSafe
+@MBean(objectName = "Expiration", description = "Component that periodically purges the expired entries from memory and from the cache stores")
 public class EvictionManagerImpl<K, V> implements EvictionManager<K, V> {
    private static final Log log = LogFactory.getLog(EvictionManagerImpl.class);
    private static final boolean trace = log.isTraceEnabled();
@@ -42,6 +51,11 @@
    private boolean enabled;
    private String cacheName;
 
+   private final AtomicLong reaperRuns = new AtomicLong(0);
+   private final AtomicLong totalExpired = new AtomicLong(0);
+   private volatile long expiredLastRun;
+   private volatile long reaperTimeLastRun;
+
    @Inject
    public void initialize(@ComponentName(KnownComponentNames.EVICTION_SCHEDULED_EXECUTOR)
          ScheduledExecutorService executor, Cache cache, Configuration cfg, DataContainer dataContainer,
@@ -82,17 +96,21 @@ public void start() {
 
    @Override
    public void processEviction() {
-      long start = 0;
       if (!Thread.currentThread().isInterrupted()) {
          try {
             if (trace) {
                log.trace("Purging data container of expired entries");
-               start = timeService.time();
             }
-            dataContainer.purgeExpired();
+            long start = timeService.time();
+            int expired = purgeDataContainer();
+            long duration = timeService.timeDuration(start, TimeUnit.MILLISECONDS);
+            expiredLastRun = expired;
+            reaperTimeLastRun = duration;
+            totalExpired.addAndGet(expired);
+            reaperRuns.incrementAndGet();
             if (trace) {
-               log.tracef("Purging data container completed in %s",
-                          Util.prettyPrintTime(timeService.timeDuration(start, TimeUnit.MILLISECONDS)));
+               log.tracef("Purging data container completed in %s, %d entries expired",
+                          Util.prettyPrintTime(duration), expired);
             }
          } catch (Exception e) {
             log.exceptionPurgingDataContainer(e);
@@ -104,6 +122,51 @@ public void processEviction() {
       }
    }
 
+   private int purgeDataContainer() {
+      if (dataContainer instanceof DefaultDataContainer) {
+         return ((DefaultDataContainer) dataContainer).purgeExpiredEntries();
+      }
+      int sizeBefore = dataContainer.size();
+      dataContainer.purgeExpired();
+      // concurrent writes make this an estimate
+      return Math.max(0, sizeBefore - dataContainer.size());
+   }
+
+   @ManagedAttribute(description = "Number of entries removed from memory by the last run of the expiration reaper",
+         displayName = "Expired entries in last run", measurementType = MeasurementType.DYNAMIC,
+         displayType = DisplayType.SUMMARY)
+   public long getExpiredLastRun() {
+      return expiredLastRun;
+   }
+
+   @ManagedAttribute(description = "Time taken by the last run of the expiration reaper to purge the data container",
+         displayName = "Reaper time in last run", units = Units.MILLISECONDS, measurementType = MeasurementType.DYNAMIC,
+         displayType = DisplayType.SUMMARY)
+   public long getReaperTimeLastRun() {
+      return reaperTimeLastRun;
+   }
+
+   @ManagedAttribute(description = "Number of entries removed from memory by the expiration reaper",
+         displayName = "Total expired entries", measurementType = MeasurementType.TRENDSUP,
+         displayType = DisplayType.SUMMARY)
+   public long getTotalExpired() {
+      return totalExpired.get();
+   }
+
+   @ManagedAttribute(description = "Number of times the expiration reaper has run", displayName = "Reaper runs",
+         measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getReaperRuns() {
+      return reaperRuns.get();
+   }
+
+   @ManagedOperation(description = "Resets the expiration statistics", displayName = "Reset statistics")
+   public void resetStatistics() {
+      reaperRuns.set(0);
+      totalExpired.set(0);
+      expiredLastRun = 0;
+      reaperTimeLastRun = 0;
+   }
+
    @Override
    public boolean isEnabled() {
       return enabled;
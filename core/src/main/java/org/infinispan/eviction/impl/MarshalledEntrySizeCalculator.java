@@ -0,0 +1,43 @@
+package org.infinispan.eviction.impl;
+
+import org.infinispan.commons.CacheException;
+import org.infinispan.commons.marshall.Marshaller;
+import org.infinispan.eviction.EntrySizeCalculator;
+
+import java.io.IOException;
+
+/**
+ * Default {@link EntrySizeCalculator} which estimates the size of an entry as the marshalled size of its key and
+ * value. Marshalling uses the buffer size predictors of the marshaller, so repeated estimations of similar objects
+ * do not over-allocate.
+ *
+ * @since 7.0
+ */
+public class MarshalledEntrySizeCalculator implements EntrySizeCalculator<Object, Object> {
+
+   private final Marshaller marshaller;
+
+   public MarshalledEntrySizeCalculator(Marshaller marshaller) {
+      this.marshaller = marshaller;
+   }
+
+   @Override
+   public long calculateSize(Object key, Object value) {
+      return marshalledSize(key) + marshalledSize(value);
+   }
+
+   private long marshalledSize(Object o) {
+      if (o == null)
+         return 0;
+      if (o instanceof byte[])
+         return ((byte[]) o).length;
+      try {
+         return marshaller.objectToBuffer(o).getLength();
+      } catch (IOException e) {
+         throw new CacheException("Unable to estimate the size of " + o, e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException(e);
+      }
+   }
+}
@@ -2,6 +2,7 @@
 
 import org.infinispan.commons.util.InfinispanCollections;
 import org.infinispan.commons.executors.ThreadPoolExecutorFactory;
+import org.infinispan.util.LogarithmicHistogram;
 import org.infinispan.util.TimeService;
 import org.infinispan.util.concurrent.BlockingRunnable;
 import org.infinispan.util.concurrent.BlockingTaskAwareExecutorService;
@@ -50,6 +51,29 @@ public void checkForReadyTasks() {
       }
    }
 
+   @Override
+   public void checkForReadyTasks(Object resource) {
+      if (delegate != null) {
+         delegate.checkForReadyTasks(resource);
+      }
+   }
+
+   @Override
+   public int getBlockedTaskCount() {
+      return delegate == null ? 0 : delegate.getBlockedTaskCount();
+   }
+
+   @Override
+   public LogarithmicHistogram getQueueLengthHistogram() {
+      // not initialized yet: nothing was ever queued
+      return delegate == null ? new LogarithmicHistogram("") : delegate.getQueueLengthHistogram();
+   }
+
+   @Override
+   public LogarithmicHistogram getWaitTimeHistogram() {
+      return delegate == null ? new LogarithmicHistogram("us") : delegate.getWaitTimeHistogram();
+   }
+
    @Override
    public void shutdown() {
       if (delegate != null) delegate.shutdown();
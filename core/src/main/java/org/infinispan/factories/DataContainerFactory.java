@@ -3,10 +3,16 @@
 import org.infinispan.commons.equivalence.AnyEquivalence;
 import org.infinispan.commons.equivalence.Equivalence;
 import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.configuration.cache.StorageType;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.container.offheap.OffHeapDataContainer;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.eviction.EvictionStrategy;
 import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.eviction.EvictionType;
+import org.infinispan.eviction.impl.MarshalledEntrySizeCalculator;
 import org.infinispan.factories.annotations.DefaultFactoryFor;
 
 /**
@@ -25,6 +31,9 @@ public class DataContainerFactory extends AbstractNamedCacheComponentFactory imp
    public <T> T construct(Class<T> componentType) {
       if (configuration.dataContainer().dataContainer() != null) {
          return (T) configuration.dataContainer().dataContainer();
+      } else if (configuration.dataContainer().storageType() == StorageType.OFF_HEAP) {
+         return (T) new OffHeapDataContainer(configuration.dataContainer().addressCount(),
+               configuration.locking().concurrencyLevel());
       } else {
          EvictionStrategy st = configuration.eviction().strategy();
          int level = configuration.locking().concurrencyLevel();
@@ -38,15 +47,28 @@ public <T> T construct(Class<T> componentType) {
             case LRU:
             case FIFO:
             case LIRS:
+            case TINYLFU:
                int maxEntries = configuration.eviction().maxEntries();
+               EvictionThreadPolicy policy = configuration.eviction().threadPolicy();
+
+               if (configuration.eviction().type() == EvictionType.MEMORY) {
+                  EntrySizeCalculator sizeCalculator = configuration.eviction().sizeCalculator();
+                  if (sizeCalculator == null) {
+                     sizeCalculator = new MarshalledEntrySizeCalculator(componentRegistry.getComponent(
+                           StreamingMarshaller.class, KnownComponentNames.CACHE_MARSHALLER));
+                  }
+                  // without maxEntries the container is bounded by memory only
+                  return (T) DefaultDataContainer.boundedDataContainer(
+                     level, maxEntries, st, policy, keyEquivalence, sizeCalculator,
+                     configuration.eviction().maxMemory());
+               }
+
                //handle case when < 0 value signifies unbounded container 
                if(maxEntries < 0) {
                    return (T) DefaultDataContainer.unBoundedDataContainer(
                          level, keyEquivalence);
                }
 
-               EvictionThreadPolicy policy = configuration.eviction().threadPolicy();
-
                return (T) DefaultDataContainer.boundedDataContainer(
                   level, maxEntries, st, policy, keyEquivalence);
             default:
@@ -265,6 +265,15 @@ public InterceptorChain buildInterceptorChain() {
       interceptorChain.appendInterceptor(callInterceptor, false);
       log.trace("Finished building default interceptor chain.");
       buildCustomInterceptors(interceptorChain, configuration.customInterceptors());
+
+      if (configuration.jmxStatistics().interceptorTimings()) {
+         InterceptorTimings interceptorTimings = componentRegistry.getComponent(InterceptorTimings.class);
+         if (interceptorTimings == null) {
+            interceptorTimings = new InterceptorTimings();
+            componentRegistry.registerComponent(interceptorTimings, InterceptorTimings.class);
+         }
+         interceptorChain.setInterceptorTimings(interceptorTimings);
+      }
       return interceptorChain;
    }
 
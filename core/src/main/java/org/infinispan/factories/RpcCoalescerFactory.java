@@ -0,0 +1,26 @@
+package org.infinispan.factories;
+
+import org.infinispan.configuration.cache.ClusteringConfiguration;
+import org.infinispan.factories.annotations.DefaultFactoryFor;
+import org.infinispan.remoting.RpcCoalescer;
+import org.infinispan.remoting.RpcCoalescerImpl;
+
+/**
+ * Factory for {@link RpcCoalescer}, which only exists in synchronous clustered caches coalescing their writes.
+ *
+ * @since 7.0
+ */
+@DefaultFactoryFor(classes = RpcCoalescer.class)
+public class RpcCoalescerFactory extends AbstractNamedCacheComponentFactory implements AutoInstantiableFactory {
+   @Override
+   @SuppressWarnings("unchecked")
+   public <T> T construct(Class<T> componentType) {
+      ClusteringConfiguration clustering = configuration.clustering();
+      if (clustering.cacheMode().isClustered() && clustering.cacheMode().isSynchronous()
+            && clustering.sync().coalesceWrites()) {
+         return (T) new RpcCoalescerImpl();
+      } else {
+         return null;
+      }
+   }
+}
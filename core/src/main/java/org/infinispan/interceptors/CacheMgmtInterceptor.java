@@ -9,6 +9,8 @@
 import org.infinispan.commands.write.ReplaceCommand;
 import org.infinispan.commands.write.WriteCommand;
 import org.infinispan.container.DataContainer;
+import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.container.offheap.OffHeapDataContainer;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.factories.annotations.Inject;
@@ -331,6 +333,20 @@ public int getNumberOfEntries() {
       return dataContainer.size();
    }
 
+   @ManagedAttribute(
+         description = "Estimated number of bytes used by the entries in the data container, or -1 if the container does not track its memory usage",
+         displayName = "Data container memory used",
+         displayType = DisplayType.SUMMARY
+   )
+   public long getDataMemoryUsed() {
+      if (dataContainer instanceof DefaultDataContainer) {
+         return ((DefaultDataContainer) dataContainer).getMemoryUsed();
+      } else if (dataContainer instanceof OffHeapDataContainer) {
+         return ((OffHeapDataContainer) dataContainer).getAllocatedBytes();
+      }
+      return -1;
+   }
+
    @ManagedAttribute(
          description = "Number of seconds since cache started",
          displayName = "Seconds since cache started",
@@ -27,6 +27,7 @@
 import org.infinispan.jmx.annotations.ManagedOperation;
 import org.infinispan.jmx.annotations.MeasurementType;
 import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.marshall.core.MarshalledEntryImpl;
 import org.infinispan.metadata.EmbeddedMetadata;
 import org.infinispan.metadata.Metadata;
@@ -39,14 +40,20 @@
 import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
 import static org.infinispan.persistence.PersistenceUtil.internalMetadata;
 import static org.infinispan.persistence.manager.PersistenceManager.AccessMode.BOTH;
 import static org.infinispan.persistence.manager.PersistenceManager.AccessMode.PRIVATE;
+import static org.infinispan.persistence.manager.PersistenceManager.AccessMode.SHARED;
 
 /**
  * Writes modifications back to the store on the way out: stores modifications back through the CacheLoader, either
@@ -192,11 +199,13 @@ public Object visitPutMapCommand(InvocationContext ctx, PutMapCommand command) t
       if (!isStoreEnabled(command) || ctx.isInTxScope()) return returnValue;
 
       Map<Object, Object> map = command.getMap();
+      List<Object> keys = new ArrayList<Object>(map.size());
       for (Object key : map.keySet()) {
          if (isProperWriter(ctx, command, key)) {
-            storeEntry(ctx, key, command);
+            keys.add(key);
          }
       }
+      storeEntries(ctx, keys, command);
       if (getStatisticsEnabled()) cacheStores.getAndAdd(map.size());
       return returnValue;
    }
@@ -216,6 +225,7 @@ protected final void store(TxInvocationContext ctx) throws Throwable {
             cacheCommand.acceptVisitor(ctx, modsBuilder);
          }
       }
+      modsBuilder.flush();
       if (getStatisticsEnabled() && modsBuilder.putCount > 0) {
          cacheStores.getAndAdd(modsBuilder.putCount);
       }
@@ -240,10 +250,20 @@ protected boolean isProperWriter(InvocationContext ctx, FlagAffectedCommand comm
       return true;
    }
 
+   /**
+    * Collects the modifications of a transaction in batches, persisted by {@link #flush()} with a single call to each
+    * store supporting it. Only the last modification of each key matters, as the entries persisted are the ones in
+    * the context.
+    */
    public class Updater extends AbstractVisitor {
 
       protected final boolean generateStatistics;
       int putCount;
+      private final Map<Object, MarshalledEntry> sharedWrites = new LinkedHashMap<Object, MarshalledEntry>();
+      private final Map<Object, MarshalledEntry> privateWrites = new LinkedHashMap<Object, MarshalledEntry>();
+      private final Set<Object> deletes = new LinkedHashSet<Object>();
+      // keys removed and then written only to the private stores, so the shared stores must still delete them
+      private final Set<Object> sharedDeletes = new LinkedHashSet<Object>();
 
       public Updater(boolean generateStatistics) {
          this.generateStatistics = generateStatistics;
@@ -269,7 +289,7 @@ public Object visitApplyDeltaCommand(InvocationContext ctx, ApplyDeltaCommand co
                ice = entryFactory.create(entry);
             }
             MarshalledEntryImpl marshalledEntry = new MarshalledEntryImpl(ice.getKey(), ice.getValue(), internalMetadata(ice), marshaller);
-            persistenceManager.writeToAllStores(marshalledEntry, command.hasFlag(Flag.SKIP_SHARED_CACHE_STORE) ? PRIVATE : BOTH);
+            addWrite(marshalledEntry, command.hasFlag(Flag.SKIP_SHARED_CACHE_STORE));
          }
          return null;
       }
@@ -291,13 +311,17 @@ public Object visitPutMapCommand(InvocationContext ctx, PutMapCommand command) t
       public Object visitRemoveCommand(InvocationContext ctx, RemoveCommand command) throws Throwable {
          Object key = command.getKey();
          if (isProperWriter(ctx, command, key)) {
-            persistenceManager.deleteFromAllStores(key, BOTH);
+            sharedWrites.remove(key);
+            privateWrites.remove(key);
+            sharedDeletes.remove(key);
+            deletes.add(key);
          }
          return null;
       }
 
       @Override
       public Object visitClearCommand(InvocationContext ctx, ClearCommand command) throws Throwable {
+         flush();
          persistenceManager.clearAllStores(ctx.isOriginLocal() ? PRIVATE : BOTH);
          return null;
       }
@@ -307,10 +331,52 @@ protected Object visitSingleStore(InvocationContext ctx, FlagAffectedCommand com
             if (generateStatistics) putCount++;
             InternalCacheValue sv = getStoredValue(key, ctx);
             MarshalledEntryImpl me = new MarshalledEntryImpl(key, sv.getValue(), internalMetadata(sv), marshaller);
-            persistenceManager.writeToAllStores(me, command.hasFlag(Flag.SKIP_SHARED_CACHE_STORE) ? PRIVATE : BOTH);
+            addWrite(me, command.hasFlag(Flag.SKIP_SHARED_CACHE_STORE));
          }
          return null;
       }
+
+      private void addWrite(MarshalledEntry entry, boolean skipSharedStores) {
+         Object key = entry.getKey();
+         if (!skipSharedStores) {
+            deletes.remove(key);
+            sharedDeletes.remove(key);
+            privateWrites.remove(key);
+            sharedWrites.put(key, entry);
+            return;
+         }
+         if (deletes.remove(key)) {
+            sharedDeletes.add(key);
+         }
+         if (sharedWrites.containsKey(key)) {
+            // the value is the same, and it is persisted in the private stores too
+            sharedWrites.put(key, entry);
+         } else {
+            privateWrites.put(key, entry);
+         }
+      }
+
+      /**
+       * Persists the modifications collected so far.
+       */
+      public void flush() {
+         if (!deletes.isEmpty()) {
+            persistenceManager.deleteBatchFromAllStores(deletes, BOTH);
+            deletes.clear();
+         }
+         if (!sharedDeletes.isEmpty()) {
+            persistenceManager.deleteBatchFromAllStores(sharedDeletes, SHARED);
+            sharedDeletes.clear();
+         }
+         if (!privateWrites.isEmpty()) {
+            persistenceManager.writeBatchToAllStores(privateWrites.values(), PRIVATE);
+            privateWrites.clear();
+         }
+         if (!sharedWrites.isEmpty()) {
+            persistenceManager.writeBatchToAllStores(sharedWrites.values(), BOTH);
+            sharedWrites.clear();
+         }
+      }
    }
 
    @Override
@@ -338,6 +404,27 @@ void storeEntry(InvocationContext ctx, Object key, FlagAffectedCommand command)
       if (getLog().isTraceEnabled()) getLog().tracef("Stored entry %s under key %s", sv, key);
    }
 
+   void storeEntries(InvocationContext ctx, Collection<Object> keys, FlagAffectedCommand command) {
+      List<MarshalledEntry> sharedEntries = new ArrayList<MarshalledEntry>(keys.size());
+      List<MarshalledEntry> privateEntries = new ArrayList<MarshalledEntry>();
+      for (Object key : keys) {
+         InternalCacheValue sv = getStoredValue(key, ctx);
+         MarshalledEntry entry = new MarshalledEntryImpl(key, sv.getValue(), internalMetadata(sv), marshaller);
+         if (skipSharedStores(ctx, key, command)) {
+            privateEntries.add(entry);
+         } else {
+            sharedEntries.add(entry);
+         }
+      }
+      if (!privateEntries.isEmpty()) {
+         persistenceManager.writeBatchToAllStores(privateEntries, PRIVATE);
+      }
+      if (!sharedEntries.isEmpty()) {
+         persistenceManager.writeBatchToAllStores(sharedEntries, BOTH);
+      }
+      if (getLog().isTraceEnabled()) getLog().tracef("Stored entries under keys %s", keys);
+   }
+
    protected boolean skipSharedStores(InvocationContext ctx, Object key, FlagAffectedCommand command) {
       return !ctx.isOriginLocal() || command.hasFlag(Flag.SKIP_SHARED_CACHE_STORE);
    }
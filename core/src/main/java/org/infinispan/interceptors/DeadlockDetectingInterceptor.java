@@ -64,29 +64,36 @@ public Object visitReplaceCommand(InvocationContext ctx, ReplaceCommand command)
    @Override
    public Object visitLockControlCommand(TxInvocationContext ctx, LockControlCommand command) throws Throwable {
       DldGlobalTransaction globalTransaction = (DldGlobalTransaction) ctx.getGlobalTransaction();
-      if (ctx.isOriginLocal()) {
-         globalTransaction.setRemoteLockIntention(command.getKeys());
-         //in the case of DIST we need to propagate the list of keys. In all other situations in can be determined
-         // based on the actual command
-         if (cacheConfiguration.clustering().cacheMode().isDistributed()) {
-            if (log.isTraceEnabled()) log.tracef("Locks as seen at origin are: %s", ctx.getLockedKeys());
-            ((DldGlobalTransaction) ctx.getGlobalTransaction()).setLocksHeldAtOrigin(ctx.getLockedKeys());
-         }
+      if (!ctx.isOriginLocal()) {
+         return handleDataCommand(ctx, command);
+      }
+      globalTransaction.setRemoteLockIntention(command.getKeys());
+      //in the case of DIST we need to propagate the list of keys. In all other situations in can be determined
+      // based on the actual command
+      if (cacheConfiguration.clustering().cacheMode().isDistributed()) {
+         if (log.isTraceEnabled()) log.tracef("Locks as seen at origin are: %s", ctx.getLockedKeys());
+         ((DldGlobalTransaction) ctx.getGlobalTransaction()).setLocksHeldAtOrigin(ctx.getLockedKeys());
+      }
+      try {
+         return handleDataCommand(ctx, command);
+      } finally {
+         // the deadlock probes only follow the remote lock intention while the remote locks are being acquired
+         globalTransaction.setRemoteLockIntention(InfinispanCollections.emptySet());
       }
-      return handleDataCommand(ctx, command);
    }
 
    @Override
    public Object visitPrepareCommand(TxInvocationContext ctx, PrepareCommand command) throws Throwable {
       DldGlobalTransaction globalTransaction = (DldGlobalTransaction) ctx.getGlobalTransaction();
-      if (ctx.isOriginLocal()) {
-         globalTransaction.setRemoteLockIntention(command.getAffectedKeys());
+      if (!ctx.isOriginLocal()) {
+         return invokeNextInterceptor(ctx, command);
       }
-      Object result = invokeNextInterceptor(ctx, command);
-      if (ctx.isOriginLocal()) {
+      globalTransaction.setRemoteLockIntention(command.getAffectedKeys());
+      try {
+         return invokeNextInterceptor(ctx, command);
+      } finally {
          globalTransaction.setRemoteLockIntention(InfinispanCollections.emptySet());
       }
-      return result;
    }
 
 
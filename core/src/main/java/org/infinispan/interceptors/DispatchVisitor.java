@@ -0,0 +1,283 @@
+package org.infinispan.interceptors;
+
+import org.infinispan.commands.AbstractVisitor;
+import org.infinispan.commands.VisitableCommand;
+import org.infinispan.commands.Visitor;
+import org.infinispan.commands.control.LockControlCommand;
+import org.infinispan.commands.read.DistributedExecuteCommand;
+import org.infinispan.commands.read.EntryRetrievalCommand;
+import org.infinispan.commands.read.EntrySetCommand;
+import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.read.KeySetCommand;
+import org.infinispan.commands.read.SizeCommand;
+import org.infinispan.commands.read.ValuesCommand;
+import org.infinispan.commands.remote.GetKeysInGroupCommand;
+import org.infinispan.commands.tx.CommitCommand;
+import org.infinispan.commands.tx.PrepareCommand;
+import org.infinispan.commands.tx.RollbackCommand;
+import org.infinispan.commands.write.ApplyDeltaCommand;
+import org.infinispan.commands.write.ClearCommand;
+import org.infinispan.commands.write.EvictCommand;
+import org.infinispan.commands.write.InvalidateCommand;
+import org.infinispan.commands.write.InvalidateL1Command;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.commands.write.PutMapCommand;
+import org.infinispan.commands.write.RemoveCommand;
+import org.infinispan.commands.write.ReplaceCommand;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.context.impl.TxInvocationContext;
+import org.infinispan.interceptors.base.CommandInterceptor;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * The visitor through which the {@link InterceptorChain} passes a command to the part of the chain starting at a given
+ * interceptor.
+ * <p/>
+ * The interceptors that neither override the visit method of a command nor {@link
+ * CommandInterceptor#handleDefault(InvocationContext, VisitableCommand)} would only pass the command on to the next
+ * interceptor, so for each visit method the dispatcher calls directly the first interceptor actually handling it. The
+ * InterceptorChain compiles a new set of dispatchers each time it is modified.
+ *
+ * @since 7.0
+ */
+final class DispatchVisitor implements Visitor {
+
+   // the visit methods, in the order of the targets
+   private static final String[] VISIT_METHODS = {
+         "visitPutKeyValueCommand", "visitRemoveCommand", "visitReplaceCommand", "visitClearCommand",
+         "visitPutMapCommand", "visitEvictCommand", "visitApplyDeltaCommand", "visitSizeCommand",
+         "visitGetKeyValueCommand", "visitKeySetCommand", "visitValuesCommand", "visitEntrySetCommand",
+         "visitEntryRetrievalCommand", "visitPrepareCommand", "visitRollbackCommand", "visitCommitCommand",
+         "visitInvalidateCommand", "visitInvalidateL1Command", "visitLockControlCommand", "visitUnknownCommand",
+         "visitDistributedExecuteCommand", "visitGetKeysInGroupCommand"
+   };
+   private static final int INVALIDATE = 16;
+   private static final int INVALIDATE_L1 = 17;
+
+   private final Visitor putKeyValue;
+   private final Visitor remove;
+   private final Visitor replace;
+   private final Visitor clear;
+   private final Visitor putMap;
+   private final Visitor evict;
+   private final Visitor applyDelta;
+   private final Visitor size;
+   private final Visitor getKeyValue;
+   private final Visitor keySet;
+   private final Visitor values;
+   private final Visitor entrySet;
+   private final Visitor entryRetrieval;
+   private final Visitor prepare;
+   private final Visitor rollback;
+   private final Visitor commit;
+   private final Visitor invalidate;
+   private final Visitor invalidateL1;
+   private final Visitor lockControl;
+   private final Visitor unknown;
+   private final Visitor distributedExecute;
+   private final Visitor getKeysInGroup;
+
+   private DispatchVisitor(Visitor[] targets) {
+      putKeyValue = targets[0];
+      remove = targets[1];
+      replace = targets[2];
+      clear = targets[3];
+      putMap = targets[4];
+      evict = targets[5];
+      applyDelta = targets[6];
+      size = targets[7];
+      getKeyValue = targets[8];
+      keySet = targets[9];
+      values = targets[10];
+      entrySet = targets[11];
+      entryRetrieval = targets[12];
+      prepare = targets[13];
+      rollback = targets[14];
+      commit = targets[15];
+      invalidate = targets[16];
+      invalidateL1 = targets[17];
+      lockControl = targets[18];
+      unknown = targets[19];
+      distributedExecute = targets[20];
+      getKeysInGroup = targets[21];
+   }
+
+   /**
+    * Compiles the dispatchers of a chain.
+    *
+    * @param interceptors the interceptors of the chain, in order
+    * @param visitors     the visitor invoking each interceptor, i.e. the interceptor itself or a visitor wrapping it
+    * @return the dispatcher of the part of the chain starting at each interceptor
+    */
+   static Visitor[] compile(List<CommandInterceptor> interceptors, List<Visitor> visitors) {
+      int count = interceptors.size();
+      Visitor[] dispatchers = new Visitor[count];
+      if (count == 0) {
+         return dispatchers;
+      }
+      Visitor[] targets = new Visitor[VISIT_METHODS.length];
+      // the last interceptor handles everything, as there is nothing to skip to
+      for (int method = 0; method < targets.length; method++) {
+         targets[method] = visitors.get(count - 1);
+      }
+      dispatchers[count - 1] = new DispatchVisitor(targets);
+      for (int i = count - 2; i >= 0; i--) {
+         boolean[] handled = handledMethods(interceptors.get(i).getClass());
+         for (int method = 0; method < targets.length; method++) {
+            if (handled[method]) {
+               targets[method] = visitors.get(i);
+            }
+         }
+         dispatchers[i] = new DispatchVisitor(targets);
+      }
+      return dispatchers;
+   }
+
+   private static boolean[] handledMethods(Class<?> interceptorClass) {
+      boolean handlesDefault = declaringClass(interceptorClass, "handleDefault",
+                                              InvocationContext.class, VisitableCommand.class) != CommandInterceptor.class;
+      boolean[] handled = new boolean[VISIT_METHODS.length];
+      for (int method = 0; method < VISIT_METHODS.length; method++) {
+         handled[method] = handlesDefault || overrides(interceptorClass, VISIT_METHODS[method]);
+      }
+      // AbstractVisitor passes InvalidateL1Command on to visitInvalidateCommand
+      if (!overrides(interceptorClass, VISIT_METHODS[INVALIDATE_L1])) {
+         handled[INVALIDATE_L1] |= handled[INVALIDATE];
+      }
+      return handled;
+   }
+
+   private static boolean overrides(Class<?> interceptorClass, String visitMethod) {
+      for (Method method : Visitor.class.getMethods()) {
+         if (method.getName().equals(visitMethod)) {
+            Class<?> declaringClass = declaringClass(interceptorClass, visitMethod, method.getParameterTypes());
+            return declaringClass != AbstractVisitor.class && declaringClass != CommandInterceptor.class;
+         }
+      }
+      throw new IllegalStateException("Unknown visit method " + visitMethod);
+   }
+
+   private static Class<?> declaringClass(Class<?> clazz, String name, Class<?>... parameterTypes) {
+      for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+         try {
+            c.getDeclaredMethod(name, parameterTypes);
+            return c;
+         } catch (NoSuchMethodException e) {
+            // look in the superclass
+         }
+      }
+      throw new IllegalStateException("Method " + name + " not found in " + clazz);
+   }
+
+   @Override
+   public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) throws Throwable {
+      return putKeyValue.visitPutKeyValueCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitRemoveCommand(InvocationContext ctx, RemoveCommand command) throws Throwable {
+      return remove.visitRemoveCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitReplaceCommand(InvocationContext ctx, ReplaceCommand command) throws Throwable {
+      return replace.visitReplaceCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitClearCommand(InvocationContext ctx, ClearCommand command) throws Throwable {
+      return clear.visitClearCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitPutMapCommand(InvocationContext ctx, PutMapCommand command) throws Throwable {
+      return putMap.visitPutMapCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitEvictCommand(InvocationContext ctx, EvictCommand command) throws Throwable {
+      return evict.visitEvictCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitApplyDeltaCommand(InvocationContext ctx, ApplyDeltaCommand command) throws Throwable {
+      return applyDelta.visitApplyDeltaCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitSizeCommand(InvocationContext ctx, SizeCommand command) throws Throwable {
+      return size.visitSizeCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand command) throws Throwable {
+      return getKeyValue.visitGetKeyValueCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitKeySetCommand(InvocationContext ctx, KeySetCommand command) throws Throwable {
+      return keySet.visitKeySetCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitValuesCommand(InvocationContext ctx, ValuesCommand command) throws Throwable {
+      return values.visitValuesCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitEntrySetCommand(InvocationContext ctx, EntrySetCommand command) throws Throwable {
+      return entrySet.visitEntrySetCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitEntryRetrievalCommand(InvocationContext ctx, EntryRetrievalCommand command) throws Throwable {
+      return entryRetrieval.visitEntryRetrievalCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitPrepareCommand(TxInvocationContext ctx, PrepareCommand command) throws Throwable {
+      return prepare.visitPrepareCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitRollbackCommand(TxInvocationContext ctx, RollbackCommand command) throws Throwable {
+      return rollback.visitRollbackCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitCommitCommand(TxInvocationContext ctx, CommitCommand command) throws Throwable {
+      return commit.visitCommitCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitInvalidateCommand(InvocationContext ctx, InvalidateCommand invalidateCommand) throws Throwable {
+      return invalidate.visitInvalidateCommand(ctx, invalidateCommand);
+   }
+
+   @Override
+   public Object visitInvalidateL1Command(InvocationContext ctx, InvalidateL1Command invalidateL1Command) throws Throwable {
+      return invalidateL1.visitInvalidateL1Command(ctx, invalidateL1Command);
+   }
+
+   @Override
+   public Object visitLockControlCommand(TxInvocationContext ctx, LockControlCommand command) throws Throwable {
+      return lockControl.visitLockControlCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitUnknownCommand(InvocationContext ctx, VisitableCommand command) throws Throwable {
+      return unknown.visitUnknownCommand(ctx, command);
+   }
+
+   @Override
+   public <V> Object visitDistributedExecuteCommand(InvocationContext ctx, DistributedExecuteCommand<V> command) throws Throwable {
+      return distributedExecute.visitDistributedExecuteCommand(ctx, command);
+   }
+
+   @Override
+   public Object visitGetKeysInGroupCommand(InvocationContext ctx, GetKeysInGroupCommand command) throws Throwable {
+      return getKeysInGroup.visitGetKeysInGroupCommand(ctx, command);
+   }
+}
@@ -1,6 +1,7 @@
 package org.infinispan.interceptors;
 
 import org.infinispan.commands.VisitableCommand;
+import org.infinispan.commands.Visitor;
 import org.infinispan.commons.CacheException;
 import org.infinispan.commons.util.InfinispanCollections;
 import org.infinispan.commons.util.ReflectionUtil;
@@ -39,6 +40,13 @@ public class InterceptorChain {
     */
    private volatile CommandInterceptor firstInChain;
 
+   /**
+    * the visitor the commands are passed to, dispatching them to the first interceptor handling them
+    */
+   private volatile Visitor firstVisitor;
+
+   private volatile InterceptorTimings interceptorTimings;
+
    final ReentrantLock lock = new ReentrantLock();
    final ComponentMetadataRepo componentMetadataRepo;
 
@@ -107,6 +115,7 @@ public void addInterceptor(CommandInterceptor interceptor, int position) {
          }
          throw new IllegalArgumentException("Invalid index: " + index + " !");
       } finally {
+         updateVisitors();
          lock.unlock();
       }
    }
@@ -138,6 +147,7 @@ public void removeInterceptor(int position) {
          }
          throw new IllegalArgumentException("Invalid position: " + position + " !");
       } finally {
+         updateVisitors();
          lock.unlock();
       }
    }
@@ -194,6 +204,7 @@ public void removeInterceptor(Class<? extends CommandInterceptor> clazz) {
             it = it.getNext();
          }
       } finally {
+         updateVisitors();
          lock.unlock();
       }
    }
@@ -225,6 +236,7 @@ public boolean addInterceptorAfter(CommandInterceptor toAdd, Class<? extends Com
          }
          return false;
       } finally {
+         updateVisitors();
          lock.unlock();
       }
    }
@@ -264,6 +276,7 @@ public boolean addInterceptorBefore(CommandInterceptor toAdd, Class<? extends Co
          }
          return false;
       } finally {
+         updateVisitors();
          lock.unlock();
       }
    }
@@ -302,6 +315,7 @@ public boolean replaceInterceptor(CommandInterceptor replacingInterceptor, Class
          }
          return false;
       } finally {
+         updateVisitors();
          lock.unlock();
       }
    }
@@ -323,6 +337,7 @@ public void appendInterceptor(CommandInterceptor ci, boolean isCustom) {
       }
       // make sure we nullify the "next" pointer in the last interceptors.
       ci.setNext(null);
+      updateVisitors();
    }
 
    /**
@@ -330,7 +345,7 @@ public void appendInterceptor(CommandInterceptor ci, boolean isCustom) {
     */
    public Object invoke(InvocationContext ctx, VisitableCommand command) {
       try {
-         return command.acceptVisitor(ctx, firstInChain);
+         return command.acceptVisitor(ctx, firstVisitor);
       } catch (CacheException e) {
          if (e.getCause() instanceof InterruptedException)
             Thread.currentThread().interrupt();
@@ -357,6 +372,45 @@ public CommandInterceptor getFirstInChain() {
     */
    public void setFirstInChain(CommandInterceptor interceptor) {
       this.firstInChain = interceptor;
+      updateVisitors();
+   }
+
+   /**
+    * Times every interceptor of the chain, now and after any change of the chain, with the given {@link
+    * InterceptorTimings}.
+    */
+   public void setInterceptorTimings(InterceptorTimings interceptorTimings) {
+      final ReentrantLock lock = this.lock;
+      lock.lock();
+      try {
+         this.interceptorTimings = interceptorTimings;
+         updateVisitors();
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Compiles the dispatch of the commands through the chain: each interceptor, and the chain itself for the first
+    * one, passes a command directly to the next interceptor handling it, through the visitor timing it if the
+    * interceptors are timed. Invoked after each change of the chain, as {@link
+    * CommandInterceptor#setNext(CommandInterceptor)} links it to the next interceptor itself.
+    */
+   private void updateVisitors() {
+      InterceptorTimings timings = interceptorTimings;
+      List<CommandInterceptor> interceptors = new ArrayList<CommandInterceptor>(asList());
+      if (timings != null) {
+         timings.setInterceptors(interceptors);
+      }
+      List<Visitor> visitors = new ArrayList<Visitor>(interceptors.size());
+      for (CommandInterceptor interceptor : interceptors) {
+         visitors.add(timings == null ? interceptor : timings.getVisitor(interceptor));
+      }
+      Visitor[] dispatchers = DispatchVisitor.compile(interceptors, visitors);
+      for (int i = 0; i < interceptors.size() - 1; i++) {
+         interceptors.get(i).setNextVisitor(dispatchers[i + 1]);
+      }
+      firstVisitor = dispatchers.length == 0 ? null : dispatchers[0];
    }
 
    /**
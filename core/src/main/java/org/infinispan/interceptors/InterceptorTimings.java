@@ -0,0 +1,165 @@
+package org.infinispan.interceptors;
+
+import org.infinispan.commands.AbstractVisitor;
+import org.infinispan.commands.VisitableCommand;
+import org.infinispan.commands.Visitor;
+import org.infinispan.commons.util.CollectionFactory;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.scopes.Scope;
+import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.Parameter;
+import org.infinispan.util.LogarithmicHistogram;
+import org.infinispan.util.TimeService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records the time spent in each interceptor of the {@link InterceptorChain}, per command type, when enabled with
+ * <tt>jmxStatistics().interceptorTimings(true)</tt>.
+ * <p/>
+ * The chain passes the commands to each interceptor through a visitor that times it, so the interceptors themselves
+ * are unaware of the timings and nothing is timed when they are disabled. The time recorded for an interceptor
+ * excludes the time spent in the interceptors it invokes, so the interceptor making an operation slow is the one with
+ * the highest times, and includes everything else it does, e.g. waiting for a lock or for a remote node.
+ *
+ * @since 7.0
+ */
+@Scope(Scopes.NAMED_CACHE)
+@MBean(objectName = "InterceptorTimings", description = "Time spent in each interceptor, per command type")
+public class InterceptorTimings {
+
+   // the time spent by the current thread in the interceptors invoked by the one it is timing
+   private static final ThreadLocal<long[]> NESTED_TIME = new ThreadLocal<long[]>() {
+      @Override
+      protected long[] initialValue() {
+         return new long[1];
+      }
+   };
+
+   private final ConcurrentMap<CommandInterceptor, TimedVisitor> visitors = CollectionFactory.makeConcurrentMap();
+   // in chain order, only updated by the InterceptorChain while holding its lock
+   private volatile List<TimedVisitor> chainVisitors = Collections.emptyList();
+   private TimeService timeService;
+
+   @Inject
+   public void inject(TimeService timeService) {
+      this.timeService = timeService;
+   }
+
+   /**
+    * Updates the interceptors timed, keeping the times recorded for the interceptors still in the chain.
+    *
+    * @param interceptors the interceptors in the chain, in order
+    */
+   void setInterceptors(List<CommandInterceptor> interceptors) {
+      List<TimedVisitor> newChainVisitors = new ArrayList<TimedVisitor>(interceptors.size());
+      for (CommandInterceptor interceptor : interceptors) {
+         TimedVisitor visitor = visitors.get(interceptor);
+         if (visitor == null) {
+            visitor = new TimedVisitor(interceptor);
+            visitors.put(interceptor, visitor);
+         }
+         newChainVisitors.add(visitor);
+      }
+      visitors.values().retainAll(newChainVisitors);
+      chainVisitors = newChainVisitors;
+   }
+
+   /**
+    * @return the visitor timing the given interceptor, which must have been passed to {@link #setInterceptors(List)}
+    */
+   Visitor getVisitor(CommandInterceptor interceptor) {
+      return visitors.get(interceptor);
+   }
+
+   @ManagedAttribute(description = "Number of invocations, median and 99th percentile of the time spent in each interceptor, per command type, in nanoseconds",
+         displayName = "Interceptor timings", dataType = DataType.TRAIT)
+   public String getTimings() {
+      StringBuilder sb = new StringBuilder();
+      for (TimedVisitor visitor : chainVisitors) {
+         for (Map.Entry<Class<?>, LogarithmicHistogram> e : visitor.histograms.entrySet()) {
+            LogarithmicHistogram histogram = e.getValue();
+            sb.append(visitor.interceptor.getClass().getSimpleName()).append(' ')
+                  .append(e.getKey().getSimpleName()).append(": count=").append(histogram.getCount())
+                  .append(", median=").append(histogram.getPercentile(50))
+                  .append(", 99th percentile=").append(histogram.getPercentile(99)).append('\n');
+         }
+      }
+      return sb.toString();
+   }
+
+   @ManagedOperation(description = "Histogram of the time spent in an interceptor for a command type, in nanoseconds",
+         displayName = "Interceptor timing histogram")
+   public String getHistogram(@Parameter(name = "interceptor", description = "The simple class name of the interceptor") String interceptor,
+                              @Parameter(name = "command", description = "The simple class name of the command") String command) {
+      LogarithmicHistogram histogram = findHistogram(interceptor, command);
+      return histogram == null ? "empty" : histogram.toString();
+   }
+
+   LogarithmicHistogram findHistogram(String interceptor, String command) {
+      for (TimedVisitor visitor : chainVisitors) {
+         if (!visitor.interceptor.getClass().getSimpleName().equals(interceptor)) {
+            continue;
+         }
+         for (Map.Entry<Class<?>, LogarithmicHistogram> e : visitor.histograms.entrySet()) {
+            if (e.getKey().getSimpleName().equals(command)) {
+               return e.getValue();
+            }
+         }
+      }
+      return null;
+   }
+
+   @ManagedOperation(description = "Resets statistics gathered by this component", displayName = "Reset statistics")
+   public void resetStatistics() {
+      for (TimedVisitor visitor : chainVisitors) {
+         visitor.histograms.clear();
+      }
+   }
+
+   private class TimedVisitor extends AbstractVisitor {
+      final CommandInterceptor interceptor;
+      final ConcurrentMap<Class<?>, LogarithmicHistogram> histograms = CollectionFactory.makeConcurrentMap();
+
+      TimedVisitor(CommandInterceptor interceptor) {
+         this.interceptor = interceptor;
+      }
+
+      @Override
+      protected Object handleDefault(InvocationContext ctx, VisitableCommand command) throws Throwable {
+         long[] nestedTime = NESTED_TIME.get();
+         long outerNestedTime = nestedTime[0];
+         nestedTime[0] = 0;
+         long start = timeService.time();
+         try {
+            return command.acceptVisitor(ctx, interceptor);
+         } finally {
+            long elapsed = timeService.time() - start;
+            getHistogram(command.getClass()).record(elapsed - nestedTime[0]);
+            nestedTime[0] = outerNestedTime + elapsed;
+         }
+      }
+
+      private LogarithmicHistogram getHistogram(Class<?> commandClass) {
+         LogarithmicHistogram histogram = histograms.get(commandClass);
+         if (histogram == null) {
+            histogram = new LogarithmicHistogram("ns");
+            LogarithmicHistogram existing = histograms.putIfAbsent(commandClass, histogram);
+            if (existing != null) {
+               histogram = existing;
+            }
+         }
+         return histogram;
+      }
+   }
+}
@@ -18,10 +18,13 @@
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.interceptors.base.CommandInterceptor;
 import org.infinispan.marshall.core.MarshalledValue;
+import org.infinispan.commons.equivalence.AnyEquivalence;
 import org.infinispan.commons.marshall.StreamingMarshaller;
 import org.infinispan.commons.util.Immutables;
 import org.infinispan.commons.util.InfinispanCollections;
 import org.infinispan.util.CoreImmutables;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -54,6 +57,7 @@ public class MarshalledValueInterceptor extends CommandInterceptor {
    private boolean wrapKeys = true;
    private boolean wrapValues = true;
    private InternalEntryFactory entryFactory;
+   private Map<MarshalledValue, Object> deserializedValues;
 
    private static final Log log = LogFactory.getLog(MarshalledValueInterceptor.class);
    private static final boolean trace = log.isTraceEnabled();
@@ -73,6 +77,12 @@ protected void injectMarshaller(@ComponentName(CACHE_MARSHALLER) StreamingMarsha
    protected void start() {
       wrapKeys = cacheConfiguration.storeAsBinary().storeKeysAsBinary();
       wrapValues = cacheConfiguration.storeAsBinary().storeValuesAsBinary();
+      int deserializedCacheSize = cacheConfiguration.storeAsBinary().deserializedCacheSize();
+      if (deserializedCacheSize > 0) {
+         deserializedValues = new BoundedConcurrentHashMap<MarshalledValue, Object>(
+               deserializedCacheSize, cacheConfiguration.locking().concurrencyLevel(), Eviction.TINYLFU,
+               AnyEquivalence.<MarshalledValue>getInstance(), AnyEquivalence.<Object>getInstance());
+      }
    }
 
    @Override
@@ -188,12 +198,32 @@ protected Object processRetVal(Object retVal, InvocationContext ctx) {
       if (retVal instanceof MarshalledValue) {
          if (ctx.isOriginLocal()) {
             if (trace) log.tracef("Return is a marshall value, so extract instance from: %s", retVal);
-            retVal = ((MarshalledValue) retVal).get();
+            retVal = deserialize((MarshalledValue) retVal);
          }
       }
       return retVal;
    }
 
+   /**
+    * Deserializes a value read by a local invocation. When a deserialized cache is configured, frequently read values
+    * are deserialized once and the same instance is handed to every reader; since {@link MarshalledValue#equals(Object)}
+    * compares the serialized form, an overwritten value never hits the instance cached for the previous bytes.
+    */
+   private Object deserialize(MarshalledValue mv) {
+      Map<MarshalledValue, Object> cache = deserializedValues;
+      if (cache == null) {
+         return mv.get();
+      }
+      Object instance = cache.get(mv);
+      if (instance == null) {
+         instance = mv.get();
+         if (instance != null) {
+            cache.put(mv, instance);
+         }
+      }
+      return instance;
+   }
+
    @SuppressWarnings("unchecked")
    protected Map<Object, Object> wrapMap(Map<Object, Object> m, Set<MarshalledValue> marshalledValues, InvocationContext ctx) {
       if (m == null) {
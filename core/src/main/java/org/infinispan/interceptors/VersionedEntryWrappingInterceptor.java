@@ -46,12 +46,23 @@ public Object visitPrepareCommand(TxInvocationContext ctx, PrepareCommand comman
       }
       wrapEntriesForPrepare(ctx, command);
       EntryVersionsMap newVersionData= null;
-      if (ctx.isOriginLocal() && !ctx.getCacheTransaction().isFromStateTransfer()) newVersionData = cdl.createNewVersionsAndCheckForWriteSkews(versionGenerator, ctx, (VersionedPrepareCommand) command);
+      if (ctx.isOriginLocal() && !ctx.getCacheTransaction().isFromStateTransfer()) {
+         newVersionData = cdl.createNewVersionsAndCheckForWriteSkews(versionGenerator, ctx, (VersionedPrepareCommand) command);
+         if (command.isOnePhaseCommit() && newVersionData != null) {
+            // no commit command follows to carry the versions generated by the write skew check to the other owners
+            VersionedPrepareCommand versionedCommand = (VersionedPrepareCommand) command;
+            versionedCommand.setVersionsSeen(mergeVersions(versionedCommand.getVersionsSeen(), newVersionData));
+         }
+      }
 
       Object retval = invokeNextInterceptor(ctx, command);
 
       if (!ctx.isOriginLocal()) newVersionData = cdl.createNewVersionsAndCheckForWriteSkews(versionGenerator, ctx, (VersionedPrepareCommand) command);
-      if (command.isOnePhaseCommit()) ctx.getCacheTransaction().setUpdatedEntryVersions(((VersionedPrepareCommand) command).getVersionsSeen());
+      if (command.isOnePhaseCommit()) {
+         // the versions generated by this node, or received from the owners performing the write skew check, prevail
+         ctx.getCacheTransaction().setUpdatedEntryVersions(mergeVersions(((VersionedPrepareCommand) command).getVersionsSeen(),
+                                                                         ctx.getCacheTransaction().getUpdatedEntryVersions()));
+      }
 
       if (newVersionData != null) retval = newVersionData;
       if (command.isOnePhaseCommit()) commitContextEntries(ctx, null, null);
@@ -97,4 +108,11 @@ else if (metadata != null)
       }
    }
 
+   private static EntryVersionsMap mergeVersions(EntryVersionsMap versionsSeen, EntryVersionsMap updatedVersions) {
+      EntryVersionsMap merged = new EntryVersionsMap();
+      if (versionsSeen != null) merged.putAll(versionsSeen);
+      if (updatedVersions != null) merged.putAll(updatedVersions);
+      return merged;
+   }
+
 }
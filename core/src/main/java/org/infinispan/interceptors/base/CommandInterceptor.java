@@ -47,6 +47,9 @@ public abstract class CommandInterceptor extends AbstractVisitor {
 
    private CommandInterceptor next;
 
+   // the visitor invoked by invokeNextInterceptor(), next itself unless the InterceptorChain dispatches through another one
+   private Visitor nextVisitor;
+
    protected Configuration cacheConfiguration;
 
    private static final Log log = LogFactory.getLog(CommandInterceptor.class);
@@ -83,6 +86,18 @@ public final boolean hasNext() {
     */
    public final void setNext(CommandInterceptor next) {
       this.next = next;
+      this.nextVisitor = next;
+   }
+
+   /**
+    * Sets the visitor {@link #invokeNextInterceptor(InvocationContext, VisitableCommand)} passes the commands to, which
+    * must pass them on to the next interceptors, possibly skipping the ones that would only pass them on. Only meant to
+    * be used by the {@link InterceptorChain}, and reset by {@link #setNext(CommandInterceptor)}.
+    *
+    * @param nextVisitor the visitor dispatching the commands to the rest of the chain.
+    */
+   public final void setNextVisitor(Visitor nextVisitor) {
+      this.nextVisitor = nextVisitor;
    }
 
    /**
@@ -95,7 +110,7 @@ public final void setNext(CommandInterceptor next) {
     * @throws Throwable in the event of problems
     */
    public final Object invokeNextInterceptor(InvocationContext ctx, VisitableCommand command) throws Throwable {
-      return command.acceptVisitor(ctx, next);
+      return command.acceptVisitor(ctx, nextVisitor);
    }
 
    /**
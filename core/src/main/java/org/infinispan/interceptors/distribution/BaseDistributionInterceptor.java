@@ -7,6 +7,7 @@
 import org.infinispan.commands.write.ValueMatcher;
 import org.infinispan.commands.write.WriteCommand;
 import org.infinispan.commons.CacheException;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.container.entries.CacheEntry;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.container.entries.InternalCacheValue;
@@ -19,6 +20,7 @@
 import org.infinispan.interceptors.ClusteringInterceptor;
 import org.infinispan.interceptors.locking.ClusteringDependentLogic;
 import org.infinispan.remoting.RemoteException;
+import org.infinispan.remoting.RpcCoalescer;
 import org.infinispan.remoting.responses.CacheNotFoundResponse;
 import org.infinispan.remoting.responses.ClusteredGetResponseValidityFilter;
 import org.infinispan.remoting.responses.ExceptionResponse;
@@ -43,6 +45,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Base class for distribution of entries across a cluster.
@@ -60,6 +63,7 @@ public abstract class BaseDistributionInterceptor extends ClusteringInterceptor
    protected ClusteringDependentLogic cdl;
    protected RemoteValueRetrievedListener rvrl;
    private GroupManager groupManager;
+   private RpcCoalescer rpcCoalescer;
 
    private static final Log log = LogFactory.getLog(BaseDistributionInterceptor.class);
    private static final boolean trace = log.isTraceEnabled();
@@ -71,11 +75,13 @@ protected Log getLog() {
 
    @Inject
    public void injectDependencies(DistributionManager distributionManager, ClusteringDependentLogic cdl,
-                                  RemoteValueRetrievedListener rvrl, GroupManager groupManager) {
+                                  RemoteValueRetrievedListener rvrl, GroupManager groupManager,
+                                  RpcCoalescer rpcCoalescer) {
       this.dm = distributionManager;
       this.cdl = cdl;
       this.rvrl = rvrl;
       this.groupManager = groupManager;
+      this.rpcCoalescer = rpcCoalescer;
    }
 
    @Override
@@ -232,8 +238,7 @@ protected final Object handleNonTxWriteCommand(InvocationContext ctx, DataWriteC
             // Ignore the previous value on the backup owners
             command.setValueMatcher(ValueMatcher.MATCH_ALWAYS);
             try {
-               rpcManager.invokeRemotely(recipients, command, determineRpcOptionsForBackupReplication(rpcManager,
-                                                                                                      isSync, recipients));
+               replicateToBackupOwners(recipients, command, isSync);
             } finally {
                // Switch to the retry policy, in case the primary owner changed and the write already succeeded on the new primary
                command.setValueMatcher(valueMatcher.matcherForRetry());
@@ -255,8 +260,7 @@ protected final Object handleNonTxWriteCommand(InvocationContext ctx, DataWriteC
                // Ignore the previous value on the backup owners
                command.setValueMatcher(ValueMatcher.MATCH_ALWAYS);
                try {
-                  rpcManager.invokeRemotely(recipients, command, determineRpcOptionsForBackupReplication(rpcManager,
-                                                                                                         isSync, recipients));
+                  replicateToBackupOwners(recipients, command, isSync);
                } finally {
                   // Switch to the retry policy, in case the primary owner changed and the write already succeeded on the new primary
                   command.setValueMatcher(valueMatcher.matcherForRetry());
@@ -302,6 +306,39 @@ protected final Object handleNonTxWriteCommand(InvocationContext ctx, DataWriteC
       }
    }
 
+   /**
+    * Sends a write that has been applied on the primary owner to the backup owners, and waits for it to complete. The
+    * synchronous writes go through the {@link RpcCoalescer}, if the cache has one.
+    */
+   private void replicateToBackupOwners(List<Address> recipients, DataWriteCommand command, boolean isSync) {
+      RpcOptions options = determineRpcOptionsForBackupReplication(rpcManager, isSync, recipients);
+      if (rpcCoalescer != null && isSync) {
+         rpcCoalescer.invokeRemotely(recipients, command, options);
+      } else {
+         waitForResponses(rpcManager.invokeRemotelyAsync(recipients, command, options));
+      }
+   }
+
+   /**
+    * Waits for an invocation started with {@link RpcManager#invokeRemotelyAsync(Collection,
+    * org.infinispan.commands.ReplicableCommand, RpcOptions)}, and throws its failure as {@link RpcManager#invokeRemotely(
+    * Collection, org.infinispan.commands.ReplicableCommand, RpcOptions)} would have.
+    */
+   protected final Map<Address, Response> waitForResponses(NotifyingFuture<Map<Address, Response>> future) {
+      try {
+         return future.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new CacheException("Thread interrupted while invoking RPC", e);
+      } catch (ExecutionException e) {
+         Throwable cause = e.getCause();
+         if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+         }
+         throw new CacheException(cause);
+      }
+   }
+
    private RpcOptions determineRpcOptionsForBackupReplication(RpcManager rpc, boolean isSync, List<Address> recipients) {
       RpcOptions options;
       if (isSync) {
@@ -8,9 +8,11 @@
 import org.infinispan.commands.write.RemoveCommand;
 import org.infinispan.commands.write.ReplaceCommand;
 import org.infinispan.commands.write.WriteCommand;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContext;
+import org.infinispan.remoting.responses.Response;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.jgroups.SuspectException;
 import org.infinispan.util.logging.Log;
@@ -74,6 +76,8 @@ public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand
 
    @Override
    public Object visitPutMapCommand(InvocationContext ctx, PutMapCommand command) throws Throwable {
+      // the owners are updated concurrently with the local node, and the responses are waited for once it's done
+      NotifyingFuture<Map<Address, Response>> primaryWrites = null;
       if (ctx.isOriginLocal()) {
          Set<Address> primaryOwners = new HashSet<Address>(command.getAffectedKeys().size());
          for (Object k : command.getAffectedKeys()) {
@@ -81,10 +85,12 @@ public Object visitPutMapCommand(InvocationContext ctx, PutMapCommand command) t
          }
          primaryOwners.remove(rpcManager.getAddress());
          if (!primaryOwners.isEmpty()) {
-            rpcManager.invokeRemotely(primaryOwners, command, rpcManager.getDefaultRpcOptions(isSynchronous(command)));
+            primaryWrites = rpcManager.invokeRemotelyAsync(primaryOwners, command,
+                                                           rpcManager.getDefaultRpcOptions(isSynchronous(command)));
          }
       }
 
+      NotifyingFuture<Map<Address, Response>> backupWrites = null;
       if (!command.isForwarded()) {
          //I need to forward this to all the nodes that are secondary owners
          Set<Object> keysIOwn = new HashSet<Object>(command.getAffectedKeys().size());
@@ -97,12 +103,24 @@ public Object visitPutMapCommand(InvocationContext ctx, PutMapCommand command) t
          if (backupOwners == null || !backupOwners.isEmpty()) {
             command.setFlags(Flag.SKIP_LOCKING);
             command.setForwarded(true);
-            rpcManager.invokeRemotely(backupOwners, command, rpcManager.getDefaultRpcOptions(isSynchronous(command)));
-            command.setForwarded(false);
+            try {
+               backupWrites = rpcManager.invokeRemotelyAsync(backupOwners, command,
+                                                             rpcManager.getDefaultRpcOptions(isSynchronous(command)));
+            } finally {
+               // the command has been marshalled already
+               command.setForwarded(false);
+            }
          }
       }
 
-      return invokeNextInterceptor(ctx, command);
+      Object result = invokeNextInterceptor(ctx, command);
+      if (primaryWrites != null) {
+         waitForResponses(primaryWrites);
+      }
+      if (backupWrites != null) {
+         waitForResponses(backupWrites);
+      }
+      return result;
    }
 
    @Override
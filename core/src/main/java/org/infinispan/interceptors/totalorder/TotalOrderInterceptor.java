@@ -8,8 +8,6 @@
 import org.infinispan.commands.tx.totalorder.TotalOrderPrepareCommand;
 import org.infinispan.commons.CacheException;
 import org.infinispan.context.impl.TxInvocationContext;
-import org.infinispan.factories.KnownComponentNames;
-import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.interceptors.base.CommandInterceptor;
 import org.infinispan.interceptors.locking.ClusteringDependentLogic;
@@ -18,7 +16,6 @@
 import org.infinispan.transaction.impl.TransactionTable;
 import org.infinispan.transaction.totalorder.TotalOrderManager;
 import org.infinispan.transaction.xa.GlobalTransaction;
-import org.infinispan.util.concurrent.BlockingTaskAwareExecutorService;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -38,17 +35,13 @@ public class TotalOrderInterceptor extends CommandInterceptor {
    private TransactionTable transactionTable;
    private TotalOrderManager totalOrderManager;
    private ClusteringDependentLogic clusteringDependentLogic;
-   private BlockingTaskAwareExecutorService executorService;
 
    @Inject
    public void inject(TransactionTable transactionTable, TotalOrderManager totalOrderManager,
-                      ClusteringDependentLogic clusteringDependentLogic,
-                      @ComponentName(value = KnownComponentNames.TOTAL_ORDER_EXECUTOR)
-                      BlockingTaskAwareExecutorService executorService) {
+                      ClusteringDependentLogic clusteringDependentLogic) {
       this.transactionTable = transactionTable;
       this.totalOrderManager = totalOrderManager;
       this.clusteringDependentLogic = clusteringDependentLogic;
-      this.executorService = executorService;
    }
 
    @Override
@@ -159,9 +152,6 @@ private Object visitSecondPhaseCommand(TxInvocationContext context, AbstractTran
             } else {
                transactionTable.remoteTransactionRollback(command.getGlobalTransaction());
             }
-            if (context.isOriginLocal()) {
-               executorService.checkForReadyTasks();
-            }
          }
       }
    }
@@ -393,8 +393,9 @@ else if (!filter.accept(key, clone.getValue(), clone.getMetadata())) {
                            if (converter == null && filter instanceof KeyValueFilterConverter) {
                               action = new MapAction(identifier, segmentsToUse, inDoubtSegmentsToUse, batchSize, (KeyValueFilterConverter) filter, handler, queue);
                            }
-                           persistenceManager.processOnAllStores(withinThreadExecutor, loaderFilter,
-                                                                 new KeyValueActionForCacheLoaderTask(action), true, true);
+                           persistenceManager.processOnAllStores(withinThreadExecutor, segmentsToUse, loaderFilter,
+                                                                 new KeyValueActionForCacheLoaderTask(action), true, true,
+                                                                 PersistenceManager.AccessMode.BOTH);
                         }
                      } finally {
                         if (listener != null) {
@@ -135,4 +135,8 @@ public interface Ids extends org.infinispan.commons.marshall.Ids {
    int KEY_VALUE_FILTER_AS_CACHE_EVENT_FILTER = 138;
    int NULL_VALUE_CONVERTER = 139;
    int ACCEPT_ALL_KEY_VALUE_FILTER = 140;
+   int VERSIONED_IMMORTAL_ENTRY = 141;
+   int VERSIONED_MORTAL_ENTRY = 142;
+   int VERSIONED_TRANSIENT_ENTRY = 143;
+   int VERSIONED_TRANSIENT_MORTAL_ENTRY = 144;
 }
@@ -2,7 +2,6 @@
 
 import org.infinispan.commands.ReplicableCommand;
 import org.infinispan.commons.marshall.jboss.GenericJBossMarshaller;
-import org.infinispan.io.ExpandableMarshalledValueByteStream;
 import org.infinispan.io.ImmutableMarshalledValueByteStream;
 import org.infinispan.io.MarshalledValueByteStream;
 import org.infinispan.commons.CacheException;
@@ -82,21 +81,12 @@ public MarshalledValue(Object instance, StreamingMarshaller marshaller) {
       this.cachedHashCode = instance.hashCode();
    }
 
-   /**
-    * Should only be called from a synchronized method
-    */
    private MarshalledValueByteStream serialize(Object instance) {
       try {
          // Do NOT set instance to null over here, since it may be used elsewhere (e.g., in a cache listener).
-         // this will be compacted by the MarshalledValueInterceptor when the call returns.
-         MarshalledValueByteStream baos = new ExpandableMarshalledValueByteStream(this.serialisedSize);
-         ObjectOutput out = marshaller.startObjectOutput(baos, true, this.serialisedSize);
-         try {
-            marshaller.objectToObjectStream(instance, out);
-         } finally {
-            marshaller.finishObjectOutput(out);
-         }
-         return baos;
+         // The marshaller writes into a reused buffer and returns an exact size copy, so the stored bytes carry no
+         // spare capacity and don't need compacting when the entry is committed.
+         return new ImmutableMarshalledValueByteStream(marshaller.objectToByteBuffer(instance));
       } catch (Exception e) {
          throw new CacheException("Unable to marshall value " + instance, e);
       }
@@ -174,7 +164,7 @@ public static boolean isTypeExcluded(Class<?> type) {
    @Override
    public void writeExternal(ObjectOutput out) throws IOException {
       out.writeInt(serialisedSize);
-      out.write(raw.getRaw());
+      out.write(raw.getRaw(), 0, serialisedSize);
       out.writeInt(cachedHashCode);
    }
 
@@ -0,0 +1,79 @@
+package org.infinispan.marshall.core;
+
+import org.infinispan.commons.io.ExposedByteArrayOutputStream;
+import org.infinispan.commons.util.concurrent.ConcurrentWeakKeyHashMap;
+
+/**
+ * Per thread pool of the output streams {@link VersionAwareMarshaller} marshalls objects into, so that the buffers
+ * that were grown to fit the previous payloads are reused instead of being allocated, and grown again, on every call.
+ * <p/>
+ * Marshalling can be nested, e.g. when an externalizer marshalls a value into a byte array, so each thread holds a
+ * small stack of streams. Streams beyond the nesting depth of the pool, or buffers grown bigger than
+ * <tt>maxRetainedSize</tt>, are not kept, to bound the memory held by idle threads.
+ *
+ * @since 7.0
+ */
+final class OutputBufferPool {
+
+   private static final int MAX_NESTING = 4;
+   private static final int MIN_BUFFER_SIZE = 512;
+
+   private final int maxRetainedSize;
+   private final ConcurrentWeakKeyHashMap<Thread, PerThreadBuffers> buffers =
+         new ConcurrentWeakKeyHashMap<Thread, PerThreadBuffers>();
+
+   OutputBufferPool(int maxRetainedSize) {
+      this.maxRetainedSize = maxRetainedSize;
+   }
+
+   /**
+    * Returns an empty stream for the current thread, which must be handed back through {@link
+    * #release(ExposedByteArrayOutputStream)} by the same thread once its content has been consumed.
+    */
+   ExposedByteArrayOutputStream acquire(int estimatedSize) {
+      PerThreadBuffers holder = getPerThreadBuffers();
+      if (holder.depth == MAX_NESTING) {
+         return new ExposedByteArrayOutputStream(estimatedSize);
+      }
+      ExposedByteArrayOutputStream stream = holder.streams[holder.depth];
+      if (stream == null) {
+         stream = new ExposedByteArrayOutputStream(Math.max(estimatedSize, MIN_BUFFER_SIZE));
+         holder.streams[holder.depth] = stream;
+      } else {
+         stream.reset();
+      }
+      holder.depth++;
+      return stream;
+   }
+
+   void release(ExposedByteArrayOutputStream stream) {
+      PerThreadBuffers holder = buffers.get(Thread.currentThread());
+      if (holder == null || holder.depth == 0 || holder.streams[holder.depth - 1] != stream) {
+         // not pooled
+         return;
+      }
+      holder.depth--;
+      if (stream.getRawBuffer().length > maxRetainedSize) {
+         holder.streams[holder.depth] = null;
+      }
+   }
+
+   void clear() {
+      buffers.clear();
+   }
+
+   private PerThreadBuffers getPerThreadBuffers() {
+      Thread thread = Thread.currentThread();
+      PerThreadBuffers holder = buffers.get(thread);
+      if (holder == null) {
+         holder = new PerThreadBuffers();
+         buffers.put(thread, holder);
+      }
+      return holder;
+   }
+
+   private static final class PerThreadBuffers {
+      final ExposedByteArrayOutputStream[] streams = new ExposedByteArrayOutputStream[MAX_NESTING];
+      int depth;
+   }
+}
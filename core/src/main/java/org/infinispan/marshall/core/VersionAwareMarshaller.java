@@ -20,6 +20,7 @@
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.io.OutputStream;
+import java.util.Arrays;
 
 /**
  * A delegate to various other marshallers like {@link JBossMarshaller}. This delegating marshaller adds versioning
@@ -35,6 +36,12 @@ public class VersionAwareMarshaller extends AbstractMarshaller implements Stream
    private final boolean trace = log.isTraceEnabled();
 
    private static final int VERSION_510 = 510;
+   /**
+    * Pooled buffers grown beyond this size are released once the marshalling is done
+    */
+   private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+   private final OutputBufferPool bufferPool = new OutputBufferPool(MAX_POOLED_BUFFER_SIZE);
 
    private JBossMarshaller defaultMarshaller;
    private String cacheName;
@@ -67,11 +74,27 @@ public void start() {
    @Override
    public void stop() {
       defaultMarshaller.stop();
+      bufferPool.clear();
    }
 
+   /**
+    * Marshalls the object into a pooled buffer and returns a copy of exactly the marshalled bytes, since the buffer
+    * handed out might be retained, e.g. by the transport until the message is sent.
+    */
    @Override
    protected ByteBuffer objectToBuffer(Object obj, int estimatedSize) throws IOException, InterruptedException {
-      ExposedByteArrayOutputStream baos = new ExposedByteArrayOutputStream(estimatedSize);
+      ExposedByteArrayOutputStream baos = bufferPool.acquire(estimatedSize);
+      try {
+         marshall(obj, baos, estimatedSize);
+         byte[] bytes = Arrays.copyOf(baos.getRawBuffer(), baos.size());
+         return new ByteBufferImpl(bytes, 0, bytes.length);
+      } finally {
+         bufferPool.release(baos);
+      }
+   }
+
+   private void marshall(Object obj, ExposedByteArrayOutputStream baos, int estimatedSize)
+         throws IOException, InterruptedException {
       ObjectOutput out = startObjectOutput(baos, false, estimatedSize);
       try {
          defaultMarshaller.objectToObjectStream(obj, out);
@@ -89,7 +112,6 @@ protected ByteBuffer objectToBuffer(Object obj, int estimatedSize) throws IOExce
       } finally {
          finishObjectOutput(out);
       }
-      return new ByteBufferImpl(baos.getRawBuffer(), 0, baos.size());
    }
 
    @Override
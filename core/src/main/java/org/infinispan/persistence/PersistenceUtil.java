@@ -12,6 +12,8 @@
 import org.infinispan.metadata.impl.InternalMetadataImpl;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.persistence.spi.BatchCacheWriter;
+import org.infinispan.persistence.spi.CacheWriter;
 import org.infinispan.util.TimeService;
 import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.infinispan.util.logging.Log;
@@ -141,4 +143,32 @@ public static <K, V> InternalCacheEntry<K, V> convert(MarshalledEntry<K, V> load
          return factory.create(loaded.getKey(), loaded.getValue(), (Metadata) null);
       }
    }
+
+   /**
+    * Persists the entries with a single {@link BatchCacheWriter#writeBatch(Iterable)} if the writer supports it, one by
+    * one otherwise.
+    */
+   public static <K, V> void writeBatch(CacheWriter<K, V> writer, Iterable<MarshalledEntry<? extends K, ? extends V>> entries) {
+      if (writer instanceof BatchCacheWriter) {
+         ((BatchCacheWriter<K, V>) writer).writeBatch(entries);
+      } else {
+         for (MarshalledEntry<? extends K, ? extends V> entry : entries) {
+            writer.write(entry);
+         }
+      }
+   }
+
+   /**
+    * Removes the entries with a single {@link BatchCacheWriter#deleteBatch(Iterable)} if the writer supports it, one by
+    * one otherwise.
+    */
+   public static void deleteBatch(CacheWriter<?, ?> writer, Iterable<Object> keys) {
+      if (writer instanceof BatchCacheWriter) {
+         ((BatchCacheWriter<?, ?>) writer).deleteBatch(keys);
+      } else {
+         for (Object key : keys) {
+            writer.delete(key);
+         }
+      }
+   }
 }
@@ -10,6 +10,8 @@
 import org.infinispan.persistence.modifications.Remove;
 import org.infinispan.persistence.modifications.Store;
 import org.infinispan.commons.util.CollectionFactory;
+import org.infinispan.persistence.PersistenceUtil;
+import org.infinispan.persistence.spi.BatchCacheWriter;
 import org.infinispan.persistence.spi.CacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.marshall.core.MarshalledEntry;
@@ -56,7 +58,7 @@
  * @author Mircea Markus
  * @since 4.0
  */
-public class AsyncCacheWriter extends DelegatingCacheWriter {
+public class AsyncCacheWriter extends DelegatingCacheWriter implements BatchCacheWriter {
    private static final Log log = LogFactory.getLog(AsyncCacheWriter.class);
    private static final boolean trace = log.isTraceEnabled();
    private static final AtomicInteger threadId = new AtomicInteger(0);
@@ -147,19 +149,42 @@ public boolean delete(Object key) {
       return true;
    }
 
+   @Override
+   public void writeBatch(Iterable entries) {
+      for (Object entry : entries) {
+         write((MarshalledEntry) entry);
+      }
+   }
+
+   @Override
+   public void deleteBatch(Iterable keys) {
+      for (Object key : keys) {
+         delete(key);
+      }
+   }
+
    protected void applyModificationsSync(List<Modification> mods) throws PersistenceException {
+      // the state holds a single modification per key, so they can be applied in any order
+      List<MarshalledEntry> stores = new ArrayList<MarshalledEntry>(mods.size());
+      List<Object> removes = new ArrayList<Object>();
       for (Modification m : mods) {
          switch (m.getType()) {
             case STORE:
-               actual.write(((Store) m).getStoredValue());
+               stores.add(((Store) m).getStoredValue());
                break;
             case REMOVE:
-               actual.delete(((Remove) m).getKey());
+               removes.add(((Remove) m).getKey());
                break;
             default:
                throw new IllegalArgumentException("Unknown modification type " + m.getType());
          }
       }
+      if (!stores.isEmpty()) {
+         PersistenceUtil.writeBatch(actual, (Iterable) stores);
+      }
+      if (!removes.isEmpty()) {
+         PersistenceUtil.deleteBatch(actual, removes);
+      }
    }
 
 
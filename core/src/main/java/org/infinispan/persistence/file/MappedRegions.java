@@ -0,0 +1,90 @@
+package org.infinispan.persistence.file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only memory mappings of the data file of a {@link SingleFileStore}, in regions of 1 GB.
+ * <p/>
+ * A region only maps the part of the file that existed when it was mapped, since mapping beyond the end would extend
+ * the file. The last region is mapped again once the file has grown by {@link #MIN_REMAP_GROWTH} bytes; reads beyond
+ * the mapped part, as well as reads spanning two regions, return false so that the caller reads from the channel
+ * instead. Writes through the channel are visible through the mappings, as both share the page cache of the operating
+ * system.
+ * <p/>
+ * The mappings must be {@link #invalidate() invalidated} whenever the file is truncated. A mapping which is no longer
+ * referenced is only released by the garbage collector, but it is never accessed again, so reading beyond the end of
+ * the truncated file cannot happen.
+ *
+ * @since 7.0
+ */
+class MappedRegions {
+   private static final int REGION_BITS = 30;
+   private static final long REGION_SIZE = 1L << REGION_BITS;
+   private static final long MIN_REMAP_GROWTH = 16 << 20;
+   private static final MappedByteBuffer[] NO_REGIONS = new MappedByteBuffer[0];
+
+   private final FileChannel channel;
+   private volatile MappedByteBuffer[] regions = NO_REGIONS;
+
+   MappedRegions(FileChannel channel) {
+      this.channel = channel;
+   }
+
+   /**
+    * Fills the array with the bytes of the file starting at the given position.
+    *
+    * @return false if the bytes could not be read from the mappings
+    */
+   boolean read(long position, byte[] dst) throws IOException {
+      int index = (int) (position >>> REGION_BITS);
+      int offset = (int) (position & (REGION_SIZE - 1));
+      if (offset + (long) dst.length > REGION_SIZE)
+         return false;
+
+      MappedByteBuffer region = region(index, offset + dst.length);
+      if (region == null)
+         return false;
+      ByteBuffer buf = region.duplicate();
+      buf.position(offset);
+      buf.get(dst);
+      return true;
+   }
+
+   synchronized void invalidate() {
+      regions = NO_REGIONS;
+   }
+
+   private MappedByteBuffer region(int index, int end) throws IOException {
+      MappedByteBuffer[] regions = this.regions;
+      MappedByteBuffer region = index < regions.length ? regions[index] : null;
+      if (region != null && region.capacity() >= end)
+         return region;
+
+      synchronized (this) {
+         regions = this.regions;
+         region = index < regions.length ? regions[index] : null;
+         if (region != null && region.capacity() >= end)
+            return region;
+
+         long start = index * REGION_SIZE;
+         long length = Math.min(REGION_SIZE, channel.size() - start);
+         if (length < end || region != null && length - region.capacity() < MIN_REMAP_GROWTH && length < REGION_SIZE)
+            return null;
+
+         region = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+         if (index >= regions.length) {
+            MappedByteBuffer[] grown = new MappedByteBuffer[index + 1];
+            System.arraycopy(regions, 0, grown, 0, regions.length);
+            regions = grown;
+         } else {
+            regions = regions.clone();
+         }
+         regions[index] = region;
+         this.regions = regions;
+         return region;
+      }
+   }
+}
@@ -0,0 +1,369 @@
+package org.infinispan.persistence.file;
+
+import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.container.offheap.impl.OffHeapMemory;
+import org.infinispan.persistence.file.SingleFileStore.FileEntry;
+import org.infinispan.persistence.spi.PersistenceException;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The index of a {@link SingleFileStore} kept in native memory: a hash table whose buckets are singly linked lists of
+ * records laid out as follows:
+ * <pre>
+ * | next (8) | hash (4) | key length (4) | offset (8) | size (4) | data length (4) |
+ * | metadata length (4) | file key length (4) | expiry time (8) | key bytes |
+ * </pre>
+ * The keys are marshalled on their own, so lookups only compare bytes and keys must marshall deterministically. Each
+ * entry takes 48 bytes of native memory plus the marshalled key, and nothing on the heap; the {@link FileEntry}
+ * instances and the keys are created on each access.
+ * <p/>
+ * All the methods are synchronized on the map, like the methods of {@link java.util.Collections#synchronizedMap(Map)},
+ * so the iterations must be done while holding its monitor. The keys are marshalled before taking the monitor; callers
+ * looking up a key while holding the monitor should marshall it first with {@link #marshallKey(Object)}.
+ *
+ * @since 7.0
+ */
+class OffHeapEntryMap<K> extends AbstractMap<K, FileEntry> {
+   private static final int NEXT_OFFSET = 0;
+   private static final int HASH_OFFSET = 8;
+   private static final int KEY_LENGTH_OFFSET = 12;
+   private static final int FILE_OFFSET_OFFSET = 16;
+   private static final int SIZE_OFFSET = 24;
+   private static final int DATA_LENGTH_OFFSET = 28;
+   private static final int METADATA_LENGTH_OFFSET = 32;
+   private static final int FILE_KEY_LENGTH_OFFSET = 36;
+   private static final int EXPIRY_TIME_OFFSET = 40;
+   private static final int HEADER_SIZE = 48;
+   private static final int INITIAL_CAPACITY = 1 << 10;
+   private static final int MAX_CAPACITY = 1 << 30;
+
+   private final StreamingMarshaller marshaller;
+   private long buckets;
+   private int capacity;
+   private int size;
+   private int modCount;
+   private Set<Map.Entry<K, FileEntry>> entrySet;
+
+   OffHeapEntryMap(StreamingMarshaller marshaller) {
+      this.marshaller = marshaller;
+      allocateBuckets(INITIAL_CAPACITY);
+   }
+
+   @Override
+   public synchronized int size() {
+      return size;
+   }
+
+   @Override
+   public boolean containsKey(Object key) {
+      MarshalledKey k = toMarshalledKey(key);
+      synchronized (this) {
+         return find(k) != 0;
+      }
+   }
+
+   @Override
+   public FileEntry get(Object key) {
+      MarshalledKey k = toMarshalledKey(key);
+      synchronized (this) {
+         long address = find(k);
+         return address == 0 ? null : toFileEntry(address);
+      }
+   }
+
+   @Override
+   public FileEntry put(K key, FileEntry fe) {
+      MarshalledKey k = toMarshalledKey(key);
+      ByteBuffer bytes = k.bytes;
+      synchronized (this) {
+         long address = find(k);
+         if (address != 0) {
+            FileEntry previous = toFileEntry(address);
+            writeFileEntry(address, fe);
+            return previous;
+         }
+
+         address = OffHeapMemory.allocate(HEADER_SIZE + bytes.getLength());
+         OffHeapMemory.putInt(address + HASH_OFFSET, k.hash);
+         OffHeapMemory.putInt(address + KEY_LENGTH_OFFSET, bytes.getLength());
+         writeFileEntry(address, fe);
+         OffHeapMemory.putBytes(address + HEADER_SIZE, bytes.getBuf(), bytes.getOffset(), bytes.getLength());
+         long slot = bucketSlot(k.hash);
+         OffHeapMemory.putLong(address + NEXT_OFFSET, OffHeapMemory.getLong(slot));
+         OffHeapMemory.putLong(slot, address);
+         size++;
+         modCount++;
+         if (size > capacity - (capacity >>> 2) && capacity < MAX_CAPACITY)
+            resize(capacity << 1);
+         return null;
+      }
+   }
+
+   @Override
+   public FileEntry remove(Object key) {
+      MarshalledKey k = toMarshalledKey(key);
+      synchronized (this) {
+         long address = unlink(k);
+         if (address == 0)
+            return null;
+         FileEntry fe = toFileEntry(address);
+         OffHeapMemory.free(address);
+         return fe;
+      }
+   }
+
+   /**
+    * Marshalls the key, so that it can be passed to {@link #get(Object)}, {@link #remove(Object)} and
+    * {@link #containsKey(Object)} without marshalling it again.
+    */
+   MarshalledKey marshallKey(Object key) {
+      ByteBuffer bytes = marshall(key);
+      return new MarshalledKey(bytes, hash(bytes));
+   }
+
+   private MarshalledKey toMarshalledKey(Object key) {
+      return key instanceof MarshalledKey ? (MarshalledKey) key : marshallKey(key);
+   }
+
+   @Override
+   public synchronized void clear() {
+      releaseRecords();
+      OffHeapMemory.zero(buckets, (long) capacity << 3);
+      modCount++;
+   }
+
+   /**
+    * Releases all the native memory of the map, which cannot be used afterwards.
+    */
+   synchronized void dispose() {
+      if (buckets != 0) {
+         releaseRecords();
+         OffHeapMemory.free(buckets);
+         buckets = 0;
+      }
+   }
+
+   @Override
+   public synchronized Set<Map.Entry<K, FileEntry>> entrySet() {
+      if (entrySet == null) {
+         entrySet = new AbstractSet<Map.Entry<K, FileEntry>>() {
+            @Override
+            public Iterator<Map.Entry<K, FileEntry>> iterator() {
+               return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+               return OffHeapEntryMap.this.size();
+            }
+         };
+      }
+      return entrySet;
+   }
+
+   private void allocateBuckets(int capacity) {
+      long bytes = (long) capacity << 3;
+      buckets = OffHeapMemory.allocate(bytes);
+      OffHeapMemory.zero(buckets, bytes);
+      this.capacity = capacity;
+   }
+
+   private void resize(int newCapacity) {
+      long oldBuckets = buckets;
+      int oldCapacity = capacity;
+      allocateBuckets(newCapacity);
+      for (int bucket = 0; bucket < oldCapacity; bucket++) {
+         long address = OffHeapMemory.getLong(oldBuckets + ((long) bucket << 3));
+         while (address != 0) {
+            long next = OffHeapMemory.getLong(address + NEXT_OFFSET);
+            long slot = bucketSlot(OffHeapMemory.getInt(address + HASH_OFFSET));
+            OffHeapMemory.putLong(address + NEXT_OFFSET, OffHeapMemory.getLong(slot));
+            OffHeapMemory.putLong(slot, address);
+            address = next;
+         }
+      }
+      OffHeapMemory.free(oldBuckets);
+   }
+
+   private void releaseRecords() {
+      for (int bucket = 0; bucket < capacity; bucket++) {
+         long address = OffHeapMemory.getLong(buckets + ((long) bucket << 3));
+         while (address != 0) {
+            long next = OffHeapMemory.getLong(address + NEXT_OFFSET);
+            OffHeapMemory.free(address);
+            address = next;
+         }
+      }
+      size = 0;
+   }
+
+   private long bucketSlot(int hash) {
+      if (buckets == 0)
+         throw new IllegalStateException("The off-heap index has been disposed");
+      return buckets + ((long) (hash & (capacity - 1)) << 3);
+   }
+
+   private long find(MarshalledKey key) {
+      long address = OffHeapMemory.getLong(bucketSlot(key.hash));
+      while (address != 0) {
+         if (matches(address, key))
+            return address;
+         address = OffHeapMemory.getLong(address + NEXT_OFFSET);
+      }
+      return 0;
+   }
+
+   private long unlink(MarshalledKey key) {
+      long slot = bucketSlot(key.hash);
+      long prev = 0;
+      long address = OffHeapMemory.getLong(slot);
+      while (address != 0) {
+         long next = OffHeapMemory.getLong(address + NEXT_OFFSET);
+         if (matches(address, key)) {
+            OffHeapMemory.putLong(prev == 0 ? slot : prev + NEXT_OFFSET, next);
+            size--;
+            modCount++;
+            return address;
+         }
+         prev = address;
+         address = next;
+      }
+      return 0;
+   }
+
+   private boolean matches(long address, MarshalledKey key) {
+      ByteBuffer bytes = key.bytes;
+      return OffHeapMemory.getInt(address + HASH_OFFSET) == key.hash
+            && OffHeapMemory.getInt(address + KEY_LENGTH_OFFSET) == bytes.getLength()
+            && OffHeapMemory.equals(address + HEADER_SIZE, bytes.getBuf(), bytes.getOffset(), bytes.getLength());
+   }
+
+   private static void writeFileEntry(long address, FileEntry fe) {
+      OffHeapMemory.putLong(address + FILE_OFFSET_OFFSET, fe.offset);
+      OffHeapMemory.putInt(address + SIZE_OFFSET, fe.size);
+      OffHeapMemory.putInt(address + DATA_LENGTH_OFFSET, fe.dataLen);
+      OffHeapMemory.putInt(address + METADATA_LENGTH_OFFSET, fe.metadataLen);
+      OffHeapMemory.putInt(address + FILE_KEY_LENGTH_OFFSET, fe.keyLen);
+      OffHeapMemory.putLong(address + EXPIRY_TIME_OFFSET, fe.expiryTime);
+   }
+
+   private static FileEntry toFileEntry(long address) {
+      return new FileEntry(OffHeapMemory.getLong(address + FILE_OFFSET_OFFSET),
+            OffHeapMemory.getInt(address + SIZE_OFFSET),
+            OffHeapMemory.getInt(address + FILE_KEY_LENGTH_OFFSET),
+            OffHeapMemory.getInt(address + DATA_LENGTH_OFFSET),
+            OffHeapMemory.getInt(address + METADATA_LENGTH_OFFSET),
+            OffHeapMemory.getLong(address + EXPIRY_TIME_OFFSET));
+   }
+
+   @SuppressWarnings("unchecked")
+   private K readKey(long address) {
+      byte[] bytes = new byte[OffHeapMemory.getInt(address + KEY_LENGTH_OFFSET)];
+      OffHeapMemory.getBytes(address + HEADER_SIZE, bytes, 0, bytes.length);
+      try {
+         return (K) marshaller.objectFromByteBuffer(bytes);
+      } catch (Exception e) {
+         throw new PersistenceException("Unable to unmarshall a key of the off-heap index", e);
+      }
+   }
+
+   private ByteBuffer marshall(Object key) {
+      try {
+         return marshaller.objectToBuffer(key);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new PersistenceException(e);
+      } catch (Exception e) {
+         throw new PersistenceException("Unable to marshall " + key + " for the off-heap index", e);
+      }
+   }
+
+   private static int hash(ByteBuffer key) {
+      byte[] buf = key.getBuf();
+      int h = 1;
+      for (int i = key.getOffset(), end = key.getOffset() + key.getLength(); i < end; i++) {
+         h = 31 * h + buf[i];
+      }
+      return h ^ (h >>> 16);
+   }
+
+   /**
+    * A key in its marshalled form, with its hash.
+    */
+   static final class MarshalledKey {
+      final ByteBuffer bytes;
+      final int hash;
+
+      private MarshalledKey(ByteBuffer bytes, int hash) {
+         this.bytes = bytes;
+         this.hash = hash;
+      }
+   }
+
+   private class EntryIterator implements Iterator<Map.Entry<K, FileEntry>> {
+      private int expectedModCount = modCount;
+      private int bucket = -1;
+      private long next;
+      private long last;
+
+      EntryIterator() {
+         advance(0);
+      }
+
+      private void advance(long address) {
+         next = address;
+         while (next == 0 && ++bucket < capacity) {
+            next = OffHeapMemory.getLong(buckets + ((long) bucket << 3));
+         }
+      }
+
+      @Override
+      public boolean hasNext() {
+         return next != 0;
+      }
+
+      @Override
+      public Map.Entry<K, FileEntry> next() {
+         synchronized (OffHeapEntryMap.this) {
+            if (modCount != expectedModCount)
+               throw new ConcurrentModificationException();
+            if (next == 0)
+               throw new NoSuchElementException();
+            last = next;
+            advance(OffHeapMemory.getLong(last + NEXT_OFFSET));
+            return new SimpleImmutableEntry<K, FileEntry>(readKey(last), toFileEntry(last));
+         }
+      }
+
+      @Override
+      public void remove() {
+         synchronized (OffHeapEntryMap.this) {
+            if (last == 0)
+               throw new IllegalStateException();
+            if (modCount != expectedModCount)
+               throw new ConcurrentModificationException();
+            int hash = OffHeapMemory.getInt(last + HASH_OFFSET);
+            long slot = bucketSlot(hash);
+            long prev = 0;
+            long address = OffHeapMemory.getLong(slot);
+            while (address != last) {
+               prev = address;
+               address = OffHeapMemory.getLong(address + NEXT_OFFSET);
+            }
+            OffHeapMemory.putLong(prev == 0 ? slot : prev + NEXT_OFFSET, OffHeapMemory.getLong(last + NEXT_OFFSET));
+            OffHeapMemory.free(last);
+            last = 0;
+            size--;
+            expectedModCount = ++modCount;
+         }
+      }
+   }
+}
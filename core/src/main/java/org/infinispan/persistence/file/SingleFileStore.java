@@ -7,14 +7,15 @@
 import org.infinispan.commons.io.ByteBufferFactory;
 import org.infinispan.commons.util.CollectionFactory;
 import org.infinispan.configuration.cache.SingleFileStoreConfiguration;
+import org.infinispan.distribution.ch.SegmentMapper;
 import org.infinispan.executors.ExecutorAllCompletionService;
 import org.infinispan.filter.KeyFilter;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.persistence.PersistenceUtil;
 import org.infinispan.persistence.TaskContextImpl;
-import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore;
 import org.infinispan.util.KeyValuePair;
 import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.Log;
@@ -28,6 +29,7 @@
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -38,7 +40,8 @@
  * <p/>
  * Note: this CacheStore implementation keeps keys and file positions in memory!
  * The current implementation needs about 100 bytes per cache entry, plus the
- * memory for the key objects.
+ * memory for the key objects. With an off-heap index, each entry takes 48 bytes
+ * plus its marshalled key in native memory instead, and nothing on the heap.
  * <p/>
  * So, the space taken by this cache store is both the space in the file
  * itself plus the in-memory index with the keys and their file positions.
@@ -60,7 +63,7 @@
  * @since 6.0
  */
 @ConfiguredBy(SingleFileStoreConfiguration.class)
-public class SingleFileStore<K, V> implements AdvancedLoadWriteStore<K, V> {
+public class SingleFileStore<K, V> implements SegmentedAdvancedLoadWriteStore<K, V> {
    private static final Log log = LogFactory.getLog(SingleFileStore.class);
    private static final boolean trace = log.isTraceEnabled();
 
@@ -69,6 +72,8 @@
    private static final int KEYLEN_POS = 4;
    private static final int KEY_POS = 4 + 4 + 4 + 4 + 8;
    private static final int SMALLEST_ENTRY_SIZE = 128;
+   // a file cannot be truncated while it is mapped on Windows
+   private static final boolean CAN_TRUNCATE_MAPPED_FILE = !System.getProperty("os.name", "").startsWith("Windows");
 
    private SingleFileStoreConfiguration configuration;
 
@@ -83,6 +88,13 @@
    // Prevent clear() from truncating the file after a write() allocated the entry but before it wrote the data
    private ReadWriteLock resizeLock = new ReentrantReadWriteLock();
    private TimeService timeService;
+   private SegmentMapper segmentMapper;
+   private MappedRegions mappedRegions;
+   private final ReaderLocks readerLocks = new ReaderLocks();
+   // group commit: the modifications up to syncedModifications have been forced to the disk
+   private final AtomicLong modifications = new AtomicLong();
+   private final Object syncLock = new Object();
+   private long syncedModifications;
 
    @Override
    public void init(InitializationContext ctx) {
@@ -107,6 +119,13 @@ public void start() {
             }
          }
          channel = new RandomAccessFile(file, "rw").getChannel();
+         if (configuration.memoryMappedReads()) {
+            if (CAN_TRUNCATE_MAPPED_FILE)
+               mappedRegions = new MappedRegions(channel);
+            else
+               log.memoryMappedReadsDisabledOnWindows(file.getAbsolutePath());
+         }
+         segmentMapper = SegmentMapper.forCache(ctx.getCache());
 
          // initialize data structures
          entries = newEntryMap();
@@ -129,6 +148,9 @@ public void start() {
    }
 
    private <Key> Map<Key, FileEntry> newEntryMap() {
+      if (configuration.offHeapIndex())
+         return new OffHeapEntryMap<Key>(ctx.getMarshaller());
+
       // only use LinkedHashMap (LRU) for entries when cache store is bounded
       final Map<Key, FileEntry> entryMap;
       Equivalence<Object> keyEq = ctx.getCache().getCacheConfiguration().dataContainer().keyEquivalence();
@@ -144,19 +166,28 @@ private <Key> Map<Key, FileEntry> newEntryMap() {
 
    @Override
    public void stop() {
+      // wait for the writers syncing the file
+      resizeLock.writeLock().lock();
       try {
          if (channel != null) {
             log.tracef("Stopping store %s, size = %d, file size = %d", ctx.getCache().getName(), entries.size(), channel.size());
 
             // reset state
+            if (configuration.syncWrites())
+               channel.force(false);
             channel.close();
             channel = null;
+            mappedRegions = null;
+            if (entries instanceof OffHeapEntryMap)
+               ((OffHeapEntryMap<K>) entries).dispose();
             entries = null;
             freeList = null;
             filePos = MAGIC.length;
          }
       } catch (Exception e) {
          throw new PersistenceException(e);
+      } finally {
+         resizeLock.writeLock().unlock();
       }
    }
 
@@ -232,7 +263,7 @@ private FileEntry allocate(int len) {
          for (Iterator<FileEntry> it = candidates.iterator(); it.hasNext(); ) {
             FileEntry free = it.next();
             // ignore entries that are still in use by concurrent readers
-            if (free.isLocked())
+            if (readerLocks.isLocked(free.offset))
                continue;
 
             // There's no race condition risk between locking the entry on
@@ -358,6 +389,7 @@ public void write(MarshalledEntry<? extends K, ? extends V> marshalledEntry) {
                resizeLock.readLock().unlock();
             }
          }
+         syncIfNeeded();
       } catch (Exception e) {
          throw new PersistenceException(e);
       }
@@ -389,10 +421,7 @@ public void clear() {
          synchronized (entries) {
             synchronized (freeList) {
                // wait until all readers are done reading file entries
-               for (FileEntry fe : entries.values())
-                  fe.waitUnlocked();
-               for (FileEntry fe : freeList)
-                  fe.waitUnlocked();
+               readerLocks.waitUnlocked();
 
                // clear in-memory state
                entries.clear();
@@ -401,10 +430,13 @@ public void clear() {
                // reset file
                if (trace) log.tracef("Truncating file, current size is %d", filePos);
                channel.truncate(0);
+               if (mappedRegions != null)
+                  mappedRegions.invalidate();
                channel.write(ByteBuffer.wrap(MAGIC), 0);
                filePos = MAGIC.length;
             }
          }
+         syncIfNeeded();
       } catch (Exception e) {
          throw new PersistenceException(e);
       } finally {
@@ -414,16 +446,49 @@ public void clear() {
 
    @Override
    public boolean delete(Object key) {
+      FileEntry fe;
       resizeLock.readLock().lock();
       try {
-         FileEntry fe = entries.remove(key);
+         fe = entries.remove(key);
          free(fe);
-         return fe != null;
       } catch (Exception e) {
          throw new PersistenceException(e);
       } finally {
          resizeLock.readLock().unlock();
       }
+      if (fe == null)
+         return false;
+      try {
+         syncIfNeeded();
+      } catch (IOException e) {
+         throw new PersistenceException(e);
+      }
+      return true;
+   }
+
+   /**
+    * Forces the modifications to the disk if the writes must be synchronous. The modifications of concurrent writers
+    * are grouped: whoever gets the lock first syncs the modifications of all the writers waiting for it, which then
+    * find their modification already synced. The {@code resizeLock} is held in shared mode, so that the store cannot
+    * be stopped meanwhile.
+    */
+   private void syncIfNeeded() throws IOException {
+      if (!configuration.syncWrites())
+         return;
+      long modification = modifications.incrementAndGet();
+      resizeLock.readLock().lock();
+      try {
+         synchronized (syncLock) {
+            // nothing to sync once the store is stopped, as stop() forced the file before closing it
+            if (syncedModifications >= modification || channel == null)
+               return;
+            long lastModification = modifications.get();
+            channel.force(false);
+            syncedModifications = lastModification;
+         }
+      } finally {
+         resizeLock.readLock().unlock();
+      }
    }
 
    @Override
@@ -434,21 +499,23 @@ public MarshalledEntry<K, V> load(Object key) {
    private MarshalledEntry<K, V> _load(Object key, boolean loadValue, boolean loadMetadata) {
       final FileEntry fe;
       final boolean expired;
+      // the off-heap index compares marshalled keys: marshall the key before taking the entries monitor
+      Object indexKey = entries instanceof OffHeapEntryMap ? ((OffHeapEntryMap<K>) entries).marshallKey(key) : key;
       resizeLock.readLock().lock();
       try {
          synchronized (entries) {
             // lookup FileEntry of the key
-            fe = entries.get(key);
+            fe = entries.get(indexKey);
             if (fe == null)
                return null;
 
             expired = fe.isExpired(timeService.wallClockTime());
             if (expired) {
                // if expired, remove the entry (within entries monitor)
-               entries.remove(key);
+               entries.remove(indexKey);
             } else {
                // lock entry for reading before releasing entries monitor
-               fe.lock();
+               readerLocks.lock(fe.offset);
             }
          }
 
@@ -470,13 +537,14 @@ private MarshalledEntry<K, V> _load(Object key, boolean loadValue, boolean loadM
          // load serialized data from disk
          data = new byte[fe.keyLen + (loadValue || loadMetadata ? fe.dataLen : 0) + (loadMetadata ? fe.metadataLen : 0)];
          // The entry lock will prevent clear() from truncating the file at this point
-         channel.read(ByteBuffer.wrap(data), fe.offset + KEY_POS);
+         if (mappedRegions == null || !mappedRegions.read(fe.offset + KEY_POS, data))
+            channel.read(ByteBuffer.wrap(data), fe.offset + KEY_POS);
       } catch (Exception e) {
          throw new PersistenceException(e);
       } finally {
          // No need to keep the lock for deserialization.
          // FileEntry is immutable, so its members can't be changed by another thread.
-         fe.unlock();
+         readerLocks.unlock(fe.offset);
       }
 
       if (trace) log.tracef("Read entry %s at %d:%d", key, fe.offset, fe.actualSize());
@@ -495,11 +563,19 @@ private MarshalledEntry<K, V> _load(Object key, boolean loadValue, boolean loadM
 
    @Override
    public void process(KeyFilter<? super K> filter, final CacheLoaderTask<K, V> task, Executor executor, final boolean fetchValue, final boolean fetchMetadata) {
+      process(null, filter, task, executor, fetchValue, fetchMetadata);
+   }
+
+   /**
+    * As all the keys are in memory, the keys of the other segments are skipped without reading anything from the file.
+    */
+   @Override
+   public void process(Set<Integer> segments, KeyFilter<? super K> filter, final CacheLoaderTask<K, V> task, Executor executor, final boolean fetchValue, final boolean fetchMetadata) {
       filter = PersistenceUtil.notNull(filter);
       Set<Object> keysToLoad = new HashSet<Object>(entries.size());
       synchronized (entries) {
          for (K k : entries.keySet()) {
-            if (filter.accept(k))
+            if ((segments == null || segments.contains(segmentMapper.getSegment(k))) && filter.accept(k))
                keysToLoad.add(k);
          }
       }
@@ -561,7 +637,7 @@ private void truncateFile(List<FileEntry> entries) {
          // Till we have free entries at the end of the file,
          // we can remove them and contract the file to release disk
          // space.
-         if (!fe.isLocked() && ((fe.offset + fe.size) == filePos)) {
+         if (!readerLocks.isLocked(fe.offset) && ((fe.offset + fe.size) == filePos)) {
             truncateOffset = fe.offset;
             filePos = fe.offset;
             freeList.remove(fe);
@@ -576,6 +652,8 @@ private void truncateFile(List<FileEntry> entries) {
       if (truncateOffset > 0) {
          try {
             channel.truncate(truncateOffset);
+            if (mappedRegions != null)
+               mappedRegions.invalidate();
          } catch (IOException e) {
             throw new PersistenceException("Error while truncating file", e);
          }
@@ -598,7 +676,7 @@ private void mergeFreeEntries(List<FileEntry> entries) {
       int mergeCounter = 0;
       for (Iterator<FileEntry> it = entries.iterator() ; it.hasNext(); ) {
          FileEntry fe = it.next();
-         if (fe.isLocked()) {
+         if (readerLocks.isLocked(fe.offset)) {
             continue;
          }
 
@@ -691,6 +769,29 @@ public int size() {
       return entries.size();
    }
 
+   @Override
+   public int size(Set<Integer> segments) {
+      return keysOfSegments(segments).size();
+   }
+
+   @Override
+   public void clear(Set<Integer> segments) {
+      for (Object key : keysOfSegments(segments)) {
+         delete(key);
+      }
+   }
+
+   private List<K> keysOfSegments(Set<Integer> segments) {
+      List<K> keys = new ArrayList<K>();
+      synchronized (entries) {
+         for (K k : entries.keySet()) {
+            if (segments.contains(segmentMapper.getSegment(k)))
+               keys.add(k);
+         }
+      }
+      return keys;
+   }
+
    Map<K, FileEntry> getEntries() {
       return entries;
    }
@@ -722,41 +823,36 @@ public SingleFileStoreConfiguration getConfiguration() {
     * <li>{@link #metadataLen} bytes: serialized key</li>
     * </ul>
     */
-   private static class FileEntry implements Comparable<FileEntry> {
+   static class FileEntry implements Comparable<FileEntry> {
       /**
        * File offset of this block.
        */
-      private final long offset;
+      final long offset;
 
       /**
        * Total size of this block.
        */
-      private final int size;
+      final int size;
 
       /**
        * Size of serialized key.
        */
-      private final int keyLen;
+      final int keyLen;
 
       /**
        * Size of serialized data.
        */
-      private final int dataLen;
+      final int dataLen;
 
       /**
        * Size of serialized metadata.
        */
-      private final int metadataLen;
+      final int metadataLen;
 
       /**
        * Time stamp when the entry will expire (i.e. will be collected by purge).
        */
-      private final long expiryTime;
-
-      /**
-       * Number of current readers.
-       */
-      private transient int readers = 0;
+      final long expiryTime;
 
       public FileEntry(long offset, int size) {
          this(offset, size, 0, 0, 0, -1);
@@ -775,30 +871,6 @@ public FileEntry(FileEntry fe, int keyLen, int dataLen, int metadataLen, long ex
          this(fe.offset, fe.size, keyLen, dataLen, metadataLen, expiryTime);
       }
 
-      public synchronized boolean isLocked() {
-         return readers > 0;
-      }
-
-      public synchronized void lock() {
-         readers++;
-      }
-
-      public synchronized void unlock() {
-         readers--;
-         if (readers == 0)
-            notifyAll();
-      }
-
-      public synchronized void waitUnlocked() {
-         while (readers > 0) {
-            try {
-               wait();
-            } catch (InterruptedException e) {
-               Thread.currentThread().interrupt();
-            }
-         }
-      }
-
       public boolean isExpired(long now) {
          return expiryTime > 0 && expiryTime < now;
       }
@@ -845,6 +917,73 @@ public String toString() {
       }
    }
 
+   /**
+    * Counts the concurrent readers of the blocks of the file, by offset, so that the space of a block is not reused
+    * or truncated while it is being read. The counts are kept apart from the {@link FileEntry} instances, as the
+    * off-heap index creates a new instance on each lookup. The offsets are spread over stripes to avoid contention
+    * between readers.
+    */
+   private static class ReaderLocks {
+      private static final int STRIPES = 16;
+
+      @SuppressWarnings("unchecked")
+      private final Map<Long, Integer>[] readers = new Map[STRIPES];
+
+      ReaderLocks() {
+         for (int i = 0; i < STRIPES; i++) {
+            readers[i] = new HashMap<Long, Integer>();
+         }
+      }
+
+      private Map<Long, Integer> stripe(long offset) {
+         int h = (int) (offset ^ (offset >>> 32));
+         return readers[(h ^ (h >>> 7) ^ (h >>> 16)) & (STRIPES - 1)];
+      }
+
+      void lock(long offset) {
+         Map<Long, Integer> stripe = stripe(offset);
+         synchronized (stripe) {
+            Integer count = stripe.get(offset);
+            stripe.put(offset, count == null ? 1 : count + 1);
+         }
+      }
+
+      void unlock(long offset) {
+         Map<Long, Integer> stripe = stripe(offset);
+         synchronized (stripe) {
+            int count = stripe.get(offset);
+            if (count == 1) {
+               stripe.remove(offset);
+               if (stripe.isEmpty())
+                  stripe.notifyAll();
+            } else {
+               stripe.put(offset, count - 1);
+            }
+         }
+      }
+
+      boolean isLocked(long offset) {
+         Map<Long, Integer> stripe = stripe(offset);
+         synchronized (stripe) {
+            return stripe.containsKey(offset);
+         }
+      }
+
+      void waitUnlocked() {
+         for (Map<Long, Integer> stripe : readers) {
+            synchronized (stripe) {
+               while (!stripe.isEmpty()) {
+                  try {
+                     stripe.wait();
+                  } catch (InterruptedException e) {
+                     Thread.currentThread().interrupt();
+                  }
+               }
+            }
+         }
+      }
+   }
+
    /**
     * Compares two file entries based on their offset in the file
     * in the reverse order (bigger entries will be ahead of smaller entries)
@@ -54,10 +54,36 @@ public interface PersistenceManager extends Lifecycle {
 
    void processOnAllStores(Executor executor, KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task, boolean fetchValue, boolean fetchMetadata, AccessMode mode);
 
+   /**
+    * Iterates over the entries of the given segments in all the stores, with a <b>keyFilter</b> only accepting the
+    * keys of these <b>segments</b>. The stores implementing {@link
+    * org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore} don't read the entries of the other segments at
+    * all.
+    */
+   void processOnAllStores(Set<Integer> segments, KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task, boolean fetchValue, boolean fetchMetadata, AccessMode mode);
+
+   void processOnAllStores(Executor executor, Set<Integer> segments, KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task, boolean fetchValue, boolean fetchMetadata, AccessMode mode);
+
    MarshalledEntry loadFromAllStores(Object key, InvocationContext context);
 
    void writeToAllStores(MarshalledEntry marshalledEntry, AccessMode modes);
 
+   /**
+    * Persists the entries, whose keys must be distinct, in all the stores allowed by the access mode, with a single
+    * batch in the stores supporting it.
+    *
+    * @see org.infinispan.persistence.spi.BatchCacheWriter
+    */
+   void writeBatchToAllStores(Iterable<MarshalledEntry> entries, AccessMode mode);
+
+   /**
+    * Removes the entries with the given keys from all the stores allowed by the access mode, with a single batch in the
+    * stores supporting it.
+    *
+    * @see org.infinispan.persistence.spi.BatchCacheWriter
+    */
+   void deleteBatchFromAllStores(Iterable<Object> keys, AccessMode mode);
+
    /**
     * Returns the store one configured with fetch persistent state, or null if none exist.
     */
@@ -10,6 +10,7 @@
 import org.infinispan.configuration.cache.CustomStoreConfiguration;
 import org.infinispan.configuration.cache.Index;
 import org.infinispan.configuration.cache.StoreConfiguration;
+import org.infinispan.container.DataContainer;
 import org.infinispan.container.entries.ImmortalCacheEntry;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.context.Flag;
@@ -23,12 +24,20 @@
 import org.infinispan.interceptors.CacheWriterInterceptor;
 import org.infinispan.interceptors.InterceptorChain;
 import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.DisplayType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Units;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.marshall.core.MarshalledEntryFactory;
+import org.infinispan.metadata.EmbeddedMetadata;
 import org.infinispan.metadata.Metadata;
 import org.infinispan.metadata.impl.InternalMetadataImpl;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.persistence.InitializationContextImpl;
+import org.infinispan.persistence.PersistenceUtil;
 import org.infinispan.persistence.async.AdvancedAsyncCacheLoader;
 import org.infinispan.persistence.async.AdvancedAsyncCacheWriter;
 import org.infinispan.persistence.async.AsyncCacheLoader;
@@ -40,6 +49,7 @@
 import org.infinispan.persistence.spi.CacheWriter;
 import org.infinispan.persistence.spi.LocalOnlyCacheLoader;
 import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore;
 import org.infinispan.persistence.support.AdvancedSingletonCacheWriter;
 import org.infinispan.persistence.support.DelegatingCacheLoader;
 import org.infinispan.persistence.support.DelegatingCacheWriter;
@@ -67,6 +77,7 @@
 import static org.infinispan.factories.KnownComponentNames.PERSISTENCE_EXECUTOR;
 import static org.infinispan.persistence.manager.PersistenceManager.AccessMode.BOTH;
 
+@MBean(objectName = "PersistenceManager", description = "Component that manages the cache loaders and writers of the cache.")
 public class PersistenceManagerImpl implements PersistenceManager {
 
    private static final Log log = LogFactory.getLog(PersistenceManagerImpl.class);
@@ -92,6 +103,10 @@ public class PersistenceManagerImpl implements PersistenceManager {
    private ByteBufferFactory byteBufferFactory;
    private MarshalledEntryFactory marshalledEntryFactory;
    private volatile boolean clearOnStop;
+   private final AtomicInteger preloadedEntries = new AtomicInteger(0);
+   private volatile boolean preloading;
+   private volatile long preloadStart;
+   private volatile long preloadTime;
 
    @Inject
    public void inject(AdvancedCache<Object, Object> cache, @ComponentName(CACHE_MARSHALLER) StreamingMarshaller marshaller,
@@ -215,25 +230,77 @@ public void preload() {
       if (preloadCl == null)
          return;
 
-      long start = timeService.time();
+      preloadedEntries.set(0);
+      preloadStart = timeService.time();
+      preloading = true;
+      try {
+         final int maxEntries = getMaxEntries();
+         final AtomicInteger reservedEntries = new AtomicInteger(0);
+         final AdvancedCache<Object, Object> flaggedCache = getCacheForStateInsertion();
+         final DataContainer<Object, Object> dataContainer = canPreloadIntoDataContainer() ? cache.getDataContainer() : null;
+         if (dataContainer == null) {
+            log.debugf("Preloading through the interceptor chain");
+         }
+         final Metadata defaultMetadata = new EmbeddedMetadata.Builder()
+               .lifespan(configuration.expiration().lifespan()).maxIdle(configuration.expiration().maxIdle()).build();
+         preloadCl.process(null, new AdvancedCacheLoader.CacheLoaderTask() {
+            @Override
+            public void processEntry(MarshalledEntry me, AdvancedCacheLoader.TaskContext taskContext) throws InterruptedException {
+               if (reservedEntries.getAndIncrement() >= maxEntries) {
+                  taskContext.stop();
+                  return;
+               }
+               Metadata metadata = me.getMetadata() != null ? ((InternalMetadataImpl)me.getMetadata()).actual() : null; //the downcast will go away with ISPN-3460
+               if (dataContainer != null) {
+                  dataContainer.put(me.getKey(), me.getValue(), metadata != null ? metadata : defaultMetadata);
+               } else {
+                  preloadKey(flaggedCache, me.getKey(), me.getValue(), metadata);
+               }
+               preloadedEntries.incrementAndGet();
+            }
+         }, persistenceExecutor, true, true);
+      } finally {
+         preloadTime = timeService.timeDuration(preloadStart, MILLISECONDS);
+         preloading = false;
+      }
+
+      log.debugf("Preloaded %s keys in %s", preloadedEntries, Util.prettyPrintTime(preloadTime));
+   }
 
+   /**
+    * The entries are put directly in the data container when going through the interceptor chain would do nothing
+    * else: nobody listens to the cache events yet, the entries are neither indexed, converted, wrapped nor versioned,
+    * and there are no passivated entries to activate.
+    */
+   private boolean canPreloadIntoDataContainer() {
+      if (!configuration.customInterceptors().interceptors().isEmpty()
+            || configuration.indexing().index().isEnabled()
+            || configuration.compatibility().enabled()
+            || configuration.storeAsBinary().enabled()
+            || configuration.versioning().enabled()
+            || configuration.persistence().passivation()) {
+         return false;
+      }
+      CacheNotifier notifier = cache.getComponentRegistry().getComponent(CacheNotifier.class);
+      return notifier == null || notifier.getListeners().isEmpty();
+   }
 
-      final int maxEntries = getMaxEntries();
-      final AtomicInteger loadedEntries = new AtomicInteger(0);
-      final AdvancedCache<Object, Object> flaggedCache = getCacheForStateInsertion();
-      preloadCl.process(null, new AdvancedCacheLoader.CacheLoaderTask() {
-         @Override
-         public void processEntry(MarshalledEntry me, AdvancedCacheLoader.TaskContext taskContext) throws InterruptedException {
-            if (loadedEntries.getAndIncrement() >= maxEntries) {
-               taskContext.stop();
-               return;
-            }
-            Metadata metadata = me.getMetadata() != null ? ((InternalMetadataImpl)me.getMetadata()).actual() : null; //the downcast will go away with ISPN-3460
-            preloadKey(flaggedCache, me.getKey(), me.getValue(), metadata);
-         }
-      }, new WithinThreadExecutor(), true, true);
+   @ManagedAttribute(description = "Number of entries loaded in memory by the current or the last preload",
+         displayName = "Preloaded entries", measurementType = MeasurementType.DYNAMIC, displayType = DisplayType.SUMMARY)
+   public int getPreloadedEntries() {
+      return preloadedEntries.get();
+   }
 
-      log.debugf("Preloaded %s keys in %s", loadedEntries, Util.prettyPrintTime(timeService.timeDuration(start, MILLISECONDS)));
+   @ManagedAttribute(description = "Time spent by the current or the last preload", displayName = "Preload time",
+         units = Units.MILLISECONDS, measurementType = MeasurementType.DYNAMIC, displayType = DisplayType.SUMMARY)
+   public long getPreloadTime() {
+      return preloading ? timeService.timeDuration(preloadStart, MILLISECONDS) : preloadTime;
+   }
+
+   @ManagedAttribute(description = "Whether the entries of the cache store are being preloaded", displayName = "Preloading",
+         dataType = DataType.TRAIT, displayType = DisplayType.SUMMARY)
+   public boolean isPreloading() {
+      return preloading;
    }
 
    @Override
@@ -423,6 +490,32 @@ public void processOnAllStores(Executor executor, KeyFilter keyFilter, AdvancedC
       }
    }
 
+   @Override
+   public void processOnAllStores(Set<Integer> segments, KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task,
+                                  boolean fetchValue, boolean fetchMetadata, AccessMode mode) {
+      processOnAllStores(persistenceExecutor, segments, keyFilter, task, fetchValue, fetchMetadata, mode);
+   }
+
+   @Override
+   public void processOnAllStores(Executor executor, Set<Integer> segments, KeyFilter keyFilter, AdvancedCacheLoader.CacheLoaderTask task,
+                                  boolean fetchValue, boolean fetchMetadata, AccessMode mode) {
+      storesMutex.readLock().lock();
+      try {
+         for (CacheLoader loader : loaders) {
+            if (!mode.canPerform(configMap.get(loader))) {
+               continue;
+            }
+            if (loader instanceof SegmentedAdvancedLoadWriteStore) {
+               ((SegmentedAdvancedLoadWriteStore) loader).process(segments, keyFilter, task, executor, fetchValue, fetchMetadata);
+            } else if (loader instanceof AdvancedCacheLoader) {
+               ((AdvancedCacheLoader) loader).process(keyFilter, task, executor, fetchValue, fetchMetadata);
+            }
+         }
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+   }
+
    @Override
    public MarshalledEntry loadFromAllStores(Object key, InvocationContext context) {
       storesMutex.readLock().lock();
@@ -465,6 +558,34 @@ public void writeToAllStores(MarshalledEntry marshalledEntry, AccessMode mode) {
       }
    }
 
+   @Override
+   public void writeBatchToAllStores(Iterable<MarshalledEntry> entries, AccessMode mode) {
+      storesMutex.readLock().lock();
+      try {
+         for (CacheWriter w : writers) {
+            if (mode.canPerform(configMap.get(w))) {
+               PersistenceUtil.writeBatch(w, (Iterable) entries);
+            }
+         }
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+   }
+
+   @Override
+   public void deleteBatchFromAllStores(Iterable<Object> keys, AccessMode mode) {
+      storesMutex.readLock().lock();
+      try {
+         for (CacheWriter w : writers) {
+            if (mode.canPerform(configMap.get(w))) {
+               PersistenceUtil.deleteBatch(w, keys);
+            }
+         }
+      } finally {
+         storesMutex.readLock().unlock();
+      }
+   }
+
    @Override
    public AdvancedCacheLoader getStateTransferProvider() {
       storesMutex.readLock().lock();
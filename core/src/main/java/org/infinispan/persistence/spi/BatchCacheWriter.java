@@ -0,0 +1,33 @@
+package org.infinispan.persistence.spi;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.marshall.core.MarshalledEntry;
+
+/**
+ * A {@link CacheWriter} able to persist or remove many entries at once more efficiently than one by one, e.g. with a
+ * single round trip to the external storage.
+ * <p/>
+ * Implementing it is optional: the entries are written or deleted one by one in the writers not implementing it, see
+ * {@link org.infinispan.persistence.PersistenceUtil#writeBatch(CacheWriter, Iterable)}.
+ *
+ * @since 7.0
+ */
+@ThreadSafe
+public interface BatchCacheWriter<K, V> extends CacheWriter<K, V> {
+
+   /**
+    * Persists all the entries to the storage, as {@link #write(org.infinispan.marshall.core.MarshalledEntry)} would do
+    * for each one of them. The keys of the entries are distinct.
+    *
+    * @throws PersistenceException in case of an error, e.g. communicating with the external storage
+    */
+   void writeBatch(Iterable<MarshalledEntry<? extends K, ? extends V>> entries);
+
+   /**
+    * Removes all the entries with the given keys from the storage, as {@link #delete(Object)} would do for each one of
+    * them.
+    *
+    * @throws PersistenceException in case of an error, e.g. communicating with the external storage
+    */
+   void deleteBatch(Iterable<Object> keys);
+}
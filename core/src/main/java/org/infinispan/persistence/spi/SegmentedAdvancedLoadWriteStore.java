@@ -0,0 +1,47 @@
+package org.infinispan.persistence.spi;
+
+import net.jcip.annotations.ThreadSafe;
+import org.infinispan.filter.KeyFilter;
+
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link AdvancedLoadWriteStore} keeping track of the segment of the consistent hash each entry belongs to, so that
+ * it can iterate, count or remove the entries of some segments without reading the entries of the other segments,
+ * e.g. when the segments are transferred to another node. The segment of a key is given by {@link
+ * org.infinispan.distribution.ch.SegmentMapper}.
+ * <p/>
+ * Implementing it is optional: the state transfer and the entry iteration filter the keys of the other stores by
+ * segment.
+ *
+ * @since 7.0
+ */
+@ThreadSafe
+public interface SegmentedAdvancedLoadWriteStore<K, V> extends AdvancedLoadWriteStore<K, V> {
+
+   /**
+    * Iterates in parallel over the entries of the given segments, as {@link #process(KeyFilter, CacheLoaderTask,
+    * Executor, boolean, boolean)} would do for the entries accepted by the <b>filter</b> and belonging to one of the
+    * <b>segments</b>.
+    *
+    * @param segments the segments to iterate over
+    * @throws PersistenceException in case of an error, e.g. communicating with the external storage
+    */
+   void process(Set<Integer> segments, KeyFilter<? super K> filter, CacheLoaderTask<K, V> task, Executor executor,
+                boolean fetchValue, boolean fetchMetadata);
+
+   /**
+    * Returns the number of elements of the given segments in the store.
+    *
+    * @throws PersistenceException in case of an error, e.g. communicating with the external storage
+    */
+   int size(Set<Integer> segments);
+
+   /**
+    * Removes all the entries of the given segments from the store.
+    *
+    * @throws PersistenceException in case of an error, e.g. communicating with the external storage
+    */
+   void clear(Set<Integer> segments);
+}
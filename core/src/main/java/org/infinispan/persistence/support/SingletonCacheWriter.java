@@ -5,6 +5,8 @@
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.marshall.core.MarshalledEntryImpl;
+import org.infinispan.persistence.PersistenceUtil;
+import org.infinispan.persistence.spi.BatchCacheWriter;
 import org.infinispan.persistence.spi.CacheWriter;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.manager.EmbeddedCacheManager;
@@ -48,7 +50,7 @@
  * @author Mircea Markus
  * @since 6.0
  */
-public class SingletonCacheWriter extends DelegatingCacheWriter {
+public class SingletonCacheWriter extends DelegatingCacheWriter implements BatchCacheWriter {
 
    private static final Log log = LogFactory.getLog(SingletonCacheWriter.class);
    private static final boolean trace = log.isTraceEnabled();
@@ -122,6 +124,20 @@ public boolean delete(Object key) {
       return active && super.delete(key);
    }
 
+   @Override
+   public void writeBatch(Iterable entries) {
+      if (active) {
+         PersistenceUtil.writeBatch(actual, entries);
+      }
+   }
+
+   @Override
+   public void deleteBatch(Iterable keys) {
+      if (active) {
+         PersistenceUtil.deleteBatch(actual, keys);
+      }
+   }
+
    protected Callable<?> createPushStateTask() {
       return new Callable<Object>() {
          @Override
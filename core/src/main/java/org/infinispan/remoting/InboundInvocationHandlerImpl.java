@@ -9,10 +9,7 @@
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commands.tx.PrepareCommand;
-import org.infinispan.commands.tx.totalorder.TotalOrderCommitCommand;
 import org.infinispan.commands.tx.totalorder.TotalOrderPrepareCommand;
-import org.infinispan.commands.tx.totalorder.TotalOrderRollbackCommand;
-import org.infinispan.commands.tx.totalorder.TotalOrderVersionedCommitCommand;
 import org.infinispan.commons.CacheException;
 import org.infinispan.factories.ComponentRegistry;
 import org.infinispan.factories.GlobalComponentRegistry;
@@ -22,6 +19,11 @@
 import org.infinispan.factories.scopes.Scope;
 import org.infinispan.factories.scopes.Scopes;
 import org.infinispan.interceptors.totalorder.RetryPrepareException;
+import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.DisplayType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
 import org.infinispan.remoting.responses.CacheNotFoundResponse;
 import org.infinispan.statetransfer.OutdatedTopologyException;
 import org.infinispan.statetransfer.StateTransferLock;
@@ -32,10 +34,9 @@
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.Transport;
 import org.infinispan.transaction.impl.TotalOrderRemoteTransactionState;
-import org.infinispan.transaction.totalorder.TotalOrderLatch;
 import org.infinispan.transaction.totalorder.TotalOrderManager;
-import org.infinispan.util.concurrent.BlockingRunnable;
 import org.infinispan.util.concurrent.BlockingTaskAwareExecutorService;
+import org.infinispan.util.concurrent.ResourceBlockingRunnable;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -48,6 +49,7 @@
  * @since 4.0
  */
 @Scope(Scopes.GLOBAL)
+@MBean(objectName = "InboundInvocationHandler", description = "Handles the commands received from remote nodes")
 public class InboundInvocationHandlerImpl implements InboundInvocationHandler {
    private GlobalComponentRegistry gcr;
    private static final Log log = LogFactory.getLog(InboundInvocationHandlerImpl.class);
@@ -127,15 +129,16 @@ private void handleWithWaitForBlocks(final CacheRpcCommand cmd, final ComponentR
          final TotalOrderRemoteTransactionState state = ((TotalOrderPrepareCommand) cmd).getOrCreateState();
          final TotalOrderManager totalOrderManager = cr.getTotalOrderManager();
          totalOrderManager.ensureOrder(state, ((PrepareCommand) cmd).getAffectedKeysToLock(false));
-         totalOrderExecutorService.execute(new BlockingRunnable() {
+         totalOrderExecutorService.execute(new ResourceBlockingRunnable() {
             @Override
             public boolean isReady() {
-               for (TotalOrderLatch block : state.getConflictingTransactionBlocks()) {
-                  if (block.isBlocked()) {
-                     return false;
-                  }
-               }
-               return true;
+               return !state.hasPendingDependencies();
+            }
+
+            @Override
+            public Object getBlockingResource() {
+               //the TotalOrderManager checks the state once the last transaction it depends on is released
+               return state.hasPendingDependencies() ? state : null;
             }
 
             @Override
@@ -155,7 +158,6 @@ public void run() {
                if (resp instanceof ExceptionResponse) {
                   totalOrderManager.release(state);
                }
-               afterResponseSent(cmd, resp);
             }
          });
       } else {
@@ -166,31 +168,53 @@ public void run() {
          final int waitTopologyId = Math.max(commandTopologyId, 0);
 
          if (!preserveOrder && cmd.canBlock()) {
-            remoteCommandsExecutor.execute(new BlockingRunnable() {
-               @Override
-               public boolean isReady() {
-                  return stateTransferLock.transactionDataReceived(waitTopologyId);
-               }
+            // A prepare waits for its locks in the executor's queue rather than in a thread, if the transaction data
+            // it needs is already there
+            final RemotePrepareLocks prepareLocks = cmd instanceof PrepareCommand
+                  && stateTransferLock.transactionDataReceived(waitTopologyId) ?
+                  RemotePrepareLocks.acquire((PrepareCommand) cmd, cr, commandTopologyId, remoteCommandsExecutor) : null;
+            try {
+               remoteCommandsExecutor.execute(new ResourceBlockingRunnable() {
+                  @Override
+                  public boolean isReady() {
+                     return stateTransferLock.transactionDataReceived(waitTopologyId)
+                           && (prepareLocks == null || prepareLocks.isReady());
+                  }
 
-               @Override
-               public void run() {
-                  if (0 <= commandTopologyId && commandTopologyId < stm.getFirstTopologyAsMember()) {
-                     if (trace) log.tracef("Ignoring command sent before the local node was a member " +
-                           "(command topology id is %d)", commandTopologyId);
-                     reply(response, null);
-                     return;
+                  @Override
+                  public Object getBlockingResource() {
+                     if (!stateTransferLock.transactionDataReceived(waitTopologyId)) {
+                        return stateTransferLock;
+                     }
+                     return prepareLocks == null || prepareLocks.isReady() ? null : prepareLocks;
                   }
-                  Response resp;
-                  try {
-                     resp = handleInternal(cmd, cr);
-                  } catch (Throwable throwable) {
-                     log.exceptionHandlingCommand(cmd, throwable);
-                     resp = new ExceptionResponse(new CacheException("Problems invoking command.", throwable));
+
+                  @Override
+                  public void run() {
+                     try {
+                        if (0 <= commandTopologyId && commandTopologyId < stm.getFirstTopologyAsMember()) {
+                           if (trace) log.tracef("Ignoring command sent before the local node was a member " +
+                                 "(command topology id is %d)", commandTopologyId);
+                           reply(response, null);
+                           return;
+                        }
+                        Response resp;
+                        try {
+                           resp = handleInternal(cmd, cr);
+                        } catch (Throwable throwable) {
+                           log.exceptionHandlingCommand(cmd, throwable);
+                           resp = new ExceptionResponse(new CacheException("Problems invoking command.", throwable));
+                        }
+                        reply(response, resp);
+                     } finally {
+                        if (prepareLocks != null) prepareLocks.release();
+                     }
                   }
-                  reply(response, resp);
-                  afterResponseSent(cmd, resp);
-               }
-            });
+               });
+            } catch (RuntimeException e) {
+               if (prepareLocks != null) prepareLocks.release();
+               throw e;
+            }
          } else {
             // Non-OOB commands. We still have to wait for transaction data, but we should "never" time out
             // In non-transactional caches, this just waits for the topology to be installed
@@ -211,11 +235,66 @@ public void run() {
                log.tracef("Unable to execute command, got invalid response %s", resp);
             }
             reply(response, resp);
-            afterResponseSent(cmd, resp);
          }
       }
    }
 
+   @ManagedAttribute(description = "Number of remote commands waiting for the resources they need before being executed",
+         displayName = "Blocked remote commands", displayType = DisplayType.SUMMARY)
+   public int getBlockedRemoteCommands() {
+      return remoteCommandsExecutor.getBlockedTaskCount();
+   }
+
+   @ManagedAttribute(description = "Histogram of the number of remote commands already blocked when another one blocks",
+         displayName = "Blocked remote commands queue length histogram", dataType = DataType.TRAIT)
+   public String getRemoteCommandsQueueLengthHistogram() {
+      return remoteCommandsExecutor.getQueueLengthHistogram().toString();
+   }
+
+   @ManagedAttribute(description = "Histogram of the time blocked remote commands waited before being executed, in microseconds",
+         displayName = "Blocked remote commands wait time histogram", dataType = DataType.TRAIT)
+   public String getRemoteCommandsWaitTimeHistogram() {
+      return remoteCommandsExecutor.getWaitTimeHistogram().toString();
+   }
+
+   @ManagedAttribute(description = "99th percentile of the time blocked remote commands waited before being executed, in microseconds",
+         displayName = "Blocked remote commands 99th percentile wait time", displayType = DisplayType.SUMMARY)
+   public long getRemoteCommandsWaitTime99thPercentile() {
+      return remoteCommandsExecutor.getWaitTimeHistogram().getPercentile(99);
+   }
+
+   @ManagedAttribute(description = "Number of total order prepares waiting for conflicting transactions to finish",
+         displayName = "Blocked total order prepares", displayType = DisplayType.SUMMARY)
+   public int getBlockedTotalOrderPrepares() {
+      return totalOrderExecutorService.getBlockedTaskCount();
+   }
+
+   @ManagedAttribute(description = "Histogram of the number of total order prepares already blocked when another one blocks",
+         displayName = "Blocked total order prepares queue length histogram", dataType = DataType.TRAIT)
+   public String getTotalOrderQueueLengthHistogram() {
+      return totalOrderExecutorService.getQueueLengthHistogram().toString();
+   }
+
+   @ManagedAttribute(description = "Histogram of the time blocked total order prepares waited before being executed, in microseconds",
+         displayName = "Blocked total order prepares wait time histogram", dataType = DataType.TRAIT)
+   public String getTotalOrderWaitTimeHistogram() {
+      return totalOrderExecutorService.getWaitTimeHistogram().toString();
+   }
+
+   @ManagedAttribute(description = "99th percentile of the time blocked total order prepares waited before being executed, in microseconds",
+         displayName = "Blocked total order prepares 99th percentile wait time", displayType = DisplayType.SUMMARY)
+   public long getTotalOrderWaitTime99thPercentile() {
+      return totalOrderExecutorService.getWaitTimeHistogram().getPercentile(99);
+   }
+
+   @ManagedOperation(description = "Resets statistics gathered by this component", displayName = "Reset statistics")
+   public void resetStatistics() {
+      remoteCommandsExecutor.getQueueLengthHistogram().reset();
+      remoteCommandsExecutor.getWaitTimeHistogram().reset();
+      totalOrderExecutorService.getQueueLengthHistogram().reset();
+      totalOrderExecutorService.getWaitTimeHistogram().reset();
+   }
+
    private int extractCommandTopologyId(CacheRpcCommand cmd) {
       int commandTopologyId = -1;
       if (cmd instanceof SingleRpcCommand) {
@@ -241,21 +320,5 @@ private void reply(org.jgroups.blocks.Response response, Object retVal) {
       }
    }
 
-   /**
-    * invoked after the {@link Response} is sent back to the originator.
-    *
-    * @param command the remote command
-    * @param resp    the response sent
-    */
-   private void afterResponseSent(CacheRpcCommand command, Response resp) {
-      if (command instanceof TotalOrderCommitCommand ||
-            command instanceof TotalOrderVersionedCommitCommand ||
-            command instanceof TotalOrderRollbackCommand ||
-            (command instanceof TotalOrderPrepareCommand &&
-                   (((PrepareCommand) command).isOnePhaseCommit() || resp instanceof ExceptionResponse))) {
-         totalOrderExecutorService.checkForReadyTasks();
-      }
-   }
-
 }
 
@@ -0,0 +1,141 @@
+package org.infinispan.remoting;
+
+import org.infinispan.atomic.DeltaCompositeKey;
+import org.infinispan.commands.tx.PrepareCommand;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.interceptors.locking.ClusteringDependentLogic;
+import org.infinispan.transaction.LockingMode;
+import org.infinispan.transaction.impl.TransactionTable;
+import org.infinispan.util.concurrent.BlockingTaskAwareExecutorService;
+import org.infinispan.util.concurrent.locks.LockManager;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Locks requested for a remote optimistic {@link PrepareCommand} before it is handed to a remote executor thread, so
+ * that a prepare conflicting with other transactions waits in the executor's queue instead of blocking a thread in the
+ * locking interceptor.
+ * <p/>
+ * The locks are requested through {@link LockManager#acquireLocksAsync(java.util.Collection, Object, long)} on behalf
+ * of the prepare's transaction, for the keys the locking interceptor will lock, i.e. the ones this node is the primary
+ * owner of. They are requested one at a time, in the order in which the interceptor locks them, so two prepares of
+ * overlapping keys never hold a lock the other one waits for. Once they are all granted the executor is told to re-check the tasks blocked on them. The interceptor acquires
+ * them again for the transaction, which succeeds at once as they are reentrant, so the locks requested here are given
+ * back when the command has been handled. If they are not granted within the lock acquisition timeout the command is
+ * run anyway, and the interceptor waits and fails as it would without them.
+ *
+ * @since 7.0
+ */
+final class RemotePrepareLocks implements FutureListener<Boolean> {
+
+   private static final Log log = LogFactory.getLog(RemotePrepareLocks.class);
+
+   private final LockManager lockManager;
+   private final List<Object> keys;
+   private final Object lockOwner;
+   private final BlockingTaskAwareExecutorService executor;
+   private NotifyingFuture<Boolean> acquisition;
+
+   private RemotePrepareLocks(LockManager lockManager, List<Object> keys, Object lockOwner,
+                              BlockingTaskAwareExecutorService executor) {
+      this.lockManager = lockManager;
+      this.keys = keys;
+      this.lockOwner = lockOwner;
+      this.executor = executor;
+   }
+
+   /**
+    * Requests the locks of the command's keys, unless the cache doesn't lock them when handling the prepare, the
+    * locking interceptor would first wait for transactions started in an older topology, or deadlock detection is
+    * enabled, as the deadlock detecting lock manager has to spin on the locks in the executing thread.
+    *
+    * @return the pending locks, or <tt>null</tt> if none was requested
+    */
+   static RemotePrepareLocks acquire(PrepareCommand command, ComponentRegistry cr, int topologyId,
+                                     BlockingTaskAwareExecutorService executor) {
+      Configuration configuration = cr.getComponent(Configuration.class);
+      if (configuration.transaction().lockingMode() != LockingMode.OPTIMISTIC
+            || configuration.transaction().transactionProtocol().isTotalOrder()
+            || configuration.deadlockDetection().enabled()) {
+         return null;
+      }
+      if (cr.getComponent(TransactionTable.class).getMinTopologyId() < topologyId) {
+         return null;
+      }
+      // sorted like the locking interceptor sorts them
+      Object[] affectedKeys = command.getAffectedKeysToLock(true);
+      if (affectedKeys == null || affectedKeys.length == 0) {
+         return null;
+      }
+
+      ClusteringDependentLogic cdl = cr.getComponent(ClusteringDependentLogic.class);
+      List<Object> keys = new ArrayList<Object>(affectedKeys.length);
+      for (Object key : affectedKeys) {
+         // with DeltaCompositeKey, the locks are acquired in the owner of the delta aware key
+         Object keyToCheck = key instanceof DeltaCompositeKey ? ((DeltaCompositeKey) key).getDeltaAwareValueKey() : key;
+         if (cdl.localNodeIsPrimaryOwner(keyToCheck)) {
+            keys.add(key);
+         }
+      }
+      if (keys.isEmpty()) {
+         return null;
+      }
+
+      RemotePrepareLocks locks = new RemotePrepareLocks(cr.getComponent(LockManager.class), keys,
+                                                        command.getGlobalTransaction(), executor);
+      locks.acquisition = locks.lockManager.acquireLocksAsync(keys, locks.lockOwner,
+                                                               configuration.locking().lockAcquisitionTimeout());
+      if (!locks.acquisition.isDone()) {
+         log.tracef("Command %s waits for locks %s", command, keys);
+         locks.acquisition.attachListener(locks);
+      }
+      return locks;
+   }
+
+   /**
+    * @return true once the locks have been granted, or have timed out
+    */
+   boolean isReady() {
+      return acquisition.isDone();
+   }
+
+   /**
+    * Gives back the locks requested here, if they were granted.
+    */
+   void release() {
+      if (isAcquired()) {
+         lockManager.unlock(keys, lockOwner);
+      }
+   }
+
+   @Override
+   public void futureDone(Future<Boolean> future) {
+      executor.checkForReadyTasks(this);
+   }
+
+   private boolean isAcquired() {
+      if (!acquisition.isDone() && acquisition.cancel(false)) {
+         return false;
+      }
+      // the acquisition is complete, but an interrupted thread would still fail to read its outcome
+      boolean interrupted = Thread.interrupted();
+      try {
+         return acquisition.get();
+      } catch (InterruptedException e) {
+         interrupted = true;
+         return false;
+      } catch (ExecutionException e) {
+         return false;
+      } finally {
+         if (interrupted) Thread.currentThread().interrupt();
+      }
+   }
+}
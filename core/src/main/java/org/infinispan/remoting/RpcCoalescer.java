@@ -0,0 +1,35 @@
+package org.infinispan.remoting;
+
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.rpc.RpcOptions;
+import org.infinispan.remoting.transport.Address;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups the synchronous writes bound to the same recipients with the same {@link RpcOptions} in a single {@link
+ * org.infinispan.commands.remote.MultipleRpcCommand} while an invocation to these recipients is in progress. A write
+ * sent while no other invocation to its recipients is in progress is sent immediately, so the batches only grow with
+ * the load.
+ * <p/>
+ * The commands of a batch share the failures of the invocation itself, such as a timeout. If one of the commands
+ * fails on a recipient, the commands of the batch are sent again one by one and each of them gets its own outcome, so
+ * a command may be executed twice by a recipient: only idempotent commands, such as the writes sent to the backup
+ * owners, must be coalesced. The return values of the commands are not available.
+ *
+ * @since 7.0
+ */
+public interface RpcCoalescer {
+
+   /**
+    * Invokes the command on the given recipients, possibly along with other commands, and waits for the invocation to
+    * complete. The command must not be modified until this method returns.
+    *
+    * @param recipients the recipients of the command, or <tt>null</tt> for all the members of the cache
+    * @return the responses of the recipients to the invocation that sent the command, which don't include the return
+    *         value of the command if it was sent along with others
+    */
+   Map<Address, Response> invokeRemotely(List<Address> recipients, ReplicableCommand command, RpcOptions options);
+}
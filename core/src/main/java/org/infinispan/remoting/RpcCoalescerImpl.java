@@ -0,0 +1,325 @@
+package org.infinispan.remoting;
+
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commons.CacheException;
+import org.infinispan.commons.util.CollectionFactory;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.jmx.annotations.DataType;
+import org.infinispan.jmx.annotations.DisplayType;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.jmx.annotations.Parameter;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.rpc.RpcOptions;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.util.LogarithmicHistogram;
+import org.infinispan.util.TimeService;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The default implementation of {@link RpcCoalescer}.
+ * <p/>
+ * Each set of recipients and options has its own queue, and at most one invocation in progress. The thread that finds
+ * no invocation in progress sends everything queued for the recipients, its own command included, and waits for the
+ * responses. The other threads wait for their command to be sent by it, or for their turn to send the queue.
+ * <p/>
+ * If a batch fails because one of its commands failed on a recipient, the commands of the batch are sent again one by
+ * one, so that each of them fails only with its own exception.
+ *
+ * @since 7.0
+ */
+@MBean(objectName = "RpcCoalescer", description = "Groups the synchronous writes sent to the same owners")
+public class RpcCoalescerImpl implements RpcCoalescer {
+
+   private static final Log log = LogFactory.getLog(RpcCoalescerImpl.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private static final int MAX_BATCH_SIZE = 128;
+   private static final int MAX_DESTINATIONS = 1024;
+
+   private final ConcurrentMap<DestinationKey, Destination> destinations = CollectionFactory.makeConcurrentMap();
+   private final LogarithmicHistogram batchSizes = new LogarithmicHistogram("");
+   private final LogarithmicHistogram addedLatencies = new LogarithmicHistogram("us");
+   private final AtomicLong commandsSent = new AtomicLong();
+   private RpcManager rpcManager;
+   private CommandsFactory commandsFactory;
+   private TimeService timeService;
+   private Configuration configuration;
+   private volatile boolean statisticsEnabled;
+
+   @Inject
+   public void inject(RpcManager rpcManager, CommandsFactory commandsFactory, TimeService timeService,
+                      Configuration configuration) {
+      this.rpcManager = rpcManager;
+      this.commandsFactory = commandsFactory;
+      this.timeService = timeService;
+      this.configuration = configuration;
+   }
+
+   @Start
+   public void start() {
+      statisticsEnabled = configuration.jmxStatistics().enabled();
+   }
+
+   @Stop
+   public void stop() {
+      destinations.clear();
+   }
+
+   @Override
+   public Map<Address, Response> invokeRemotely(List<Address> recipients, ReplicableCommand command, RpcOptions options) {
+      Destination destination = getDestination(recipients, options);
+      PendingCommand pending = new PendingCommand(command, statisticsEnabled ? timeService.time() : 0);
+      destination.queue.offer(pending);
+      boolean interrupted = false;
+      try {
+         while (!pending.done) {
+            if (destination.busy.compareAndSet(false, true)) {
+               try {
+                  sendQueued(recipients, options, destination);
+               } finally {
+                  destination.busy.set(false);
+                  // the first queued command may have been added while the batch was in progress
+                  PendingCommand next = destination.queue.peek();
+                  if (next != null) {
+                     LockSupport.unpark(next.thread);
+                  }
+               }
+            } else {
+               LockSupport.park(destination);
+               if (Thread.interrupted()) {
+                  // the command may be in a batch already, so wait for the outcome
+                  interrupted = true;
+               }
+            }
+         }
+      } finally {
+         if (interrupted) {
+            Thread.currentThread().interrupt();
+         }
+      }
+      if (pending.exception != null) {
+         throw pending.exception;
+      }
+      return pending.responses;
+   }
+
+   private Destination getDestination(List<Address> recipients, RpcOptions options) {
+      Destination destination = destinations.get(new DestinationKey(recipients, options));
+      if (destination == null) {
+         if (destinations.size() >= MAX_DESTINATIONS) {
+            removeIdleDestinations();
+         }
+         destination = new Destination();
+         List<Address> copy = recipients == null ? null : new ArrayList<Address>(recipients);
+         Destination existing = destinations.putIfAbsent(new DestinationKey(copy, options), destination);
+         if (existing != null) {
+            destination = existing;
+         }
+      }
+      return destination;
+   }
+
+   /**
+    * The recipients of the writes change with the topology. A thread still using a removed destination sends its
+    * command anyway, it is only not coalesced with the commands using the new one.
+    */
+   private void removeIdleDestinations() {
+      for (Iterator<Destination> it = destinations.values().iterator(); it.hasNext(); ) {
+         Destination destination = it.next();
+         if (!destination.busy.get() && destination.queue.isEmpty()) {
+            it.remove();
+         }
+      }
+   }
+
+   private void sendQueued(List<Address> recipients, RpcOptions options, Destination destination) {
+      List<PendingCommand> batch = new ArrayList<PendingCommand>();
+      PendingCommand pending;
+      while (batch.size() < MAX_BATCH_SIZE && (pending = destination.queue.poll()) != null) {
+         batch.add(pending);
+      }
+      if (batch.isEmpty()) {
+         return;
+      }
+
+      ReplicableCommand command;
+      if (batch.size() == 1) {
+         command = batch.get(0).command;
+      } else {
+         List<ReplicableCommand> commands = new ArrayList<ReplicableCommand>(batch.size());
+         for (PendingCommand p : batch) {
+            commands.add(p.command);
+         }
+         command = commandsFactory.buildReplicateCommand(commands);
+      }
+      if (statisticsEnabled) {
+         long now = timeService.time();
+         batchSizes.record(batch.size());
+         commandsSent.addAndGet(batch.size());
+         for (PendingCommand p : batch) {
+            if (p.enqueued != 0) {
+               addedLatencies.record(timeService.timeDuration(p.enqueued, now, TimeUnit.MICROSECONDS));
+            }
+         }
+      }
+      if (trace) log.tracef("Sending %d command(s) to %s", batch.size(), recipients);
+
+      Map<Address, Response> responses = null;
+      RuntimeException exception = null;
+      try {
+         responses = rpcManager.invokeRemotely(recipients, command, options);
+      } catch (RuntimeException e) {
+         exception = e;
+      } catch (Throwable t) {
+         exception = new CacheException(t);
+      }
+      if (exception instanceof RemoteException && batch.size() > 1) {
+         // a command failed on a recipient and the ones following it were not executed
+         if (trace) log.tracef(exception, "Batch of %d command(s) failed, sending them separately", batch.size());
+         sendSeparately(recipients, options, batch);
+         return;
+      }
+      for (PendingCommand p : batch) {
+         p.complete(responses, exception);
+      }
+   }
+
+   private void sendSeparately(List<Address> recipients, RpcOptions options, List<PendingCommand> batch) {
+      for (PendingCommand p : batch) {
+         Map<Address, Response> responses = null;
+         RuntimeException exception = null;
+         try {
+            responses = rpcManager.invokeRemotely(recipients, p.command, options);
+         } catch (RuntimeException e) {
+            exception = e;
+         } catch (Throwable t) {
+            exception = new CacheException(t);
+         }
+         p.complete(responses, exception);
+      }
+   }
+
+   @ManagedAttribute(description = "Number of invocations sent by the coalescer", displayName = "Number of invocations",
+         measurementType = MeasurementType.TRENDSUP, displayType = DisplayType.SUMMARY)
+   public long getInvocations() {
+      return batchSizes.getCount();
+   }
+
+   @ManagedAttribute(description = "Average number of commands sent by an invocation", displayName = "Average batch size",
+         displayType = DisplayType.SUMMARY)
+   public double getAverageBatchSize() {
+      long invocations = batchSizes.getCount();
+      return invocations == 0 ? 0 : (double) commandsSent.get() / invocations;
+   }
+
+   @ManagedAttribute(description = "Histogram of the number of commands sent by an invocation",
+         displayName = "Batch size histogram", dataType = DataType.TRAIT)
+   public String getBatchSizeHistogram() {
+      return batchSizes.toString();
+   }
+
+   @ManagedAttribute(description = "Histogram of the time commands waited for an invocation in progress, in microseconds",
+         displayName = "Added latency histogram", dataType = DataType.TRAIT)
+   public String getAddedLatencyHistogram() {
+      return addedLatencies.toString();
+   }
+
+   @ManagedAttribute(description = "99th percentile of the time commands waited for an invocation in progress, in microseconds",
+         displayName = "99th percentile added latency", displayType = DisplayType.SUMMARY)
+   public long getAddedLatency99thPercentile() {
+      return addedLatencies.getPercentile(99);
+   }
+
+   @ManagedAttribute(description = "Enables or disables the gathering of statistics by this component",
+         displayName = "Statistics enabled", dataType = DataType.TRAIT, writable = true)
+   public boolean isStatisticsEnabled() {
+      return statisticsEnabled;
+   }
+
+   public void setStatisticsEnabled(@Parameter(name = "enabled", description = "Whether statistics should be enabled or disabled (true/false)") boolean statisticsEnabled) {
+      this.statisticsEnabled = statisticsEnabled;
+   }
+
+   @ManagedOperation(description = "Resets statistics gathered by this component", displayName = "Reset statistics")
+   public void resetStatistics() {
+      batchSizes.reset();
+      addedLatencies.reset();
+      commandsSent.set(0);
+   }
+
+   private static final class DestinationKey {
+      // null for all the members of the cache
+      final List<Address> recipients;
+      final RpcOptions options;
+
+      DestinationKey(List<Address> recipients, RpcOptions options) {
+         this.recipients = recipients;
+         this.options = options;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o) return true;
+         if (!(o instanceof DestinationKey)) return false;
+
+         DestinationKey that = (DestinationKey) o;
+         return (recipients == null ? that.recipients == null : recipients.equals(that.recipients))
+               && options.equals(that.options);
+      }
+
+      @Override
+      public int hashCode() {
+         int result = recipients != null ? recipients.hashCode() : 0;
+         result = 31 * result + options.hashCode();
+         return result;
+      }
+   }
+
+   private static class Destination {
+      final Queue<PendingCommand> queue = new ConcurrentLinkedQueue<PendingCommand>();
+      final AtomicBoolean busy = new AtomicBoolean();
+   }
+
+   private static class PendingCommand {
+      final ReplicableCommand command;
+      final long enqueued;
+      final Thread thread = Thread.currentThread();
+      volatile boolean done;
+      Map<Address, Response> responses;
+      RuntimeException exception;
+
+      PendingCommand(ReplicableCommand command, long enqueued) {
+         this.command = command;
+         this.enqueued = enqueued;
+      }
+
+      void complete(Map<Address, Response> responses, RuntimeException exception) {
+         this.responses = responses;
+         this.exception = exception;
+         // the volatile write publishes the outcome
+         done = true;
+         LockSupport.unpark(thread);
+      }
+   }
+}
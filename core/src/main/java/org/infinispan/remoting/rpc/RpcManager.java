@@ -1,6 +1,7 @@
 package org.infinispan.remoting.rpc;
 
 import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.remoting.RpcException;
 import org.infinispan.remoting.responses.Response;
 import org.infinispan.remoting.transport.Address;
@@ -214,6 +215,20 @@ void invokeRemotelyInFuture(Collection<Address> recipients, ReplicableCommand rp
     */
    Map<Address, Response> invokeRemotely(Collection<Address> recipients, ReplicableCommand rpc, RpcOptions options);
 
+   /**
+    * The same as {@link #invokeRemotely(java.util.Collection, org.infinispan.commands.ReplicableCommand, RpcOptions)}
+    * except that neither the caller nor any other thread waits for the responses: the returned future is completed by
+    * the thread receiving the last response, so its listeners must not block. The command is marshalled before this
+    * method returns, so it can be modified afterwards.
+    * <p/>
+    * Only the synchronous invocations of a list of recipients without response filter are handled this way by the
+    * JGroups transport, the others complete the future before returning.
+    *
+    * @return a future completed with the map of responses, or with the exception {@code invokeRemotely} would throw
+    */
+   NotifyingFuture<Map<Address, Response>> invokeRemotelyAsync(Collection<Address> recipients, ReplicableCommand rpc,
+                                                               RpcOptions options);
+
    /**
     * The same as {@link #invokeRemotely(java.util.Collection, org.infinispan.commands.ReplicableCommand, RpcOptions)}
     * except that the task is passed to the transport executor and a Future is returned.  The transport always deals
@@ -7,6 +7,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -18,6 +19,8 @@
 import org.infinispan.commands.TopologyAffectedCommand;
 import org.infinispan.commands.remote.CacheRpcCommand;
 import org.infinispan.commons.CacheException;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.commons.util.concurrent.NotifyingNotifiableFuture;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.distribution.ch.ConsistentHash;
@@ -42,6 +45,7 @@
 import org.infinispan.topology.CacheTopology;
 import org.infinispan.topology.LocalTopologyManager;
 import org.infinispan.util.TimeService;
+import org.infinispan.util.concurrent.CompletableNotifyingFuture;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -249,22 +253,7 @@ public Map<Address, Response> invokeRemotely(Collection<Address> recipients, Rep
          replicationQueue.add(rpc);
          return null;
       }
-      if (!configuration.clustering().cacheMode().isClustered())
-         throw new IllegalStateException("Trying to invoke a remote command but the cache is not clustered");
-
-      // Set the topology id of the command, in case we don't have it yet
-      if (rpc instanceof TopologyAffectedCommand) {
-         TopologyAffectedCommand topologyAffectedCommand = (TopologyAffectedCommand) rpc;
-         if (topologyAffectedCommand.getTopologyId() == -1) {
-            int currentTopologyId = stateTransferManager.getCacheTopology().getTopologyId();
-            if (trace) log.tracef("Topology id missing on command %s, setting it to %d", rpc, currentTopologyId);
-            topologyAffectedCommand.setTopologyId(currentTopologyId);
-         }
-      }
-
-      if (!(rpc instanceof CacheRpcCommand)) {
-         rpc = cf.buildSingleRpcCommand(rpc);
-      }
+      rpc = toCacheRpcCommand(rpc);
 
       long startTimeNanos = 0;
       if (statisticsEnabled) startTimeNanos = timeService.time();
@@ -312,6 +301,63 @@ public Map<Address, Response> invokeRemotely(Collection<Address> recipients, Rep
       }
    }
 
+   @Override
+   public NotifyingFuture<Map<Address, Response>> invokeRemotelyAsync(Collection<Address> recipients, ReplicableCommand rpc,
+                                                                      RpcOptions options) {
+      if (!options.responseMode().isSynchronous()) {
+         // nothing to wait for
+         try {
+            return CompletableNotifyingFuture.completed(invokeRemotely(recipients, rpc, options));
+         } catch (RuntimeException e) {
+            return CompletableNotifyingFuture.failed(e);
+         }
+      }
+      if (trace) log.tracef("%s invoking %s to recipient list %s with options %s, async", t.getAddress(), rpc, recipients, options);
+      rpc = toCacheRpcCommand(rpc);
+
+      final ReplicableCommand command = rpc;
+      final long startTimeNanos = statisticsEnabled ? timeService.time() : 0;
+      final CompletableNotifyingFuture<Map<Address, Response>> result = new CompletableNotifyingFuture<Map<Address, Response>>();
+      t.invokeRemotelyAsync(recipients, rpc, options.responseMode(), options.timeUnit().toMillis(options.timeout()),
+                            !options.fifoOrder(), options.responseFilter(), options.totalOrder(),
+                            configuration.clustering().cacheMode().isDistributed())
+            .attachListener(new FutureListener<Map<Address, Response>>() {
+               @Override
+               public void futureDone(Future<Map<Address, Response>> future) {
+                  boolean success = false;
+                  try {
+                     Map<Address, Response> responses = future.get();
+                     if (trace) log.tracef("Response(s) to %s is %s", command, responses);
+                     success = true;
+                     result.complete(responses);
+                  } catch (InterruptedException e) {
+                     // can't happen, the future is done
+                     Thread.currentThread().interrupt();
+                     result.completeExceptionally(new CacheException("Thread interrupted while invoking RPC", e));
+                  } catch (ExecutionException e) {
+                     Throwable cause = e.getCause();
+                     if (cause instanceof CacheException) {
+                        log.trace("replication exception: ", cause);
+                     } else {
+                        log.unexpectedErrorReplicating(cause);
+                        cause = new CacheException(cause);
+                     }
+                     result.completeExceptionally(cause);
+                  } finally {
+                     if (statisticsEnabled) {
+                        if (success) {
+                           replicationCount.incrementAndGet();
+                        } else {
+                           replicationFailures.incrementAndGet();
+                        }
+                        totalReplicationTime.getAndAdd(timeService.timeDuration(startTimeNanos, TimeUnit.MILLISECONDS));
+                     }
+                  }
+               }
+            });
+      return result;
+   }
+
    @Override
    public void invokeRemotelyInFuture(final NotifyingNotifiableFuture<Map<Address, Response>> future,
                                       final Collection<Address> recipients, final ReplicableCommand rpc,
@@ -356,6 +402,26 @@ public Object call() throws Exception {
       future.setFuture(asyncExecutor.submit(c));
    }
 
+   private ReplicableCommand toCacheRpcCommand(ReplicableCommand rpc) {
+      if (!configuration.clustering().cacheMode().isClustered())
+         throw new IllegalStateException("Trying to invoke a remote command but the cache is not clustered");
+
+      // Set the topology id of the command, in case we don't have it yet
+      if (rpc instanceof TopologyAffectedCommand) {
+         TopologyAffectedCommand topologyAffectedCommand = (TopologyAffectedCommand) rpc;
+         if (topologyAffectedCommand.getTopologyId() == -1) {
+            int currentTopologyId = stateTransferManager.getCacheTopology().getTopologyId();
+            if (trace) log.tracef("Topology id missing on command %s, setting it to %d", rpc, currentTopologyId);
+            topologyAffectedCommand.setTopologyId(currentTopologyId);
+         }
+      }
+
+      if (!(rpc instanceof CacheRpcCommand)) {
+         rpc = cf.buildSingleRpcCommand(rpc);
+      }
+      return rpc;
+   }
+
    @Override
    public Transport getTransport() {
       return t;
@@ -1,15 +1,21 @@
 package org.infinispan.remoting.transport;
 
+import org.infinispan.commands.ReplicableCommand;
 import org.infinispan.commons.CacheException;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.configuration.global.GlobalConfiguration;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.partionhandling.AvailabilityException;
 import org.infinispan.remoting.responses.ExceptionResponse;
 import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.rpc.ResponseFilter;
+import org.infinispan.remoting.rpc.ResponseMode;
 import org.infinispan.remoting.transport.jgroups.SuspectException;
+import org.infinispan.util.concurrent.CompletableNotifyingFuture;
 import org.infinispan.util.concurrent.TimeoutException;
 import org.infinispan.util.logging.Log;
 
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -28,6 +34,26 @@ public void setConfiguration(GlobalConfiguration globalConfiguration) {
       this.configuration = globalConfiguration;
    }
 
+   /**
+    * Waits for the responses in the caller's thread. Transports override it for the invocations they can make without
+    * blocking.
+    */
+   @Override
+   public NotifyingFuture<Map<Address, Response>> invokeRemotelyAsync(Collection<Address> recipients, ReplicableCommand rpcCommand,
+                                                                      ResponseMode mode, long timeout, boolean usePriorityQueue,
+                                                                      ResponseFilter responseFilter, boolean totalOrder,
+                                                                      boolean anycast) {
+      try {
+         return CompletableNotifyingFuture.completed(invokeRemotely(recipients, rpcCommand, mode, timeout, usePriorityQueue,
+                                                                    responseFilter, totalOrder, anycast));
+      } catch (Exception e) {
+         if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+         }
+         return CompletableNotifyingFuture.failed(e);
+      }
+   }
+
    public final boolean checkResponse(Object responseObject, Address sender) throws Exception {
       Log log = getLog();
       if (responseObject instanceof Response) {
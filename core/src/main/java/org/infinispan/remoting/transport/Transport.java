@@ -1,6 +1,7 @@
 package org.infinispan.remoting.transport;
 
 import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.factories.scopes.Scope;
@@ -51,6 +52,21 @@ Map<Address, Response> invokeRemotely(Collection<Address> recipients, Replicable
                                  boolean anycast) throws Exception;
 
 
+   /**
+    * Same as {@link #invokeRemotely(java.util.Collection, org.infinispan.commands.ReplicableCommand, ResponseMode, long,
+    * boolean, ResponseFilter, boolean, boolean)}, except that it doesn't wait for the responses: the returned future is
+    * completed by the thread receiving the last response, or by a timer thread when the timeout expires, so its
+    * listeners must not block. The command is marshalled before this method returns.
+    * <p/>
+    * Implementations that can't send a command without waiting for the responses complete the future before returning.
+    *
+    * @return a future completed with the map of responses, or with the exception {@code invokeRemotely} would throw
+    */
+   NotifyingFuture<Map<Address, Response>> invokeRemotelyAsync(Collection<Address> recipients, ReplicableCommand rpcCommand,
+                                                               ResponseMode mode, long timeout, boolean usePriorityQueue,
+                                                               ResponseFilter responseFilter, boolean totalOrder,
+                                                               boolean anycast);
+
    BackupResponse backupRemotely(Collection<XSiteBackup> backups, XSiteReplicateCommand rpcCommand) throws Exception;
 
    /**
@@ -0,0 +1,177 @@
+package org.infinispan.remoting.transport.jgroups;
+
+import net.jcip.annotations.GuardedBy;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.util.concurrent.CompletableNotifyingFuture;
+import org.infinispan.util.concurrent.TimeoutException;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+import org.jgroups.SuspectedException;
+import org.jgroups.util.FutureListener;
+import org.jgroups.util.NotifyingFuture;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.infinispan.commons.util.Util.formatString;
+import static org.infinispan.commons.util.Util.prettyPrintTime;
+import static org.infinispan.remoting.transport.jgroups.JGroupsTransport.fromJGroupsAddress;
+
+/**
+ * The counterpart of {@link CommandAwareRpcDispatcher.FutureCollator} for the invocations waiting for all the
+ * responses: it watches the futures of the unicasts sent to each recipient, and is completed with the map of responses
+ * by the thread receiving the last one, without any thread waiting for them. A missing response fails it when the
+ * timeout expires, and an invalid one as soon as it is received. Like a blocking invocation, it fails with a {@link
+ * TimeoutException} if none of the responses is valid.
+ *
+ * @since 7.0
+ */
+final class AsyncResponseCollator extends CompletableNotifyingFuture<Map<Address, Response>>
+      implements FutureListener<Object>, Runnable {
+
+   private static final Log log = LogFactory.getLog(AsyncResponseCollator.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private final JGroupsTransport transport;
+   private final long timeout;
+   private final boolean ignoreLeavers;
+   @GuardedBy("this")
+   private final Map<Future<Object>, Address> pending;
+   @GuardedBy("this")
+   private final Map<Address, Response> responses;
+   @GuardedBy("this")
+   private boolean noValidResponses = true;
+   @GuardedBy("this")
+   private boolean started;
+   @GuardedBy("this")
+   private ScheduledFuture<?> timeoutTask;
+
+   AsyncResponseCollator(JGroupsTransport transport, List<org.jgroups.Address> recipients, long timeout,
+                         boolean ignoreLeavers) {
+      this.transport = transport;
+      this.timeout = timeout;
+      this.ignoreLeavers = ignoreLeavers;
+      this.pending = new HashMap<Future<Object>, Address>(recipients.size() * 2);
+      this.responses = new HashMap<Address, Response>(recipients.size() * 2);
+   }
+
+   void watchFuture(NotifyingFuture<Object> future, org.jgroups.Address recipient) {
+      synchronized (this) {
+         pending.put(future, fromJGroupsAddress(recipient));
+      }
+      future.setListener(this);
+   }
+
+   /**
+    * Invoked once all the futures are watched, so that the collator can't complete before all the messages are sent.
+    */
+   void start(ScheduledExecutorService timeoutExecutor) {
+      boolean complete;
+      synchronized (this) {
+         started = true;
+         complete = pending.isEmpty();
+         if (!complete && !isDone()) {
+            timeoutTask = timeoutExecutor.schedule(this, timeout, MILLISECONDS);
+         }
+      }
+      if (complete) {
+         completeWithResponses();
+      }
+   }
+
+   @Override
+   public void futureDone(Future<Object> future) {
+      if (isDone()) {
+         return;
+      }
+      Object value = null;
+      Throwable exception = null;
+      boolean suspected = false;
+      try {
+         value = future.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         exception = e;
+      } catch (ExecutionException e) {
+         if (e.getCause() instanceof SuspectedException) {
+            suspected = true;
+         } else {
+            exception = e.getCause();
+         }
+      }
+
+      boolean complete;
+      try {
+         synchronized (this) {
+            // JGroups may notify the listener twice, see FutureCollator
+            Address sender = pending.remove(future);
+            if (sender == null) {
+               return;
+            }
+            if (trace) log.tracef("Received response %s from %s", value, sender);
+            noValidResponses &= transport.parseResponse(value, exception, responses, suspected, !suspected, sender,
+                                                        ignoreLeavers);
+            complete = started && pending.isEmpty();
+         }
+      } catch (Exception e) {
+         fail(e);
+         return;
+      }
+      if (complete) {
+         completeWithResponses();
+      }
+   }
+
+   /**
+    * Invoked by the timeout task.
+    */
+   @Override
+   public void run() {
+      List<Address> missing;
+      synchronized (this) {
+         missing = new ArrayList<Address>(pending.values());
+      }
+      if (!missing.isEmpty()) {
+         fail(new TimeoutException(formatString("Timed out after %s waiting for a response from %s",
+                                                prettyPrintTime(timeout), missing)));
+      }
+   }
+
+   private void completeWithResponses() {
+      Map<Address, Response> result;
+      synchronized (this) {
+         cancelTimeout();
+         result = noValidResponses ? null : responses;
+      }
+      if (result == null) {
+         // the check of JGroupsTransport.invokeRemotely
+         fail(new TimeoutException("Timed out waiting for valid responses!"));
+      } else {
+         complete(result);
+      }
+   }
+
+   private void fail(Exception e) {
+      synchronized (this) {
+         cancelTimeout();
+      }
+      if (trace) log.tracef(e, "Remote invocation failed");
+      completeExceptionally(e);
+   }
+
+   @GuardedBy("this")
+   private void cancelTimeout() {
+      if (timeoutTask != null) {
+         timeoutTask.cancel(false);
+         timeoutTask = null;
+      }
+   }
+}
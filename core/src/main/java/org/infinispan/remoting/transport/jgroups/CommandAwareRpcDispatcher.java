@@ -49,6 +49,7 @@
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -180,6 +181,29 @@ public Response call() throws Exception {
       }
    }
 
+   /**
+    * Sends the command to each recipient and returns without waiting for the responses. The returned future is
+    * completed by the thread receiving the last response, or by the timeout executor.
+    *
+    * @param recipients Guaranteed not to be null or empty.  Must <b>not</b> contain self.
+    */
+   AsyncResponseCollator invokeRemoteCommandsAsync(List<Address> recipients, ReplicableCommand command, long timeout,
+                                                   boolean oob, boolean ignoreLeavers,
+                                                   ScheduledExecutorService timeoutExecutor) throws Exception {
+      if (trace) log.tracef("Replication task sending %s to addresses %s without waiting for the responses", command, recipients);
+      boolean rsvp = isRsvpCommand(command);
+      Buffer buf = marshallCall(req_marshaller, command);
+      RequestOptions opts = new RequestOptions(ResponseMode.GET_ALL, timeout);
+      opts.setExclusionList(getChannel().getAddress());
+
+      AsyncResponseCollator collator = new AsyncResponseCollator(transport, recipients, timeout, ignoreLeavers);
+      for (Address dest : recipients) {
+         collator.watchFuture(sendMessageWithFuture(constructMessage(buf, dest, oob, ResponseMode.GET_ALL, rsvp, false), opts), dest);
+      }
+      collator.start(timeoutExecutor);
+      return collator;
+   }
+
    public RspList<Object> broadcastRemoteCommands(ReplicableCommand command, ResponseMode mode, long timeout,
                                                   boolean oob, RspFilter filter,
                                                   boolean asyncMarshalling, boolean ignoreLeavers, boolean totalOrder)
@@ -18,6 +18,9 @@
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
@@ -31,6 +34,7 @@
 import org.infinispan.commons.util.InfinispanCollections;
 import org.infinispan.commons.util.TypedProperties;
 import org.infinispan.commons.util.Util;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.configuration.global.TransportConfiguration;
 import org.infinispan.configuration.parsing.XmlConfigHelper;
 import org.infinispan.factories.GlobalComponentRegistry;
@@ -47,6 +51,7 @@
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.BackupResponse;
 import org.infinispan.util.TimeService;
+import org.infinispan.util.concurrent.CompletableNotifyingFuture;
 import org.infinispan.util.concurrent.TimeoutException;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -112,6 +117,7 @@ public class JGroupsTransport extends AbstractTransport implements MembershipLis
    private GlobalComponentRegistry gcr;
    private BackupReceiverRepository backupReceiverRepository;
    private TimeService timeService;
+   private ScheduledExecutorService timeoutExecutor;
 
    private boolean globalStatsEnabled;
    private MBeanServer mbeanServer;
@@ -189,11 +195,31 @@ public void start() {
          log.startingJGroupsChannel(configuration.transport().clusterName());
 
       initChannelAndRPCDispatcher();
+      startTimeoutExecutor();
       startJGroupsChannelIfNeeded();
 
       waitForChannelToConnect();
    }
 
+   /**
+    * Starts the executor failing the invocations of {@link #invokeRemotelyAsync} whose responses don't arrive in time.
+    * Nearly all the timeout tasks are cancelled when the responses arrive, so the executor removes them from its queue
+    * at once instead of keeping them until they would have expired.
+    */
+   private void startTimeoutExecutor() {
+      final String nodeName = configuration.transport().nodeName();
+      ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+         @Override
+         public Thread newThread(Runnable r) {
+            Thread th = new Thread(r, "RpcTimeout," + (nodeName != null ? nodeName : configuration.transport().clusterName()));
+            th.setDaemon(true);
+            return th;
+         }
+      });
+      executor.setRemoveOnCancelPolicy(true);
+      timeoutExecutor = executor;
+   }
+
    protected void startJGroupsChannelIfNeeded() {
       String clusterName = configuration.transport().clusterName();
       if (connectChannel) {
@@ -275,6 +301,11 @@ public void stop() {
          }
       }
 
+      if (timeoutExecutor != null) {
+         timeoutExecutor.shutdownNow();
+         timeoutExecutor = null;
+      }
+
       channel = null;
       members = InfinispanCollections.emptyList();
       coordinator = null;
@@ -570,6 +601,59 @@ usePriorityQueue, toJGroupsFilter(responseFilter),
       return responses;
    }
 
+   /**
+    * Sends a unicast to each recipient without waiting for the responses, for the synchronous invocations of a list of
+    * recipients without response filter, and waits for the responses in the caller's thread for all the others.
+    */
+   @Override
+   public NotifyingFuture<Map<Address, Response>> invokeRemotelyAsync(Collection<Address> recipients, ReplicableCommand rpcCommand,
+                                                                      ResponseMode mode, long timeout, boolean usePriorityQueue,
+                                                                      ResponseFilter responseFilter, boolean totalOrder,
+                                                                      boolean anycast) {
+      if (recipients == null || responseFilter != null || totalOrder ||
+            (mode != ResponseMode.SYNCHRONOUS && mode != ResponseMode.SYNCHRONOUS_IGNORE_LEAVERS)) {
+         return super.invokeRemotelyAsync(recipients, rpcCommand, mode, timeout, usePriorityQueue, responseFilter,
+                                          totalOrder, anycast);
+      }
+
+      if (trace)
+         log.tracef("dests=%s, command=%s, mode=%s, timeout=%s, async", recipients, rpcCommand, mode, timeout);
+      boolean ignoreLeavers = mode == ResponseMode.SYNCHRONOUS_IGNORE_LEAVERS;
+      if (!getMembers().containsAll(recipients)) {
+         if (ignoreLeavers) {
+            recipients = new HashSet<Address>(recipients);
+            recipients.retainAll(getMembers());
+         } else {
+            return CompletableNotifyingFuture.failed(new SuspectException(
+                  "One or more nodes have left the cluster while replicating command " + rpcCommand));
+         }
+      }
+      List<org.jgroups.Address> jgAddressList = toJGroupsAddressListExcludingSelf(recipients, false);
+      if (jgAddressList.isEmpty()) {
+         log.trace("Destination list is empty: no need to send message");
+         return CompletableNotifyingFuture.completed(InfinispanCollections.<Address, Response>emptyMap());
+      }
+      try {
+         // synchronous invocations always use the OOB thread pool
+         return dispatcher.invokeRemoteCommandsAsync(jgAddressList, rpcCommand, timeout, true, ignoreLeavers,
+                                                     timeoutExecutor);
+      } catch (Exception e) {
+         return CompletableNotifyingFuture.failed(Util.rewrapAsCacheException(e));
+      }
+   }
+
+   /**
+    * Adds a response received by {@link AsyncResponseCollator} to the response map, or throws the exception {@link
+    * #invokeRemotely} would throw for it.
+    *
+    * @return true if the response is not a valid one
+    */
+   boolean parseResponse(Object responseObject, Throwable exception, Map<Address, Response> responses, boolean wasSuspected,
+                         boolean wasReceived, Address sender, boolean ignoreLeavers) throws Exception {
+      return parseResponseAndAddToResponseList(responseObject, exception, responses, wasSuspected, wasReceived, sender, false,
+                                        ignoreLeavers);
+   }
+
    @Override
    public BackupResponse backupRemotely(Collection<XSiteBackup> backups, XSiteReplicateCommand rpcCommand) throws Exception {
       log.tracef("About to send to backups %s, command %s", backups, rpcCommand);
@@ -9,8 +9,11 @@
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.distribution.ch.ConsistentHash;
 import org.infinispan.filter.CollectionKeyFilter;
+import org.infinispan.filter.CompositeKeyFilter;
+import org.infinispan.filter.KeyFilter;
 import org.infinispan.persistence.manager.PersistenceManager;
 import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.remoting.rpc.ResponseMode;
 import org.infinispan.remoting.rpc.RpcManager;
@@ -153,7 +156,13 @@ public void run() {
          AdvancedCacheLoader stProvider = persistenceManager.getStateTransferProvider();
          if (stProvider != null) {
             try {
-               CollectionKeyFilter filter = new CollectionKeyFilter(new ReadOnlyDataContainerBackedKeySet(dataContainer));
+               // skip the entries of the other segments before loading them
+               KeyFilter filter = new CompositeKeyFilter(new KeyFilter() {
+                  @Override
+                  public boolean accept(Object key) {
+                     return segments.contains(readCh.getSegment(key));
+                  }
+               }, new CollectionKeyFilter(new ReadOnlyDataContainerBackedKeySet(dataContainer)));
                AdvancedCacheLoader.CacheLoaderTask task = new AdvancedCacheLoader.CacheLoaderTask() {
                   @Override
                   public void processEntry(MarshalledEntry me, AdvancedCacheLoader.TaskContext taskContext) throws InterruptedException {
@@ -168,7 +177,12 @@ public void processEntry(MarshalledEntry me, AdvancedCacheLoader.TaskContext tas
                         }
                      }
                   };
-               stProvider.process(filter, task, new WithinThreadExecutor(), true, true);
+               if (stProvider instanceof SegmentedAdvancedLoadWriteStore) {
+                  ((SegmentedAdvancedLoadWriteStore) stProvider).process(new HashSet<Integer>(segments), filter, task,
+                                                                         new WithinThreadExecutor(), true, true);
+               } else {
+                  stProvider.process(filter, task, new WithinThreadExecutor(), true, true);
+               }
             } catch (CacheException e) {
                log.failedLoadingKeysFromCacheStore(e);
             }
@@ -361,7 +361,7 @@ public void onTopologyUpdate(final CacheTopology cacheTopology, final boolean is
          }
       } finally {
          stateTransferLock.notifyTransactionDataReceived(cacheTopology.getTopologyId());
-         remoteCommandsExecutor.checkForReadyTasks();
+         remoteCommandsExecutor.checkForReadyTasks(stateTransferLock);
 
          // Only set the flag here, after all the transfers have been added to the transfersBySource map
          if (stateTransferTopologyId.get() != NO_REBALANCE_IN_PROGRESS) {
@@ -916,7 +916,7 @@ public boolean accept(Object key) {
                   return (removedSegments.contains(keySegment));
                }
             };
-            persistenceManager.processOnAllStores(filter, new AdvancedCacheLoader.CacheLoaderTask() {
+            persistenceManager.processOnAllStores(removedSegments, filter, new AdvancedCacheLoader.CacheLoaderTask() {
                @Override
                public void processEntry(MarshalledEntry marshalledEntry, AdvancedCacheLoader.TaskContext taskContext) throws InterruptedException {
                   keysToRemove.add(marshalledEntry.getKey());
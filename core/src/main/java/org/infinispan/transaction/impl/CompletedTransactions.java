@@ -0,0 +1,153 @@
+package org.infinispan.transaction.impl;
+
+import org.infinispan.commons.util.CollectionFactory;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.transaction.xa.GlobalTransaction;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps track of the recently completed transactions, per originator.
+ * <p/>
+ * The ids of the transactions started by a node are allocated in sequence, so instead of a map entry per completed
+ * transaction each originator keeps the id up to which all the transactions are considered completed, and a bitmap of
+ * the completed ids above it, split in chunks of {@link #CHUNK_SIZE} ids. Every run of
+ * {@link #prune(long, long, Collection)} records the highest completed id of each originator: once the run is older
+ * than the completed transaction timeout, all the ids up to the recorded one are considered completed and their chunks
+ * are dropped.
+ * <p/>
+ * {@link #markCompleted(GlobalTransaction)} and {@link #isCompleted(GlobalTransaction)} can be invoked concurrently,
+ * but {@link #prune(long, long, Collection)} must only be invoked by one thread at a time.
+ *
+ * @since 7.0
+ */
+final class CompletedTransactions {
+
+   private static final int CHUNK_BITS = 12;
+   private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+   private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+   private final ConcurrentMap<Address, Originator> originators = CollectionFactory.makeConcurrentMap();
+
+   public void markCompleted(GlobalTransaction gtx) {
+      Originator originator = originators.get(gtx.getAddress());
+      if (originator == null) {
+         originator = new Originator();
+         Originator existing = originators.putIfAbsent(gtx.getAddress(), originator);
+         if (existing != null) {
+            originator = existing;
+         }
+      }
+      originator.markCompleted(gtx.getId());
+   }
+
+   public boolean isCompleted(GlobalTransaction gtx) {
+      Originator originator = originators.get(gtx.getAddress());
+      return originator != null && originator.isCompleted(gtx.getId());
+   }
+
+   /**
+    * Forgets the transactions that completed before <tt>minCompletedTime</tt> and the originators that are no longer
+    * members and have no other completed transactions.
+    *
+    * @param now the current time, in nanoseconds
+    * @param minCompletedTime the oldest completion time to remember, in nanoseconds
+    * @param members the current members of the cache
+    * @return the number of chunks left
+    */
+   public int prune(long now, long minCompletedTime, Collection<Address> members) {
+      int chunks = 0;
+      Iterator<Map.Entry<Address, Originator>> iterator = originators.entrySet().iterator();
+      while (iterator.hasNext()) {
+         Map.Entry<Address, Originator> e = iterator.next();
+         Originator originator = e.getValue();
+         originator.prune(now, minCompletedTime);
+         if (originator.prunedId >= originator.maxCompletedId.get() && !members.contains(e.getKey())) {
+            iterator.remove();
+         } else {
+            chunks += originator.chunks.size();
+         }
+      }
+      return chunks;
+   }
+
+   public boolean isEmpty() {
+      return originators.isEmpty();
+   }
+
+   private static final class Originator {
+      final ConcurrentMap<Long, AtomicLongArray> chunks = CollectionFactory.makeConcurrentMap();
+      final AtomicLong maxCompletedId = new AtomicLong(-1);
+      // the ids up to prunedId are all considered completed
+      volatile long prunedId = -1;
+      // the highest completed id at the time of each prune run, oldest first, only used by the pruning thread
+      final ArrayDeque<long[]> marks = new ArrayDeque<long[]>();
+
+      void markCompleted(long id) {
+         Long chunkIndex = id >>> CHUNK_BITS;
+         AtomicLongArray chunk = chunks.get(chunkIndex);
+         if (chunk == null) {
+            chunk = new AtomicLongArray(CHUNK_SIZE >>> 6);
+            AtomicLongArray existing = chunks.putIfAbsent(chunkIndex, chunk);
+            if (existing != null) {
+               chunk = existing;
+            }
+         }
+         int bit = (int) (id & CHUNK_MASK);
+         long mask = 1L << (bit & 63);
+         int word = bit >>> 6;
+         long bits;
+         do {
+            bits = chunk.get(word);
+         } while ((bits & mask) == 0 && !chunk.compareAndSet(word, bits, bits | mask));
+
+         long max;
+         do {
+            max = maxCompletedId.get();
+         } while (id > max && !maxCompletedId.compareAndSet(max, id));
+      }
+
+      boolean isCompleted(long id) {
+         AtomicLongArray chunk = chunks.get(id >>> CHUNK_BITS);
+         if (chunk != null) {
+            int bit = (int) (id & CHUNK_MASK);
+            if ((chunk.get(bit >>> 6) & (1L << (bit & 63))) != 0) {
+               return true;
+            }
+         }
+         // Transaction ids are allocated in sequence, so any transaction with a smaller id must have already finished.
+         // Most likely because the prepare command timed out...
+         // Note: We must check the id *after* verifying that the tx isn't in the bitmap, as the chunks are removed
+         // after prunedId is updated.
+         return id <= prunedId;
+      }
+
+      void prune(long now, long minCompletedTime) {
+         long newPrunedId = prunedId;
+         while (!marks.isEmpty() && minCompletedTime - marks.peekFirst()[0] > 0) {
+            newPrunedId = Math.max(newPrunedId, marks.pollFirst()[1]);
+         }
+         long max = maxCompletedId.get();
+         if (max > newPrunedId && (marks.isEmpty() || marks.peekLast()[1] != max)) {
+            marks.addLast(new long[]{now, max});
+         }
+         if (newPrunedId == prunedId) {
+            return;
+         }
+         prunedId = newPrunedId;
+         long firstChunkIndex = (newPrunedId + 1) >>> CHUNK_BITS;
+         Iterator<Long> iterator = chunks.keySet().iterator();
+         while (iterator.hasNext()) {
+            if (iterator.next() < firstChunkIndex) {
+               iterator.remove();
+            }
+         }
+      }
+   }
+}
@@ -45,6 +45,7 @@ public abstract class LocalTransaction extends AbstractCacheTransaction {
 
    private boolean prepareSent;
    private boolean commitOrRollbackSent;
+   private boolean committedInPrepare;
 
    public LocalTransaction(Transaction transaction, GlobalTransaction tx,
          boolean implicitTransaction, int topologyId, Equivalence<Object> keyEquivalence, long txCreationTime) {
@@ -240,4 +241,18 @@ public final boolean isCommitOrRollbackSent() {
       return commitOrRollbackSent;
    }
 
+   /**
+    * Sets the transaction as committed by its prepare, in a single phase
+    */
+   public final void markCommittedInPrepare() {
+      committedInPrepare = true;
+   }
+
+   /**
+    * @return  true if the prepare already committed the transaction, in a single phase
+    */
+   public final boolean isCommittedInPrepare() {
+      return committedInPrepare;
+   }
+
 }
@@ -10,6 +10,7 @@
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a state for a Remote Transaction when the Total Order based protocol is used.
@@ -25,6 +26,7 @@ public class TotalOrderRemoteTransactionState {
    private List<Object> lockedKeys;
    private TotalOrderLatch block;
    private List<TotalOrderLatch> dependencies;
+   private final AtomicInteger pendingDependencies = new AtomicInteger();
 
    public TotalOrderRemoteTransactionState(GlobalTransaction globalTransaction) {
       this.transactionState = EnumSet.noneOf(State.class);
@@ -157,6 +159,7 @@ public final synchronized void awaitUntilReset() throws InterruptedException {
    public final synchronized void reset() {
       this.block = null;
       this.lockedKeys = null;
+      this.dependencies = null;
       notifyAll();
    }
 
@@ -185,11 +188,16 @@ public int hashCode() {
       return globalTransaction != null ? globalTransaction.hashCode() : 0;
    }
 
+   /**
+    * Adds a {@code TotalOrderLatch} this transaction must wait for, and registers this transaction with it if it is
+    * still blocked.
+    */
    public final synchronized void addSynchronizedBlock(TotalOrderLatch block) {
       if (dependencies == null) {
          dependencies = new ArrayList<TotalOrderLatch>(8);
       }
       dependencies.add(block);
+      addPendingDependency(block);
    }
 
    public final synchronized void addAllSynchronizedBlocks(Collection<TotalOrderLatch> blocks) {
@@ -198,6 +206,25 @@ public final synchronized void addAllSynchronizedBlocks(Collection<TotalOrderLat
       } else {
          dependencies.addAll(blocks);
       }
+      for (TotalOrderLatch block : blocks) {
+         addPendingDependency(block);
+      }
+   }
+
+   /**
+    * Invoked when one of the {@code TotalOrderLatch} this transaction was registered with is unblocked.
+    *
+    * @return true if it was the last one this transaction was waiting for
+    */
+   public final boolean dependencyReleased() {
+      return pendingDependencies.decrementAndGet() == 0;
+   }
+
+   /**
+    * @return true if any of the {@code TotalOrderLatch} this transaction waits for is still blocked
+    */
+   public final boolean hasPendingDependencies() {
+      return pendingDependencies.get() > 0;
    }
 
    public final synchronized void addKeysLockedForClear() {
@@ -215,6 +242,14 @@ public synchronized Collection<TotalOrderLatch> getConflictingTransactionBlocks(
       return dependencies == null ? InfinispanCollections.<TotalOrderLatch>emptyList() : dependencies;
    }
 
+   private void addPendingDependency(TotalOrderLatch block) {
+      //incremented first, because the block can be released as soon as this transaction is registered
+      pendingDependencies.incrementAndGet();
+      if (!block.addDependent(this)) {
+         pendingDependencies.decrementAndGet();
+      }
+   }
+
    private static enum State {
       /**
        * the prepare command was received and started the validation
@@ -4,6 +4,7 @@
 import org.infinispan.commands.tx.CommitCommand;
 import org.infinispan.commands.tx.PrepareCommand;
 import org.infinispan.commands.tx.RollbackCommand;
+import org.infinispan.commands.write.ClearCommand;
 import org.infinispan.commands.write.WriteCommand;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.configuration.cache.Configurations;
@@ -13,6 +14,8 @@
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.factories.annotations.Stop;
 import org.infinispan.interceptors.InterceptorChain;
+import org.infinispan.interceptors.locking.ClusteringDependentLogic;
+import org.infinispan.remoting.transport.Address;
 import org.infinispan.transaction.xa.GlobalTransaction;
 import org.infinispan.transaction.xa.recovery.RecoveryManager;
 import org.infinispan.util.logging.Log;
@@ -20,10 +23,12 @@
 
 import javax.transaction.Transaction;
 import javax.transaction.xa.XAException;
+import java.util.Collection;
 import java.util.List;
 
 import static javax.transaction.xa.XAResource.XA_OK;
 import static javax.transaction.xa.XAResource.XA_RDONLY;
+import static org.infinispan.util.DeltaCompositeKeyUtil.filterDeltaCompositeKeys;
 
 /**
  * Coordinates transaction prepare/commits as received from the {@link javax.transaction.TransactionManager}.
@@ -43,7 +48,9 @@ public class TransactionCoordinator {
    private TransactionTable txTable;
    private RecoveryManager recoveryManager;
    private Configuration configuration;
+   private ClusteringDependentLogic clusteringLogic;
    private CommandCreator commandCreator;
+   private boolean useOnePhaseForSingleOwnerTx;
    private volatile boolean shuttingDown = false;
 
    boolean trace;
@@ -60,6 +67,11 @@ public void init(CommandsFactory commandsFactory, InvocationContextFactory icf,
       trace = log.isTraceEnabled();
    }
 
+   @Inject
+   public void injectClusteringLogic(ClusteringDependentLogic clusteringLogic) {
+      this.clusteringLogic = clusteringLogic;
+   }
+
    @Start(priority = 1)
    private void setStartStatus() {
       shuttingDown = false;
@@ -72,6 +84,12 @@ private void setStopStatus() {
 
    @Start
    public void start() {
+      // pessimistic and asynchronous caches already commit in one phase, and the recovery information is only kept
+      // for transactions prepared in two phases
+      useOnePhaseForSingleOwnerTx = configuration.transaction().use1PcForSingleOwnerTransactions() &&
+            configuration.clustering().cacheMode().isDistributed() && !Configurations.isOnePhaseCommit(configuration) &&
+            !configuration.transaction().transactionProtocol().isTotalOrder() &&
+            !configuration.transaction().recovery().enabled();
       if (Configurations.isVersioningEnabled(configuration)) {
          // We need to create versioned variants of PrepareCommand and CommitCommand
          commandCreator = new CommandCreator() {
@@ -112,7 +130,8 @@ public final int prepare(LocalTransaction localTransaction, boolean replayEntryW
          return XA_OK;
       }
 
-      PrepareCommand prepareCommand = commandCreator.createPrepareCommand(localTransaction.getGlobalTransaction(), localTransaction.getModifications(), false);
+      boolean onePhaseCommit = isSingleOwnerOnePhaseCommit(localTransaction);
+      PrepareCommand prepareCommand = commandCreator.createPrepareCommand(localTransaction.getGlobalTransaction(), localTransaction.getModifications(), onePhaseCommit);
       if (trace) log.tracef("Sending prepare command through the chain: %s", prepareCommand);
 
       LocalTxInvocationContext ctx = icf.createTxInvocationContext(localTransaction);
@@ -124,6 +143,10 @@ public final int prepare(LocalTransaction localTransaction, boolean replayEntryW
             // force a cleanup to release any objects held.  Some TMs don't call commit if it is a READ ONLY tx.  See ISPN-845
             commitInternal(ctx);
             return XA_RDONLY;
+         } else if (onePhaseCommit) {
+            if (trace) log.tracef("Transaction %s committed in one phase by its prepare", localTransaction.getGlobalTransaction());
+            localTransaction.markCommittedInPrepare();
+            return XA_OK;
          } else {
             txTable.localTransactionPrepared(localTransaction);
             return XA_OK;
@@ -146,6 +169,10 @@ public final int prepare(LocalTransaction localTransaction, boolean replayEntryW
 
    public boolean commit(LocalTransaction localTransaction, boolean isOnePhase) throws XAException {
       if (trace) log.tracef("Committing transaction %s", localTransaction.getGlobalTransaction());
+      if (localTransaction.isCommittedInPrepare()) {
+         if (trace) log.trace("Skipping the commit call as the prepare committed the transaction in one phase");
+         return true;
+      }
       LocalTxInvocationContext ctx = icf.createTxInvocationContext(localTransaction);
       if (isOnePhaseCommit(localTransaction) || isOnePhase) {
          validateNotMarkedForRollback(localTransaction);
@@ -249,6 +276,37 @@ private static interface CommandCreator {
       PrepareCommand createPrepareCommand(GlobalTransaction gtx, List<WriteCommand> modifications, boolean onePhaseCommit);
    }
 
+   /**
+    * A one-phase prepare is only validated (locked and checked for write skews) by the primary owners of the keys, the
+    * backup owners apply it unconditionally. So the prepare of a transaction can commit it when all its keys have the
+    * same primary owner, as long as the backup owners receive it after the primary owner validated it: either the
+    * primary owner is the local node, which validates the prepare before sending it, or it is the only recipient.
+    */
+   private boolean isSingleOwnerOnePhaseCommit(LocalTransaction localTransaction) {
+      if (!useOnePhaseForSingleOwnerTx || localTransaction.getModifications().isEmpty() ||
+            localTransaction.hasModification(ClearCommand.class)) {
+         return false;
+      }
+      Collection<Object> keys = filterDeltaCompositeKeys(localTransaction.getAffectedKeys());
+      Address primaryOwner = null;
+      for (Object key : keys) {
+         Address keyPrimaryOwner = clusteringLogic.getPrimaryOwner(key);
+         if (primaryOwner == null) {
+            primaryOwner = keyPrimaryOwner;
+         } else if (!primaryOwner.equals(keyPrimaryOwner)) {
+            return false;
+         }
+      }
+      if (primaryOwner == null) {
+         return false;
+      }
+      boolean onePhaseCommit = primaryOwner.equals(clusteringLogic.getAddress()) ||
+            clusteringLogic.getOwners(keys).size() == 1;
+      if (trace) log.tracef("Transaction %s only modifies keys owned by %s, one phase commit? %s",
+                            localTransaction.getGlobalTransaction(), primaryOwner, onePhaseCommit);
+      return onePhaseCommit;
+   }
+
    private boolean isOnePhaseCommit(LocalTransaction localTransaction) {
       return Configurations.isOnePhaseCommit(configuration) || is1PcForAutoCommitTransaction(localTransaction) ||
             Configurations.isOnePhaseTotalOrderCommit(configuration);
@@ -6,11 +6,9 @@
 import org.infinispan.commands.tx.RollbackCommand;
 import org.infinispan.commands.write.WriteCommand;
 import org.infinispan.commons.CacheException;
-import org.infinispan.commons.equivalence.AnyEquivalence;
 import org.infinispan.commons.util.CollectionFactory;
 import org.infinispan.commons.util.InfinispanCollections;
 import org.infinispan.commons.util.Util;
-import org.infinispan.commons.util.concurrent.jdk8backported.EquivalentConcurrentHashMapV8;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.configuration.cache.Configurations;
 import org.infinispan.context.InvocationContextFactory;
@@ -40,8 +38,6 @@
 import javax.transaction.TransactionSynchronizationRegistry;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -86,7 +82,7 @@ public class TransactionTable {
    private CacheNotifier notifier;
    private TransactionSynchronizationRegistry transactionSynchronizationRegistry;
    private Lock minTopologyRecalculationLock;
-   private CompletedTransactionsInfo completedTransactionsInfo;
+   private CompletedTransactions completedTransactions;
    private ScheduledExecutorService executorService;
    private String cacheName;
    private TimeService timeService;
@@ -129,7 +125,7 @@ public void start() {
       boolean transactional = configuration.transaction().transactionMode().isTransactional();
       boolean totalOrder = configuration.transaction().transactionProtocol().isTotalOrder();
       if (clustered && transactional && !totalOrder) {
-         completedTransactionsInfo = new CompletedTransactionsInfo();
+         completedTransactions = new CompletedTransactions();
 
          // Periodically run a task to cleanup the transaction table from completed transactions.
          ThreadFactory tf = new ThreadFactory() {
@@ -148,7 +144,7 @@ public Thread newThread(Runnable r) {
          executorService.scheduleAtFixedRate(new Runnable() {
             @Override
             public void run() {
-               completedTransactionsInfo.cleanupCompletedTransactions();
+               cleanupCompletedTransactions();
             }
          }, interval, interval, TimeUnit.MILLISECONDS);
 
@@ -561,8 +557,9 @@ private void shutDownGracefully() {
     * Once marked as completed (because of commit or rollback) any further prepare received on that transaction are discarded.
     */
    public void markTransactionCompleted(GlobalTransaction gtx) {
-      if (completedTransactionsInfo != null) {
-         completedTransactionsInfo.markTransactionCompleted(gtx);
+      if (completedTransactions != null) {
+         log.tracef("Marking transaction %s as completed", gtx);
+         completedTransactions.markCompleted(gtx);
       }
    }
 
@@ -570,119 +567,26 @@ public void markTransactionCompleted(GlobalTransaction gtx) {
     * @see #markTransactionCompleted(org.infinispan.transaction.xa.GlobalTransaction)
     */
    public boolean isTransactionCompleted(GlobalTransaction gtx) {
-      if (completedTransactionsInfo == null)
+      if (completedTransactions == null)
          return false;
 
-      return completedTransactionsInfo.isTransactionCompleted(gtx);
+      return completedTransactions.isCompleted(gtx);
    }
 
-   private class CompletedTransactionsInfo {
-      final EquivalentConcurrentHashMapV8<Address, Long> nodeMaxPrunedTxIds;
-      final EquivalentConcurrentHashMapV8<GlobalTransaction, Long> completedTransactions;
-      volatile long globalMaxPrunedTxId;
-
-      public CompletedTransactionsInfo() {
-         nodeMaxPrunedTxIds = new EquivalentConcurrentHashMapV8<>(AnyEquivalence.getInstance(), AnyEquivalence.getInstance());
-         completedTransactions = new EquivalentConcurrentHashMapV8<>(AnyEquivalence.getInstance(), AnyEquivalence.getInstance());
-         globalMaxPrunedTxId = -1;
-      }
-
-
-      /**
-       * With the current state transfer implementation it is possible for a transaction to be prepared several times
-       * on a remote node. This might cause leaks, e.g. if the transaction is prepared, committed and prepared again.
-       * Once marked as completed (because of commit or rollback) any further prepare received on that transaction are discarded.
-       */
-      public void markTransactionCompleted(GlobalTransaction globalTx) {
-         log.tracef("Marking transaction %s as completed", globalTx);
-         completedTransactions.put(globalTx, timeService.time());
-      }
-
-      /**
-       * @see #markTransactionCompleted(org.infinispan.transaction.xa.GlobalTransaction)
-       */
-      public boolean isTransactionCompleted(GlobalTransaction gtx) {
-         if (completedTransactionsInfo == null)
-            return false;
-
-         if (completedTransactions.containsKey(gtx))
-            return true;
-
-         // Transaction ids are allocated in sequence, so any transaction with a smaller id must have already finished.
-         // Most likely because the prepare command timed out...
-         // Note: We must check the id *after* verifying that the tx doesn't exist in the map.
-         if (gtx.getId() > globalMaxPrunedTxId)
-            return false;
-         Long nodeMaxPrunedTxId = nodeMaxPrunedTxIds.get(gtx.getAddress());
-         return nodeMaxPrunedTxId != null && gtx.getId() <= nodeMaxPrunedTxId;
-      }
-
-      public void cleanupCompletedTransactions() {
-         if (completedTransactions.isEmpty())
-            return;
-
-         try {
-            log.tracef("About to cleanup completed transaction. Initial size is %d", completedTransactions.size());
-            long beginning = timeService.time();
-            long minCompleteTimestamp = timeService.time() - TimeUnit.MILLISECONDS.toNanos(configuration.transaction().completedTxTimeout());
-            int removedEntries = 0;
-
-            // Collect the leavers. They will be removed at the end.
-            Set<Address> leavers = new HashSet<>();
-            for (Map.Entry<Address, Long> e : nodeMaxPrunedTxIds.entrySet()) {
-               if (!rpcManager.getMembers().contains(e.getKey())) {
-                  leavers.add(e.getKey());
-               }
-            }
-
-            // Remove stale completed transactions.
-            Iterator<Map.Entry<GlobalTransaction, Long>> txIterator = completedTransactions.entrySet().iterator();
-            while (txIterator.hasNext()) {
-               Map.Entry<GlobalTransaction, Long> e = txIterator.next();
-               long completedTime = e.getValue();
-               if (minCompleteTimestamp - completedTime > 0) {
-                  // Need to update lastPrunedTxId *before* removing the tx from the map
-                  // Don't need atomic operations, there can't be more than one thread updating lastPrunedTxId.
-                  final long txId = e.getKey().getId();
-                  final Address address = e.getKey().getAddress();
-                  updateLastPrunedTxId(txId, address);
-
-                  txIterator.remove();
-                  removedEntries++;
-               } else {
-                  // Nodes with "active" completed transactions are not removed..
-                  leavers.remove(e.getKey().getAddress());
-               }
-            }
-
-            // Finally, remove nodes that are no longer members and don't have any "active" completed transactions.
-            for (Address e : leavers) {
-               nodeMaxPrunedTxIds.remove(e);
-            }
-
-            long duration = timeService.timeDuration(beginning, TimeUnit.MILLISECONDS);
-
-            log.tracef("Finished cleaning up completed transactions. %d transactions were removed, total duration was %d millis, " +
-                        "current number of completed transactions is %d", removedEntries, duration,
-                  completedTransactions.size());
-         } catch (Exception e) {
-            log.errorf(e, "Failed to cleanup completed transactions: %s", e.getMessage());
-         }
-      }
+   private void cleanupCompletedTransactions() {
+      if (completedTransactions.isEmpty())
+         return;
 
-      private void updateLastPrunedTxId(final long txId, Address address) {
-         if (txId > globalMaxPrunedTxId) {
-            globalMaxPrunedTxId = txId;
-         }
-         nodeMaxPrunedTxIds.compute(address, new EquivalentConcurrentHashMapV8.BiFun<Address, Long, Long>() {
-            @Override
-            public Long apply(Address address, Long nodeMaxPrunedTxId) {
-               if (nodeMaxPrunedTxId != null && txId <= nodeMaxPrunedTxId) {
-                  return nodeMaxPrunedTxId;
-               }
-               return txId;
-            }
-         });
+      try {
+         log.trace("About to cleanup completed transactions");
+         long beginning = timeService.time();
+         long minCompleteTimestamp = beginning - TimeUnit.MILLISECONDS.toNanos(configuration.transaction().completedTxTimeout());
+         int chunks = completedTransactions.prune(beginning, minCompleteTimestamp, rpcManager.getMembers());
+         long duration = timeService.timeDuration(beginning, TimeUnit.MILLISECONDS);
+         log.tracef("Finished cleaning up completed transactions, total duration was %d millis, %d chunks of " +
+                          "completed transaction ids remain", duration, chunks);
+      } catch (Exception e) {
+         log.errorf(e, "Failed to cleanup completed transactions: %s", e.getMessage());
       }
    }
 }
@@ -1,5 +1,9 @@
 package org.infinispan.transaction.totalorder;
 
+import org.infinispan.transaction.impl.TotalOrderRemoteTransactionState;
+
+import java.util.Collection;
+
 /**
  * Behaves as a latch between {@code org.infinispan.commands.tx.PrepareCommand} delivered in total order to coordinate
  * conflicting transactions and between {@code org.infinispan.commands.tx.PrepareCommand} and state transfer (blocking
@@ -28,4 +32,20 @@ public interface TotalOrderLatch {
     */
    void awaitUntilUnBlock() throws InterruptedException;
 
+   /**
+    * Registers a transaction that must wait for this synchronization block to be unblocked.
+    *
+    * @param state the state of the waiting transaction
+    * @return true if the transaction was registered, false if this synchronization block is already unblocked
+    */
+   boolean addDependent(TotalOrderRemoteTransactionState state);
+
+   /**
+    * Removes the transactions registered with {@link #addDependent(TotalOrderRemoteTransactionState)}. It must be
+    * invoked after {@link #unBlock()}, so that no other transaction can be registered.
+    *
+    * @return the registered transactions, in registration order
+    */
+   Collection<TotalOrderRemoteTransactionState> removeDependents();
+
 }
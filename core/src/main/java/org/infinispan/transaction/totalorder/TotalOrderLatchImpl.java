@@ -1,5 +1,11 @@
 package org.infinispan.transaction.totalorder;
 
+import org.infinispan.commons.util.InfinispanCollections;
+import org.infinispan.transaction.impl.TotalOrderRemoteTransactionState;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 /**
@@ -12,6 +18,8 @@ public class TotalOrderLatchImpl implements TotalOrderLatch {
 
    private final String name;
    private final CountDownLatch latch;
+   //guarded by this
+   private List<TotalOrderRemoteTransactionState> dependents;
 
    public TotalOrderLatchImpl(String name) {
       if (name == null) {
@@ -27,7 +35,7 @@ public boolean isBlocked() {
    }
 
    @Override
-   public void unBlock() {
+   public synchronized void unBlock() {
       latch.countDown();
    }
 
@@ -36,6 +44,25 @@ public void awaitUntilUnBlock() throws InterruptedException {
       latch.await();
    }
 
+   @Override
+   public synchronized boolean addDependent(TotalOrderRemoteTransactionState state) {
+      if (!isBlocked()) {
+         return false;
+      }
+      if (dependents == null) {
+         dependents = new ArrayList<TotalOrderRemoteTransactionState>(4);
+      }
+      dependents.add(state);
+      return true;
+   }
+
+   @Override
+   public synchronized Collection<TotalOrderRemoteTransactionState> removeDependents() {
+      List<TotalOrderRemoteTransactionState> removed = dependents;
+      dependents = null;
+      return removed == null ? InfinispanCollections.<TotalOrderRemoteTransactionState>emptyList() : removed;
+   }
+
    @Override
    public String toString() {
       return "TotalOrderLatchImpl{" +
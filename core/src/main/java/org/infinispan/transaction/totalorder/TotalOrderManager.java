@@ -33,6 +33,11 @@
  *       ensure that the prepare waits for state transfer in progress.
  *    </li>
  * </ul>
+ * <p/>
+ * The prepares and their {@link TotalOrderLatch}es form a dependency graph: each prepare counts the latches it waits
+ * for, and each latch keeps the prepares waiting for it. When a latch is released, only the prepares whose last
+ * pending latch it was are handed to the executor, so a prepare is evaluated once when it is delivered and once when it
+ * becomes ready, regardless of the number of conflicting transactions.
  *
  * @author Pedro Ruivo
  * @since 5.3
@@ -61,7 +66,9 @@ public void inject(@ComponentName(KnownComponentNames.TOTAL_ORDER_EXECUTOR) Bloc
 
    /**
     * It ensures the validation order for the transaction corresponding to the prepare command. This allow the prepare
-    * command to be moved to a thread pool.
+    * command to be moved to a thread pool, where it must wait for {@link
+    * TotalOrderRemoteTransactionState#hasPendingDependencies()} to return false, blocked on the state itself, as it is
+    * the resource passed to {@link BlockingTaskAwareExecutorService#checkForReadyTasks(Object)} once ready.
     *
     * @param state the total order prepare state
     */
@@ -74,10 +81,9 @@ public final void ensureOrder(TotalOrderRemoteTransactionState state, Object[] k
       TotalOrderLatch transactionSynchronizedBlock = new TotalOrderLatchImpl(state.getGlobalTransaction().globalId());
       state.setTransactionSynchronizedBlock(transactionSynchronizedBlock);
       if (keysModified == null) { //clear state
-         TotalOrderLatch oldClear = clear.get();
+         TotalOrderLatch oldClear = clear.getAndSet(transactionSynchronizedBlock);
          if (oldClear != null) {
             state.addSynchronizedBlock(oldClear);
-            clear.set(transactionSynchronizedBlock);
          }
          //add all other "locks"
          state.addAllSynchronizedBlocks(keysLocked.values());
@@ -135,6 +141,7 @@ public final void release(TotalOrderRemoteTransactionState state) {
                     lockedKeys == null ? "[ClearCommand]" : lockedKeys);
       }
       state.reset();
+      releaseDependents(synchronizedBlock);
    }
 
    /**
@@ -173,10 +180,23 @@ public final void notifyStateTransferEnd() {
       if (log.isTraceEnabled()) {
          log.tracef("State Transfer finish. It will release %s", block);
       }
-      totalOrderExecutor.checkForReadyTasks();
+      if (block != null) {
+         releaseDependents(block);
+      }
    }
 
    public final boolean hasAnyLockAcquired() {
       return !keysLocked.isEmpty() || clear.get() != null;
    }
+
+   private void releaseDependents(TotalOrderLatch block) {
+      for (TotalOrderRemoteTransactionState dependent : block.removeDependents()) {
+         if (dependent.dependencyReleased()) {
+            if (log.isTraceEnabled()) {
+               log.tracef("Transaction [%s] is ready", dependent.getGlobalTransaction().globalId());
+            }
+            totalOrderExecutor.checkForReadyTasks(dependent);
+         }
+      }
+   }
 }
@@ -43,8 +43,9 @@ public DldGlobalTransaction(Address addr, boolean remote) {
 
 
    /**
-    * Sets the random number that defines the coin toss. A coin toss is a random number that is used when a deadlock is
-    * detected for deciding which transaction should commit and which should rollback.
+    * Sets the number that defines the coin toss. A coin toss is used when a deadlock is detected for deciding which
+    * transaction should commit and which should rollback. Its high bits hold the time the transaction started at, and
+    * its low bits are random, so that the youngest transaction has the highest coin toss.
     */
    public void setCoinToss(long coinToss) {
       this.coinToss = coinToss;
@@ -99,6 +100,13 @@ public boolean wouldLose(DldGlobalTransaction other) {
       return this.coinToss < other.coinToss;
    }
 
+   /**
+    * @return true if this transaction started after the other one, according to their coin tosses
+    */
+   public boolean isYoungerThan(DldGlobalTransaction other) {
+      return this.coinToss > other.coinToss || (this.coinToss == other.coinToss && getId() > other.getId());
+   }
+
    public void setRemoteLockIntention(Collection<Object> remoteLockIntention) {
       if (trace) {
          log.tracef("Setting the remote lock intention: %s", remoteLockIntention);
@@ -9,6 +9,7 @@
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 
@@ -26,6 +27,20 @@
 public class GlobalTransaction implements Cloneable {
 
    private static final AtomicLong sid = new AtomicLong(0);
+   /**
+    * The threads take their ids from blocks of {@link #ID_BLOCK_SIZE} ids reserved at once, instead of incrementing
+    * {@link #sid} for every transaction. A block is given up after {@link #ID_BLOCK_LIFETIME} nanoseconds, so that the
+    * ids stay ordered by creation time up to a few milliseconds: the transaction table relies on it to forget the
+    * completed transactions.
+    */
+   private static final int ID_BLOCK_SIZE = 64;
+   private static final long ID_BLOCK_LIFETIME = TimeUnit.MILLISECONDS.toNanos(10);
+   private static final ThreadLocal<IdBlock> idBlock = new ThreadLocal<IdBlock>() {
+      @Override
+      protected IdBlock initialValue() {
+         return new IdBlock();
+      }
+   };
 
    protected long id = -1;
 
@@ -40,7 +55,7 @@ protected GlobalTransaction() {
    }
 
    protected GlobalTransaction(Address addr, boolean remote) {
-      this.id = sid.incrementAndGet();
+      this.id = idBlock.get().nextId();
       this.addr = addr;
       this.remote = remote;
    }
@@ -112,6 +127,22 @@ public Object clone() {
       }
    }
 
+   private static final class IdBlock {
+      private long next;
+      private long last = -1;
+      private long expiration;
+
+      long nextId() {
+         long now = System.nanoTime();
+         if (next > last || now - expiration > 0) {
+            last = sid.addAndGet(ID_BLOCK_SIZE);
+            next = last - ID_BLOCK_SIZE + 1;
+            expiration = now + ID_BLOCK_LIFETIME;
+         }
+         return next++;
+      }
+   }
+
    protected abstract static class AbstractGlobalTxExternalizer<T extends GlobalTransaction> extends AbstractExternalizer<T> {
       @Override
       public void writeObject(ObjectOutput output, T gtx) throws IOException {
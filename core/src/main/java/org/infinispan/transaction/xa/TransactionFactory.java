@@ -38,6 +38,10 @@ public class TransactionFactory {
    private TimeService timeService;
    private boolean isClustered;
    private Equivalence<Object> keyEquivalence;
+   /**
+    * this class is internally synchronized, so it can be shared between threads
+    */
+   private final Random rnd = new Random();
 
    public enum TxFactoryEnum {
 
@@ -53,7 +57,7 @@ public GlobalTransaction newGlobalTransaction(Address addr, boolean remote, Vers
             RecoveryAwareDldGlobalTransaction dldGlobalTransaction = new RecoveryAwareDldGlobalTransaction(addr, remote);
             // TODO: Not ideal... but causes no issues so far. Could the internal id be an Object instead of a long?
             dldGlobalTransaction.setInternalId(((NumericVersion) clusterIdGenerator.generateNew()).getVersion());
-            return addCoinToss(dldGlobalTransaction);
+            return dldGlobalTransaction;
          }
 
          @Override
@@ -82,7 +86,7 @@ public LocalTransaction newLocalTransaction(Transaction tx, GlobalTransaction gt
 
          @Override
          public GlobalTransaction newGlobalTransaction(Address addr, boolean remote, VersionGenerator clusterIdGenerator, boolean clustered) {
-            return addCoinToss(new DldGlobalTransaction(addr, remote));
+            return new DldGlobalTransaction(addr, remote);
          }
 
          @Override
@@ -111,7 +115,7 @@ public LocalTransaction newLocalTransaction(Transaction tx, GlobalTransaction gt
 
          @Override
          public GlobalTransaction newGlobalTransaction(Address addr, boolean remote, VersionGenerator clusterIdGenerator, boolean clustered) {
-            return addCoinToss(new DldGlobalTransaction(addr, remote));
+            return new DldGlobalTransaction(addr, remote);
          }
 
          @Override
@@ -223,20 +227,6 @@ public abstract LocalTransaction newLocalTransaction(Transaction tx, GlobalTrans
       public abstract GlobalTransaction newGlobalTransaction(Address addr, boolean remote, VersionGenerator clusterIdGenerator, boolean clustered);
       public abstract GlobalTransaction newGlobalTransaction();
 
-      protected long generateRandomId() {
-         return rnd.nextLong();
-      }
-
-      protected GlobalTransaction addCoinToss(DldGlobalTransaction dldGlobalTransaction) {
-         dldGlobalTransaction.setCoinToss(generateRandomId());
-         return dldGlobalTransaction;
-      }
-
-      /**
-       * this class is internally synchronized, so it can be shared between instances
-       */
-      private final Random rnd = new Random();
-
       public abstract RemoteTransaction newRemoteTransaction(WriteCommand[] modifications, GlobalTransaction tx, int topologyId,
                                                              Equivalence<Object> keyEquivalence, long txCreationTime);
 
@@ -250,7 +240,12 @@ public GlobalTransaction newGlobalTransaction() {
    }
 
    public GlobalTransaction newGlobalTransaction(Address addr, boolean remote) {
-      return txFactoryEnum.newGlobalTransaction(addr, remote, this.clusterIdGenerator, isClustered);
+      GlobalTransaction gtx = txFactoryEnum.newGlobalTransaction(addr, remote, this.clusterIdGenerator, isClustered);
+      if (gtx instanceof DldGlobalTransaction) {
+         // the start time orders the transactions by age, and the random low bits break the ties
+         ((DldGlobalTransaction) gtx).setCoinToss((timeService.wallClockTime() << 20) | (rnd.nextInt() & 0xFFFFF));
+      }
+      return gtx;
    }
 
    public LocalTransaction newLocalTransaction(Transaction tx, GlobalTransaction gtx, boolean implicitTransaction, int topologyId) {
@@ -0,0 +1,111 @@
+package org.infinispan.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe histogram of non negative values, whose bucket bounds are powers of two: the first bucket counts the
+ * zeros, and bucket <tt>i</tt> the values in <tt>[2<sup>i-1</sup>, 2<sup>i</sup>)</tt>.
+ * <p/>
+ * Recording a value is a single atomic increment, cheap enough to be done on every invocation of a hot path, at the
+ * cost of a resolution of a factor 2.
+ *
+ * @since 7.0
+ */
+public final class LogarithmicHistogram {
+
+   private static final int BUCKETS = 64;
+
+   private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+   private final String unit;
+
+   /**
+    * @param unit the unit of the recorded values, appended to the bucket bounds by {@link #toString()}
+    */
+   public LogarithmicHistogram(String unit) {
+      this.unit = unit;
+   }
+
+   public void record(long value) {
+      counts.incrementAndGet(bucket(value));
+   }
+
+   /**
+    * @return the number of recorded values
+    */
+   public long getCount() {
+      long count = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         count += counts.get(i);
+      }
+      return count;
+   }
+
+   /**
+    * @param percentile between 0 and 100
+    * @return the upper bound of the bucket holding the given percentile of the recorded values, or 0 if no value was
+    *         recorded
+    */
+   public long getPercentile(double percentile) {
+      long[] snapshot = snapshot();
+      long count = 0;
+      for (long c : snapshot) count += c;
+      if (count == 0) {
+         return 0;
+      }
+      long rank = (long) Math.ceil(count * percentile / 100);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         seen += snapshot[i];
+         if (seen >= rank && snapshot[i] > 0) {
+            return upperBound(i);
+         }
+      }
+      return upperBound(BUCKETS - 1);
+   }
+
+   public void reset() {
+      for (int i = 0; i < BUCKETS; i++) {
+         counts.set(i, 0);
+      }
+   }
+
+   /**
+    * @return the non empty buckets, as <tt>&lt; upper bound: count</tt> pairs
+    */
+   @Override
+   public String toString() {
+      long[] snapshot = snapshot();
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < BUCKETS; i++) {
+         if (snapshot[i] == 0) {
+            continue;
+         }
+         if (sb.length() > 0) {
+            sb.append(", ");
+         }
+         if (i == BUCKETS - 1) {
+            sb.append(">= ").append(1L << (i - 1));
+         } else {
+            sb.append("< ").append(upperBound(i));
+         }
+         sb.append(unit).append(": ").append(snapshot[i]);
+      }
+      return sb.length() == 0 ? "empty" : sb.toString();
+   }
+
+   private long[] snapshot() {
+      long[] snapshot = new long[BUCKETS];
+      for (int i = 0; i < BUCKETS; i++) {
+         snapshot[i] = counts.get(i);
+      }
+      return snapshot;
+   }
+
+   private static int bucket(long value) {
+      return value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value);
+   }
+
+   private static long upperBound(int bucket) {
+      return bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+   }
+}
@@ -1,5 +1,7 @@
 package org.infinispan.util.concurrent;
 
+import org.infinispan.util.LogarithmicHistogram;
+
 import java.util.concurrent.ExecutorService;
 
 /**
@@ -7,7 +9,8 @@
  * (or no) probability of blocking the thread.
  * <p/>
  * However, it is not aware of the changes in the state so you must invoke {@link #checkForReadyTasks()} to notify
- * this that some runnable may be ready to be processed.
+ * this that some runnable may be ready to be processed. Runnables reporting the resource they wait for, through {@link
+ * ResourceBlockingRunnable}, only need {@link #checkForReadyTasks(Object)} to be invoked for that resource.
  *
  * @author Pedro Ruivo
  * @since 5.3
@@ -26,4 +29,27 @@ public interface BlockingTaskAwareExecutorService extends ExecutorService {
     */
    void checkForReadyTasks();
 
+   /**
+    * Same as {@link #checkForReadyTasks()}, but only re-evaluates the tasks waiting for the given resource, as
+    * reported by {@link ResourceBlockingRunnable#getBlockingResource()}, and the tasks that don't report one.
+    *
+    * @param resource the resource whose state changed
+    */
+   void checkForReadyTasks(Object resource);
+
+   /**
+    * @return the number of tasks waiting to be ready
+    */
+   int getBlockedTaskCount();
+
+   /**
+    * @return the number of tasks already waiting when a task had to wait, recorded for each task that had to wait
+    */
+   LogarithmicHistogram getQueueLengthHistogram();
+
+   /**
+    * @return the time, in microseconds, spent waiting by the tasks that were not ready when submitted
+    */
+   LogarithmicHistogram getWaitTimeHistogram();
+
 }
@@ -1,17 +1,20 @@
 package org.infinispan.util.concurrent;
 
+import org.infinispan.util.LogarithmicHistogram;
 import org.infinispan.util.TimeService;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.AbstractExecutorService;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -19,6 +22,10 @@
  * A special executor service that accepts a {@code BlockingRunnable}. This special runnable gives hints about the code
  * to be running in order to avoiding put a runnable that will block the thread. In this way, only when the runnable
  * says that is ready, it is sent to the real executor service
+ * <p/>
+ * The runnables that are not ready are queued by the resource they wait for, when they implement {@link
+ * ResourceBlockingRunnable}, so that {@link #checkForReadyTasks(Object)} only re-evaluates the runnables waiting for
+ * the resource that changed. The others are re-evaluated by every check.
  *
  * @author Pedro Ruivo
  * @since 5.3
@@ -26,13 +33,20 @@
 public class BlockingTaskAwareExecutorServiceImpl extends AbstractExecutorService implements BlockingTaskAwareExecutorService {
 
    private static final Log log = LogFactory.getLog(BlockingTaskAwareExecutorServiceImpl.class);
-   private final BlockingQueue<BlockingRunnable> blockedTasks;
+   // all the fields below are guarded by the lock
+   private final Object lock = new Object();
+   private final Queue<BlockedTask> blockedTasks;
+   private final Map<Object, Queue<BlockedTask>> blockedTasksByResource;
+   private int blockedTaskCount;
    private final ExecutorService executorService;
    private final TimeService timeService;
+   private final LogarithmicHistogram queueLengths = new LogarithmicHistogram("");
+   private final LogarithmicHistogram waitTimes = new LogarithmicHistogram("us");
    private volatile boolean shutdown;
 
    public BlockingTaskAwareExecutorServiceImpl(ExecutorService executorService, TimeService timeService) {
-      this.blockedTasks = new LinkedBlockingQueue<BlockingRunnable>();
+      this.blockedTasks = new ArrayDeque<BlockedTask>();
+      this.blockedTasksByResource = new HashMap<Object, Queue<BlockedTask>>();
       this.executorService = executorService;
       this.timeService = timeService;
       this.shutdown = false;
@@ -45,26 +59,28 @@ public final void execute(BlockingRunnable runnable) {
       }
       if (runnable.isReady()) {
          doExecute(runnable);
-      } else {
-         blockedTasks.offer(runnable);
+         return;
+      }
+
+      boolean ready;
+      synchronized (lock) {
          //case: T1 is adding a task and T2 is releasing one. problem to solve:
          //T1: is adding a new task. runnable.isReady() returns false
          //T2: meanwhile, T2 releases a resources that is blocking the T1's runnable
          //T2: also, T2 invokes checkForReadyTasks(), that does nothing because the queue is empty
          //T1: continues and add the runnable to the queue
-         //problem: if no more interaction with this object is done, the runnable will be kept in the queue forever.
-
-         boolean checkPendingTasks;
-         synchronized (blockedTasks) {
-            //to synchronize with the thread invoking checkForReadyTasks();
-            checkPendingTasks = runnable.isReady();
-         }
-         if (checkPendingTasks) {
-            checkForReadyTasks();
+         //checking again while holding the lock means that T2's check either happened before or will find the task
+         ready = runnable.isReady();
+         if (!ready) {
+            queueLengths.record(blockedTaskCount);
+            block(new BlockedTask(runnable, timeService.time()));
+            blockedTaskCount++;
          }
       }
-      if (log.isTraceEnabled()) {
-         log.tracef("Added a new task: %s task(s) are waiting", blockedTasks.size());
+      if (ready) {
+         doExecute(runnable);
+      } else if (log.isTraceEnabled()) {
+         log.tracef("Added a new task: %s task(s) are waiting", blockedTaskCount);
       }
    }
 
@@ -78,7 +94,16 @@ public List<Runnable> shutdownNow() {
       shutdown = true;
       List<Runnable> runnableList = new LinkedList<Runnable>();
       runnableList.addAll(executorService.shutdownNow());
-      runnableList.addAll(blockedTasks);
+      synchronized (lock) {
+         for (BlockedTask task : blockedTasks) {
+            runnableList.add(task.runnable);
+         }
+         for (Queue<BlockedTask> tasks : blockedTasksByResource.values()) {
+            for (BlockedTask task : tasks) {
+               runnableList.add(task.runnable);
+            }
+         }
+      }
       return runnableList;
    }
 
@@ -89,16 +114,17 @@ public boolean isShutdown() {
 
    @Override
    public boolean isTerminated() {
-      return shutdown && blockedTasks.isEmpty() && executorService.isTerminated();
+      return shutdown && getBlockedTaskCount() == 0 && executorService.isTerminated();
    }
 
    @Override
    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
       final long endTime = timeService.expectedEndTime(timeout, unit);
-      synchronized (blockedTasks) {
+      synchronized (lock) {
          long waitTime = timeService.remainingTime(endTime, TimeUnit.MILLISECONDS);
-         while (!blockedTasks.isEmpty() && waitTime > 0) {
-            wait(waitTime);
+         while (blockedTaskCount != 0 && waitTime > 0) {
+            lock.wait(waitTime);
+            waitTime = timeService.remainingTime(endTime, TimeUnit.MILLISECONDS);
          }
       }
       return isTerminated();
@@ -106,26 +132,58 @@ public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedE
 
    @Override
    public final void checkForReadyTasks() {
-      List<BlockingRunnable> runnableReadyList = new ArrayList<BlockingRunnable>(blockedTasks.size());
-      synchronized (blockedTasks) {
-         for (Iterator<BlockingRunnable> iterator = blockedTasks.iterator(); iterator.hasNext(); ) {
-            BlockingRunnable runnable = iterator.next();
-            if (runnable.isReady()) {
-               iterator.remove();
-               runnableReadyList.add(runnable);
+      List<BlockedTask> readyList = new ArrayList<BlockedTask>();
+      synchronized (lock) {
+         checkUnknownResourceTasks(readyList);
+         if (!blockedTasksByResource.isEmpty()) {
+            List<Queue<BlockedTask>> queues = new ArrayList<Queue<BlockedTask>>(blockedTasksByResource.values());
+            blockedTasksByResource.clear();
+            for (Queue<BlockedTask> tasks : queues) {
+               checkTasks(tasks, readyList);
             }
          }
+         blockedTaskCount -= readyList.size();
+         if (blockedTaskCount == 0) {
+            lock.notifyAll();
+         }
       }
+      executeReady(readyList);
+   }
 
-      if (log.isTraceEnabled()) {
-         log.tracef("Tasks executed=%s, still pending=%s", runnableReadyList.size(), blockedTasks.size());
+   @Override
+   public final void checkForReadyTasks(Object resource) {
+      List<BlockedTask> readyList = new ArrayList<BlockedTask>();
+      synchronized (lock) {
+         checkUnknownResourceTasks(readyList);
+         Queue<BlockedTask> tasks = blockedTasksByResource.remove(resource);
+         if (tasks != null) {
+            checkTasks(tasks, readyList);
+         }
+         blockedTaskCount -= readyList.size();
+         if (blockedTaskCount == 0) {
+            lock.notifyAll();
+         }
       }
+      executeReady(readyList);
+   }
 
-      for (BlockingRunnable runnable : runnableReadyList) {
-         doExecute(runnable);
+   @Override
+   public int getBlockedTaskCount() {
+      synchronized (lock) {
+         return blockedTaskCount;
       }
    }
 
+   @Override
+   public LogarithmicHistogram getQueueLengthHistogram() {
+      return queueLengths;
+   }
+
+   @Override
+   public LogarithmicHistogram getWaitTimeHistogram() {
+      return waitTimes;
+   }
+
    @Override
    public void execute(Runnable command) {
       if (shutdown) {
@@ -134,12 +192,78 @@ public void execute(Runnable command) {
       executorService.execute(command);
    }
 
+   private void checkUnknownResourceTasks(List<BlockedTask> readyList) {
+      for (Iterator<BlockedTask> iterator = blockedTasks.iterator(); iterator.hasNext(); ) {
+         BlockedTask task = iterator.next();
+         if (task.runnable.isReady()) {
+            iterator.remove();
+            readyList.add(task);
+         }
+      }
+   }
+
+   /**
+    * Collects the ready tasks of a queue that has been removed from the map, and queues the others again, by the
+    * resource they wait for now.
+    */
+   private void checkTasks(Queue<BlockedTask> tasks, List<BlockedTask> readyList) {
+      for (BlockedTask task : tasks) {
+         if (task.runnable.isReady()) {
+            readyList.add(task);
+         } else {
+            block(task);
+         }
+      }
+   }
+
+   private void block(BlockedTask task) {
+      Object resource = task.runnable instanceof ResourceBlockingRunnable ?
+            ((ResourceBlockingRunnable) task.runnable).getBlockingResource() : null;
+      if (resource == null) {
+         blockedTasks.add(task);
+         return;
+      }
+      Queue<BlockedTask> tasks = blockedTasksByResource.get(resource);
+      if (tasks == null) {
+         tasks = new ArrayDeque<BlockedTask>(4);
+         blockedTasksByResource.put(resource, tasks);
+      }
+      tasks.add(task);
+   }
+
+   private void executeReady(List<BlockedTask> readyList) {
+      if (log.isTraceEnabled()) {
+         log.tracef("Tasks executed=%s, still pending=%s", readyList.size(), getBlockedTaskCount());
+      }
+      if (readyList.isEmpty()) {
+         return;
+      }
+      long now = timeService.time();
+      for (BlockedTask task : readyList) {
+         waitTimes.record(timeService.timeDuration(task.blockedSince, now, TimeUnit.MICROSECONDS));
+         doExecute(task.runnable);
+      }
+   }
+
    private void doExecute(BlockingRunnable runnable) {
       try {
          executorService.execute(runnable);
       } catch (RejectedExecutionException rejected) {
          //put it back!
-         blockedTasks.offer(runnable);
+         synchronized (lock) {
+            blockedTasks.add(new BlockedTask(runnable, timeService.time()));
+            blockedTaskCount++;
+         }
+      }
+   }
+
+   private static class BlockedTask {
+      final BlockingRunnable runnable;
+      final long blockedSince;
+
+      BlockedTask(BlockingRunnable runnable, long blockedSince) {
+         this.runnable = runnable;
+         this.blockedSince = blockedSince;
       }
    }
 }
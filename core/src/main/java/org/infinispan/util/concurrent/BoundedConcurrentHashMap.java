@@ -15,6 +15,7 @@
 import org.infinispan.commons.util.concurrent.ParallelIterableMap;
 import org.infinispan.commons.util.concurrent.jdk8backported.ForkJoinPool;
 import org.infinispan.container.entries.CacheEntry;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.executors.ExecutorAllCompletionService;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -23,10 +24,10 @@
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.ReentrantLock;
 
 
@@ -142,6 +143,12 @@
     */
    static final int MAX_SEGMENTS = 1 << 16; // slightly conservative
 
+   /**
+    * The initial capacity of the table when the number of elements is not bounded and the
+    * table grows with the elements, as in a memory bounded map created without a capacity.
+    */
+   static final int DEFAULT_INITIAL_CAPACITY = 16;
+
    /**
     * Number of unsynchronized retries in size and containsValue
     * methods before resorting to locking. This is used to avoid
@@ -179,6 +186,10 @@
    private transient final Equivalence<? super V> valueEquivalence;
    private transient final EvictionListener<? super K, ? super V> evictionListener;
    private final int evictCap;
+   /** Whether the number of elements is bounded, otherwise only their memory is */
+   private final boolean countBounded;
+   private transient final EntrySizeCalculator<? super K, ? super V> sizeCalculator;
+   private final long evictMemoryCap;
    
    private final ExecutorService executor;
 
@@ -230,6 +241,8 @@ final Segment<K,V> segmentFor(int hash) {
       final int hash;
       volatile V value;
       final HashEntry<K, V> next;
+      /** Estimated memory footprint of this entry, only maintained (under the segment lock) in memory mode */
+      long memorySize;
 
       HashEntry(K key, int hash, HashEntry<K, V> next, V value) {
          this.key = key;
@@ -279,19 +292,30 @@ public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf)
       LRU {
          @Override
          public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf) {
-            return new BatchWrapper<K, V>(s, capacity * 10,
+            return new BatchWrapper<K, V>(s, batchSize(capacity),
                    new LRU<K, V>(s, capacity, lf));
          }
       },
       LIRS {
          @Override
          public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf) {
-            return new BatchWrapper<K, V>(s, capacity * 10,
+            return new BatchWrapper<K, V>(s, batchSize(capacity),
                    new LIRS<K, V>(s, capacity));
          }
+      },
+      TINYLFU {
+         @Override
+         public <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf) {
+            return new BatchWrapper<K, V>(s, batchSize(capacity),
+                   new TinyLFU<K, V>(s, capacity));
+         }
       };
 
       abstract <K, V> EvictionPolicy<K, V> make(Segment<K, V> s, int capacity, float lf);
+
+      private static int batchSize(int capacity) {
+         return (int) Math.min(capacity * 10L, Integer.MAX_VALUE);
+      }
    }
 
    public interface EvictionListener<K, V> {
@@ -328,6 +352,20 @@ public void onEntryRemoved(Object key) {
 
       HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V value);
 
+      /**
+       * Invoked when the Segment replaces an entry by a copy, because the next field of the entries
+       * preceding it in the table has to change. The copy takes over the place of the original in
+       * the eviction order, and the original is no longer part of the Segment.
+       * <p>
+       * Always invoked while holding the Segment lock.
+       *
+       * @param original
+       *            the entry being replaced
+       * @param copy
+       *            the entry replacing it
+       */
+      void onEntryCopied(HashEntry<K, V> original, HashEntry<K, V> copy);
+
       /**
        * Invoked to notify EvictionPolicy implementation that there has been an attempt to access
        * an entry in Segment, however that entry was not present in Segment.
@@ -359,6 +397,20 @@ public void onEntryRemoved(Object key) {
        */
       void onEntryRemove(HashEntry<K, V> e);
 
+      /**
+       * Invoked when the memory used by the Segment exceeds its share of the configured maximum
+       * memory. Implementations should evict entries, in the order dictated by the policy, until the
+       * Segment is back under its limit. The entry that triggered the check must not be evicted.
+       * <p>
+       * Always invoked while holding the Segment lock.
+       *
+       * @param accessed
+       *            the entry just inserted or updated
+       *
+       * @return non null set of evicted entries.
+       */
+      Set<HashEntry<K, V>> trimToMemory(HashEntry<K, V> accessed);
+
       /**
        * Invoked to notify EvictionPolicy implementation that all Segment entries have been
        * cleared.
@@ -389,6 +441,16 @@ public void onEntryRemove(HashEntry<K, V> e) {
          // Do nothing.
       }
 
+      @Override
+      public void onEntryCopied(HashEntry<K, V> original, HashEntry<K, V> copy) {
+         // Do nothing.
+      }
+
+      @Override
+      public Set<HashEntry<K, V>> trimToMemory(HashEntry<K, V> accessed) {
+         return InfinispanCollections.emptySet();
+      }
+
       @Override
       public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V value) {
          return new HashEntry<K, V>(key, hash, next, value);
@@ -406,27 +468,28 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
     * <p/>
     * Note that this class only implements the batching part described in the
     * paper, not the prefetching.
+    * <p/>
+    * Hits are recorded into a {@link ReadBuffer}, a set of striped, bounded
+    * ring buffers. Recording a hit never blocks: when a stripe is full or
+    * contended the hit is simply dropped, which eviction algorithms tolerate
+    * since they only need an approximation of the access order. Buffers are
+    * drained by whichever thread manages to acquire the segment lock with
+    * {@link ReentrantLock#tryLock()}, and unconditionally before any
+    * eviction decision is taken.
     */
    static final class BatchWrapper<K, V> implements EvictionPolicy<K, V> {
 
-      private static final int MAX_BATCH_SIZE = 64;
-
-      private final ConcurrentLinkedQueue<HashEntry<K, V>> accessQueue =
-         new ConcurrentLinkedQueue<HashEntry<K, V>>();
-
-      private final AtomicInteger accessQueueSize = new AtomicInteger(0);
+      private final ReadBuffer<K, V> readBuffer;
 
       private final ReentrantLock lock;
 
-      private final int maxBatchQueueSize;
-
       private final EvictionPolicy<K, V> eviction;
 
       BatchWrapper(ReentrantLock lock, int maxBatchQueueSize,
             EvictionPolicy<K, V> wrappedEvictionPolicy)
       {
          this.lock = lock;
-         this.maxBatchQueueSize = Math.min(maxBatchQueueSize, MAX_BATCH_SIZE);
+         this.readBuffer = new ReadBuffer<K, V>(maxBatchQueueSize);
          this.eviction = wrappedEvictionPolicy;
       }
 
@@ -436,11 +499,7 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
       }
 
       private void processEnqueuedHits() {
-         HashEntry<K, V> e;
-         while ((e = accessQueue.poll()) != null) {
-            eviction.onEntryHit(e);
-         }
-         accessQueueSize.set(0);
+         readBuffer.drainTo(eviction);
       }
 
       @Override
@@ -453,12 +512,9 @@ public Set<HashEntry<K, V>> onEntryMiss(HashEntry<K, V> e) {
 
       @Override
       public void onEntryHit(HashEntry<K, V> e) {
-         accessQueue.add(e);
-         int sz = accessQueueSize.incrementAndGet();
-
          // only process enqueued cache hits if the threshold has been
          // reached *and* we can opportunistically acquire the lock
-         if (sz >= maxBatchQueueSize && lock.tryLock()) {
+         if (readBuffer.record(e) && lock.tryLock()) {
             try {
                processEnqueuedHits();
             } finally {
@@ -472,11 +528,159 @@ public void onEntryRemove(HashEntry<K, V> e) {
          eviction.onEntryRemove(e);
       }
 
+      @Override
+      public void onEntryCopied(HashEntry<K, V> original, HashEntry<K, V> copy) {
+         // the hits recorded for the original are applied to it, and dropped once it was replaced
+         processEnqueuedHits();
+         eviction.onEntryCopied(original, copy);
+      }
+
+      @Override
+      public Set<HashEntry<K, V>> trimToMemory(HashEntry<K, V> accessed) {
+         processEnqueuedHits();
+         return eviction.trimToMemory(accessed);
+      }
+
       @Override
       public void clear() {
          eviction.clear();
-         accessQueue.clear();
-         accessQueueSize.set(0);
+         readBuffer.clear();
+      }
+   }
+
+   /**
+    * Striped, lossy buffer of entry hits.
+    * <p/>
+    * Each stripe is a fixed size ring buffer written by many threads and read
+    * by a single one. Writers pick a stripe based on their thread id, reserve
+    * a slot by incrementing the stripe's write counter with a single CAS and
+    * publish the entry with a lazy set. A writer failing the CAS, or finding
+    * the stripe full, drops the hit rather than retrying. The reader only ever
+    * runs while holding the segment lock, so no further coordination between
+    * readers is needed.
+    */
+   static final class ReadBuffer<K, V> {
+
+      private static final int MAX_BUFFER_SIZE = 32;
+      private static final int MAX_STRIPES = 16;
+
+      private final Stripe<K, V>[] stripes;
+      private final int stripeMask;
+      private final int drainThreshold;
+
+      @SuppressWarnings("unchecked")
+      ReadBuffer(int maxBatchSize) {
+         int bufferSize = 1;
+         while (bufferSize < Math.min(maxBatchSize, MAX_BUFFER_SIZE)) {
+            bufferSize <<= 1;
+         }
+         int stripeCount = 1;
+         int processors = Runtime.getRuntime().availableProcessors();
+         while (stripeCount < Math.min(processors, MAX_STRIPES)) {
+            stripeCount <<= 1;
+         }
+         this.stripes = new Stripe[stripeCount];
+         for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe<K, V>(bufferSize);
+         }
+         this.stripeMask = stripeCount - 1;
+         this.drainThreshold = Math.max(1, bufferSize / 2);
+      }
+
+      /**
+       * Records a hit without blocking.
+       *
+       * @return true if the buffer should be drained
+       */
+      boolean record(HashEntry<K, V> e) {
+         Stripe<K, V> stripe = stripes[stripeIndex()];
+         int pending = stripe.offer(e);
+         return pending < 0 || pending >= drainThreshold;
+      }
+
+      /**
+       * Applies all the recorded hits to the given policy. Call only while holding the segment lock.
+       */
+      void drainTo(EvictionPolicy<K, V> eviction) {
+         for (Stripe<K, V> stripe : stripes) {
+            stripe.drainTo(eviction);
+         }
+      }
+
+      /**
+       * Discards all the recorded hits. Call only while holding the segment lock.
+       */
+      void clear() {
+         for (Stripe<K, V> stripe : stripes) {
+            stripe.clear();
+         }
+      }
+
+      private int stripeIndex() {
+         long id = Thread.currentThread().getId();
+         int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+         return (h ^ (h >>> 16)) & stripeMask;
+      }
+   }
+
+   private static final class Stripe<K, V> {
+
+      private final AtomicReferenceArray<HashEntry<K, V>> buffer;
+      private final int mask;
+      private final AtomicLong writeCounter = new AtomicLong();
+      /** Only written by the thread holding the segment lock */
+      private volatile long readCounter;
+
+      Stripe(int size) {
+         this.buffer = new AtomicReferenceArray<HashEntry<K, V>>(size);
+         this.mask = size - 1;
+      }
+
+      /**
+       * @return the number of hits pending in this stripe, or -1 if the hit was dropped because the stripe is full
+       */
+      int offer(HashEntry<K, V> e) {
+         long head = readCounter;
+         long tail = writeCounter.get();
+         long size = tail - head;
+         if (size >= buffer.length()) {
+            return -1;
+         }
+         if (writeCounter.compareAndSet(tail, tail + 1)) {
+            buffer.lazySet((int) (tail & mask), e);
+            return (int) size + 1;
+         }
+         // lost the race against another writer of the same stripe: drop the hit
+         return 0;
+      }
+
+      void drainTo(EvictionPolicy<K, V> eviction) {
+         long head = readCounter;
+         long tail = writeCounter.get();
+         for (; head < tail; head++) {
+            int index = (int) (head & mask);
+            HashEntry<K, V> e = buffer.get(index);
+            if (e == null) {
+               // slot reserved but not published yet, pick it up on the next drain
+               break;
+            }
+            buffer.lazySet(index, null);
+            eviction.onEntryHit(e);
+         }
+         readCounter = head;
+      }
+
+      void clear() {
+         long head = readCounter;
+         long tail = writeCounter.get();
+         for (; head < tail; head++) {
+            int index = (int) (head & mask);
+            if (buffer.get(index) == null) {
+               break;
+            }
+            buffer.lazySet(index, null);
+         }
+         readCounter = head;
       }
    }
 
@@ -490,7 +694,7 @@ public void clear() {
       private final Set<HashEntry<K, V>> evicted;
 
       public LRU(final Segment<K,V> s, int capacity, float lf) {
-         super(capacity, lf, IterationOrder.ACCESS_ORDER, new Equivalence<HashEntry<K, V>>() {
+         super(s.map.countBounded ? capacity : DEFAULT_INITIAL_CAPACITY, lf, IterationOrder.ACCESS_ORDER, new Equivalence<HashEntry<K, V>>() {
             @Override
             public int hashCode(Object obj) {
                if (obj instanceof HashEntry<?, ?>) {
@@ -553,11 +757,41 @@ public void onEntryRemove(HashEntry<K, V> e) {
          remove(e);
       }
 
+      @Override
+      public void onEntryCopied(HashEntry<K, V> original, HashEntry<K, V> copy) {
+         // entries are tracked by key, so the original keeps the place of its copy
+      }
+
       @Override
       public void clear() {
          super.clear();
       }
 
+      /**
+       * Removes the tracked entry from the segment. The tracked entry may be the original of a copy
+       * made by the segment, so the evicted entry carries the value the segment held.
+       */
+      private HashEntry<K, V> evict(HashEntry<K, V> tracked) {
+         V value = segment.remove(tracked.key, tracked.hash, null, true);
+         return new HashEntry<K, V>(tracked.key, tracked.hash, null, value);
+      }
+
+      @Override
+      public Set<HashEntry<K, V>> trimToMemory(HashEntry<K, V> accessed) {
+         Set<HashEntry<K, V>> evictedByMemory = InfinispanCollections.emptySet();
+         while (segment.isAboveMemoryThreshold() && size() > 1) {
+            HashEntry<K, V> eldest = keySet().iterator().next();
+            if (segment.isSameKey(eldest, accessed)) {
+               break;
+            }
+            if (evictedByMemory.isEmpty()) {
+               evictedByMemory = new HashSet<HashEntry<K, V>>();
+            }
+            evictedByMemory.add(evict(eldest));
+         }
+         return evictedByMemory;
+      }
+
       protected boolean isAboveThreshold(){
          return size() > trimDownSize;
       }
@@ -566,9 +800,7 @@ protected boolean isAboveThreshold(){
       protected boolean removeEldestEntry(Map.Entry<HashEntry<K,V>,V> eldest) {
          boolean aboveThreshold = isAboveThreshold();
          if(aboveThreshold){
-            HashEntry<K, V> evictedEntry = eldest.getKey();
-            segment.remove(evictedEntry.key, evictedEntry.hash, null, true);
-            evicted.add(evictedEntry);
+            evicted.add(evict(eldest.getKey()));
          }
          return aboveThreshold;
       }
@@ -952,6 +1184,38 @@ private void evict() {
         owner = null;
       }
 
+      /**
+       * Hands the place of this entry in the stack and in the queue, and its status, over to a
+       * copy of it. This entry is left out of both, as a non-resident entry whose hits are ignored.
+       */
+      private void replaceWith(LIRSHashEntry<K, V> copy) {
+        copy.state = state;
+        if (inStack()) {
+          copy.previousInStack = previousInStack;
+          copy.nextInStack = nextInStack;
+          previousInStack.nextInStack = copy;
+          nextInStack.previousInStack = copy;
+        } else {
+          copy.previousInStack = null;
+          copy.nextInStack = null;
+        }
+        if (inQueue()) {
+          copy.previousInQueue = previousInQueue;
+          copy.nextInQueue = nextInQueue;
+          previousInQueue.nextInQueue = copy;
+          nextInQueue.previousInQueue = copy;
+        } else {
+          copy.previousInQueue = null;
+          copy.nextInQueue = null;
+        }
+        previousInStack = null;
+        nextInStack = null;
+        previousInQueue = null;
+        nextInQueue = null;
+        state = Recency.HIR_NONRESIDENT;
+        owner = null;
+      }
+
       /**
        * Removes this entry from the cache. This operation is not specified in
        * the paper, which does not account for forced eviction.
@@ -1083,6 +1347,44 @@ public void onEntryRemove(HashEntry<K, V> e) {
          ((LIRSHashEntry<K,V>)e).remove();
       }
 
+      @Override
+      public void onEntryCopied(HashEntry<K, V> original, HashEntry<K, V> copy) {
+         ((LIRSHashEntry<K, V>) original).replaceWith((LIRSHashEntry<K, V>) copy);
+      }
+
+      @Override
+      public Set<HashEntry<K, V>> trimToMemory(HashEntry<K, V> accessed) {
+         Set<HashEntry<K, V>> evicted = InfinispanCollections.emptySet();
+         while (segment.isAboveMemoryThreshold()) {
+            LIRSHashEntry<K, V> victim = queueFront();
+            if (victim != null && segment.isSameKey(victim, accessed)) {
+               // keep the entry just written, try the next cold one
+               victim.moveToQueueEnd();
+               victim = queueFront();
+               if (segment.isSameKey(victim, accessed)) {
+                  victim = null;
+               }
+            }
+            if (victim == null) {
+               // no cold entries left: demote the least recent hot entry
+               LIRSHashEntry<K, V> bottom = stackBottom();
+               if (bottom == null || segment.isSameKey(bottom, accessed)) {
+                  break;
+               }
+               bottom.migrateToQueue();
+               pruneStack();
+               continue;
+            }
+            if (evicted.isEmpty()) {
+               evicted = new HashSet<HashEntry<K, V>>();
+            }
+            evicted.add(victim);
+            victim.evict();
+            segment.remove(victim.key, victim.hash, null, true);
+         }
+         return evicted;
+      }
+
       @Override
       public void clear() {
       }
@@ -1118,6 +1420,315 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
       }
    }
 
+   /**
+    * Entry of the {@link TinyLFU} eviction policy, linked into exactly one of its three LRU queues while resident.
+    */
+   private static final class TinyLFUHashEntry<K, V> extends HashEntry<K, V> {
+
+      private TinyLFUHashEntry<K, V> previousInQueue;
+      private TinyLFUHashEntry<K, V> nextInQueue;
+      private TinyLFUQueue queue;
+
+      TinyLFUHashEntry(K key, int hash, HashEntry<K, V> next, V value) {
+         super(key, hash, next, value);
+         // initially point everything back to self
+         this.previousInQueue = this;
+         this.nextInQueue = this;
+         this.queue = TinyLFUQueue.NONE;
+      }
+
+      @Override
+      public int hashCode() {
+         int result = 17;
+         result = result * 31 + hash;
+         result = result * 31 + key.hashCode();
+         return result;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         // HashEntry is internal class, never leaks out of CHM, hence slight optimization
+         if (this == o) {
+            return true;
+         }
+         if (o == null) {
+            return false;
+         }
+         HashEntry<?, ?> other = (HashEntry<?, ?>) o;
+         return hash == other.hash && key.equals(other.key);
+      }
+
+      /**
+       * Unlinks this entry from the queue it is currently in.
+       */
+      private void unlink() {
+         previousInQueue.nextInQueue = nextInQueue;
+         nextInQueue.previousInQueue = previousInQueue;
+         previousInQueue = null;
+         nextInQueue = null;
+      }
+
+      /**
+       * Hands the place of this entry in its queue over to a copy of it, leaving this entry out of
+       * all the queues.
+       */
+      private void replaceWith(TinyLFUHashEntry<K, V> copy) {
+         copy.queue = queue;
+         if (queue != TinyLFUQueue.NONE) {
+            copy.previousInQueue = previousInQueue;
+            copy.nextInQueue = nextInQueue;
+            previousInQueue.nextInQueue = copy;
+            nextInQueue.previousInQueue = copy;
+            previousInQueue = null;
+            nextInQueue = null;
+            queue = TinyLFUQueue.NONE;
+         }
+      }
+
+      /**
+       * Links this entry as the most recently used entry of the queue with the given header.
+       */
+      private void linkBefore(TinyLFUHashEntry<K, V> header) {
+         previousInQueue = header.previousInQueue;
+         nextInQueue = header;
+         previousInQueue.nextInQueue = this;
+         header.previousInQueue = this;
+      }
+   }
+
+   private enum TinyLFUQueue {
+      NONE, WINDOW, PROBATION, PROTECTED
+   }
+
+   /**
+    * W-TinyLFU eviction policy.
+    * <p/>
+    * New entries are admitted into a small LRU window. Entries leaving the window become candidates for the main
+    * region, a segmented LRU made of a probation and a protected queue. When the segment is full, the candidate
+    * only replaces the least recently used entry of the probation queue if a frequency sketch estimates that it has
+    * been accessed more often; otherwise the candidate is the one evicted. Entries hit while in probation are promoted
+    * to the protected queue. This keeps one-off accesses, such as scans, from flushing frequently used entries out of
+    * the cache, while the window still lets recency bursts in.
+    * <p/>
+    * See "TinyLFU: A Highly Efficient Cache Admission Policy" by Gil Einziger, Roy Friedman and Ben Manes.
+    * <p/>
+    * All methods are invoked while holding the segment lock, read accesses being batched by {@link BatchWrapper}.
+    */
+   static final class TinyLFU<K, V> implements EvictionPolicy<K, V> {
+
+      /** The percentage of the segment dedicated to the admission window */
+      private static final float WINDOW_PERCENTAGE = 0.01f;
+
+      /** The percentage of the main region dedicated to the protected queue */
+      private static final float PROTECTED_PERCENTAGE = 0.80f;
+
+      private final Segment<K, V> segment;
+      private final FrequencySketch sketch;
+
+      private final TinyLFUHashEntry<K, V> window = newHeader();
+      private final TinyLFUHashEntry<K, V> probation = newHeader();
+      private final TinyLFUHashEntry<K, V> protectedQueue = newHeader();
+
+      private final int maximumSize;
+      private final int maximumWindowSize;
+      private final int maximumProtectedSize;
+
+      private int windowSize;
+      private int probationSize;
+      private int protectedSize;
+
+      public TinyLFU(Segment<K, V> s, int capacity) {
+         this.segment = s;
+         this.maximumSize = Math.max(capacity, 1);
+         this.maximumWindowSize = Math.max(1, (int) (WINDOW_PERCENTAGE * maximumSize));
+         this.maximumProtectedSize = (int) (PROTECTED_PERCENTAGE * (maximumSize - maximumWindowSize));
+         // without a bound on the number of entries the window takes them all and only memory evicts them, in
+         // LRU order, so the sketch is never consulted
+         this.sketch = new FrequencySketch(s.map.countBounded ? maximumSize : DEFAULT_INITIAL_CAPACITY);
+      }
+
+      private static <K, V> TinyLFUHashEntry<K, V> newHeader() {
+         return new TinyLFUHashEntry<K, V>(null, 0, null, null);
+      }
+
+      @Override
+      public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V value) {
+         return new TinyLFUHashEntry<K, V>(key, hash, next, value);
+      }
+
+      @Override
+      public Set<HashEntry<K, V>> onEntryMiss(HashEntry<K, V> en) {
+         TinyLFUHashEntry<K, V> e = (TinyLFUHashEntry<K, V>) en;
+         sketch.increment(e.hash);
+         moveTo(e, TinyLFUQueue.WINDOW);
+
+         Set<HashEntry<K, V>> evicted = InfinispanCollections.emptySet();
+         while (windowSize > maximumWindowSize) {
+            // the least recently used window entry is a candidate for the main region
+            TinyLFUHashEntry<K, V> candidate = window.nextInQueue;
+            moveTo(candidate, TinyLFUQueue.PROBATION);
+            if (size() > maximumSize) {
+               TinyLFUHashEntry<K, V> victim = selectVictim(candidate);
+               if (evicted.isEmpty()) {
+                  evicted = new HashSet<HashEntry<K, V>>();
+               }
+               evicted.add(victim);
+               segment.remove(victim.key, victim.hash, null, true);
+            }
+         }
+         return evicted;
+      }
+
+      /**
+       * Chooses between the candidate leaving the window and the main region's least recently used entry, keeping
+       * the one with the highest estimated frequency.
+       */
+      private TinyLFUHashEntry<K, V> selectVictim(TinyLFUHashEntry<K, V> candidate) {
+         TinyLFUHashEntry<K, V> victim = probation.nextInQueue;
+         if (victim == candidate) {
+            // the candidate is the only entry in probation
+            victim = protectedQueue.nextInQueue;
+            if (victim == protectedQueue) {
+               return candidate;
+            }
+         }
+         return sketch.frequency(candidate.hash) > sketch.frequency(victim.hash) ? victim : candidate;
+      }
+
+      @Override
+      public void onEntryHit(HashEntry<K, V> en) {
+         TinyLFUHashEntry<K, V> e = (TinyLFUHashEntry<K, V>) en;
+         switch (e.queue) {
+            case WINDOW:
+               sketch.increment(e.hash);
+               moveTo(e, TinyLFUQueue.WINDOW);
+               break;
+            case PROBATION:
+               sketch.increment(e.hash);
+               moveTo(e, TinyLFUQueue.PROTECTED);
+               while (protectedSize > maximumProtectedSize) {
+                  // demote the least recently used protected entry
+                  moveTo(protectedQueue.nextInQueue, TinyLFUQueue.PROBATION);
+               }
+               break;
+            case PROTECTED:
+               sketch.increment(e.hash);
+               moveTo(e, TinyLFUQueue.PROTECTED);
+               break;
+            default:
+               // entry was removed before the batched hit was processed
+               break;
+         }
+      }
+
+      @Override
+      public void onEntryRemove(HashEntry<K, V> en) {
+         moveTo((TinyLFUHashEntry<K, V>) en, TinyLFUQueue.NONE);
+      }
+
+      @Override
+      public void onEntryCopied(HashEntry<K, V> original, HashEntry<K, V> copy) {
+         ((TinyLFUHashEntry<K, V>) original).replaceWith((TinyLFUHashEntry<K, V>) copy);
+      }
+
+      @Override
+      public Set<HashEntry<K, V>> trimToMemory(HashEntry<K, V> accessed) {
+         Set<HashEntry<K, V>> evicted = InfinispanCollections.emptySet();
+         while (segment.isAboveMemoryThreshold()) {
+            TinyLFUHashEntry<K, V> victim = eldest(probation, accessed);
+            if (victim == null) {
+               victim = eldest(window, accessed);
+            }
+            if (victim == null) {
+               victim = eldest(protectedQueue, accessed);
+            }
+            if (victim == null) {
+               break;
+            }
+            if (evicted.isEmpty()) {
+               evicted = new HashSet<HashEntry<K, V>>();
+            }
+            evicted.add(victim);
+            segment.remove(victim.key, victim.hash, null, true);
+         }
+         return evicted;
+      }
+
+      private TinyLFUHashEntry<K, V> eldest(TinyLFUHashEntry<K, V> header, HashEntry<K, V> accessed) {
+         for (TinyLFUHashEntry<K, V> e = header.nextInQueue; e != header; e = e.nextInQueue) {
+            if (!segment.isSameKey(e, accessed)) {
+               return e;
+            }
+         }
+         return null;
+      }
+
+      @Override
+      public void clear() {
+         resetHeader(window);
+         resetHeader(probation);
+         resetHeader(protectedQueue);
+         windowSize = 0;
+         probationSize = 0;
+         protectedSize = 0;
+         sketch.clear();
+      }
+
+      private int size() {
+         return windowSize + probationSize + protectedSize;
+      }
+
+      private static <K, V> void resetHeader(TinyLFUHashEntry<K, V> header) {
+         header.previousInQueue = header;
+         header.nextInQueue = header;
+      }
+
+      /**
+       * Moves the entry to the most recently used position of the given queue, or unlinks it if the queue is
+       * {@link TinyLFUQueue#NONE}, keeping the queue sizes up to date.
+       */
+      private void moveTo(TinyLFUHashEntry<K, V> e, TinyLFUQueue target) {
+         if (e.queue != TinyLFUQueue.NONE) {
+            e.unlink();
+            adjustSize(e.queue, -1);
+         }
+         e.queue = target;
+         if (target != TinyLFUQueue.NONE) {
+            e.linkBefore(headerOf(target));
+            adjustSize(target, 1);
+         }
+      }
+
+      private TinyLFUHashEntry<K, V> headerOf(TinyLFUQueue queue) {
+         switch (queue) {
+            case WINDOW:
+               return window;
+            case PROBATION:
+               return probation;
+            case PROTECTED:
+               return protectedQueue;
+            default:
+               throw new IllegalArgumentException("No header for queue " + queue);
+         }
+      }
+
+      private void adjustSize(TinyLFUQueue queue, int delta) {
+         switch (queue) {
+            case WINDOW:
+               windowSize += delta;
+               break;
+            case PROBATION:
+               probationSize += delta;
+               break;
+            case PROTECTED:
+               protectedSize += delta;
+               break;
+            default:
+               break;
+         }
+      }
+   }
+
    /**
     * Segments are specialized versions of hash tables.  This
     * subclasses from ReentrantLock opportunistically, just to
@@ -1168,6 +1779,12 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
        */
       transient volatile int count;
 
+      /**
+       * The estimated memory used by the entries in this segment, only
+       * maintained when the map was created with an entry size calculator.
+       */
+      transient volatile long memoryUsed;
+
       /**
        * Number of updates that alter the size of the table. This is
        * used during bulk-read methods to make sure they see a
@@ -1207,10 +1824,11 @@ public HashEntry<K, V> createNewEntry(K key, int hash, HashEntry<K, V> next, V v
          loadFactor = lf;
          eviction = es.make(this, map.evictCap, lf);
          setTable(HashEntry.<K, V> newArray(cap));
-         // disable rehashing if eviction is enabled (rehashing in this map
-         // implementation involves recreating all entries, which breaks the
-         // order maintained by the eviction algorithms)
-         if (es != Eviction.NONE) {
+         // disable rehashing if the number of entries is bounded: the table is
+         // already sized for them. Otherwise the table grows with the entries
+         // and the eviction policy moves the copies made by rehashing into the
+         // place of the originals
+         if (es != Eviction.NONE && map.countBounded) {
             threshold = Integer.MAX_VALUE;
          }
       }
@@ -1224,6 +1842,54 @@ EvictionListener<K, V> getEvictionListener() {
          return map.evictionListener;
       }
 
+      boolean isAboveMemoryThreshold() {
+         return map.evictMemoryCap > 0 && memoryUsed > map.evictMemoryCap;
+      }
+
+      boolean isSameKey(HashEntry<K, V> e, HashEntry<K, V> other) {
+         return e == other || (e != null && other != null && e.hash == other.hash
+               && map.keyEquivalence.equals(e.key, other.key));
+      }
+
+      /**
+       * Creates a copy of the given entry, preserving its accounted memory size.
+       */
+      private HashEntry<K, V> copyEntry(HashEntry<K, V> p, HashEntry<K, V> next) {
+         HashEntry<K, V> copy = eviction.createNewEntry(p.key, p.hash, next, p.value);
+         copy.memorySize = p.memorySize;
+         return copy;
+      }
+
+      /**
+       * Creates a copy of the given entry which replaces it in the eviction policy.
+       * Call only while holding lock.
+       */
+      private HashEntry<K, V> replaceEntry(HashEntry<K, V> p, HashEntry<K, V> next) {
+         HashEntry<K, V> copy = copyEntry(p, next);
+         eviction.onEntryCopied(p, copy);
+         return copy;
+      }
+
+      /**
+       * Evicts entries if the segment went over its memory limit after e was written.
+       * Call only while holding lock.
+       */
+      private Set<HashEntry<K, V>> trimToMemory(HashEntry<K, V> e, Set<HashEntry<K, V>> evicted) {
+         if (!isAboveMemoryThreshold()) {
+            return evicted;
+         }
+         Set<HashEntry<K, V>> evictedByMemory = eviction.trimToMemory(e);
+         if (evicted == null || evicted.isEmpty()) {
+            return evictedByMemory;
+         }
+         if (evictedByMemory.isEmpty()) {
+            return evicted;
+         }
+         Set<HashEntry<K, V>> merged = new HashSet<HashEntry<K, V>>(evicted);
+         merged.addAll(evictedByMemory);
+         return merged;
+      }
+
       /**
        * Sets table to new HashEntry array.
        * Call only while holding lock or in constructor.
@@ -1318,8 +1984,9 @@ boolean containsValue(Object value) {
          return false;
       }
 
-      boolean replace(K key, int hash, V oldValue, V newValue) {
+      boolean replace(K key, int hash, V oldValue, V newValue, long memorySize) {
          lock();
+         Set<HashEntry<K, V>> evicted = null;
          try {
             HashEntry<K, V> e = getFirst(hash);
             while (e != null && (e.hash != hash || !map.keyEquivalence.equals(key, e.key))) {
@@ -1330,16 +1997,21 @@ boolean replace(K key, int hash, V oldValue, V newValue) {
             if (e != null && map.valueEquivalence.equals(oldValue, e.value)) {
                replaced = true;
                e.value = newValue;
+               memoryUsed += memorySize - e.memorySize;
+               e.memorySize = memorySize;
                eviction.onEntryHit(e);
+               evicted = trimToMemory(e, null);
             }
             return replaced;
          } finally {
             unlock();
+            notifyEvictionListener(evicted);
          }
       }
 
-      V replace(K key, int hash, V newValue) {
+      V replace(K key, int hash, V newValue, long memorySize) {
          lock();
+         Set<HashEntry<K, V>> evicted = null;
          try {
             HashEntry<K, V> e = getFirst(hash);
             while (e != null && (e.hash != hash || !key.equals(e.key))) {
@@ -1350,15 +2022,19 @@ V replace(K key, int hash, V newValue) {
             if (e != null) {
                oldValue = e.value;
                e.value = newValue;
+               memoryUsed += memorySize - e.memorySize;
+               e.memorySize = memorySize;
                eviction.onEntryHit(e);
+               evicted = trimToMemory(e, null);
             }
             return oldValue;
          } finally {
             unlock();
+            notifyEvictionListener(evicted);
          }
       }
 
-      V put(K key, int hash, V value, boolean onlyIfAbsent) {
+      V put(K key, int hash, V value, boolean onlyIfAbsent, long memorySize) {
          lock();
          Set<HashEntry<K, V>> evicted = null;
          try {
@@ -1379,16 +2055,23 @@ V put(K key, int hash, V value, boolean onlyIfAbsent) {
                oldValue = e.value;
                if (!onlyIfAbsent) {
                   e.value = value;
+                  memoryUsed += memorySize - e.memorySize;
+                  e.memorySize = memorySize;
                   eviction.onEntryHit(e);
+                  evicted = trimToMemory(e, null);
                }
             } else {
                oldValue = null;
                ++modCount;
                count = c; // write-volatile
                // add a new entry
-               tab[index] = eviction.createNewEntry(key, hash, first, value);
+               HashEntry<K, V> newEntry = eviction.createNewEntry(key, hash, first, value);
+               newEntry.memorySize = memorySize;
+               memoryUsed += memorySize;
+               tab[index] = newEntry;
                // notify a miss
-               evicted = eviction.onEntryMiss(tab[index]);
+               evicted = eviction.onEntryMiss(newEntry);
+               evicted = trimToMemory(newEntry, evicted);
                // When entry not present, attempt to activate if necessary
                map.evictionListener.onEntryActivated(key);
             }
@@ -1454,7 +2137,7 @@ void rehash() {
                   for (HashEntry<K,V> p = e; p != lastRun; p = p.next) {
                      int k = p.hash & sizeMask;
                      HashEntry<K,V> n = newTable[k];
-                     newTable[k] = eviction.createNewEntry(p.key, p.hash, n, p.value);
+                     newTable[k] = replaceEntry(p, n);
                   }
                }
             }
@@ -1495,15 +2178,13 @@ V remove(Object key, int hash, Object value, boolean isEvict) {
 
                   // e was removed
                   eviction.onEntryRemove(e);
+                  memoryUsed -= e.memorySize;
 
                   HashEntry<K, V> newFirst = e.next;
                   for (HashEntry<K, V> p = first; p != e; p = p.next) {
-                     // TODO A remove operation makes the map behave like all the other keys in the bucket were just added???
-                     // allow p to be GC-ed
-                     eviction.onEntryRemove(p);
-                     newFirst = eviction.createNewEntry(p.key, p.hash, newFirst, p.value);
-                     // and notify eviction algorithm about new hash entries
-                     eviction.onEntryMiss(newFirst);
+                     // the copies take over the place of the originals in the eviction order,
+                     // they are neither new entries nor accesses
+                     newFirst = replaceEntry(p, newFirst);
                   }
 
                   tab[index] = newFirst;
@@ -1540,6 +2221,7 @@ void clear() {
                }
                ++modCount;
                eviction.clear();
+               memoryUsed = 0;
                count = 0; // write-volatile
             } finally {
                unlock();
@@ -1594,19 +2276,61 @@ private void notifyEvictionListener(Set<HashEntry<K, V>> evicted) {
    public BoundedConcurrentHashMap(int capacity, int concurrencyLevel,
          Eviction evictionStrategy, EvictionListener<? super K, ? super V> evictionListener,
          Equivalence<? super K> keyEquivalence, Equivalence<? super V> valueEquivalence) {
+      this(capacity, concurrencyLevel, evictionStrategy, evictionListener, keyEquivalence, valueEquivalence, null, -1);
+   }
+
+   /**
+    * Creates a new, empty map which, in addition to the maximum number of elements, keeps track
+    * of the estimated memory used by its entries and evicts elements once that exceeds the given
+    * maximum.
+    *
+    * @param capacity
+    *            is the upper bound capacity for the number of elements in this map, or a value lower
+    *            or equal to zero to bound the map by memory only, in which case its table grows with
+    *            the elements
+    *
+    * @param concurrencyLevel
+    *            the estimated number of concurrently updating threads. The implementation performs
+    *            internal sizing to try to accommodate this many threads.
+    *
+    * @param evictionStrategy
+    *            the algorithm used to evict elements from this map
+    *
+    * @param evictionListener
+    *            the evicton listener callback to be notified about evicted elements
+    *
+    * @param sizeCalculator
+    *            estimates the memory used by each entry, or <code>null</code> to disable memory tracking
+    *
+    * @param maxMemory
+    *            the upper bound of the memory used by the elements in this map, or a value lower
+    *            or equal to zero to only track memory usage without evicting based on it
+    *
+    * @throws IllegalArgumentException
+    *             if the capacity is negative while the memory is not bounded, or the load factor or
+    *             concurrencyLevel are nonpositive.
+    */
+   public BoundedConcurrentHashMap(int capacity, int concurrencyLevel,
+         Eviction evictionStrategy, EvictionListener<? super K, ? super V> evictionListener,
+         Equivalence<? super K> keyEquivalence, Equivalence<? super V> valueEquivalence,
+         EntrySizeCalculator<? super K, ? super V> sizeCalculator, long maxMemory) {
       this.keyEquivalence = keyEquivalence;
+      this.sizeCalculator = sizeCalculator;
       this.valueEquivalence = valueEquivalence;
+      this.countBounded = capacity > 0 || sizeCalculator == null || maxMemory <= 0;
 
-      if (capacity < 0 || concurrencyLevel <= 0) {
+      if (countBounded && capacity < 0 || concurrencyLevel <= 0) {
          throw new IllegalArgumentException();
       }
 
-      concurrencyLevel = Math.min(capacity / 2, concurrencyLevel); // concurrencyLevel cannot be > capacity/2
-      concurrencyLevel = Math.max(concurrencyLevel, 1); // concurrencyLevel cannot be less than 1
+      if (countBounded) {
+         concurrencyLevel = Math.min(capacity / 2, concurrencyLevel); // concurrencyLevel cannot be > capacity/2
+         concurrencyLevel = Math.max(concurrencyLevel, 1); // concurrencyLevel cannot be less than 1
 
-      // minimum two elements per segment
-      if (capacity < concurrencyLevel * 2 && capacity != 1) {
-         throw new IllegalArgumentException("Maximum capacity has to be at least twice the concurrencyLevel");
+         // minimum two elements per segment
+         if (capacity < concurrencyLevel * 2 && capacity != 1) {
+            throw new IllegalArgumentException("Maximum capacity has to be at least twice the concurrencyLevel");
+         }
       }
 
       if (evictionStrategy == null || evictionListener == null) {
@@ -1632,7 +2356,9 @@ public BoundedConcurrentHashMap(int capacity, int concurrencyLevel,
       segmentMask = ssize - 1;
       this.segments = Segment.newArray(ssize);
 
-      if (capacity > MAXIMUM_CAPACITY) {
+      if (!countBounded) {
+         capacity = DEFAULT_INITIAL_CAPACITY;
+      } else if (capacity > MAXIMUM_CAPACITY) {
          capacity = MAXIMUM_CAPACITY;
       }
       int c = capacity / ssize;
@@ -1641,7 +2367,8 @@ public BoundedConcurrentHashMap(int capacity, int concurrencyLevel,
          cap <<= 1;
       }
 
-      this.evictCap = c;
+      this.evictCap = countBounded ? c : Integer.MAX_VALUE;
+      this.evictMemoryCap = sizeCalculator != null && maxMemory > 0 ? Math.max(1, maxMemory / ssize) : -1;
 
       for (int i = 0; i < this.segments.length; ++i) {
          this.segments[i] = new Segment<K, V>(cap, DEFAULT_LOAD_FACTOR, evictionStrategy, this);
@@ -1950,7 +2677,7 @@ public V put(K key, V value) {
          throw new NullPointerException();
       }
       int hash = hash(keyEquivalence.hashCode(key));
-      return segmentFor(hash).put(key, hash, value, false);
+      return segmentFor(hash).put(key, hash, value, false, sizeOf(key, value));
    }
 
    /**
@@ -1966,7 +2693,7 @@ public V putIfAbsent(K key, V value) {
          throw new NullPointerException();
       }
       int hash = hash(keyEquivalence.hashCode(key));
-      return segmentFor(hash).put(key, hash, value, true);
+      return segmentFor(hash).put(key, hash, value, true, sizeOf(key, value));
    }
 
    /**
@@ -2036,7 +2763,7 @@ public boolean replace(K key, V oldValue, V newValue) {
          throw new NullPointerException();
       }
       int hash = hash(keyEquivalence.hashCode(key));
-      return segmentFor(hash).replace(key, hash, oldValue, newValue);
+      return segmentFor(hash).replace(key, hash, oldValue, newValue, sizeOf(key, newValue));
    }
 
    /**
@@ -2052,7 +2779,26 @@ public V replace(K key, V value) {
          throw new NullPointerException();
       }
       int hash = hash(key.hashCode());
-      return segmentFor(hash).replace(key, hash, value);
+      return segmentFor(hash).replace(key, hash, value, sizeOf(key, value));
+   }
+
+   /**
+    * Returns the estimated memory used by the entries of this map, as computed by the entry size
+    * calculator the map was created with, or <code>-1</code> if the map does not track memory.
+    */
+   public long memoryUsed() {
+      if (sizeCalculator == null) {
+         return -1;
+      }
+      long total = 0;
+      for (Segment<K, V> segment : segments) {
+         total += segment.memoryUsed;
+      }
+      return total;
+   }
+
+   private long sizeOf(K key, V value) {
+      return sizeCalculator == null ? 0 : sizeCalculator.calculateSize(key, value);
    }
 
    /**
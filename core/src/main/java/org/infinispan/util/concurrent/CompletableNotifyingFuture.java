@@ -0,0 +1,120 @@
+package org.infinispan.util.concurrent;
+
+import org.infinispan.commons.util.concurrent.BaseNotifyingFuture;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link org.infinispan.commons.util.concurrent.NotifyingFuture} completed explicitly, by whichever thread produces
+ * its outcome. Only the first of {@link #complete(Object)}, {@link #completeExceptionally(Throwable)} and {@link
+ * #cancel(boolean)} has an effect. The listeners are invoked by the completing thread, so they must not block.
+ *
+ * @since 7.0
+ */
+public class CompletableNotifyingFuture<T> extends BaseNotifyingFuture<T> {
+
+   private final AtomicBoolean completed = new AtomicBoolean();
+   private final CountDownLatch done = new CountDownLatch(1);
+   private volatile T value;
+   private volatile Throwable exception;
+   private volatile boolean cancelled;
+
+   /**
+    * @return a future already completed with the given value
+    */
+   public static <T> CompletableNotifyingFuture<T> completed(T value) {
+      CompletableNotifyingFuture<T> future = new CompletableNotifyingFuture<T>();
+      future.complete(value);
+      return future;
+   }
+
+   /**
+    * @return a future already completed with the given exception
+    */
+   public static <T> CompletableNotifyingFuture<T> failed(Throwable exception) {
+      CompletableNotifyingFuture<T> future = new CompletableNotifyingFuture<T>();
+      future.completeExceptionally(exception);
+      return future;
+   }
+
+   /**
+    * @return true if this invocation completed the future
+    */
+   public boolean complete(T value) {
+      if (!completed.compareAndSet(false, true)) {
+         return false;
+      }
+      this.value = value;
+      done();
+      return true;
+   }
+
+   /**
+    * @return true if this invocation completed the future
+    */
+   public boolean completeExceptionally(Throwable exception) {
+      if (!completed.compareAndSet(false, true)) {
+         return false;
+      }
+      this.exception = exception;
+      done();
+      return true;
+   }
+
+   @Override
+   public boolean cancel(boolean mayInterruptIfRunning) {
+      if (!completed.compareAndSet(false, true)) {
+         return false;
+      }
+      cancelled = true;
+      done();
+      return true;
+   }
+
+   @Override
+   public boolean isCancelled() {
+      return cancelled;
+   }
+
+   @Override
+   public boolean isDone() {
+      return done.getCount() == 0;
+   }
+
+   @Override
+   public T get() throws InterruptedException, ExecutionException {
+      // an interrupted thread can still read the outcome of a completed future
+      if (!isDone()) {
+         done.await();
+      }
+      return outcome();
+   }
+
+   @Override
+   public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+                                                    java.util.concurrent.TimeoutException {
+      if (!isDone() && !done.await(timeout, unit)) {
+         throw new java.util.concurrent.TimeoutException();
+      }
+      return outcome();
+   }
+
+   private void done() {
+      done.countDown();
+      fireListeners();
+   }
+
+   private T outcome() throws ExecutionException {
+      if (cancelled) {
+         throw new CancellationException();
+      }
+      if (exception != null) {
+         throw new ExecutionException(exception);
+      }
+      return value;
+   }
+}
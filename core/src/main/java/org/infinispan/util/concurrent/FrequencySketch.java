@@ -0,0 +1,102 @@
+package org.infinispan.util.concurrent;
+
+/**
+ * A probabilistic multiset estimating the popularity of a key within a time window, used by the TinyLFU eviction
+ * policy of {@link BoundedConcurrentHashMap} to decide whether a new entry should be admitted at the expense of an
+ * existing one.
+ * <p/>
+ * This is a Count-Min sketch using 4-bit counters packed into longs, with four counters per key. Once the number of
+ * recorded accesses reaches ten times the maximum size of the cache all counters are halved, so that the frequency of
+ * entries which are not accessed anymore decays over time.
+ * <p/>
+ * See "TinyLFU: A Highly Efficient Cache Admission Policy" by Gil Einziger, Roy Friedman and Ben Manes.
+ * <p/>
+ * This class is not thread safe, callers must hold the segment lock.
+ *
+ * @since 7.0
+ */
+final class FrequencySketch {
+
+   private static final long[] SEEDS = {
+         0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+   private static final long RESET_MASK = 0x7777777777777777L;
+   private static final long ONE_MASK = 0x1111111111111111L;
+
+   private final long[] table;
+   private final int tableMask;
+   private final int sampleSize;
+   private int size;
+
+   FrequencySketch(int maximumSize) {
+      int capacity = 8;
+      while (capacity < maximumSize && capacity < (1 << 30)) {
+         capacity <<= 1;
+      }
+      table = new long[capacity];
+      tableMask = capacity - 1;
+      sampleSize = maximumSize <= 0 ? 10 : (int) Math.min(10L * maximumSize, Integer.MAX_VALUE);
+   }
+
+   /**
+    * Returns the estimated number of occurrences of the given hash, up to a maximum of 15.
+    */
+   int frequency(int hash) {
+      int start = (hash & 3) << 2;
+      int frequency = Integer.MAX_VALUE;
+      for (int i = 0; i < 4; i++) {
+         int index = indexOf(hash, i);
+         int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+         frequency = Math.min(frequency, count);
+      }
+      return frequency;
+   }
+
+   /**
+    * Increments the popularity of the given hash, periodically aging all the counters.
+    */
+   void increment(int hash) {
+      int start = (hash & 3) << 2;
+      boolean added = false;
+      for (int i = 0; i < 4; i++) {
+         added |= incrementAt(indexOf(hash, i), start + i);
+      }
+      if (added && ++size == sampleSize) {
+         reset();
+      }
+   }
+
+   void clear() {
+      for (int i = 0; i < table.length; i++) {
+         table[i] = 0L;
+      }
+      size = 0;
+   }
+
+   private boolean incrementAt(int index, int counter) {
+      int offset = counter << 2;
+      long mask = 0xfL << offset;
+      if ((table[index] & mask) != mask) {
+         table[index] += 1L << offset;
+         return true;
+      }
+      return false;
+   }
+
+   /**
+    * Halves every counter, adjusting the sample size by the number of odd counters that lost their remainder.
+    */
+   private void reset() {
+      int odd = 0;
+      for (int i = 0; i < table.length; i++) {
+         odd += Long.bitCount(table[i] & ONE_MASK);
+         table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      size = (size >>> 1) - (odd >>> 2);
+   }
+
+   private int indexOf(int hash, int i) {
+      long h = (hash + SEEDS[i]) * SEEDS[i];
+      h += h >>> 32;
+      return ((int) h) & tableMask;
+   }
+}
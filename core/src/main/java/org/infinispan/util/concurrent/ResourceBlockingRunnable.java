@@ -0,0 +1,20 @@
+package org.infinispan.util.concurrent;
+
+/**
+ * A {@link BlockingRunnable} that tells which resource it waits for, so that a {@link BlockingTaskAwareExecutorService}
+ * only re-evaluates it when that resource changes, i.e. when {@link BlockingTaskAwareExecutorService#checkForReadyTasks(Object)}
+ * is invoked with it, instead of on every check.
+ *
+ * @since 7.0
+ */
+public interface ResourceBlockingRunnable extends BlockingRunnable {
+
+   /**
+    * Invoked after {@link #isReady()} returned false.
+    *
+    * @return the resource this runnable waits for, which must still be unavailable, or {@code null} if this runnable
+    *         must be re-evaluated on every check
+    */
+   Object getBlockingResource();
+
+}
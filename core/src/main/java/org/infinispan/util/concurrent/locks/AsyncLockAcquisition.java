@@ -0,0 +1,187 @@
+package org.infinispan.util.concurrent.locks;
+
+import org.infinispan.commons.util.concurrent.BaseNotifyingFuture;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+import org.infinispan.util.concurrent.locks.containers.AsyncLockContainer;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * The future returned by {@link LockManager#acquireLocksAsync(java.util.Collection, Object, long)}: it requests the
+ * locks of the keys from the {@link AsyncLockContainer} one at a time, in the order of the collection, and only requests
+ * the lock of a key once the lock of the previous key has been granted, so that two acquisitions of overlapping keys
+ * in the same order can't wait for each other. It completes when the last lock is granted, or when the timeout expires
+ * or the acquisition is cancelled, in which case it gives back the locks granted so far.
+ *
+ * @since 7.0
+ */
+final class AsyncLockAcquisition<L extends Lock> extends BaseNotifyingFuture<Boolean> implements FutureListener<L>, Runnable {
+
+   private final AsyncLockContainer<L> lockContainer;
+   private final Object lockOwner;
+   private final Object[] keys;
+   private final CountDownLatch done = new CountDownLatch(1);
+   // the number of locks granted, guarded by this
+   private int granted;
+   // the request waiting for the lock of keys[granted], guarded by this
+   private NotifyingFuture<L> waiting;
+   // guarded by this
+   private boolean completed;
+   private volatile boolean acquired;
+   private volatile boolean cancelled;
+   private volatile ScheduledFuture<?> timeoutTask;
+
+   AsyncLockAcquisition(AsyncLockContainer<L> lockContainer, Collection<Object> keys, Object lockOwner) {
+      this.lockContainer = lockContainer;
+      this.lockOwner = lockOwner;
+      this.keys = keys.toArray();
+   }
+
+   void start(ScheduledExecutorService timeoutExecutor, long timeoutMillis) {
+      requestLocks();
+      if (!isDone()) {
+         ScheduledFuture<?> task = timeoutExecutor.schedule(this, timeoutMillis, TimeUnit.MILLISECONDS);
+         timeoutTask = task;
+         if (isDone()) {
+            // the last lock was granted while the task was being scheduled
+            task.cancel(false);
+         }
+      }
+   }
+
+   @Override
+   public void futureDone(Future<L> request) {
+      if (request.isCancelled()) {
+         return;
+      }
+      synchronized (this) {
+         // if the acquisition was aborted, the lock has already been given back as the request couldn't be cancelled
+         if (completed || request != waiting) {
+            return;
+         }
+         waiting = null;
+         granted++;
+      }
+      requestLocks();
+   }
+
+   /**
+    * Invoked by the timeout task.
+    */
+   @Override
+   public void run() {
+      abort(false);
+   }
+
+   /**
+    * Requests the locks of the keys following the last granted one, until a lock is held by another owner or all of
+    * them are granted.
+    */
+   private void requestLocks() {
+      NotifyingFuture<L> request;
+      synchronized (this) {
+         if (completed) {
+            return;
+         }
+         while (granted < keys.length) {
+            NotifyingFuture<L> next = lockContainer.acquireLockAsync(lockOwner, keys[granted]);
+            if (!next.isDone()) {
+               waiting = next;
+               break;
+            }
+            granted++;
+         }
+         if (waiting == null) {
+            completed = true;
+            acquired = true;
+         }
+         request = waiting;
+      }
+      if (request != null) {
+         // invoked at once if the lock was granted in the meantime
+         request.attachListener(this);
+         return;
+      }
+      ScheduledFuture<?> task = timeoutTask;
+      if (task != null) {
+         task.cancel(false);
+      }
+      complete();
+   }
+
+   private boolean abort(boolean cancel) {
+      NotifyingFuture<L> request;
+      int toRelease;
+      synchronized (this) {
+         if (completed) {
+            return false;
+         }
+         completed = true;
+         request = waiting;
+         toRelease = granted;
+      }
+      // a request that can't be cancelled has been granted, so the lock has to be given back
+      if (request != null && !request.cancel(false)) {
+         toRelease++;
+      }
+      // the locks are released outside the monitor, as releasing them grants them to other acquisitions
+      for (int i = 0; i < toRelease; i++) {
+         lockContainer.releaseLock(lockOwner, keys[i]);
+      }
+      cancelled = cancel;
+      complete();
+      return true;
+   }
+
+   private void complete() {
+      done.countDown();
+      fireListeners();
+   }
+
+   @Override
+   public boolean cancel(boolean mayInterruptIfRunning) {
+      return abort(true);
+   }
+
+   @Override
+   public boolean isCancelled() {
+      return cancelled;
+   }
+
+   @Override
+   public boolean isDone() {
+      return done.getCount() == 0;
+   }
+
+   @Override
+   public Boolean get() throws InterruptedException {
+      done.await();
+      return acquired;
+   }
+
+   @Override
+   public Boolean get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+      if (!done.await(timeout, unit)) {
+         throw new TimeoutException();
+      }
+      return acquired;
+   }
+
+   @Override
+   public String toString() {
+      return "AsyncLockAcquisition{" +
+            "keys=" + Arrays.toString(keys) +
+            ", lockOwner=" + lockOwner +
+            ", acquired=" + acquired +
+            '}';
+   }
+}
@@ -1,33 +1,61 @@
 package org.infinispan.util.concurrent.locks;
 
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.remote.DeadlockProbeCommand;
+import org.infinispan.commons.CacheException;
+import org.infinispan.commons.util.CollectionFactory;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
+import org.infinispan.interceptors.locking.ClusteringDependentLogic;
 import org.infinispan.jmx.annotations.MBean;
 import org.infinispan.jmx.annotations.ManagedAttribute;
 import org.infinispan.jmx.annotations.ManagedOperation;
 import org.infinispan.jmx.annotations.MeasurementType;
+import org.infinispan.remoting.rpc.ResponseMode;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.transaction.impl.LocalTransaction;
+import org.infinispan.transaction.impl.TransactionTable;
 import org.infinispan.transaction.xa.DldGlobalTransaction;
 import org.infinispan.util.TimeService;
+import org.infinispan.util.concurrent.locks.containers.AsyncLockContainer;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 /**
  * Lock manager in charge with processing deadlock detections.
- * Implementation notes: if a deadlock is detected, then one of the transactions has to rollback. The transaction that
- * rollbacks is determined by comparing the coin toss from {@link org.infinispan.transaction.xa.DldGlobalTransaction}.
- * A thread calling {@link LockManager#lockAndRecord(Object, org.infinispan.context.InvocationContext, long)}
- * would run the deadlock detection algorithm only if all of the following take place:
- * - the call is made in the scope of a transaction (either locally originated or remotely originated)
- * - it cannot acquire lock on the given key and the lock owner is another transaction
- * - when comparing coin toss, this thread would loose against the other one - so it's always the potential loser that runs DLD.
- * If deadlock is detected then {@link LockManager#lockAndRecord(Object, org.infinispan.context.InvocationContext, long)} would throw an
- * {@link org.infinispan.util.concurrent.locks.DeadlockDetectedException}. This is subsequently handled in
- * in the interceptor chain - locks owned by this tx are released.
+ * <p/>
+ * Implementation notes: the transactions waiting for a lock form a wait-for graph, whose edges go from a waiting
+ * transaction to the owner of the lock it waits for. A wait is recorded when a call to {@link
+ * LockManager#lockAndRecord(Object, org.infinispan.context.InvocationContext, long)} made in the scope of a
+ * transaction can't acquire the lock right away, so the detection costs nothing to the transactions that don't wait.
+ * <p/>
+ * The waiting transaction then sends a probe along the edges of the graph: locally by looking up the owner of the lock
+ * each transaction waits for, and to the other nodes through a {@link DeadlockProbeCommand} when a transaction waits
+ * for locks acquired by a remote prepare or lock command, whose keys are piggy-backed on the transaction as its remote
+ * lock intention. A probe coming back to the transaction that sent it means the transactions it went through are in a
+ * deadlock, and the youngest of them, according to the coin toss from {@link DldGlobalTransaction}, is aborted. The
+ * probe is sent again, at increasing intervals starting with the configured spin duration, as long as the wait lasts.
+ * <p/>
+ * The aborted transaction gets a {@link org.infinispan.util.concurrent.locks.DeadlockDetectedException} from {@link
+ * LockManager#lockAndRecord(Object, org.infinispan.context.InvocationContext, long)}. This is subsequently handled in
+ * the interceptor chain - locks owned by this tx are released.
  *
  * @author Mircea.Markus@jboss.com
  */
@@ -46,8 +74,18 @@ public class DeadlockDetectingLockManager extends LockManagerImpl {
 
    private AtomicLong cannotRunDld = new AtomicLong(0);
 
+   private final ConcurrentMap<DldGlobalTransaction, Waiter> waiting = CollectionFactory.makeConcurrentMap();
+
    private TimeService timeService;
 
+   private TransactionTable txTable;
+
+   private RpcManager rpcManager;
+
+   private CommandsFactory commandsFactory;
+
+   private ClusteringDependentLogic cdl;
+
    @Start
    public void init() {
       spinDuration = configuration.deadlockDetection().spinDuration();
@@ -59,92 +97,196 @@ public void injectTimeService(TimeService timeService) {
       this.timeService = timeService;
    }
 
+   @Inject
+   public void injectDeadlockDetectionDependencies(TransactionTable txTable, RpcManager rpcManager,
+                                                   CommandsFactory commandsFactory, ClusteringDependentLogic cdl) {
+      this.txTable = txTable;
+      this.rpcManager = rpcManager;
+      this.commandsFactory = commandsFactory;
+      this.cdl = cdl;
+   }
+
    @Override
    public boolean lockAndRecord(Object key, InvocationContext ctx, long lockTimeout) throws InterruptedException {
+      if (!ctx.isInTxScope() || !(lockContainer instanceof AsyncLockContainer)) {
+         return super.lockAndRecord(key, ctx, lockTimeout);
+      }
       if (trace) log.tracef("Attempting to lock %s with acquisition timeout of %s millis", key, lockTimeout);
 
-      if (ctx.isInTxScope()) {
-         final long timeoutNanoTime = timeService.expectedEndTime(lockTimeout, MILLISECONDS);
-         DldGlobalTransaction thisTx = (DldGlobalTransaction) ctx.getLockOwner();
-         thisTx.setLockIntention(key);
-         if (trace) log.tracef("Setting lock intention to %s for %s (%s)", key, thisTx, System.identityHashCode(thisTx));
+      DldGlobalTransaction thisTx = (DldGlobalTransaction) ctx.getLockOwner();
+      NotifyingFuture<?> request = ((AsyncLockContainer<?>) lockContainer).acquireLockAsync(thisTx, key);
+      if (request.isDone()) {
+         if (trace) log.tracef("Successfully acquired lock on %s on behalf of %s.", key, thisTx);
+         return true;
+      }
+
+      Waiter waiter = new Waiter(key, request);
+      thisTx.setLockIntention(key);
+      waiting.put(thisTx, waiter);
+      try {
+         return awaitLock(thisTx, key, request, lockTimeout);
+      } finally {
+         waiting.remove(thisTx, waiter);
+         thisTx.setLockIntention(null);
+      }
+   }
 
-         while (!timeService.isTimeExpired(timeoutNanoTime)) {
-            if (lockContainer.acquireLock(ctx.getLockOwner(), key, spinDuration, MILLISECONDS) != null) {
-               thisTx.setLockIntention(null); //clear lock intention
-               if (trace) log.tracef("Successfully acquired lock on %s on behalf of %s.", key, ctx.getLockOwner());
+   private boolean awaitLock(DldGlobalTransaction thisTx, Object key, NotifyingFuture<?> request, long lockTimeout)
+         throws InterruptedException {
+      final long timeoutNanoTime = timeService.expectedEndTime(lockTimeout, MILLISECONDS);
+      long probeInterval = Math.max(spinDuration, 1);
+      try {
+         while (true) {
+            long remaining = timeService.remainingTime(timeoutNanoTime, MILLISECONDS);
+            if (remaining <= 0) {
+               break;
+            }
+            sendProbe(thisTx);
+            try {
+               request.get(Math.min(remaining, probeInterval), MILLISECONDS);
+               if (trace) log.tracef("Successfully acquired lock on %s on behalf of %s.", key, thisTx);
                return true;
-            } else {
-               Object owner = getOwner(key);
-               if (!(owner instanceof DldGlobalTransaction)) {
-                  if (trace) log.tracef("Not running deadlock detection as lock owner (%s) is not transactional", owner);
-                  cannotRunDld.incrementAndGet();
-                  continue;
-               }
-               DldGlobalTransaction lockOwnerTx = (DldGlobalTransaction) owner;
-               if (trace) log.tracef("Could not acquire lock as %s is locked by %s (%s)", key, owner, System.identityHashCode(owner));
-               if (isDeadlockAndIAmLoosing(lockOwnerTx, thisTx, key)) {
-                  updateStats(thisTx);
-                  String message = String.format("Deadlock found and we (%s) shall not continue. Other tx is %s",
-                                                 thisTx, lockOwnerTx);
-                  log.trace(message);
-                  throw new DeadlockDetectedException(message);
-               }
+            } catch (TimeoutException e) {
+               probeInterval *= 2;
             }
          }
-      } else {
-         return super.lockAndRecord(key, ctx, lockTimeout);
+      } catch (CancellationException e) {
+         updateStats(thisTx);
+         String message = String.format("Deadlock found and we (%s) shall not continue. Lock on %s is owned by %s",
+                                        thisTx, key, getOwner(key));
+         log.trace(message);
+         throw new DeadlockDetectedException(message);
+      } catch (ExecutionException e) {
+         throw new CacheException(e.getCause());
+      } catch (InterruptedException e) {
+         if (!request.cancel(false) && !request.isCancelled()) {
+            // granted in the meantime
+            lockContainer.releaseLock(thisTx, key);
+         }
+         throw e;
       }
-      // couldn't acquire lock!
-      return false;
+
+      // couldn't acquire lock, unless it was granted in the meantime
+      return !request.cancel(false) && !request.isCancelled();
    }
 
-   private boolean isDeadlockAndIAmLoosing(DldGlobalTransaction lockOwnerTx, DldGlobalTransaction thisTx, Object key) {
-      //run the lose check first as it is cheaper
-      boolean wouldWeLoose = thisTx.wouldLose(lockOwnerTx);
-      if (!wouldWeLoose) {
-         if (trace) log.tracef("We (%s) win against the other (%s) transaction, so no point running rest of DLD", thisTx, lockOwnerTx);
-         return false;
-      }
-      //do we have lock on what other tx intends to acquire?
-      return ownsLocalIntention(thisTx, lockOwnerTx.getLockIntention()) || ownsRemoteIntention(lockOwnerTx, thisTx, key) || isSameKeyDeadlock(key, thisTx, lockOwnerTx);
+   private void sendProbe(DldGlobalTransaction thisTx) {
+      if (trace) log.tracef("Running deadlock detection for %s", thisTx);
+      follow(thisTx, thisTx, cdl.getAddress(), thisTx, new HashSet<DldGlobalTransaction>(), null);
    }
 
-   private boolean isSameKeyDeadlock(Object key, DldGlobalTransaction thisTx, DldGlobalTransaction lockOwnerTx) {
-      boolean iHaveRemoteLock = !thisTx.isRemote(); //this relies on the fact that when DLD is enabled a lock is first acquired remotely and then locally
-      boolean otherHasLocalLock = lockOwnerTx.isRemote();
+   /**
+    * Invoked when a {@link DeadlockProbeCommand} is received from another node.
+    */
+   public void handleProbe(DeadlockProbeCommand probe) {
+      if (probe.isAbort()) {
+         abort(probe.getTarget());
+      } else {
+         follow(probe.getInitiator(), probe.getVictim(), probe.getVictimNode(), probe.getTarget(),
+                probe.getVisited(), probe.getOrigin());
+      }
+   }
 
-      //if we are here then 1) the other tx has a lock on this local key AND 2) I have a lock on the same key remotely
-      if (iHaveRemoteLock && otherHasLocalLock) {
-         if (trace) log.tracef("Same key deadlock between %s and %s on key %s.", thisTx, lockOwnerTx, key);
-         return true;
+   /**
+    * Follows the edges of the wait-for graph starting with the target transaction, for as long as they are known to
+    * this node.
+    *
+    * @param sender the node the probe was received from, or null if the probe was started by this node
+    */
+   private void follow(DldGlobalTransaction initiator, DldGlobalTransaction victim, Address victimNode,
+                       DldGlobalTransaction target, Set<DldGlobalTransaction> visited, Address sender) {
+      Address self = cdl.getAddress();
+      DldGlobalTransaction current = target;
+      while (true) {
+         Waiter waiter = waiting.get(current);
+         if (waiter == null) {
+            forward(initiator, victim, victimNode, current, visited, sender);
+            return;
+         }
+         if (!visited.add(current)) {
+            if (trace) log.tracef("%s is part of a cycle that doesn't include %s", current, initiator);
+            return;
+         }
+         if (current.isYoungerThan(victim)) {
+            victim = current;
+            victimNode = self;
+         }
+         Object owner = getOwner(waiter.key);
+         if (!(owner instanceof DldGlobalTransaction)) {
+            if (owner != null) {
+               if (trace) log.tracef("Not running deadlock detection as lock owner (%s) is not transactional", owner);
+               cannotRunDld.incrementAndGet();
+            }
+            return;
+         }
+         if (trace) log.tracef("%s waits for %s, which is locked by %s", current, waiter.key, owner);
+         if (owner.equals(initiator)) {
+            deadlockFound(initiator, victim, victimNode);
+            return;
+         }
+         current = (DldGlobalTransaction) owner;
       }
-      return false;
    }
 
    /**
-    * This happens with two nodes replicating same tx at the same time.
+    * The target transaction doesn't wait for a lock on this node, so the probe is sent where it may wait: to the owners
+    * of its remote lock intention on the node it originated from, or to that node otherwise.
     */
-   private boolean ownsRemoteIntention(DldGlobalTransaction lockOwnerTx, DldGlobalTransaction thisTx, Object key) {
-      boolean localLockOwner = !lockOwnerTx.isRemote();
-      if (localLockOwner) {
-         // I've already acquired lock on this key before replicating here, so this mean we are in deadlock. This assumes the fact that
-         // if trying to acquire a remote lock, a tx first acquires a local lock.
-         if (thisTx.hasLockAtOrigin(lockOwnerTx.getRemoteLockIntention())) {
-            if (trace)
-               log.tracef("Same key deadlock detected: lock owner tries to acquire lock remotely on %s but we have it!", key);
-            return true;
+   private void forward(DldGlobalTransaction initiator, DldGlobalTransaction victim, Address victimNode,
+                        DldGlobalTransaction target, Set<DldGlobalTransaction> visited, Address sender) {
+      if (rpcManager == null) {
+         return;
+      }
+      Address self = rpcManager.getAddress();
+      Collection<Address> recipients;
+      if (self.equals(target.getAddress())) {
+         LocalTransaction localTx = txTable.getLocalTransaction(target);
+         if (localTx == null) {
+            return;
          }
+         Collection<Object> keys = ((DldGlobalTransaction) localTx.getGlobalTransaction()).getRemoteLockIntention();
+         if (keys.isEmpty()) {
+            return;
+         }
+         Collection<Address> owners = cdl.getOwners(keys);
+         List<Address> others = new ArrayList<Address>(owners == null ? rpcManager.getMembers() : owners);
+         others.remove(self);
+         if (others.isEmpty()) {
+            return;
+         }
+         recipients = others;
+      } else if (!target.getAddress().equals(sender)) {
+         recipients = Collections.singletonList(target.getAddress());
       } else {
-         if (trace) log.tracef("Lock owner is remote: %s", lockOwnerTx);
+         // the origin already forwarded the probe to the owners of the remote lock intention
+         return;
       }
-      return false;
+      if (trace) log.tracef("Forwarding the deadlock probe of %s for %s to %s", initiator, target, recipients);
+      send(recipients, commandsFactory.buildDeadlockProbeCommand(initiator, victim, victimNode, target, visited, false));
    }
 
-   private boolean ownsLocalIntention(DldGlobalTransaction thisTx, Object lockOwnerTxIntention) {
-      boolean result = lockOwnerTxIntention != null && ownsLock(lockOwnerTxIntention, thisTx);
-      if (trace) log.tracef("Local intention is '%s'. Do we own lock for it? %s, We == %s", lockOwnerTxIntention, result, thisTx);
-      return result;
+   private void deadlockFound(DldGlobalTransaction initiator, DldGlobalTransaction victim, Address victimNode) {
+      if (trace) log.tracef("Deadlock detected by the probe of %s, aborting %s on %s", initiator, victim, victimNode);
+      if (victimNode.equals(cdl.getAddress())) {
+         abort(victim);
+      } else {
+         send(Collections.singletonList(victimNode),
+              commandsFactory.buildDeadlockProbeCommand(initiator, victim, victimNode, victim,
+                                                        Collections.<DldGlobalTransaction>emptySet(), true));
+      }
+   }
+
+   private void abort(DldGlobalTransaction victim) {
+      Waiter waiter = waiting.get(victim);
+      // the request can't be cancelled if the lock was granted in the meantime
+      if (waiter != null && waiter.request.cancel(false)) {
+         if (trace) log.tracef("Aborted the wait of %s for %s", victim, waiter.key);
+      }
+   }
+
+   private void send(Collection<Address> recipients, DeadlockProbeCommand probe) {
+      rpcManager.invokeRemotely(recipients, probe, rpcManager.getRpcOptionsBuilder(ResponseMode.ASYNCHRONOUS, false)
+            .skipReplicationQueue(true).build());
    }
 
    public void setExposeJmxStats(boolean exposeJmxStats) {
@@ -189,4 +331,17 @@ private void updateStats(DldGlobalTransaction tx) {
             localTxStopped.incrementAndGet();
       }
    }
+
+   /**
+    * An edge of the wait-for graph: the key a transaction waits for, and its pending request for the lock.
+    */
+   private static class Waiter {
+      final Object key;
+      final NotifyingFuture<?> request;
+
+      Waiter(Object key, NotifyingFuture<?> request) {
+         this.key = key;
+         this.request = request;
+      }
+   }
 }
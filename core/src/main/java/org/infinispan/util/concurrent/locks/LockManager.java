@@ -1,5 +1,6 @@
 package org.infinispan.util.concurrent.locks;
 
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.container.entries.CacheEntry;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.util.concurrent.TimeoutException;
@@ -121,6 +122,24 @@ public interface LockManager {
     */
    boolean acquireLock(InvocationContext ctx, Object key, long timeoutMillis, boolean skipLocking) throws InterruptedException, TimeoutException;
 
+   /**
+    * Acquires the locks of the given keys on behalf of <tt>lockOwner</tt> without blocking the calling thread: locks
+    * held by other owners are waited for in the lock container's queues, and granted by the threads releasing them.
+    * The locks are requested one at a time, in the iteration order of <tt>keys</tt>, the next one only once the
+    * previous one is held, so callers must pass the keys in a consistent order to avoid deadlocks.
+    * <p/>
+    * The locks are not recorded in any invocation context, and the caller must release them with {@link
+    * #unlock(java.util.Collection, Object)} once the returned future completed with <tt>true</tt>. Only supported by
+    * transactional caches, whose locks are owned by transactions rather than by threads.
+    *
+    * @throws UnsupportedOperationException if the lock container is not an {@link
+    *         org.infinispan.util.concurrent.locks.containers.AsyncLockContainer}
+    *
+    * @return a future completed with <tt>true</tt> once all the locks are held, or with <tt>false</tt> if they could not
+    *         all be acquired within the timeout, in which case none of them is held.
+    */
+   NotifyingFuture<Boolean> acquireLocksAsync(Collection<Object> keys, Object lockOwner, long timeoutMillis);
+
    /**
     * Same as {@link #acquireLock(org.infinispan.context.InvocationContext, Object, long, boolean)}, but doesn't check whether the
     * lock is already acquired by the caller. Useful in the case of transactions that use {@link OwnableReentrantLock}s
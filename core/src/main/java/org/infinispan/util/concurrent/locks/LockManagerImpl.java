@@ -1,9 +1,12 @@
 package org.infinispan.util.concurrent.locks;
 
 import org.infinispan.commons.util.Util;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.configuration.cache.Configuration;
 import org.infinispan.container.entries.CacheEntry;
 import org.infinispan.context.InvocationContext;
+import org.infinispan.factories.KnownComponentNames;
+import org.infinispan.factories.annotations.ComponentName;
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.jmx.annotations.DataType;
 import org.infinispan.jmx.annotations.MBean;
@@ -19,6 +22,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.locks.Lock;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -35,6 +39,7 @@
 public class LockManagerImpl implements LockManager {
    protected Configuration configuration;
    protected volatile LockContainer<?> lockContainer;
+   private ScheduledExecutorService timeoutExecutor;
    private static final Log log = LogFactory.getLog(LockManagerImpl.class);
    protected static final boolean trace = log.isTraceEnabled();
    private static final String ANOTHER_THREAD = "(another thread)";
@@ -45,6 +50,11 @@ public void injectDependencies(Configuration configuration, LockContainer<?> loc
       this.lockContainer = lockContainer;
    }
 
+   @Inject
+   public void injectTimeoutExecutor(@ComponentName(KnownComponentNames.EVICTION_SCHEDULED_EXECUTOR) ScheduledExecutorService timeoutExecutor) {
+      this.timeoutExecutor = timeoutExecutor;
+   }
+
    @Override
    public boolean lockAndRecord(Object key, InvocationContext ctx, long timeoutMillis) throws InterruptedException {
       if (trace) log.tracef("Attempting to lock %s with acquisition timeout of %s millis", toStr(key), timeoutMillis);
@@ -70,6 +80,24 @@ public boolean lockAndRecord(Object key, InvocationContext ctx, long timeoutMill
       return false;
    }
 
+   @Override
+   public NotifyingFuture<Boolean> acquireLocksAsync(Collection<Object> keys, Object lockOwner, long timeoutMillis) {
+      if (trace) log.tracef("Requesting locks %s for %s with acquisition timeout of %s millis", keys, lockOwner, timeoutMillis);
+      LockContainer<?> container = lockContainer;
+      if (!(container instanceof AsyncLockContainer)) {
+         // a thread owned lock can't be acquired by the releasing thread on behalf of a queued request
+         throw new UnsupportedOperationException("Locks owned by threads can't be acquired asynchronously");
+      }
+      return acquireLocksAsync((AsyncLockContainer<?>) container, keys, lockOwner, timeoutMillis);
+   }
+
+   private <L extends Lock> NotifyingFuture<Boolean> acquireLocksAsync(AsyncLockContainer<L> container, Collection<Object> keys,
+                                                                        Object lockOwner, long timeoutMillis) {
+      AsyncLockAcquisition<L> acquisition = new AsyncLockAcquisition<L>(container, keys, lockOwner);
+      acquisition.start(timeoutExecutor, timeoutMillis);
+      return acquisition;
+   }
+
    @Override
    public void unlock(Collection<Object> lockedKeys, Object lockOwner) {
       log.tracef("Attempting to unlock keys %s", lockedKeys);
@@ -1,12 +1,21 @@
 package org.infinispan.util.concurrent.locks.containers;
 
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.util.logging.Log;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 
 public abstract class AbstractLockContainer<L extends Lock> implements LockContainer<L> {
 
+   // requests made through AsyncLockContainer.acquireLockAsync() that are waiting for a lock, keyed by the lock (locks use identity equality)
+   private final ConcurrentMap<L, LockWaitQueue<L>> waitQueues = new ConcurrentHashMap<L, LockWaitQueue<L>>();
+
    /**
     * Releases a lock and swallows any IllegalMonitorStateExceptions - so it is safe to call this method even if the
     * lock is not locked, or not locked by the current thread.
@@ -30,4 +39,126 @@ protected void safeRelease(L toRelease, Object lockOwner) {
    protected abstract void lock(L lock, Object lockOwner);
 
    protected abstract Log getLog();
+
+   /**
+    * Acquires <tt>lock</tt> for <tt>lockOwner</tt> if it is available, otherwise queues the request until a release
+    * of the lock lets {@link #grantWaiting(Lock)} acquire it on the owner's behalf.
+    */
+   protected final NotifyingFuture<L> acquireOrEnqueue(L lock, Object key, Object lockOwner) {
+      QueuedLockRequest<L> request = new QueuedLockRequest<L>(this, lock, key, lockOwner);
+      if (tryLockNow(lock, lockOwner)) {
+         request.granted();
+         return request;
+      }
+
+      while (true) {
+         LockWaitQueue<L> queue = waitQueues.get(lock);
+         if (queue == null) {
+            LockWaitQueue<L> newQueue = new LockWaitQueue<L>();
+            queue = waitQueues.putIfAbsent(lock, newQueue);
+            if (queue == null) queue = newQueue;
+         }
+         boolean acquired;
+         synchronized (queue) {
+            if (queue.discarded) {
+               continue;
+            }
+            // Try again now that the queue is visible: a release either happened before this attempt, or it will find
+            // the request in the queue.
+            acquired = tryLockNow(lock, lockOwner);
+            if (acquired) {
+               discardIfEmpty(lock, queue);
+            } else {
+               queue.requests.add(request);
+            }
+         }
+         if (acquired) {
+            request.granted();
+         } else if (getLog().isTraceEnabled()) {
+            getLog().tracef("Queued request %s for lock %s", request, lock);
+         }
+         return request;
+      }
+   }
+
+   /**
+    * Hands a lock that has just been released to the requests waiting for it, in arrival order. Must be invoked after
+    * every release of a lock, once the lock is no longer held by the releasing owner.
+    */
+   protected final void grantWaiting(L lock) {
+      LockWaitQueue<L> queue = waitQueues.get(lock);
+      if (queue == null) {
+         return;
+      }
+      List<QueuedLockRequest<L>> granted = null;
+      synchronized (queue) {
+         QueuedLockRequest<L> request;
+         while ((request = queue.requests.peek()) != null && tryLockNow(lock, request.lockOwner)) {
+            queue.requests.poll();
+            if (granted == null) granted = new ArrayList<QueuedLockRequest<L>>(2);
+            granted.add(request);
+         }
+         discardIfEmpty(lock, queue);
+      }
+      if (granted != null) {
+         // listeners are notified outside of the queue's monitor, as they might acquire or release other locks
+         for (QueuedLockRequest<L> request : granted) {
+            if (getLog().isTraceEnabled()) getLog().tracef("Granted lock %s to queued request %s", lock, request);
+            request.granted();
+         }
+      }
+   }
+
+   /**
+    * Removes a request from its queue, unless it was already granted.
+    *
+    * @return true if the request was waiting for the lock and has been removed
+    */
+   final boolean withdraw(QueuedLockRequest<L> request) {
+      LockWaitQueue<L> queue = waitQueues.get(request.lock);
+      if (queue == null) {
+         return false;
+      }
+      synchronized (queue) {
+         if (!queue.requests.remove(request)) {
+            return false;
+         }
+         discardIfEmpty(request.lock, queue);
+      }
+      requestWithdrawn(request.key, request.lock);
+      return true;
+   }
+
+   /**
+    * Invoked after a queued request has been cancelled without having acquired the lock.
+    */
+   protected void requestWithdrawn(Object key, L lock) {
+   }
+
+   private void discardIfEmpty(L lock, LockWaitQueue<L> queue) {
+      if (queue.requests.isEmpty()) {
+         queue.discarded = true;
+         waitQueues.remove(lock, queue);
+      }
+   }
+
+   private boolean tryLockNow(L lock, Object lockOwner) {
+      // the releasing thread may acquire on behalf of a queued request, so an interrupt meant for it must not fail
+      // the attempt
+      boolean interrupted = Thread.interrupted();
+      try {
+         return tryLock(lock, 0, TimeUnit.MILLISECONDS, lockOwner);
+      } catch (InterruptedException e) {
+         interrupted = true;
+         return false;
+      } finally {
+         if (interrupted) Thread.currentThread().interrupt();
+      }
+   }
+
+   private static final class LockWaitQueue<L extends Lock> {
+      final ArrayDeque<QueuedLockRequest<L>> requests = new ArrayDeque<QueuedLockRequest<L>>(4);
+      // set once the queue is empty and removed from the map, after which requests must go to a new queue
+      boolean discarded;
+   }
 }
@@ -4,6 +4,7 @@
 import org.infinispan.commons.equivalence.Equivalence;
 import org.infinispan.commons.util.ByRef;
 import org.infinispan.commons.util.Util;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.commons.util.concurrent.jdk8backported.EquivalentConcurrentHashMapV8;
 import org.infinispan.util.concurrent.locks.RefCountingLock;
 import org.infinispan.util.logging.Log;
@@ -87,21 +88,49 @@ public L apply(Object key, L lock) {
          // We may need to delete the entry if the owner thread released it just after we timed out.
          // We use an atomic operation here as another thread might be trying to increment the ref count
          // at the same time (otherwise it would make the acquire function at the beginning more complicated).
-         locks.computeIfPresent(key, new EquivalentConcurrentHashMapV8.BiFun<Object, L, L>() {
-            @Override
-            public L apply(Object key, L lock) {
-               // This will happen atomically in the CHM
-               // We have a reference, so value can't be null
-               boolean remove = lock.getReferenceCounter().decrementAndGet() == 0;
-               return remove ? null : lock;
-            }
-         });
+         releaseReference(key);
          return null;
       }
    }
 
+   /**
+    * Backs {@link AsyncLockContainer#acquireLockAsync(Object, Object)} for the containers whose locks are owned by the
+    * lock owner.
+    */
+   protected final NotifyingFuture<L> requestLock(final Object lockOwner, Object key) {
+      final ByRef<Boolean> lockAcquired = ByRef.create(Boolean.FALSE);
+      L lock = locks.compute(key, new EquivalentConcurrentHashMapV8.BiFun<Object, L, L>() {
+         @Override
+         public L apply(Object key, L lock) {
+            if (lock == null) {
+               lock = newLock();
+               lock(lock, lockOwner);
+               lockAcquired.set(Boolean.TRUE);
+               return lock;
+            }
+
+            // The reference is kept while the request waits, so the lock stays in the map until it is granted
+            lock.getReferenceCounter().incrementAndGet();
+            return lock;
+         }
+      });
+
+      if (lockAcquired.get()) {
+         QueuedLockRequest<L> request = new QueuedLockRequest<L>(this, lock, key, lockOwner);
+         request.granted();
+         return request;
+      }
+      return acquireOrEnqueue(lock, key, lockOwner);
+   }
+
+   @Override
+   protected void requestWithdrawn(Object key, L lock) {
+      releaseReference(key);
+   }
+
    @Override
    public void releaseLock(final Object lockOwner, Object key) {
+      final ByRef<L> released = new ByRef<L>(null);
       locks.computeIfPresent(key, new EquivalentConcurrentHashMapV8.BiFun<Object, L, L>() {
          @Override
          public L apply(Object key, L lock) {
@@ -120,6 +149,28 @@ public L apply(Object key, L lock) {
             }
 
             // Ok, unlock was successful.  If the unlock was not successful, an exception will propagate and the entry will not be changed.
+            if (remove) {
+               return null;
+            }
+            released.set(lock);
+            return lock;
+         }
+      });
+
+      // Queued requests hold a reference, so there can only be some if the lock is still in use
+      L lock = released.get();
+      if (lock != null) {
+         grantWaiting(lock);
+      }
+   }
+
+   private void releaseReference(Object key) {
+      locks.computeIfPresent(key, new EquivalentConcurrentHashMapV8.BiFun<Object, L, L>() {
+         @Override
+         public L apply(Object key, L lock) {
+            // This will happen atomically in the CHM
+            // We have a reference, so value can't be null
+            boolean remove = lock.getReferenceCounter().decrementAndGet() == 0;
             return remove ? null : lock;
          }
       });
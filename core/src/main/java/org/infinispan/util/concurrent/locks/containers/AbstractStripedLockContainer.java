@@ -2,6 +2,7 @@
 
 import net.jcip.annotations.ThreadSafe;
 import org.infinispan.commons.equivalence.Equivalence;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
@@ -71,10 +72,19 @@ public L acquireLock(Object lockOwner, Object key, long timeout, TimeUnit unit)
       return locked ? lock : null;
    }
 
+   /**
+    * Backs {@link AsyncLockContainer#acquireLockAsync(Object, Object)} for the containers whose locks are owned by the
+    * lock owner.
+    */
+   protected final NotifyingFuture<L> requestLock(Object lockOwner, Object key) {
+      return acquireOrEnqueue(getLock(key), key, lockOwner);
+   }
+
    @Override
    public void releaseLock(Object lockOwner, Object key) {
       final L lock = getLock(key);
       safeRelease(lock, lockOwner);
+      grantWaiting(lock);
    }
 
    @Override
@@ -0,0 +1,28 @@
+package org.infinispan.util.concurrent.locks.containers;
+
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A {@link LockContainer} whose locks are owned by the lock owner rather than by the thread holding them, so that a
+ * lock can be acquired on behalf of an owner by any thread, including the thread releasing it.
+ *
+ * @since 7.0
+ */
+public interface AsyncLockContainer<L extends Lock> extends LockContainer<L> {
+
+   /**
+    * Acquires the lock for the given object on behalf of <tt>lockOwner</tt> without blocking the calling thread. If
+    * the lock is held by another owner, the request waits in a queue of the lock until a release lets it acquire the
+    * lock, and the returned future is then completed by the releasing thread.
+    * <p/>
+    * The wait is not bounded: a caller that gives up must {@link java.util.concurrent.Future#cancel(boolean) cancel}
+    * the future, and release the lock if cancelling fails because the lock was granted in the meantime.
+    *
+    * @param lockOwner owner on whose behalf the lock is acquired
+    * @param key Object to acquire lock on
+    * @return a future completed with the lock once it is held by <tt>lockOwner</tt>
+    */
+   NotifyingFuture<L> acquireLockAsync(Object lockOwner, Object key);
+}
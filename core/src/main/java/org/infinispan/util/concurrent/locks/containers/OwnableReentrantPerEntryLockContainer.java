@@ -1,6 +1,7 @@
 package org.infinispan.util.concurrent.locks.containers;
 
 import org.infinispan.commons.equivalence.Equivalence;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.util.concurrent.locks.OwnableReentrantLock;
 import org.infinispan.util.concurrent.locks.OwnableRefCountingReentrantLock;
 import org.infinispan.util.logging.Log;
@@ -14,7 +15,8 @@
  * @author Manik Surtani
  * @since 4.0
  */
-public class OwnableReentrantPerEntryLockContainer extends AbstractPerEntryLockContainer<OwnableRefCountingReentrantLock> {
+public class OwnableReentrantPerEntryLockContainer extends AbstractPerEntryLockContainer<OwnableRefCountingReentrantLock>
+      implements AsyncLockContainer<OwnableRefCountingReentrantLock> {
 
    private static final Log log = LogFactory.getLog(OwnableReentrantPerEntryLockContainer.class);
 
@@ -48,6 +50,11 @@ private OwnableReentrantLock getLockFromMap(Object key) {
       return locks.get(key);
    }
 
+   @Override
+   public NotifyingFuture<OwnableRefCountingReentrantLock> acquireLockAsync(Object lockOwner, Object key) {
+      return requestLock(lockOwner, key);
+   }
+
    @Override
    protected boolean tryLock(OwnableRefCountingReentrantLock lock, long timeout, TimeUnit unit, Object lockOwner) throws InterruptedException {
       return lock.tryLock(lockOwner, timeout, unit);
@@ -2,6 +2,7 @@
 
 import net.jcip.annotations.ThreadSafe;
 import org.infinispan.commons.equivalence.Equivalence;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.util.concurrent.locks.OwnableReentrantLock;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
@@ -18,7 +19,8 @@
  * @since 4.0
  */
 @ThreadSafe
-public class OwnableReentrantStripedLockContainer extends AbstractStripedLockContainer<OwnableReentrantLock> {
+public class OwnableReentrantStripedLockContainer extends AbstractStripedLockContainer<OwnableReentrantLock>
+      implements AsyncLockContainer<OwnableReentrantLock> {
 
    private final OwnableReentrantLock[] sharedLocks;
    private static final Log log = LogFactory.getLog(OwnableReentrantStripedLockContainer.class);
@@ -59,6 +61,11 @@ public final boolean isLocked(Object object) {
       return lock.isLocked();
    }
 
+   @Override
+   public NotifyingFuture<OwnableReentrantLock> acquireLockAsync(Object lockOwner, Object key) {
+      return requestLock(lockOwner, key);
+   }
+
    @Override
    public final int getNumLocksHeld() {
       int i = 0;
@@ -0,0 +1,94 @@
+package org.infinispan.util.concurrent.locks.containers;
+
+import org.infinispan.commons.util.concurrent.BaseNotifyingFuture;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * The handle returned by {@link AsyncLockContainer#acquireLockAsync(Object, Object)}. It completes with the lock once the
+ * lock is held by the requesting owner, which may happen on the thread releasing the lock rather than on the thread
+ * that issued the request.
+ * <p/>
+ * {@link #cancel(boolean)} withdraws a request still waiting for the lock. It returns <tt>false</tt> if the lock was
+ * already granted, in which case the owner holds it and must release it.
+ *
+ * @since 7.0
+ */
+final class QueuedLockRequest<L extends Lock> extends BaseNotifyingFuture<L> {
+
+   final AbstractLockContainer<L> container;
+   final L lock;
+   final Object key;
+   final Object lockOwner;
+   private final CountDownLatch done = new CountDownLatch(1);
+   private volatile boolean cancelled;
+
+   QueuedLockRequest(AbstractLockContainer<L> container, L lock, Object key, Object lockOwner) {
+      this.container = container;
+      this.lock = lock;
+      this.key = key;
+      this.lockOwner = lockOwner;
+   }
+
+   void granted() {
+      done.countDown();
+      fireListeners();
+   }
+
+   @Override
+   public boolean cancel(boolean mayInterruptIfRunning) {
+      if (!container.withdraw(this)) {
+         return false;
+      }
+      cancelled = true;
+      done.countDown();
+      fireListeners();
+      return true;
+   }
+
+   @Override
+   public boolean isCancelled() {
+      return cancelled;
+   }
+
+   @Override
+   public boolean isDone() {
+      return done.getCount() == 0;
+   }
+
+   @Override
+   public L get() throws InterruptedException, ExecutionException {
+      done.await();
+      return result();
+   }
+
+   @Override
+   public L get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+      if (!done.await(timeout, unit)) {
+         throw new TimeoutException("Lock for key " + key + " not granted to " + lockOwner);
+      }
+      return result();
+   }
+
+   private L result() {
+      if (cancelled) {
+         throw new CancellationException();
+      }
+      return lock;
+   }
+
+   @Override
+   public String toString() {
+      return "QueuedLockRequest{" +
+            "key=" + key +
+            ", lockOwner=" + lockOwner +
+            ", done=" + isDone() +
+            ", cancelled=" + cancelled +
+            '}';
+   }
+}
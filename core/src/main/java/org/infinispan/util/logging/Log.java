@@ -1210,4 +1210,8 @@ void asyncStoreShutdownTimeoutTooHigh(long configuredAsyncStopTimeout,
 
    @Message(value = "Cannot find a parser for element '%s' in namespace '%s'. Check that your configuration is up-to date for this version of Infinispan.", id = 327)
    CacheConfigurationException unsupportedConfiguration(String element, String namespaceUri);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Memory mapped reads are disabled for the single file store %s, as a mapped file cannot be truncated on Windows", id = 328)
+   void memoryMappedReadsDisabledOnWindows(String location);
 }
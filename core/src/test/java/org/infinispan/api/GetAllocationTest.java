@@ -0,0 +1,91 @@
+package org.infinispan.api;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryVisited;
+import org.infinispan.notifications.cachelistener.event.CacheEntryVisitedEvent;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests that a get served by the data container of a non transactional local cache doesn't allocate, and that gets
+ * nested in another get's invocation still see their own context and command.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "api.GetAllocationTest")
+public class GetAllocationTest extends SingleCacheManagerTest {
+
+   private static final int OPERATIONS = 100000;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      return TestCacheManagerFactory.createCacheManager(new ConfigurationBuilder());
+   }
+
+   public void testLocalHitDoesNotAllocate() {
+      ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+      if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+         throw new SkipException("Thread allocation measurement is not supported by this JVM");
+      }
+      com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+      if (!allocationMXBean.isThreadAllocatedMemorySupported() || !allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+         throw new SkipException("Thread allocation measurement is not enabled in this JVM");
+      }
+
+      cache.put("key", "value");
+      // warm up the pooled context and command, and let the JIT compile the invocation path
+      for (int i = 0; i < OPERATIONS; i++) {
+         cache.get("key");
+      }
+
+      long threadId = Thread.currentThread().getId();
+      long before = allocationMXBean.getThreadAllocatedBytes(threadId);
+      Object value = null;
+      for (int i = 0; i < OPERATIONS; i++) {
+         value = cache.get("key");
+      }
+      long allocated = allocationMXBean.getThreadAllocatedBytes(threadId) - before;
+
+      assertEquals("value", value);
+      double bytesPerOperation = (double) allocated / OPERATIONS;
+      log.infof("Local cache hit allocated %.3f bytes/op", bytesPerOperation);
+      assertTrue("Allocated " + bytesPerOperation + " bytes/op", bytesPerOperation < 1);
+   }
+
+   public void testNestedGet() {
+      cache.put("outer", "outer-value");
+      cache.put("inner", "inner-value");
+      NestedGetListener listener = new NestedGetListener();
+      cache.addListener(listener);
+      try {
+         assertEquals("outer-value", cache.get("outer"));
+         assertEquals("inner-value", listener.innerValue);
+         // the pooled instances are usable again once both invocations are over
+         assertEquals("inner-value", cache.get("inner"));
+      } finally {
+         cache.removeListener(listener);
+      }
+   }
+
+   @Listener
+   public class NestedGetListener {
+      volatile Object innerValue;
+
+      @CacheEntryVisited
+      public void visited(CacheEntryVisitedEvent<Object, Object> event) {
+         if (event.isPre() && "outer".equals(event.getKey())) {
+            innerValue = cache.get("inner");
+         }
+      }
+   }
+}
@@ -0,0 +1,153 @@
+package org.infinispan.container;
+
+import org.infinispan.commons.equivalence.AnyEquivalence;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.eviction.ActivationManager;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.eviction.EvictionThreadPolicy;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.persistence.BaseStoreTest.ControlledTimeService;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+
+/**
+ * Tests that {@link DefaultDataContainer} purges expired entries through its expiration index when the expiration
+ * reaper is enabled, and by scanning the container otherwise.
+ *
+ * @since 7.0
+ */
+@Test(groups = "unit", testName = "container.ExpirationIndexPurgeTest")
+public class ExpirationIndexPurgeTest extends AbstractInfinispanTest {
+
+   private static final long WAKE_UP_INTERVAL = 100;
+
+   private ControlledTimeService timeService;
+
+   private DefaultDataContainer<Object, Object> createContainer(boolean bounded, boolean reaperEnabled) {
+      DefaultDataContainer<Object, Object> dc = bounded ?
+            (DefaultDataContainer<Object, Object>) DefaultDataContainer.<Object, Object>boundedDataContainer(
+                  16, 10000, EvictionStrategy.LRU, EvictionThreadPolicy.DEFAULT, AnyEquivalence.getInstance()) :
+            new DefaultDataContainer<Object, Object>(16, AnyEquivalence.getInstance());
+      timeService = new ControlledTimeService(1000000);
+      InternalEntryFactoryImpl entryFactory = new InternalEntryFactoryImpl();
+      entryFactory.injectTimeService(timeService);
+      dc.initialize(null, null, entryFactory, mock(ActivationManager.class), null, timeService);
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.expiration().wakeUpInterval(reaperEnabled ? WAKE_UP_INTERVAL : -1);
+      dc.injectConfiguration(builder.build());
+      dc.start();
+      return dc;
+   }
+
+   public void testPurgeThroughIndex() {
+      doTestPurge(createContainer(false, true));
+   }
+
+   public void testPurgeThroughIndexBounded() {
+      doTestPurge(createContainer(true, true));
+   }
+
+   public void testPurgeByScanWhenReaperDisabled() {
+      doTestPurge(createContainer(false, false));
+   }
+
+   public void testTouchedEntryReindexed() {
+      doTestTouchedEntry(createContainer(false, true));
+   }
+
+   public void testTouchedEntryReindexedBounded() {
+      doTestTouchedEntry(createContainer(true, true));
+   }
+
+   public void testOverwrittenEntries() {
+      DefaultDataContainer<Object, Object> dc = createContainer(false, true);
+      dc.put("mortal-to-immortal", "v", lifespan(1000));
+      dc.put("mortal-to-immortal", "v2", new EmbeddedMetadata.Builder().build());
+      dc.put("immortal-to-mortal", "v", new EmbeddedMetadata.Builder().build());
+      dc.put("immortal-to-mortal", "v2", lifespan(1000));
+      dc.put("extended", "v", lifespan(1000));
+      dc.put("extended", "v2", lifespan(5000));
+
+      timeService.advance(2000);
+      assertEquals(1, dc.purgeExpiredEntries());
+      assertNotNull(dc.peek("mortal-to-immortal"));
+      assertNull(dc.peek("immortal-to-mortal"));
+      assertNotNull(dc.peek("extended"));
+
+      timeService.advance(4000);
+      assertEquals(1, dc.purgeExpiredEntries());
+      assertEquals(1, dc.size());
+   }
+
+   public void testRemovedAndClearedEntries() {
+      DefaultDataContainer<Object, Object> dc = createContainer(false, true);
+      for (int i = 0; i < 10; i++) {
+         dc.put(i, "v", lifespan(1000));
+      }
+      dc.remove(0);
+      dc.compute(1, new DataContainer.ComputeAction<Object, Object>() {
+         @Override
+         public InternalCacheEntry<Object, Object> compute(Object key, InternalCacheEntry<Object, Object> oldEntry,
+                                                           InternalEntryFactory factory) {
+            return null;
+         }
+      });
+      timeService.advance(2000);
+      assertEquals(8, dc.purgeExpiredEntries());
+      assertEquals(0, dc.size());
+
+      dc.put("k", "v", lifespan(1000));
+      dc.clear();
+      dc.put("k", "v", new EmbeddedMetadata.Builder().build());
+      timeService.advance(2000);
+      assertEquals(0, dc.purgeExpiredEntries());
+      assertEquals(1, dc.size());
+   }
+
+   private void doTestPurge(DefaultDataContainer<Object, Object> dc) {
+      for (int i = 0; i < 100; i++) {
+         dc.put("mortal" + i, "v", lifespan(1000));
+         dc.put("immortal" + i, "v", new EmbeddedMetadata.Builder().build());
+      }
+      dc.put("later", "v", lifespan(10000));
+
+      timeService.advance(500);
+      assertEquals(0, dc.purgeExpiredEntries());
+      assertEquals(201, dc.size());
+
+      timeService.advance(1000);
+      assertEquals(100, dc.purgeExpiredEntries());
+      assertEquals(101, dc.size());
+      assertEquals(0, dc.purgeExpiredEntries());
+
+      timeService.advance(10000);
+      assertEquals(1, dc.purgeExpiredEntries());
+      assertEquals(100, dc.size());
+   }
+
+   private void doTestTouchedEntry(DefaultDataContainer<Object, Object> dc) {
+      dc.put("k", "v", new EmbeddedMetadata.Builder().maxIdle(1000, TimeUnit.MILLISECONDS).build());
+      timeService.advance(800);
+      assertNotNull(dc.get("k"));
+      timeService.advance(800);
+      // expired according to the original index position, but was touched since
+      assertEquals(0, dc.purgeExpiredEntries());
+      assertNotNull(dc.peek("k"));
+      timeService.advance(1000);
+      assertEquals(1, dc.purgeExpiredEntries());
+      assertEquals(0, dc.size());
+   }
+
+   private static Metadata lifespan(long millis) {
+      return new EmbeddedMetadata.Builder().lifespan(millis, TimeUnit.MILLISECONDS).build();
+   }
+}
@@ -0,0 +1,151 @@
+package org.infinispan.container;
+
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.entries.metadata.MetadataImmortalCacheEntry;
+import org.infinispan.container.entries.metadata.MetadataMortalCacheEntry;
+import org.infinispan.container.entries.metadata.MetadataTransientCacheEntry;
+import org.infinispan.container.entries.metadata.MetadataTransientMortalCacheEntry;
+import org.infinispan.container.entries.versioned.Versioned;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.container.versioning.NumericVersion;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.metadata.Metadata;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Compares the per-entry memory footprint of the entries created by {@link InternalEntryFactoryImpl} for versioned
+ * metadata with the metadata-holding entries it used to create.
+ * <p/>
+ * Sizes are computed from the fields of the entry and of the objects it retains, excluding key, value and version
+ * which are shared with the caller, using the object layout of a 64-bit HotSpot JVM with compressed oops: a 12 byte
+ * header, 4 byte references and objects aligned to 8 bytes.
+ *
+ * @since 7.0
+ */
+@Test(groups = "unit", testName = "container.InternalEntryFootprintTest")
+public class InternalEntryFootprintTest extends AbstractInfinispanTest {
+
+   private static final Log log = LogFactory.getLog(InternalEntryFootprintTest.class);
+
+   private static final int HEADER_SIZE = 12;
+   private static final int REFERENCE_SIZE = 4;
+   private static final int ALIGNMENT = 8;
+
+   private static final Object KEY = "key";
+   private static final Object VALUE = "value";
+   private static final EntryVersion VERSION = new NumericVersion(1);
+
+   private final InternalEntryFactoryImpl factory = createFactory();
+
+   public void testImmortalFootprint() {
+      Metadata metadata = new EmbeddedMetadata.Builder().version(VERSION).build();
+      compare("immortal", new MetadataImmortalCacheEntry(KEY, VALUE, metadata), metadata);
+   }
+
+   public void testMortalFootprint() {
+      Metadata metadata = new EmbeddedMetadata.Builder().version(VERSION)
+            .lifespan(1, TimeUnit.MINUTES).build();
+      compare("mortal", new MetadataMortalCacheEntry(KEY, VALUE, metadata, 0), metadata);
+   }
+
+   public void testTransientFootprint() {
+      Metadata metadata = new EmbeddedMetadata.Builder().version(VERSION)
+            .maxIdle(1, TimeUnit.MINUTES).build();
+      compare("transient", new MetadataTransientCacheEntry(KEY, VALUE, metadata, 0), metadata);
+   }
+
+   public void testTransientMortalFootprint() {
+      Metadata metadata = new EmbeddedMetadata.Builder().version(VERSION)
+            .lifespan(1, TimeUnit.MINUTES).maxIdle(1, TimeUnit.MINUTES).build();
+      compare("transient mortal", new MetadataTransientMortalCacheEntry(KEY, VALUE, metadata, 0, 0), metadata);
+   }
+
+   private void compare(String type, InternalCacheEntry before, Metadata metadata) {
+      InternalCacheEntry after = factory.create(KEY, VALUE, metadata);
+      assertTrue(after.getClass().getName(), after instanceof Versioned);
+      Metadata built = after.getMetadata();
+      assertEquals(VERSION, built.version());
+      assertEquals(metadata.lifespan(), built.lifespan());
+      assertEquals(metadata.maxIdle(), built.maxIdle());
+      assertEquals(metadata.lifespan(), after.getLifespan());
+      assertEquals(metadata.maxIdle(), after.getMaxIdle());
+      before.getMetadata();
+
+      // measured after a read, so that anything the entries keep from getMetadata() is counted
+      long beforeSize = retainedSize(before);
+      long afterSize = retainedSize(after);
+
+      EntryVersion newVersion = new NumericVersion(2);
+      ((Versioned) after).setVersion(newVersion);
+      assertEquals(newVersion, after.getMetadata().version());
+
+      log.infof("Footprint of a versioned %s entry: %d bytes with %s, %d bytes with %s", type,
+                beforeSize, before.getClass().getSimpleName(), afterSize, after.getClass().getSimpleName());
+      assertTrue(type + ": " + afterSize + " >= " + beforeSize, afterSize < beforeSize);
+   }
+
+   private static InternalEntryFactoryImpl createFactory() {
+      InternalEntryFactoryImpl factory = new InternalEntryFactoryImpl();
+      factory.injectTimeService(TIME_SERVICE);
+      return factory;
+   }
+
+   private static long retainedSize(InternalCacheEntry entry) {
+      Map<Object, Object> excluded = new IdentityHashMap<Object, Object>();
+      excluded.put(KEY, KEY);
+      excluded.put(VALUE, VALUE);
+      excluded.put(VERSION, VERSION);
+      return retainedSize(entry, excluded);
+   }
+
+   private static long retainedSize(Object object, Map<Object, Object> visited) {
+      if (object == null || visited.put(object, object) != null) {
+         return 0;
+      }
+      long size = HEADER_SIZE;
+      long retained = 0;
+      for (Class<?> c = object.getClass(); c != null; c = c.getSuperclass()) {
+         for (Field field : c.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+               continue;
+            }
+            Class<?> type = field.getType();
+            if (type.isPrimitive()) {
+               size += primitiveSize(type);
+            } else {
+               size += REFERENCE_SIZE;
+               field.setAccessible(true);
+               try {
+                  retained += retainedSize(field.get(object), visited);
+               } catch (IllegalAccessException e) {
+                  throw new AssertionError(e);
+               }
+            }
+         }
+      }
+      return align(size) + retained;
+   }
+
+   private static int primitiveSize(Class<?> type) {
+      if (type == long.class || type == double.class) return 8;
+      if (type == int.class || type == float.class) return 4;
+      if (type == short.class || type == char.class) return 2;
+      return 1;
+   }
+
+   private static long align(long size) {
+      return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+   }
+}
@@ -0,0 +1,177 @@
+package org.infinispan.container.offheap;
+
+import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.commons.equivalence.ByteArrayEquivalence;
+import org.infinispan.commons.util.concurrent.ParallelIterableMap.KeyValueAction;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.StorageType;
+import org.infinispan.container.DataContainer;
+import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.filter.KeyFilter;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.metadata.EmbeddedMetadata;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the off-heap data container, both directly and through the cache API.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "container.offheap.OffHeapDataContainerTest")
+public class OffHeapDataContainerTest extends SingleCacheManagerTest {
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.dataContainer().storageType(StorageType.OFF_HEAP).addressCount(64);
+      return TestCacheManagerFactory.createCacheManager(builder);
+   }
+
+   private OffHeapDataContainer<Object, Object> container() {
+      return (OffHeapDataContainer<Object, Object>) TestingUtil.extractComponent(cache, DataContainer.class);
+   }
+
+   public void testContainerSelected() {
+      assertTrue(cache.getAdvancedCache().getDataContainer() instanceof OffHeapDataContainer);
+   }
+
+   public void testPutGetRemove() {
+      for (int i = 0; i < 1000; i++) {
+         cache.put("k" + i, "v" + i);
+      }
+      assertEquals(1000, cache.size());
+      for (int i = 0; i < 1000; i++) {
+         assertEquals("v" + i, cache.get("k" + i));
+      }
+      cache.put("k0", "v0-updated");
+      assertEquals("v0-updated", cache.get("k0"));
+      assertEquals(1000, cache.size());
+
+      for (int i = 0; i < 1000; i++) {
+         assertEquals(i == 0 ? "v0-updated" : "v" + i, cache.remove("k" + i));
+      }
+      assertEquals(0, cache.size());
+      assertNull(cache.get("k1"));
+   }
+
+   public void testExpiration() throws Exception {
+      DataContainer<Object, Object> dc = container();
+      dc.put("mortal", "v", new EmbeddedMetadata.Builder().lifespan(50, TimeUnit.MILLISECONDS).build());
+      dc.put("immortal", "v", new EmbeddedMetadata.Builder().build());
+      assertTrue(dc.containsKey("mortal"));
+      Thread.sleep(100);
+      assertNull(dc.get("mortal"));
+      assertEquals(1, dc.size());
+
+      dc.put("mortal", "v", new EmbeddedMetadata.Builder().lifespan(50, TimeUnit.MILLISECONDS).build());
+      Thread.sleep(100);
+      dc.purgeExpired();
+      assertEquals(1, dc.size());
+      assertEquals("v", dc.get("immortal").getValue());
+   }
+
+   public void testLastUsedUpdatedOnRead() throws Exception {
+      DataContainer<Object, Object> dc = container();
+      dc.put("k", "v", new EmbeddedMetadata.Builder().maxIdle(10, TimeUnit.MINUTES).build());
+      long lastUsed = dc.get("k").getLastUsed();
+      Thread.sleep(50);
+      assertTrue(dc.get("k").getLastUsed() > lastUsed);
+      // peek reports the last used time without updating it
+      long peeked = dc.peek("k").getLastUsed();
+      Thread.sleep(50);
+      assertEquals(peeked, dc.peek("k").getLastUsed());
+   }
+
+   public void testCompute() {
+      DataContainer<Object, Object> dc = container();
+      dc.compute("k", new DataContainer.ComputeAction<Object, Object>() {
+         @Override
+         public InternalCacheEntry<Object, Object> compute(Object key, InternalCacheEntry<Object, Object> oldEntry,
+                                                           InternalEntryFactory factory) {
+            assertNull(oldEntry);
+            return factory.create(key, "v1", new EmbeddedMetadata.Builder().build());
+         }
+      });
+      assertEquals("v1", dc.get("k").getValue());
+      dc.compute("k", new DataContainer.ComputeAction<Object, Object>() {
+         @Override
+         public InternalCacheEntry<Object, Object> compute(Object key, InternalCacheEntry<Object, Object> oldEntry,
+                                                           InternalEntryFactory factory) {
+            assertEquals("v1", oldEntry.getValue());
+            return null;
+         }
+      });
+      assertFalse(dc.containsKey("k"));
+      assertEquals(0, dc.size());
+   }
+
+   public void testIterationAndExecuteTask() throws Exception {
+      for (int i = 0; i < 200; i++) {
+         cache.put(i, "v" + i);
+      }
+      Set<Object> keys = new HashSet<Object>();
+      for (InternalCacheEntry<Object, Object> e : container()) {
+         assertEquals("v" + e.getKey(), e.getValue());
+         keys.add(e.getKey());
+      }
+      assertEquals(200, keys.size());
+      assertEquals(200, container().keySet().size());
+      assertTrue(container().keySet().contains(10));
+
+      final AtomicInteger visited = new AtomicInteger();
+      container().executeTask(new KeyFilter<Object>() {
+         @Override
+         public boolean accept(Object key) {
+            return ((Integer) key) % 2 == 0;
+         }
+      }, new KeyValueAction<Object, InternalCacheEntry<Object, Object>>() {
+         @Override
+         public void apply(Object key, InternalCacheEntry<Object, Object> value) {
+            visited.incrementAndGet();
+         }
+      });
+      assertEquals(100, visited.get());
+   }
+
+   public void testClearReleasesMemory() {
+      OffHeapDataContainer<Object, Object> dc = container();
+      cache.clear();
+      long indexBytes = dc.getAllocatedBytes();
+      for (int i = 0; i < 100; i++) {
+         cache.put(i, new byte[1024]);
+      }
+      assertTrue(dc.getAllocatedBytes() > indexBytes + 100 * 1024);
+      cache.clear();
+      assertEquals(indexBytes, dc.getAllocatedBytes());
+      assertEquals(0, dc.size());
+   }
+
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testEvictionRejected() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.dataContainer().storageType(StorageType.OFF_HEAP);
+      builder.eviction().maxEntries(100);
+      builder.build();
+   }
+
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testKeyEquivalenceRejected() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.dataContainer().storageType(StorageType.OFF_HEAP).keyEquivalence(ByteArrayEquivalence.INSTANCE);
+      builder.build();
+   }
+}
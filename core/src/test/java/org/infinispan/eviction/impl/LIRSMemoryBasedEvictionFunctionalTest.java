@@ -0,0 +1,13 @@
+package org.infinispan.eviction.impl;
+
+import org.infinispan.eviction.EvictionStrategy;
+import org.testng.annotations.Test;
+
+@Test(groups = "functional", testName = "eviction.LIRSMemoryBasedEvictionFunctionalTest")
+public class LIRSMemoryBasedEvictionFunctionalTest extends MemoryBasedEvictionFunctionalTest {
+
+   @Override
+   protected EvictionStrategy getEvictionStrategy() {
+      return EvictionStrategy.LIRS;
+   }
+}
@@ -0,0 +1,94 @@
+package org.infinispan.eviction.impl;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.DefaultDataContainer;
+import org.infinispan.eviction.EntrySizeCalculator;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.eviction.EvictionType;
+import org.infinispan.interceptors.CacheMgmtInterceptor;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests eviction based on the estimated memory footprint of the entries.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "eviction.MemoryBasedEvictionFunctionalTest")
+public class MemoryBasedEvictionFunctionalTest extends SingleCacheManagerTest {
+
+   private static final long MAX_MEMORY = 64 * 1024;
+   private static final int VALUE_SIZE = 1024;
+
+   protected EvictionStrategy getEvictionStrategy() {
+      return EvictionStrategy.LRU;
+   }
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.eviction().strategy(getEvictionStrategy()).type(EvictionType.MEMORY).maxMemory(MAX_MEMORY)
+            .sizeCalculator(new ByteArraySizeCalculator())
+            .jmxStatistics().enable()
+            .locking().concurrencyLevel(1);
+      return TestCacheManagerFactory.createCacheManager(builder);
+   }
+
+   private DefaultDataContainer<Object, Object> container() {
+      return (DefaultDataContainer<Object, Object>) cache.getAdvancedCache().getDataContainer();
+   }
+
+   public void testMemoryStaysUnderLimit() {
+      for (int i = 0; i < 1000; i++) {
+         cache.put(i, new byte[VALUE_SIZE]);
+         assertTrue("Memory used " + container().getMemoryUsed(), container().getMemoryUsed() <= MAX_MEMORY);
+      }
+      assertTrue(cache.getAdvancedCache().getDataContainer().size() < 1000);
+      // the most recent entry is never evicted
+      assertNotNull(cache.get(999));
+   }
+
+   public void testMemoryAccountedOnUpdateAndRemove() {
+      cache.clear();
+      assertEquals(0, container().getMemoryUsed());
+      cache.put("k", new byte[10]);
+      long small = container().getMemoryUsed();
+      cache.put("k", new byte[100]);
+      assertEquals(small + 90, container().getMemoryUsed());
+      cache.remove("k");
+      assertEquals(0, container().getMemoryUsed());
+   }
+
+   public void testLargerEntriesEvictMore() {
+      cache.clear();
+      for (int i = 0; i < 32; i++) {
+         cache.put(i, new byte[VALUE_SIZE]);
+      }
+      int sizeBefore = cache.getAdvancedCache().getDataContainer().size();
+      cache.put("big", new byte[(int) (MAX_MEMORY * 3 / 4)]);
+      assertTrue(cache.getAdvancedCache().getDataContainer().size() < sizeBefore - 10);
+      assertTrue(container().getMemoryUsed() <= MAX_MEMORY);
+   }
+
+   public void testMemoryExposedThroughStatistics() {
+      cache.clear();
+      cache.put("k", new byte[VALUE_SIZE]);
+      CacheMgmtInterceptor interceptor = TestingUtil.findInterceptor(cache, CacheMgmtInterceptor.class);
+      assertEquals(container().getMemoryUsed(), interceptor.getDataMemoryUsed());
+      assertTrue(interceptor.getDataMemoryUsed() > VALUE_SIZE);
+   }
+
+   public static class ByteArraySizeCalculator implements EntrySizeCalculator<Object, Object> {
+      @Override
+      public long calculateSize(Object key, Object value) {
+         return value instanceof byte[] ? ((byte[]) value).length : 0;
+      }
+   }
+}
@@ -0,0 +1,12 @@
+package org.infinispan.eviction.impl;
+
+import org.infinispan.eviction.EvictionStrategy;
+import org.testng.annotations.Test;
+
+@Test(groups = "functional", testName = "eviction.TINYLFUEvictionFunctionalTest")
+public class TINYLFUEvictionFunctionalTest extends BaseEvictionFunctionalTest {
+
+   protected EvictionStrategy getEvictionStrategy() {
+      return EvictionStrategy.TINYLFU;
+   }
+}
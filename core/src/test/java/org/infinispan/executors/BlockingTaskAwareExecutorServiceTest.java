@@ -5,6 +5,7 @@
 import org.infinispan.util.concurrent.BlockingRunnable;
 import org.infinispan.util.concurrent.BlockingTaskAwareExecutorService;
 import org.infinispan.util.concurrent.BlockingTaskAwareExecutorServiceImpl;
+import org.infinispan.util.concurrent.ResourceBlockingRunnable;
 import org.testng.annotations.Test;
 
 import java.util.LinkedList;
@@ -14,6 +15,8 @@
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
+import static org.testng.AssertJUnit.assertEquals;
+
 /**
  * Simple executor test
  *
@@ -87,6 +90,74 @@ public boolean isSatisfied() throws Exception {
       }
    }
 
+   public void testResourceWakeup() throws Exception {
+      BlockingTaskAwareExecutorServiceImpl executorService = createExecutorService();
+      try {
+         final Object resource1 = new Object();
+         final Object resource2 = new Object();
+         final WaitForResource task1 = new WaitForResource(resource1);
+         final WaitForResource task2 = new WaitForResource(resource2);
+         executorService.execute(task1);
+         executorService.execute(task2);
+         assertEquals(2, executorService.getBlockedTaskCount());
+         assertEquals(2, executorService.getQueueLengthHistogram().getCount());
+
+         // only the tasks waiting for the released resource are checked
+         task1.markReady();
+         task2.markReady();
+         executorService.checkForReadyTasks(resource1);
+         assertEquals(1, executorService.getBlockedTaskCount());
+         eventually(new Condition() {
+            @Override
+            public boolean isSatisfied() throws Exception {
+               return task1.isExecuted();
+            }
+         });
+         assert !task2.isExecuted();
+
+         executorService.checkForReadyTasks(resource2);
+         assertEquals(0, executorService.getBlockedTaskCount());
+         eventually(new Condition() {
+            @Override
+            public boolean isSatisfied() throws Exception {
+               return task2.isExecuted();
+            }
+         });
+         assertEquals(2, executorService.getWaitTimeHistogram().getCount());
+      } finally {
+         executorService.shutdownNow();
+      }
+   }
+
+   public void testResourceChanged() throws Exception {
+      BlockingTaskAwareExecutorServiceImpl executorService = createExecutorService();
+      try {
+         final Object resource1 = new Object();
+         final Object resource2 = new Object();
+         final WaitForResource task = new WaitForResource(resource1);
+         executorService.execute(task);
+
+         // the task now waits for another resource, it is filed under it and ignored by the checks for the first one
+         task.waitFor(resource2);
+         executorService.checkForReadyTasks(resource1);
+         assertEquals(1, executorService.getBlockedTaskCount());
+         task.markReady();
+         executorService.checkForReadyTasks(resource1);
+         assertEquals(1, executorService.getBlockedTaskCount());
+
+         executorService.checkForReadyTasks(resource2);
+         assertEquals(0, executorService.getBlockedTaskCount());
+         eventually(new Condition() {
+            @Override
+            public boolean isSatisfied() throws Exception {
+               return task.isExecuted();
+            }
+         });
+      } finally {
+         executorService.shutdownNow();
+      }
+   }
+
    private BlockingTaskAwareExecutorServiceImpl createExecutorService() {
       return new BlockingTaskAwareExecutorServiceImpl(new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS,
                                                                              new LinkedBlockingQueue<Runnable>(1000),
@@ -125,4 +196,41 @@ public synchronized final boolean isExecuted() {
          return executed;
       }
    }
+
+   public static class WaitForResource implements ResourceBlockingRunnable {
+
+      private volatile Object resource;
+      private volatile boolean executed = false;
+
+      public WaitForResource(Object resource) {
+         this.resource = resource;
+      }
+
+      @Override
+      public boolean isReady() {
+         return resource == null;
+      }
+
+      @Override
+      public Object getBlockingResource() {
+         return resource;
+      }
+
+      @Override
+      public void run() {
+         executed = true;
+      }
+
+      public void waitFor(Object resource) {
+         this.resource = resource;
+      }
+
+      public void markReady() {
+         resource = null;
+      }
+
+      public boolean isExecuted() {
+         return executed;
+      }
+   }
 }
@@ -9,6 +9,10 @@
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
+import org.infinispan.commands.VisitableCommand;
+import org.infinispan.commands.read.GetKeyValueCommand;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.context.InvocationContext;
 import org.infinispan.factories.components.ComponentMetadataRepo;
 import org.infinispan.factories.components.ModuleMetadataFileFinder;
 import org.infinispan.interceptors.base.CommandInterceptor;
@@ -60,6 +64,81 @@ public void testConcurrentAddRemove() throws Exception {
       assert ic.asList().size() == 5 : "Resulting interceptor chain was actually " + ic.asList();
    }
 
+   public void testSkipsInterceptorsNotHandlingCommand() throws Exception {
+      ComponentMetadataRepo componentMetadataRepo = new ComponentMetadataRepo();
+      componentMetadataRepo.initialize(Collections.<ModuleMetadataFileFinder>emptyList(), InterceptorChainTest.class.getClassLoader());
+      InterceptorChain ic = new InterceptorChain(componentMetadataRepo);
+      LastInterceptor last = new LastInterceptor();
+      ic.setFirstInChain(new PutInterceptor());
+      ic.appendInterceptor(new PassThroughInterceptor(), false);
+      ic.appendInterceptor(last, false);
+
+      ic.invoke(null, new PutKeyValueCommand());
+      assert last.invokedBy(PutInterceptor.class);
+      assert !last.passedOnByDefault();
+
+      ic.invoke(null, new GetKeyValueCommand());
+      assert !last.invokedBy(PutInterceptor.class);
+      assert !last.passedOnByDefault();
+
+      // the dispatch is compiled again when the chain changes
+      ic.addInterceptor(new GetInterceptor(), 1);
+      ic.invoke(null, new GetKeyValueCommand());
+      assert last.invokedBy(GetInterceptor.class);
+      assert !last.passedOnByDefault();
+      ic.invoke(null, new PutKeyValueCommand());
+      assert last.invokedBy(PutInterceptor.class);
+      assert !last.invokedBy(GetInterceptor.class);
+      assert !last.passedOnByDefault();
+   }
+
+   private static class PassThroughInterceptor extends CommandInterceptor {
+   }
+
+   private static class PutInterceptor extends CommandInterceptor {
+      @Override
+      public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) throws Throwable {
+         return invokeNextInterceptor(ctx, command);
+      }
+   }
+
+   private static class GetInterceptor extends CommandInterceptor {
+      @Override
+      public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand command) throws Throwable {
+         return invokeNextInterceptor(ctx, command);
+      }
+   }
+
+   private static class LastInterceptor extends CommandInterceptor {
+      private volatile StackTraceElement[] stackTrace;
+
+      @Override
+      protected Object handleDefault(InvocationContext ctx, VisitableCommand command) throws Throwable {
+         stackTrace = new Throwable().getStackTrace();
+         return null;
+      }
+
+      boolean invokedBy(Class<?> interceptorClass) {
+         for (StackTraceElement element : stackTrace) {
+            if (element.getClassName().equals(interceptorClass.getName())) {
+               return true;
+            }
+         }
+         return false;
+      }
+
+      // whether an interceptor not handling the command was invoked, only to pass it on
+      boolean passedOnByDefault() {
+         for (StackTraceElement element : stackTrace) {
+            if (element.getClassName().equals(CommandInterceptor.class.getName())
+                  && element.getMethodName().equals("handleDefault")) {
+               return true;
+            }
+         }
+         return false;
+      }
+   }
+
    private static class InterceptorChainUpdater implements Callable<Void> {
       private final InterceptorChain ic;
       private final CyclicBarrier barrier;
@@ -0,0 +1,92 @@
+package org.infinispan.interceptors;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.interceptors.base.BaseCustomInterceptor;
+import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.LogarithmicHistogram;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the times recorded by {@link InterceptorTimings}.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "interceptors.InterceptorTimingsTest")
+public class InterceptorTimingsTest extends SingleCacheManagerTest {
+
+   private static final long SLEEP_MILLIS = 50;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.jmxStatistics().interceptorTimings(true);
+      return TestCacheManagerFactory.createCacheManager(builder);
+   }
+
+   public void testTimingsPerCommand() {
+      InterceptorTimings timings = TestingUtil.extractComponent(cache, InterceptorTimings.class);
+      timings.resetStatistics();
+      for (int i = 0; i < 10; i++) {
+         cache.put("k" + i, "v" + i);
+      }
+      for (int i = 0; i < 5; i++) {
+         cache.get("k" + i);
+      }
+
+      assertEquals(10, timings.findHistogram("CallInterceptor", "PutKeyValueCommand").getCount());
+      assertEquals(5, timings.findHistogram("CallInterceptor", "GetKeyValueCommand").getCount());
+      assertTrue(timings.getTimings().contains("CallInterceptor PutKeyValueCommand: count=10"));
+   }
+
+   public void testNestedTimeExcluded() {
+      InterceptorTimings timings = TestingUtil.extractComponent(cache, InterceptorTimings.class);
+      CommandInterceptor first = cache.getAdvancedCache().getInterceptorChain().get(0);
+      // an interceptor added to the running cache is timed too
+      cache.getAdvancedCache().addInterceptor(new SlowPutInterceptor(), 1);
+      try {
+         timings.resetStatistics();
+         cache.put("k", "v");
+
+         LogarithmicHistogram slow = timings.findHistogram("SlowPutInterceptor", "PutKeyValueCommand");
+         assertNotNull(slow);
+         assertEquals(1, slow.getCount());
+         assertTrue(slow.getPercentile(50) >= TimeUnit.MILLISECONDS.toNanos(SLEEP_MILLIS));
+
+         LogarithmicHistogram outer = timings.findHistogram(first.getClass().getSimpleName(), "PutKeyValueCommand");
+         assertEquals(1, outer.getCount());
+         assertTrue(outer.getPercentile(50) < TimeUnit.MILLISECONDS.toNanos(SLEEP_MILLIS));
+      } finally {
+         cache.getAdvancedCache().removeInterceptor(SlowPutInterceptor.class);
+      }
+      assertNull(timings.findHistogram("SlowPutInterceptor", "PutKeyValueCommand"));
+   }
+
+   public void testDisabledByDefault() {
+      cacheManager.defineConfiguration("untimed", new ConfigurationBuilder().build());
+      Cache<Object, Object> untimed = cacheManager.getCache("untimed");
+      untimed.put("k", "v");
+      assertNull(TestingUtil.extractComponent(untimed, InterceptorTimings.class));
+   }
+
+   public static class SlowPutInterceptor extends BaseCustomInterceptor {
+      @Override
+      public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) throws Throwable {
+         Thread.sleep(SLEEP_MILLIS);
+         return super.visitPutKeyValueCommand(ctx, command);
+      }
+   }
+}
@@ -0,0 +1,173 @@
+package org.infinispan.lock;
+
+import org.infinispan.commons.equivalence.AnyEquivalence;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.util.concurrent.locks.LockManagerImpl;
+import org.infinispan.util.concurrent.locks.OwnableReentrantLock;
+import org.infinispan.util.concurrent.locks.containers.AsyncLockContainer;
+import org.infinispan.util.concurrent.locks.containers.OwnableReentrantPerEntryLockContainer;
+import org.infinispan.util.concurrent.locks.containers.OwnableReentrantStripedLockContainer;
+import org.infinispan.util.concurrent.locks.containers.ReentrantPerEntryLockContainer;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the asynchronous lock acquisition of the lock containers and of the lock manager.
+ *
+ * @since 7.0
+ */
+@Test(groups = "unit", testName = "lock.AsyncLockContainerTest")
+public class AsyncLockContainerTest extends AbstractInfinispanTest {
+
+   public void testPerEntryGrantedInOrder() throws Exception {
+      OwnableReentrantPerEntryLockContainer lc = new OwnableReentrantPerEntryLockContainer(16, AnyEquivalence.getInstance());
+      doTestGrantedInOrder(lc);
+      assertEquals(0, lc.size());
+   }
+
+   public void testStripedGrantedInOrder() throws Exception {
+      doTestGrantedInOrder(new OwnableReentrantStripedLockContainer(16, AnyEquivalence.getInstance()));
+   }
+
+   public void testPerEntryCancel() throws Exception {
+      OwnableReentrantPerEntryLockContainer lc = new OwnableReentrantPerEntryLockContainer(16, AnyEquivalence.getInstance());
+      doTestCancel(lc);
+      assertEquals(0, lc.size());
+   }
+
+   public void testStripedCancel() throws Exception {
+      doTestCancel(new OwnableReentrantStripedLockContainer(16, AnyEquivalence.getInstance()));
+   }
+
+   public void testReentrant() throws Exception {
+      OwnableReentrantPerEntryLockContainer lc = new OwnableReentrantPerEntryLockContainer(16, AnyEquivalence.getInstance());
+      Object owner = new Object();
+      assertTrue(lc.acquireLockAsync(owner, "k").isDone());
+      assertTrue(lc.acquireLockAsync(owner, "k").isDone());
+
+      lc.releaseLock(owner, "k");
+      assertTrue(lc.ownsLock("k", owner));
+      lc.releaseLock(owner, "k");
+      assertFalse(lc.isLocked("k"));
+      assertEquals(0, lc.size());
+   }
+
+   @Test(expectedExceptions = UnsupportedOperationException.class)
+   public void testThreadOwnedLocksNotSupported() {
+      LockManagerImpl lockManager = new LockManagerImpl();
+      lockManager.injectDependencies(new ConfigurationBuilder().build(),
+            new ReentrantPerEntryLockContainer(16, AnyEquivalence.getInstance()));
+      lockManager.acquireLocksAsync(Arrays.<Object>asList("k"), new Object(), 100);
+   }
+
+   public void testLockManagerTimeout() throws Exception {
+      ScheduledExecutorService timeoutExecutor = Executors.newSingleThreadScheduledExecutor(getTestThreadFactory("Timeout"));
+      try {
+         OwnableReentrantPerEntryLockContainer lc = new OwnableReentrantPerEntryLockContainer(16, AnyEquivalence.getInstance());
+         LockManagerImpl lockManager = new LockManagerImpl();
+         lockManager.injectDependencies(new ConfigurationBuilder().build(), lc);
+         lockManager.injectTimeoutExecutor(timeoutExecutor);
+
+         Object holder = new Object();
+         Object owner = new Object();
+         lc.acquireLock(holder, "k2", 0, TimeUnit.MILLISECONDS);
+         List<Object> keys = Arrays.<Object>asList("k1", "k2");
+
+         // k1 is granted at once, but k2 isn't released in time, so k1 is given back
+         NotifyingFuture<Boolean> acquisition = lockManager.acquireLocksAsync(keys, owner, 100);
+         assertFalse(acquisition.get(10, TimeUnit.SECONDS));
+         assertFalse(lc.isLocked("k1"));
+         assertTrue(lc.ownsLock("k2", holder));
+
+         acquisition = lockManager.acquireLocksAsync(keys, owner, TimeUnit.SECONDS.toMillis(10));
+         assertFalse(acquisition.isDone());
+         lc.releaseLock(holder, "k2");
+         assertTrue(acquisition.get(10, TimeUnit.SECONDS));
+         assertTrue(lc.ownsLock("k1", owner));
+         assertTrue(lc.ownsLock("k2", owner));
+
+         lockManager.unlock(keys, owner);
+         assertEquals(0, lc.size());
+      } finally {
+         timeoutExecutor.shutdownNow();
+      }
+   }
+
+   private void doTestGrantedInOrder(AsyncLockContainer<? extends OwnableReentrantLock> lc) throws Exception {
+      Object owner1 = new Object();
+      Object owner2 = new Object();
+      Object owner3 = new Object();
+
+      Future<? extends OwnableReentrantLock> first = lc.acquireLockAsync(owner1, "k");
+      assertTrue(first.isDone());
+      assertTrue(lc.ownsLock("k", owner1));
+
+      NotifyingFuture<? extends OwnableReentrantLock> second = lc.acquireLockAsync(owner2, "k");
+      Future<? extends OwnableReentrantLock> third = lc.acquireLockAsync(owner3, "k");
+      assertFalse(second.isDone());
+      assertFalse(third.isDone());
+      final AtomicReference<Thread> grantingThread = new AtomicReference<Thread>();
+      attachGrantListener(second, grantingThread);
+
+      lc.releaseLock(owner1, "k");
+      assertTrue(second.isDone());
+      assertSame(Thread.currentThread(), grantingThread.get());
+      assertSame(first.get(), second.get());
+      assertTrue(lc.ownsLock("k", owner2));
+      assertFalse(third.isDone());
+
+      lc.releaseLock(owner2, "k");
+      assertTrue(third.isDone());
+      assertTrue(lc.ownsLock("k", owner3));
+
+      lc.releaseLock(owner3, "k");
+      assertFalse(lc.isLocked("k"));
+   }
+
+   private <L extends OwnableReentrantLock> void attachGrantListener(NotifyingFuture<L> future,
+                                                                     final AtomicReference<Thread> grantingThread) {
+      future.attachListener(new FutureListener<L>() {
+         @Override
+         public void futureDone(Future<L> future) {
+            grantingThread.set(Thread.currentThread());
+         }
+      });
+   }
+
+   private void doTestCancel(AsyncLockContainer<? extends OwnableReentrantLock> lc) throws Exception {
+      Object owner1 = new Object();
+      Object owner2 = new Object();
+      Object owner3 = new Object();
+
+      Future<? extends OwnableReentrantLock> first = lc.acquireLockAsync(owner1, "k");
+      Future<? extends OwnableReentrantLock> second = lc.acquireLockAsync(owner2, "k");
+      Future<? extends OwnableReentrantLock> third = lc.acquireLockAsync(owner3, "k");
+
+      // a granted request can't be cancelled
+      assertFalse(first.cancel(false));
+      assertTrue(second.cancel(false));
+      assertTrue(second.isCancelled());
+      assertTrue(second.isDone());
+
+      lc.releaseLock(owner1, "k");
+      assertTrue(lc.ownsLock("k", owner3));
+      assertFalse(third.isCancelled());
+      lc.releaseLock(owner3, "k");
+      assertFalse(lc.isLocked("k"));
+   }
+}
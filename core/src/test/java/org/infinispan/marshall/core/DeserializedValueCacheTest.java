@@ -0,0 +1,137 @@
+package org.infinispan.marshall.core;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests that values stored as binary are replicated without being deserialized, and that local reads go through the
+ * per node cache of deserialized values when one is configured.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "marshall.core.DeserializedValueCacheTest")
+public class DeserializedValueCacheTest extends MultipleCacheManagersTest {
+
+   private static final String CACHED = "cached";
+   private static final String UNCACHED = "uncached";
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.REPL_SYNC, false);
+      builder.storeAsBinary().enable().deserializedCacheSize(16);
+      createClusteredCaches(2, CACHED, builder);
+
+      builder.storeAsBinary().deserializedCacheSize(0);
+      defineConfigurationOnAllManagers(UNCACHED, builder);
+      waitForClusterToForm(UNCACHED);
+
+      // Prime the IsMarshallableInterceptor so that it doesn't trigger additional serialization during tests
+      for (String cacheName : new String[]{CACHED, UNCACHED}) {
+         for (Cache<Object, Object> c : this.<Object, Object>caches(cacheName)) {
+            c.get(new CountingValue(-1));
+         }
+      }
+   }
+
+   @BeforeMethod
+   public void resetCounts() {
+      CountingValue.serializations.set(0);
+      CountingValue.deserializations.set(0);
+   }
+
+   public void testReplicatedWriteNotDeserialized() {
+      cache(0, CACHED).put("replicated", new CountingValue(1));
+
+      assertCounts(1, 0);
+      for (Cache<Object, Object> c : this.<Object, Object>caches(CACHED)) {
+         Object stored = c.getAdvancedCache().getDataContainer().get("replicated").getValue();
+         assertTrue(String.valueOf(stored), stored instanceof MarshalledValue);
+      }
+   }
+
+   public void testHotValueDeserializedOnce() {
+      Cache<Object, Object> cache = cache(1, CACHED);
+      cache(0, CACHED).put("hot", new CountingValue(1));
+
+      Object first = cache.get("hot");
+      assertEquals(new CountingValue(1), first);
+      assertSame(first, cache.get("hot"));
+      assertSame(first, cache.get("hot"));
+      assertCounts(1, 1);
+   }
+
+   public void testOverwrittenValueNotStale() {
+      Cache<Object, Object> cache = cache(0, CACHED);
+      cache.put("overwritten", new CountingValue(1));
+      assertEquals(new CountingValue(1), cache.get("overwritten"));
+
+      cache.put("overwritten", new CountingValue(2));
+      assertEquals(new CountingValue(2), cache.get("overwritten"));
+      assertEquals(new CountingValue(2), cache(1, CACHED).get("overwritten"));
+   }
+
+   public void testDeserializedOnEveryReadWithoutCache() {
+      Cache<Object, Object> cache = cache(1, UNCACHED);
+      cache(0, UNCACHED).put("uncached", new CountingValue(1));
+
+      Object first = cache.get("uncached");
+      assertNotSame(first, cache.get("uncached"));
+      assertCounts(1, 2);
+   }
+
+   private void assertCounts(int serializations, int deserializations) {
+      assertEquals("Serialization count mismatch", serializations, CountingValue.serializations.get());
+      assertEquals("Deserialization count mismatch", deserializations, CountingValue.deserializations.get());
+   }
+
+   public static class CountingValue implements Externalizable {
+      static final AtomicInteger serializations = new AtomicInteger();
+      static final AtomicInteger deserializations = new AtomicInteger();
+
+      private int i;
+
+      public CountingValue() {
+      }
+
+      CountingValue(int i) {
+         this.i = i;
+      }
+
+      @Override
+      public void writeExternal(ObjectOutput out) throws IOException {
+         out.writeInt(i);
+         serializations.incrementAndGet();
+      }
+
+      @Override
+      public void readExternal(ObjectInput in) throws IOException {
+         i = in.readInt();
+         deserializations.incrementAndGet();
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         return o instanceof CountingValue && ((CountingValue) o).i == i;
+      }
+
+      @Override
+      public int hashCode() {
+         return i;
+      }
+   }
+}
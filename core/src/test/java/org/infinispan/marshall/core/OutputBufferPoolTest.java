@@ -0,0 +1,65 @@
+package org.infinispan.marshall.core;
+
+import org.infinispan.commons.io.ExposedByteArrayOutputStream;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.Callable;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertSame;
+
+/**
+ * Tests the reuse of the output buffers of {@link VersionAwareMarshaller}.
+ *
+ * @since 7.0
+ */
+@Test(groups = "unit", testName = "marshall.core.OutputBufferPoolTest")
+public class OutputBufferPoolTest extends AbstractInfinispanTest {
+
+   public void testBufferReused() {
+      OutputBufferPool pool = new OutputBufferPool(1024);
+      ExposedByteArrayOutputStream stream = pool.acquire(16);
+      stream.write(new byte[100], 0, 100);
+      pool.release(stream);
+
+      ExposedByteArrayOutputStream reused = pool.acquire(16);
+      assertSame(stream, reused);
+      assertEquals(0, reused.size());
+      pool.release(reused);
+   }
+
+   public void testNestedAcquire() {
+      OutputBufferPool pool = new OutputBufferPool(1024);
+      ExposedByteArrayOutputStream outer = pool.acquire(16);
+      ExposedByteArrayOutputStream inner = pool.acquire(16);
+      assertNotSame(outer, inner);
+      pool.release(inner);
+      assertSame(inner, pool.acquire(16));
+      pool.release(inner);
+      pool.release(outer);
+      assertSame(outer, pool.acquire(16));
+   }
+
+   public void testBigBufferNotRetained() {
+      OutputBufferPool pool = new OutputBufferPool(1024);
+      ExposedByteArrayOutputStream stream = pool.acquire(16);
+      stream.write(new byte[4096], 0, 4096);
+      pool.release(stream);
+      assertNotSame(stream, pool.acquire(16));
+   }
+
+   public void testBuffersArePerThread() throws Exception {
+      final OutputBufferPool pool = new OutputBufferPool(1024);
+      ExposedByteArrayOutputStream stream = pool.acquire(16);
+      pool.release(stream);
+      ExposedByteArrayOutputStream other = fork(new Callable<ExposedByteArrayOutputStream>() {
+         @Override
+         public ExposedByteArrayOutputStream call() {
+            return pool.acquire(16);
+         }
+      }).get();
+      assertNotSame(stream, other);
+   }
+}
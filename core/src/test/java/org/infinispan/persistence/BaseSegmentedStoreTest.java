@@ -0,0 +1,80 @@
+package org.infinispan.persistence;
+
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.spi.AdvancedCacheLoader;
+import org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the operations of a {@link SegmentedAdvancedLoadWriteStore} on a subset of the segments of a distributed
+ * cache.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional")
+public abstract class BaseSegmentedStoreTest extends SingleCacheManagerTest {
+
+   private static final int NUM_SEGMENTS = 20;
+   private static final int NUM_KEYS = 200;
+
+   protected abstract void configurePersistence(ConfigurationBuilder builder);
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numSegments(NUM_SEGMENTS);
+      configurePersistence(builder);
+      return TestCacheManagerFactory.createClusteredCacheManager(builder);
+   }
+
+   public void testSegmentedOperations() {
+      for (int i = 0; i < NUM_KEYS; i++) {
+         cache.put("k" + i, "v" + i);
+      }
+      ConsistentHash ch = cache.getAdvancedCache().getDistributionManager().getReadConsistentHash();
+      Set<Integer> segments = new HashSet<Integer>();
+      for (int segment = 0; segment < NUM_SEGMENTS; segment += 3) {
+         segments.add(segment);
+      }
+      Set<Object> expected = new HashSet<Object>();
+      for (int i = 0; i < NUM_KEYS; i++) {
+         if (segments.contains(ch.getSegment("k" + i))) {
+            expected.add("k" + i);
+         }
+      }
+      assertTrue(!expected.isEmpty() && expected.size() < NUM_KEYS);
+
+      SegmentedAdvancedLoadWriteStore<Object, Object> store = TestingUtil.getFirstWriter(cache);
+      final Set<Object> processed = new HashSet<Object>();
+      store.process(segments, null, new AdvancedCacheLoader.CacheLoaderTask<Object, Object>() {
+         @Override
+         public void processEntry(MarshalledEntry<Object, Object> marshalledEntry, AdvancedCacheLoader.TaskContext taskContext) {
+            assertEquals("v" + ((String) marshalledEntry.getKey()).substring(1), marshalledEntry.getValue());
+            processed.add(marshalledEntry.getKey());
+         }
+      }, new WithinThreadExecutor(), true, true);
+      assertEquals(expected, processed);
+      assertEquals(expected.size(), store.size(segments));
+
+      store.clear(segments);
+      assertEquals(0, store.size(segments));
+      assertEquals(NUM_KEYS - expected.size(), store.size());
+      for (int i = 0; i < NUM_KEYS; i++) {
+         assertEquals(!expected.contains("k" + i), store.contains("k" + i));
+      }
+   }
+}
@@ -5,10 +5,12 @@
 import static org.testng.AssertJUnit.*;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.infinispan.filter.CollectionKeyFilter;
@@ -379,6 +381,53 @@ public void testStoreAndRemove() throws PersistenceException {
       assertEquals("k4", set.iterator().next().getKey());
    }
 
+   /**
+    * Writes a batch through {@link PersistenceUtil#writeBatch}, i.e. with a single call to the stores implementing
+    * {@link org.infinispan.persistence.spi.BatchCacheWriter} and one write per entry to the others.
+    */
+   public void testWriteBatch() throws PersistenceException {
+      assertIsEmpty();
+      // half of the batch replaces existing entries, the other half adds new ones
+      for (int i = 0; i < 5; i++) {
+         cl.write(marshalledEntry("k" + i, "v" + i, null));
+      }
+      List<MarshalledEntry<?, ?>> batch = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+         batch.add(marshalledEntry("k" + i, "v" + i + "-new", null));
+      }
+      PersistenceUtil.writeBatch(cl, batch);
+
+      assertEquals(10, cl.size());
+      for (int i = 0; i < 10; i++) {
+         MarshalledEntry entry = cl.load("k" + i);
+         assertNotNull("k" + i, entry);
+         assertEquals("v" + i + "-new", unwrap(entry.getValue()));
+      }
+   }
+
+   public void testDeleteBatch() throws PersistenceException {
+      assertIsEmpty();
+      for (int i = 0; i < 6; i++) {
+         cl.write(marshalledEntry("k" + i, "v" + i, null));
+      }
+      // deleting keys that are not in the store is not an error
+      PersistenceUtil.deleteBatch(cl, Arrays.<Object>asList("k0", "k2", "k4", "missing1", "missing2"));
+
+      assertEquals(3, cl.size());
+      for (int i = 0; i < 6; i++) {
+         assertContains("k" + i, i % 2 == 1);
+      }
+      assertContains("missing1", false);
+   }
+
+   public void testEmptyBatch() throws PersistenceException {
+      assertIsEmpty();
+      cl.write(marshalledEntry("k1", "v1", null));
+      PersistenceUtil.writeBatch(cl, Collections.<MarshalledEntry<?, ?>>emptyList());
+      PersistenceUtil.deleteBatch(cl, Collections.emptyList());
+      assertEquals("v1", unwrap(cl.load("k1").getValue()));
+   }
+
    public void testPurgeExpired() throws Exception {
       assertIsEmpty();
       // Increased lifespan and idle timeouts to accommodate slower cache stores
@@ -0,0 +1,229 @@
+package org.infinispan.persistence;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.InterceptorConfiguration;
+import org.infinispan.container.DataContainer;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.eviction.EvictionStrategy;
+import org.infinispan.interceptors.CacheMgmtInterceptor;
+import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.notifications.Listener;
+import org.infinispan.notifications.cachelistener.annotation.CacheEntryCreated;
+import org.infinispan.notifications.cachelistener.event.CacheEntryCreatedEvent;
+import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.persistence.manager.PersistenceManagerImpl;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests the preload of the entries directly in the data container and through the interceptor chain.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "persistence.ParallelPreloadTest")
+public class ParallelPreloadTest extends SingleCacheManagerTest {
+
+   private static final int NUM_KEYS = 100;
+   private static final int MAX_ENTRIES = 20;
+
+   // the threads which unmarshalled the preloaded values
+   private static final Set<Thread> preloadThreads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+   private static volatile CountDownLatch twoPreloadThreads;
+
+   private final String location = TestingUtil.tmpDirectory(getClass());
+   private final PutCountingInterceptor interceptor = new PutCountingInterceptor();
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      TestingUtil.recursiveFileRemove(location);
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(false);
+      cm.defineConfiguration("direct", builder().build());
+      cm.defineConfiguration("listener", builder().build());
+      ConfigurationBuilder intercepted = builder();
+      intercepted.customInterceptors().addInterceptor().position(InterceptorConfiguration.Position.FIRST)
+            .interceptor(interceptor);
+      cm.defineConfiguration("interceptor", intercepted.build());
+      ConfigurationBuilder binary = builder();
+      binary.storeAsBinary().enable();
+      cm.defineConfiguration("binary", binary.build());
+      ConfigurationBuilder evicting = builder();
+      evicting.eviction().strategy(EvictionStrategy.LRU).maxEntries(MAX_ENTRIES);
+      cm.defineConfiguration("evicting", evicting.build());
+      return cm;
+   }
+
+   @AfterClass(alwaysRun = true)
+   protected void removeStoreFiles() {
+      TestingUtil.recursiveFileRemove(location);
+   }
+
+   private ConfigurationBuilder builder() {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.jmxStatistics().enable();
+      // the single file store processes the entries with the persistence executor
+      builder.persistence().addSingleFileStore().location(location).preload(true);
+      return builder;
+   }
+
+   public void testPreloadIntoDataContainer() {
+      Cache<Object, Object> cache = cacheManager.getCache("direct");
+      fill(cache);
+      assertEquals(0, preload(cache, NUM_KEYS));
+      assertPreloaded(cache, NUM_KEYS);
+   }
+
+   public void testPreloadThroughInterceptorChainWithListener() {
+      Cache<Object, Object> cache = cacheManager.getCache("listener");
+      fill(cache);
+      CreatedListener listener = new CreatedListener();
+      cache.addListener(listener);
+      assertEquals(NUM_KEYS, preload(cache, NUM_KEYS));
+      assertEquals(NUM_KEYS, listener.created.get());
+      assertPreloaded(cache, NUM_KEYS);
+   }
+
+   public void testPreloadThroughInterceptorChainWithCustomInterceptor() {
+      Cache<Object, Object> cache = cacheManager.getCache("interceptor");
+      fill(cache);
+      interceptor.puts.set(0);
+      assertEquals(NUM_KEYS, preload(cache, NUM_KEYS));
+      assertEquals(NUM_KEYS, interceptor.puts.get());
+      assertPreloaded(cache, NUM_KEYS);
+   }
+
+   public void testPreloadThroughInterceptorChainAsBinary() {
+      Cache<Object, Object> cache = cacheManager.getCache("binary");
+      fill(cache);
+      assertEquals(NUM_KEYS, preload(cache, NUM_KEYS));
+      assertPreloaded(cache, NUM_KEYS);
+   }
+
+   public void testPreloadRespectsMaxEntries() {
+      Cache<Object, Object> cache = cacheManager.getCache("evicting");
+      fill(cache);
+      assertEquals(0, preload(cache, MAX_ENTRIES));
+      assertTrue(cache.getAdvancedCache().getDataContainer().size() <= MAX_ENTRIES);
+      assertPreloaded(cache, MAX_ENTRIES);
+   }
+
+   private void fill(Cache<Object, Object> cache) {
+      for (int i = 0; i < NUM_KEYS; i++) {
+         cache.put("k" + i, new Value("v" + i));
+      }
+   }
+
+   /**
+    * Empties the data container and preloads it again from the store.
+    *
+    * @return the number of entries preloaded through the interceptor chain
+    */
+   private long preload(Cache<Object, Object> cache, int expectedPreloaded) {
+      cache.getAdvancedCache().getDataContainer().clear();
+      CacheMgmtInterceptor stats = TestingUtil.findInterceptor(cache, CacheMgmtInterceptor.class);
+      stats.resetStatistics();
+
+      PersistenceManagerImpl pm = (PersistenceManagerImpl) TestingUtil.extractComponent(cache, PersistenceManager.class);
+      preloadThreads.clear();
+      twoPreloadThreads = new CountDownLatch(2);
+      try {
+         pm.preload();
+      } finally {
+         twoPreloadThreads = null;
+      }
+
+      assertFalse(pm.isPreloading());
+      assertEquals(expectedPreloaded, pm.getPreloadedEntries());
+      assertTrue(pm.getPreloadTime() >= 0);
+      assertTrue("Preloaded by " + preloadThreads, preloadThreads.size() > 1);
+      return stats.getStores();
+   }
+
+   private void assertPreloaded(Cache<Object, Object> cache, int expectedPreloaded) {
+      DataContainer<Object, Object> dataContainer = cache.getAdvancedCache().getDataContainer();
+      if (expectedPreloaded == NUM_KEYS) {
+         assertEquals(NUM_KEYS, dataContainer.size());
+      }
+      for (int i = 0; i < NUM_KEYS; i++) {
+         assertEquals(new Value("v" + i), cache.get("k" + i));
+      }
+   }
+
+   /**
+    * Records the threads unmarshalling it, and holds the first one until a second thread unmarshalls a value too.
+    */
+   static class Value implements Serializable {
+      private final String value;
+
+      Value(String value) {
+         this.value = value;
+      }
+
+      private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+         in.defaultReadObject();
+         CountDownLatch latch = twoPreloadThreads;
+         if (latch != null && preloadThreads.add(Thread.currentThread())) {
+            latch.countDown();
+            try {
+               latch.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+         }
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         return o instanceof Value && value.equals(((Value) o).value);
+      }
+
+      @Override
+      public int hashCode() {
+         return value.hashCode();
+      }
+
+      @Override
+      public String toString() {
+         return value;
+      }
+   }
+
+   @Listener
+   public static class CreatedListener {
+      final AtomicInteger created = new AtomicInteger();
+
+      @CacheEntryCreated
+      public void entryCreated(CacheEntryCreatedEvent<Object, Object> event) {
+         if (!event.isPre()) created.incrementAndGet();
+      }
+   }
+
+   static class PutCountingInterceptor extends CommandInterceptor {
+      final AtomicInteger puts = new AtomicInteger();
+
+      @Override
+      public Object visitPutKeyValueCommand(InvocationContext ctx, PutKeyValueCommand command) throws Throwable {
+         puts.incrementAndGet();
+         return invokeNextInterceptor(ctx, command);
+      }
+   }
+}
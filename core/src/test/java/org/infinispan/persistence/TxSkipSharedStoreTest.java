@@ -0,0 +1,109 @@
+package org.infinispan.persistence;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.context.Flag;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.dummy.DummyInMemoryStore;
+import org.infinispan.persistence.dummy.DummyInMemoryStoreConfigurationBuilder;
+import org.infinispan.persistence.manager.PersistenceManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.CleanupAfterMethod;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import javax.transaction.TransactionManager;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests that the modifications of a transaction are persisted to the shared and the private stores when the
+ * transaction writes some keys with {@link Flag#SKIP_SHARED_CACHE_STORE}.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "persistence.TxSkipSharedStoreTest")
+@CleanupAfterMethod
+public class TxSkipSharedStoreTest extends SingleCacheManagerTest {
+
+   private DummyInMemoryStore sharedStore;
+   private DummyInMemoryStore privateStore;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      ConfigurationBuilder cfg = getDefaultStandaloneCacheConfig(true);
+      cfg.persistence()
+            .addStore(DummyInMemoryStoreConfigurationBuilder.class)
+               .storeName(getClass().getSimpleName() + "-shared")
+               .purgeOnStartup(true)
+               .shared(true);
+      cfg.persistence()
+            .addStore(DummyInMemoryStoreConfigurationBuilder.class)
+               .storeName(getClass().getSimpleName() + "-private")
+               .purgeOnStartup(true);
+      return TestCacheManagerFactory.createCacheManager(cfg);
+   }
+
+   @Override
+   protected void setup() throws Exception {
+      super.setup();
+      // only the private store gets the marker
+      cache.getAdvancedCache().withFlags(Flag.SKIP_SHARED_CACHE_STORE).put("marker", "m");
+      for (DummyInMemoryStore store : TestingUtil.extractComponent(cache, PersistenceManager.class)
+            .getStores(DummyInMemoryStore.class)) {
+         if (store.contains("marker")) {
+            privateStore = store;
+         } else {
+            sharedStore = store;
+         }
+      }
+      assertNotNull(sharedStore);
+      assertNotNull(privateStore);
+   }
+
+   public void testRemoveThenPutSkippingSharedStores() throws Exception {
+      cache.put("k", "v0");
+      assertTrue(sharedStore.contains("k"));
+      assertTrue(privateStore.contains("k"));
+
+      TransactionManager tm = tm();
+      tm.begin();
+      cache.remove("k");
+      cache.getAdvancedCache().withFlags(Flag.SKIP_SHARED_CACHE_STORE).put("k", "v1");
+      tm.commit();
+
+      assertEquals("v1", cache.get("k"));
+      assertFalse(sharedStore.contains("k"));
+      MarshalledEntry entry = privateStore.load("k");
+      assertNotNull(entry);
+      assertEquals("v1", entry.getValue());
+   }
+
+   public void testPutSkippingSharedStoresThenPut() throws Exception {
+      TransactionManager tm = tm();
+      tm.begin();
+      cache.getAdvancedCache().withFlags(Flag.SKIP_SHARED_CACHE_STORE).put("k", "v0");
+      cache.put("k", "v1");
+      tm.commit();
+
+      assertEquals("v1", sharedStore.load("k").getValue());
+      assertEquals("v1", privateStore.load("k").getValue());
+   }
+
+   public void testPutThenRemove() throws Exception {
+      cache.put("k", "v0");
+
+      TransactionManager tm = tm();
+      tm.begin();
+      cache.getAdvancedCache().withFlags(Flag.SKIP_SHARED_CACHE_STORE).put("k", "v1");
+      cache.remove("k");
+      tm.commit();
+
+      assertFalse(sharedStore.contains("k"));
+      assertFalse(privateStore.contains("k"));
+   }
+}
@@ -16,6 +16,8 @@
 
 import static org.infinispan.test.TestingUtil.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Single file cache store functional test.
@@ -78,7 +80,7 @@ public void testParsingElement() throws Exception {
             "<cache-container default-cache=\"default\">" +
             "   <local-cache name=\"default\">\n" +
             "      <persistence passivation=\"false\"> \n" +
-            "         <file-store path=\"other-location\" max-entries=\"100\" shared=\"false\" preload=\"true\" fragmentation-factor=\"0.75\"/> \n" +
+            "         <file-store path=\"other-location\" max-entries=\"100\" shared=\"false\" preload=\"true\" fragmentation-factor=\"0.75\" memory-mapped-reads=\"true\" sync-writes=\"true\"/> \n" +
             "      </persistence>\n" +
             "   </local-cache>\n" +
             "</cache-container>" +
@@ -94,6 +96,9 @@ public void call() {
             assertEquals("other-location", store.getConfiguration().location());
             assertEquals(100, store.getConfiguration().maxEntries());
             assertEquals(0.75f, store.getConfiguration().fragmentationFactor(), 0f);
+            assertTrue(store.getConfiguration().memoryMappedReads());
+            assertTrue(store.getConfiguration().syncWrites());
+            assertFalse(store.getConfiguration().offHeapIndex());
          }
       });
       TestingUtil.recursiveFileRemove("other-location");
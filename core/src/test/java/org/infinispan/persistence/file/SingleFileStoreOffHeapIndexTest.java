@@ -0,0 +1,61 @@
+package org.infinispan.persistence.file;
+
+import org.infinispan.commons.CacheConfigurationException;
+import org.infinispan.commons.equivalence.ByteArrayEquivalence;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.SingleFileStoreConfigurationBuilder;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+/**
+ * Runs the single-file cache store tests with the index kept off-heap, memory mapped reads and synchronous writes.
+ *
+ * @since 7.0
+ */
+@Test(groups = "unit", testName = "persistence.file.SingleFileStoreOffHeapIndexTest")
+public class SingleFileStoreOffHeapIndexTest extends SingleFileStoreTest {
+
+   @Override
+   protected void configureStore(SingleFileStoreConfigurationBuilder storeBuilder) {
+      storeBuilder.offHeapIndex(true).memoryMappedReads(true).syncWrites(true);
+   }
+
+   public void testIndexGrowsAndShrinks() throws Exception {
+      int numKeys = 5000;
+      for (int i = 0; i < numKeys; i++) {
+         cl.write(marshalledEntry(internalCacheEntry("k" + i, "v" + i, -1)));
+      }
+      assertEquals(numKeys, cl.size());
+      for (int i = 0; i < numKeys; i += 2) {
+         cl.delete("k" + i);
+      }
+      assertEquals(numKeys / 2, cl.size());
+      for (int i = 0; i < numKeys; i++) {
+         MarshalledEntry entry = cl.load("k" + i);
+         if (i % 2 == 0) {
+            assertNull(entry);
+         } else {
+            assertEquals("v" + i, unwrap(entry.getValue()));
+         }
+      }
+   }
+
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testOffHeapIndexCannotBeBounded() {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.persistence().addStore(SingleFileStoreConfigurationBuilder.class).offHeapIndex(true).maxEntries(10);
+      builder.build();
+   }
+
+   @Test(expectedExceptions = CacheConfigurationException.class)
+   public void testOffHeapIndexRejectsKeyEquivalence() {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      builder.dataContainer().keyEquivalence(ByteArrayEquivalence.INSTANCE);
+      builder.persistence().addStore(SingleFileStoreConfigurationBuilder.class).offHeapIndex(true);
+      builder.build();
+   }
+}
@@ -0,0 +1,29 @@
+package org.infinispan.persistence.file;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.SingleFileStoreConfigurationBuilder;
+import org.infinispan.persistence.BaseSegmentedStoreTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the segment operations of {@link SingleFileStore}.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "persistence.file.SingleFileStoreSegmentedTest")
+public class SingleFileStoreSegmentedTest extends BaseSegmentedStoreTest {
+
+   private final String tmpDirectory = TestingUtil.tmpDirectory(this.getClass());
+
+   @AfterClass(alwaysRun = true)
+   protected void clearTempDir() {
+      TestingUtil.recursiveFileRemove(tmpDirectory);
+   }
+
+   @Override
+   protected void configurePersistence(ConfigurationBuilder builder) {
+      builder.persistence().addStore(SingleFileStoreConfigurationBuilder.class).location(tmpDirectory);
+   }
+}
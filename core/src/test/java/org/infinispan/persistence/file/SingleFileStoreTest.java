@@ -38,11 +38,15 @@ protected AdvancedLoadWriteStore createStore() throws Exception {
       clearTempDir();
       SingleFileStore store = new SingleFileStore();
       ConfigurationBuilder configurationBuilder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
-      configurationBuilder
+      SingleFileStoreConfigurationBuilder storeBuilder = configurationBuilder
             .persistence()
                .addStore(SingleFileStoreConfigurationBuilder.class)
                   .location(this.tmpDirectory);
+      configureStore(storeBuilder);
       store.init(createContext(configurationBuilder.build()));
       return store;
    }
+
+   protected void configureStore(SingleFileStoreConfigurationBuilder storeBuilder) {
+   }
 }
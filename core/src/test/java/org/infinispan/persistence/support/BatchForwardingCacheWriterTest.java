@@ -0,0 +1,128 @@
+package org.infinispan.persistence.support;
+
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.async.AsyncCacheWriter;
+import org.infinispan.persistence.modifications.Modification;
+import org.infinispan.persistence.modifications.Remove;
+import org.infinispan.persistence.modifications.Store;
+import org.infinispan.persistence.spi.BatchCacheWriter;
+import org.infinispan.persistence.spi.CacheWriter;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that the async and singleton writers hand the batches over to the writers they decorate.
+ *
+ * @since 7.0
+ */
+@Test(groups = "unit", testName = "persistence.support.BatchForwardingCacheWriterTest")
+public class BatchForwardingCacheWriterTest extends AbstractInfinispanTest {
+
+   public void testAsyncWriterForwardsBatches() {
+      BatchCacheWriter writer = mock(BatchCacheWriter.class);
+      MarshalledEntry e1 = entry("k1");
+      MarshalledEntry e2 = entry("k2");
+
+      new SyncAsyncCacheWriter(writer).applyModificationsSync(Arrays.<Modification>asList(
+            new Store("k1", e1), new Remove("k3"), new Store("k2", e2), new Remove("k4")));
+
+      verify(writer).writeBatch(Arrays.asList(e1, e2));
+      verify(writer).deleteBatch(Arrays.<Object>asList("k3", "k4"));
+      verify(writer, never()).write(any(MarshalledEntry.class));
+      verify(writer, never()).delete(any());
+   }
+
+   public void testAsyncWriterWritesOneByOne() {
+      CacheWriter writer = mock(CacheWriter.class);
+      MarshalledEntry e1 = entry("k1");
+      MarshalledEntry e2 = entry("k2");
+
+      new SyncAsyncCacheWriter(writer).applyModificationsSync(Arrays.<Modification>asList(
+            new Store("k1", e1), new Store("k2", e2), new Remove("k3")));
+
+      verify(writer).write(e1);
+      verify(writer).write(e2);
+      verify(writer).delete("k3");
+   }
+
+   public void testSingletonWriterForwardsBatches() {
+      BatchCacheWriter writer = mock(BatchCacheWriter.class);
+      List<MarshalledEntry> entries = Arrays.asList(entry("k1"), entry("k2"));
+      List<Object> keys = Arrays.<Object>asList("k3", "k4");
+
+      SingletonCacheWriter singleton = new SingletonCacheWriter(writer, null);
+      try {
+         singleton.active = true;
+         singleton.writeBatch(entries);
+         singleton.deleteBatch(keys);
+      } finally {
+         singleton.stop();
+      }
+
+      verify(writer).writeBatch(entries);
+      verify(writer).deleteBatch(keys);
+      verify(writer, never()).write(any(MarshalledEntry.class));
+      verify(writer, never()).delete(any());
+   }
+
+   public void testInactiveSingletonWriterDropsBatches() {
+      BatchCacheWriter writer = mock(BatchCacheWriter.class);
+
+      SingletonCacheWriter singleton = new SingletonCacheWriter(writer, null);
+      try {
+         singleton.writeBatch(Arrays.asList(entry("k1")));
+         singleton.deleteBatch(Arrays.<Object>asList("k2"));
+      } finally {
+         singleton.stop();
+      }
+
+      verifyZeroInteractions(writer);
+   }
+
+   public void testSingletonWriterWritesOneByOne() {
+      CacheWriter writer = mock(CacheWriter.class);
+      MarshalledEntry e1 = entry("k1");
+
+      SingletonCacheWriter singleton = new SingletonCacheWriter(writer, null);
+      try {
+         singleton.active = true;
+         singleton.writeBatch(Arrays.asList(e1));
+         singleton.deleteBatch(Arrays.<Object>asList("k2"));
+      } finally {
+         singleton.stop();
+      }
+
+      verify(writer).write(e1);
+      verify(writer).delete("k2");
+   }
+
+   private MarshalledEntry entry(Object key) {
+      MarshalledEntry entry = mock(MarshalledEntry.class);
+      when(entry.getKey()).thenReturn(key);
+      return entry;
+   }
+
+   /**
+    * Exposes the modifications applied by the async writer's background threads.
+    */
+   private static class SyncAsyncCacheWriter extends AsyncCacheWriter {
+      SyncAsyncCacheWriter(CacheWriter delegate) {
+         super(delegate);
+      }
+
+      @Override
+      protected void applyModificationsSync(List<Modification> mods) {
+         super.applyModificationsSync(mods);
+      }
+   }
+}
@@ -0,0 +1,152 @@
+package org.infinispan.remoting;
+
+import org.infinispan.commands.tx.PrepareCommand;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.commands.write.WriteCommand;
+import org.infinispan.commons.equivalence.AnyEquivalence;
+import org.infinispan.configuration.cache.Configuration;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.factories.ComponentRegistry;
+import org.infinispan.interceptors.locking.ClusteringDependentLogic;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.transaction.LockingMode;
+import org.infinispan.transaction.TransactionMode;
+import org.infinispan.transaction.impl.TransactionTable;
+import org.infinispan.transaction.xa.GlobalTransaction;
+import org.infinispan.transaction.xa.TransactionFactory;
+import org.infinispan.util.concurrent.BlockingTaskAwareExecutorService;
+import org.infinispan.util.concurrent.locks.LockManager;
+import org.infinispan.util.concurrent.locks.LockManagerImpl;
+import org.infinispan.util.concurrent.locks.containers.OwnableReentrantPerEntryLockContainer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests that the locks of remote prepares are requested in the order the locking interceptor acquires them, whatever
+ * the order of the prepare's modifications.
+ *
+ * @since 7.0
+ */
+@Test(groups = "unit", testName = "remoting.RemotePrepareLocksTest")
+public class RemotePrepareLocksTest extends AbstractInfinispanTest {
+
+   private ScheduledExecutorService timeoutExecutor;
+   private OwnableReentrantPerEntryLockContainer lockContainer;
+   private BlockingTaskAwareExecutorService executor;
+
+   @BeforeMethod
+   public void setUp() {
+      timeoutExecutor = Executors.newSingleThreadScheduledExecutor(getTestThreadFactory("Timeout"));
+      lockContainer = new OwnableReentrantPerEntryLockContainer(16, AnyEquivalence.getInstance());
+      executor = mock(BlockingTaskAwareExecutorService.class);
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() {
+      timeoutExecutor.shutdownNow();
+   }
+
+   public void testOppositeKeyOrder() throws Exception {
+      ComponentRegistry cr = mockRegistry(false);
+      PrepareCommand prepare1 = prepare("k1", "k2", "k3");
+      PrepareCommand prepare2 = prepare("k3", "k2", "k1");
+      Object[] keys = prepare1.getAffectedKeysToLock(true);
+      assertEquals(3, keys.length);
+
+      // the lock of the second key in lock order is held, so the first prepare only gets the first lock
+      Object holder = new Object();
+      lockContainer.acquireLock(holder, keys[1], 0, TimeUnit.MILLISECONDS);
+
+      RemotePrepareLocks locks1 = RemotePrepareLocks.acquire(prepare1, cr, 0, executor);
+      RemotePrepareLocks locks2 = RemotePrepareLocks.acquire(prepare2, cr, 0, executor);
+      assertFalse(locks1.isReady());
+      assertFalse(locks2.isReady());
+      assertTrue(lockContainer.ownsLock(keys[0], prepare1.getGlobalTransaction()));
+      // the second prepare waits for the first key, and must not take the third one the first prepare needs
+      for (Object key : keys) {
+         assertFalse(lockContainer.ownsLock(key, prepare2.getGlobalTransaction()));
+      }
+      assertFalse(lockContainer.isLocked(keys[2]));
+
+      lockContainer.releaseLock(holder, keys[1]);
+      assertTrue(locks1.isReady());
+      assertFalse(locks2.isReady());
+      for (Object key : keys) {
+         assertTrue(lockContainer.ownsLock(key, prepare1.getGlobalTransaction()));
+      }
+
+      locks1.release();
+      assertTrue(locks2.isReady());
+      for (Object key : keys) {
+         assertTrue(lockContainer.ownsLock(key, prepare2.getGlobalTransaction()));
+      }
+      locks2.release();
+      assertEquals(0, lockContainer.size());
+   }
+
+   public void testReleaseWhileWaiting() throws Exception {
+      ComponentRegistry cr = mockRegistry(false);
+      PrepareCommand prepare = prepare("k1", "k2", "k3");
+      Object[] keys = prepare.getAffectedKeysToLock(true);
+
+      Object holder = new Object();
+      lockContainer.acquireLock(holder, keys[2], 0, TimeUnit.MILLISECONDS);
+      RemotePrepareLocks locks = RemotePrepareLocks.acquire(prepare, cr, 0, executor);
+      assertFalse(locks.isReady());
+      assertTrue(lockContainer.ownsLock(keys[1], prepare.getGlobalTransaction()));
+
+      // the locks granted so far are given back, and the lock still waited for is never granted
+      locks.release();
+      assertFalse(lockContainer.isLocked(keys[0]));
+      assertFalse(lockContainer.isLocked(keys[1]));
+      lockContainer.releaseLock(holder, keys[2]);
+      assertEquals(0, lockContainer.size());
+   }
+
+   public void testNotRequestedWithDeadlockDetection() {
+      assertNull(RemotePrepareLocks.acquire(prepare("k1", "k2"), mockRegistry(true), 0, executor));
+      assertEquals(0, lockContainer.size());
+   }
+
+   private ComponentRegistry mockRegistry(boolean deadlockDetection) {
+      ConfigurationBuilder builder = new ConfigurationBuilder();
+      builder.transaction().transactionMode(TransactionMode.TRANSACTIONAL).lockingMode(LockingMode.OPTIMISTIC);
+      builder.deadlockDetection().enabled(deadlockDetection);
+      Configuration configuration = builder.build();
+
+      LockManagerImpl lockManager = new LockManagerImpl();
+      lockManager.injectDependencies(configuration, lockContainer);
+      lockManager.injectTimeoutExecutor(timeoutExecutor);
+      ClusteringDependentLogic cdl = mock(ClusteringDependentLogic.class);
+      when(cdl.localNodeIsPrimaryOwner(any())).thenReturn(true);
+
+      ComponentRegistry cr = mock(ComponentRegistry.class);
+      when(cr.getComponent(Configuration.class)).thenReturn(configuration);
+      when(cr.getComponent(TransactionTable.class)).thenReturn(mock(TransactionTable.class));
+      when(cr.getComponent(ClusteringDependentLogic.class)).thenReturn(cdl);
+      when(cr.getComponent(LockManager.class)).thenReturn(lockManager);
+      return cr;
+   }
+
+   private static PrepareCommand prepare(Object... keys) {
+      WriteCommand[] modifications = new WriteCommand[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+         modifications[i] = new PutKeyValueCommand(keys[i], "v", false, null, null, null, AnyEquivalence.getInstance());
+      }
+      GlobalTransaction gtx = TransactionFactory.TxFactoryEnum.NODLD_NORECOVERY_XA.newGlobalTransaction();
+      return new PrepareCommand("cache", gtx, false, modifications);
+   }
+}
@@ -0,0 +1,19 @@
+package org.infinispan.remoting;
+
+import org.infinispan.configuration.cache.CacheMode;
+import org.testng.annotations.Test;
+
+/**
+ * Tests that the writes of a replicated cache, which are broadcast to all the members, go through the {@link
+ * RpcCoalescer}.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "remoting.ReplRpcCoalescerTest")
+public class ReplRpcCoalescerTest extends RpcCoalescerTest {
+
+   @Override
+   protected CacheMode cacheMode() {
+      return CacheMode.REPL_SYNC;
+   }
+}
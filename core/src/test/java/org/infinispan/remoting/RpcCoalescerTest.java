@@ -0,0 +1,98 @@
+package org.infinispan.remoting;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests that the writes replicated through the {@link RpcCoalescer} reach all the owners.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "remoting.RpcCoalescerTest")
+public class RpcCoalescerTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_THREADS = 8;
+   private static final int NUM_KEYS = 100;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(cacheMode(), false);
+      builder.clustering().hash().numOwners(3);
+      builder.clustering().sync().coalesceWrites(true);
+      builder.jmxStatistics().enable();
+      createCluster(builder, 3);
+      waitForClusterToForm();
+   }
+
+   protected CacheMode cacheMode() {
+      return CacheMode.DIST_SYNC;
+   }
+
+   public void testCoalescerInstalled() {
+      for (Cache<Object, Object> cache : this.<Object, Object>caches()) {
+         assertTrue(TestingUtil.extractComponent(cache, RpcCoalescer.class) instanceof RpcCoalescerImpl);
+      }
+   }
+
+   public void testConcurrentWrites() throws Exception {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>(NUM_THREADS);
+      for (int i = 0; i < NUM_THREADS; i++) {
+         final int thread = i;
+         futures.add(fork(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               Cache<Object, Object> cache = cache(thread % 3);
+               for (int k = 0; k < NUM_KEYS; k++) {
+                  cache.put(key(thread, k), "v" + k);
+               }
+               for (int k = 0; k < NUM_KEYS; k += 2) {
+                  cache.remove(key(thread, k));
+               }
+               return null;
+            }
+         }));
+      }
+      for (Future<Void> future : futures) {
+         future.get();
+      }
+
+      long invocations = 0;
+      for (Cache<Object, Object> cache : this.<Object, Object>caches()) {
+         for (int thread = 0; thread < NUM_THREADS; thread++) {
+            for (int k = 0; k < NUM_KEYS; k++) {
+               InternalCacheEntry entry = cache.getAdvancedCache().getDataContainer().get(key(thread, k));
+               Object value = entry == null ? null : entry.getValue();
+               if (k % 2 == 0) {
+                  assertNull(value);
+               } else {
+                  assertEquals("v" + k, value);
+               }
+            }
+         }
+         RpcCoalescerImpl coalescer = (RpcCoalescerImpl) TestingUtil.extractComponent(cache, RpcCoalescer.class);
+         invocations += coalescer.getInvocations();
+         assertTrue(coalescer.getInvocations() == 0 || coalescer.getAverageBatchSize() >= 1);
+      }
+      // every write has been replicated to the backup owners through the coalescer
+      assertTrue(invocations > 0);
+      assertTrue(invocations <= NUM_THREADS * (NUM_KEYS + NUM_KEYS / 2));
+   }
+
+   private static String key(int thread, int k) {
+      return "k" + thread + "-" + k;
+   }
+}
@@ -0,0 +1,213 @@
+package org.infinispan.stress;
+
+import org.infinispan.commons.equivalence.AnyEquivalence;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.util.concurrent.locks.OwnableReentrantLock;
+import org.infinispan.util.concurrent.locks.containers.AsyncLockContainer;
+import org.infinispan.util.concurrent.locks.containers.OwnableReentrantPerEntryLockContainer;
+import org.infinispan.util.concurrent.locks.containers.OwnableReentrantStripedLockContainer;
+import org.testng.annotations.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Thousands of writers competing for the locks of a handful of keys, either each blocking its own thread in {@link
+ * AsyncLockContainer#acquireLock(Object, Object, long, java.util.concurrent.TimeUnit)} or all sharing a small pool through
+ * {@link AsyncLockContainer#acquireLockAsync(Object, Object)}. Reports the throughput and the number of live threads of
+ * both approaches.
+ *
+ * @since 7.0
+ */
+@Test(groups = "stress", testName = "stress.AsyncLockStressTest", description = "Disabled by default, designed to be run manually.")
+public class AsyncLockStressTest extends AbstractInfinispanTest {
+
+   private static final int WRITERS = 2000;
+   private static final int WRITES_PER_WRITER = 50;
+   private static final int KEYS = 4;
+   private static final int POOL_SIZE = 4;
+   private static final long LOCK_TIMEOUT_SECONDS = 60;
+
+   private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+   public void testPerEntryLocks() throws Exception {
+      doTest(new OwnableReentrantPerEntryLockContainer(32, AnyEquivalence.getInstance()));
+   }
+
+   public void testStripedLocks() throws Exception {
+      doTest(new OwnableReentrantStripedLockContainer(32, AnyEquivalence.getInstance()));
+   }
+
+   private void doTest(AsyncLockContainer<? extends OwnableReentrantLock> container) throws Exception {
+      // warm up both paths before measuring
+      runBlocking(container, new long[KEYS]);
+      runAsync(container, new long[KEYS]);
+
+      long[] blockingWrites = new long[KEYS];
+      Result blocking = runBlocking(container, blockingWrites);
+      long[] asyncWrites = new long[KEYS];
+      Result async = runAsync(container, asyncWrites);
+
+      log.infof("%s, %d writers on %d keys: blocking %.0f writes/s with %d live threads, async %.0f writes/s with %d live threads",
+                container.getClass().getSimpleName(), WRITERS, KEYS, blocking.throughput, blocking.peakThreads,
+                async.throughput, async.peakThreads);
+
+      // the counters are only updated under the key's lock, so any lost update means two writers held it at once
+      assertEquals((long) WRITERS * WRITES_PER_WRITER, sum(blockingWrites));
+      assertEquals((long) WRITERS * WRITES_PER_WRITER, sum(asyncWrites));
+      assertTrue("Async writers used " + async.peakThreads + " threads", async.peakThreads < blocking.peakThreads);
+   }
+
+   private Result runBlocking(final AsyncLockContainer<? extends OwnableReentrantLock> container, final long[] writes)
+         throws Exception {
+      final Object[] keys = keys();
+      final CountDownLatch start = new CountDownLatch(1);
+      int baseThreads = threadMXBean.getThreadCount();
+      List<Thread> writers = new ArrayList<Thread>(WRITERS);
+      for (int i = 0; i < WRITERS; i++) {
+         final Random random = new Random(i);
+         writers.add(inNewThread(new Runnable() {
+            @Override
+            public void run() {
+               Object owner = new Object();
+               try {
+                  start.await();
+                  for (int j = 0; j < WRITES_PER_WRITER; j++) {
+                     int key = random.nextInt(KEYS);
+                     if (container.acquireLock(owner, keys[key], LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS) == null) {
+                        throw new IllegalStateException("Timed out locking " + keys[key]);
+                     }
+                     writes[key]++;
+                     container.releaseLock(owner, keys[key]);
+                  }
+               } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+               }
+            }
+         }));
+      }
+
+      // all the writers are alive, waiting for the start signal
+      int peakThreads = threadMXBean.getThreadCount() - baseThreads;
+      long startNanos = System.nanoTime();
+      start.countDown();
+      for (Thread writer : writers) {
+         writer.join(TimeUnit.SECONDS.toMillis(LOCK_TIMEOUT_SECONDS));
+      }
+      return new Result(System.nanoTime() - startNanos, peakThreads);
+   }
+
+   private Result runAsync(final AsyncLockContainer<? extends OwnableReentrantLock> container, final long[] writes)
+         throws Exception {
+      Object[] keys = keys();
+      int baseThreads = threadMXBean.getThreadCount();
+      // the critical section runs in the pool rather than on the thread granting the lock, which would otherwise
+      // recurse from one writer's release into the next writer's critical section
+      ExecutorService pool = Executors.newFixedThreadPool(POOL_SIZE, getTestThreadFactory("AsyncWriter"));
+      try {
+         CountDownLatch done = new CountDownLatch(WRITERS);
+         List<AsyncWriter<?>> writers = new ArrayList<AsyncWriter<?>>(WRITERS);
+         for (int i = 0; i < WRITERS; i++) {
+            writers.add(newWriter(container, keys, writes, pool, done, new Random(i)));
+         }
+
+         long startNanos = System.nanoTime();
+         for (AsyncWriter<?> writer : writers) {
+            writer.next();
+         }
+         int peakThreads = 0;
+         while (!done.await(10, TimeUnit.MILLISECONDS)) {
+            peakThreads = Math.max(peakThreads, threadMXBean.getThreadCount() - baseThreads);
+         }
+         long durationNanos = System.nanoTime() - startNanos;
+         return new Result(durationNanos, Math.max(peakThreads, threadMXBean.getThreadCount() - baseThreads));
+      } finally {
+         pool.shutdownNow();
+      }
+   }
+
+   private <L extends OwnableReentrantLock> AsyncWriter<L> newWriter(AsyncLockContainer<L> container, Object[] keys,
+                                                                     long[] writes, ExecutorService pool,
+                                                                     CountDownLatch done, Random random) {
+      return new AsyncWriter<L>(container, keys, writes, pool, done, random);
+   }
+
+   private static Object[] keys() {
+      Object[] keys = new Object[KEYS];
+      for (int i = 0; i < KEYS; i++) {
+         keys[i] = "key" + i;
+      }
+      return keys;
+   }
+
+   private static long sum(long[] writes) {
+      long sum = 0;
+      for (long w : writes) sum += w;
+      return sum;
+   }
+
+   private static class AsyncWriter<L extends OwnableReentrantLock> implements FutureListener<L>, Runnable {
+      private final Object owner = new Object();
+      private final AsyncLockContainer<L> container;
+      private final Object[] keys;
+      private final long[] writes;
+      private final ExecutorService pool;
+      private final CountDownLatch done;
+      private final Random random;
+      private int remaining = WRITES_PER_WRITER;
+      private int key;
+
+      AsyncWriter(AsyncLockContainer<L> container, Object[] keys, long[] writes, ExecutorService pool, CountDownLatch done,
+                  Random random) {
+         this.container = container;
+         this.keys = keys;
+         this.writes = writes;
+         this.pool = pool;
+         this.done = done;
+         this.random = random;
+      }
+
+      void next() {
+         key = random.nextInt(KEYS);
+         container.acquireLockAsync(owner, keys[key]).attachListener(this);
+      }
+
+      @Override
+      public void futureDone(Future<L> future) {
+         pool.execute(this);
+      }
+
+      @Override
+      public void run() {
+         writes[key]++;
+         container.releaseLock(owner, keys[key]);
+         if (--remaining > 0) {
+            next();
+         } else {
+            done.countDown();
+         }
+      }
+   }
+
+   private static class Result {
+      final double throughput;
+      final int peakThreads;
+
+      Result(long durationNanos, int peakThreads) {
+         this.throughput = (double) WRITERS * WRITES_PER_WRITER * TimeUnit.SECONDS.toNanos(1) / durationNanos;
+         this.peakThreads = peakThreads;
+      }
+   }
+}
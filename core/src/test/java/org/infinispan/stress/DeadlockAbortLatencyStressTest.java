@@ -0,0 +1,116 @@
+package org.infinispan.stress;
+
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.distribution.MagicKey;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.PerCacheExecutorThread;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.transaction.LockingMode;
+import org.infinispan.util.LogarithmicHistogram;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time it takes to abort a transaction of a 2-node and of a 3-node deadlock cycle, from the moment the
+ * cycle is closed to the moment the victim gets the exception, with several deadlock detection spin durations. The
+ * spin duration only sets the interval between the detection runs of a transaction that keeps waiting, so the abort
+ * latency should stay close to the duration of a few RPCs whatever its value.
+ *
+ * @since 7.0
+ */
+@Test(groups = "stress", testName = "stress.DeadlockAbortLatencyStressTest", description = "Disabled by default, designed to be run manually.")
+public class DeadlockAbortLatencyStressTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_NODES = 3;
+   private static final int ITERATIONS = Integer.getInteger("iterations", 200);
+
+   public DeadlockAbortLatencyStressTest() {
+      cleanup = CleanupPhase.AFTER_METHOD;
+   }
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      // start the cache managers in the test itself
+   }
+
+   public void testShortSpin() throws Exception {
+      runBenchmark(10);
+   }
+
+   public void testDefaultSpin() throws Exception {
+      runBenchmark(100);
+   }
+
+   public void testLongSpin() throws Exception {
+      runBenchmark(1000);
+   }
+
+   private void runBenchmark(long spinDuration) throws Exception {
+      ConfigurationBuilder config = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, true);
+      config
+         .unsafe().unreliableReturnValues(true)
+         .clustering().hash().numOwners(1)
+         .deadlockDetection().enable().spinDuration(spinDuration)
+         .transaction().lockingMode(LockingMode.PESSIMISTIC);
+      createCluster(config, NUM_NODES);
+      waitForClusterToForm();
+
+      PerCacheExecutorThread[] executors = new PerCacheExecutorThread[NUM_NODES];
+      for (int i = 0; i < NUM_NODES; i++) {
+         executors[i] = new PerCacheExecutorThread(cache(i), i);
+      }
+      try {
+         for (int length = 2; length <= NUM_NODES; length++) {
+            LogarithmicHistogram latencies = new LogarithmicHistogram("us");
+            for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+               latencies.record(abortLatency(executors, length, iteration));
+            }
+            System.out.printf("Spin duration %d ms, %d-node cycle: median abort latency %d us, 99th percentile %d us%n",
+                              spinDuration, length, latencies.getPercentile(50), latencies.getPercentile(99));
+            System.out.println(latencies);
+         }
+      } finally {
+         for (PerCacheExecutorThread executor : executors) {
+            executor.stopThread();
+         }
+      }
+   }
+
+   /**
+    * Runs a deadlock between the transactions of the first <tt>length</tt> nodes, and completes them once the victim
+    * is aborted.
+    *
+    * @return the time between the last lock request of the cycle and the abort of the victim, in microseconds
+    */
+   private long abortLatency(PerCacheExecutorThread[] executors, int length, int iteration) throws Exception {
+      Object[] keys = new Object[length];
+      for (int i = 0; i < length; i++) {
+         keys[i] = new MagicKey("k" + i + "-" + iteration, cache(i));
+         executors[i].execute(PerCacheExecutorThread.Operations.BEGIN_TX);
+         executors[i].setKeyValue(keys[i], "v");
+         executors[i].execute(PerCacheExecutorThread.Operations.PUT_KEY_VALUE);
+         // the transactions start in order, so the last one is the victim
+         TestingUtil.sleepThread(2);
+      }
+
+      long start = 0;
+      for (int i = 0; i < length; i++) {
+         executors[i].setKeyValue(keys[(i + 1) % length], "v");
+         start = System.nanoTime();
+         executors[i].executeNoResponse(PerCacheExecutorThread.Operations.PUT_KEY_VALUE);
+      }
+      // only the victim's response can arrive before it is rolled back
+      while (executors[length - 1].lastResponse() == null) {
+         Thread.yield();
+      }
+      long latency = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+
+      for (int i = length - 1; i >= 0; i--) {
+         executors[i].waitForResponse();
+         executors[i].execute(PerCacheExecutorThread.Operations.COMMIT_TX);
+      }
+      return latency;
+   }
+}
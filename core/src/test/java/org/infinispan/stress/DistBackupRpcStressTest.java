@@ -0,0 +1,207 @@
+package org.infinispan.stress;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.rpc.RpcOptions;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Compares the throughput of the blocking {@link RpcManager#invokeRemotely(java.util.Collection, ReplicableCommand,
+ * RpcOptions)} with the one of pipelined {@link RpcManager#invokeRemotelyAsync(java.util.Collection,
+ * ReplicableCommand, RpcOptions)} invocations, and measures the throughput of the writes in a non-transactional
+ * distributed cache, whose backup owners are updated through the asynchronous invocations.
+ *
+ * @since 7.0
+ */
+@Test(groups = "stress", testName = "stress.DistBackupRpcStressTest", description = "Disabled by default, designed to be run manually.")
+public class DistBackupRpcStressTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_THREADS = Integer.getInteger("threads", 8);
+   private static final int PIPELINE_DEPTH = Integer.getInteger("pipelineDepth", 16);
+   private static final long DURATION_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong("durationSeconds", 10));
+
+   public DistBackupRpcStressTest() {
+      cleanup = CleanupPhase.AFTER_METHOD;
+   }
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      // start the cache managers in the test itself
+   }
+
+   public void testThreeNodes() throws Exception {
+      runBenchmark(3);
+   }
+
+   public void testFiveNodes() throws Exception {
+      runBenchmark(5);
+   }
+
+   public void testEightNodes() throws Exception {
+      runBenchmark(8);
+   }
+
+   private void runBenchmark(int numNodes) throws Exception {
+      ConfigurationBuilder distConfig = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      distConfig.clustering().hash().numOwners(2);
+      createCluster(distConfig, numNodes);
+      waitForClusterToForm();
+      System.out.println("Caches created: " + manager(0).getMembers());
+
+      Cache<Object, Object> cache = cache(0);
+      RpcManager rpcManager = TestingUtil.extractComponent(cache, RpcManager.class);
+      CommandsFactory commandsFactory = TestingUtil.extractComponent(cache, CommandsFactory.class);
+      List<Address> recipients = Collections.singletonList(address(1));
+      ReplicableCommand command = commandsFactory.buildClusteredGetCommand("k", null, false, null);
+
+      long blocking = measure(new BlockingInvoker(rpcManager, recipients, command));
+      long pipelined = measure(new PipelinedInvoker(rpcManager, recipients, command));
+      long puts = measure(new PutInvoker(numNodes));
+      System.out.printf("%d nodes, %d threads: blocking RPCs %d/s, pipelined RPCs %d/s, puts %d/s%n", numNodes,
+                        NUM_THREADS, perSecond(blocking), perSecond(pipelined), perSecond(puts));
+   }
+
+   private long measure(Invoker invoker) throws Exception {
+      ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+      try {
+         AtomicBoolean running = new AtomicBoolean(true);
+         List<Future<Long>> futures = new ArrayList<Future<Long>>(NUM_THREADS);
+         for (int i = 0; i < NUM_THREADS; i++) {
+            futures.add(executor.submit(new Worker(invoker, i, running)));
+         }
+         Thread.sleep(DURATION_MILLIS);
+         running.set(false);
+         long operations = 0;
+         for (Future<Long> future : futures) {
+            operations += future.get();
+         }
+         return operations;
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   private static long perSecond(long operations) {
+      return operations * 1000 / DURATION_MILLIS;
+   }
+
+   private interface Invoker {
+      /**
+       * @return the number of completed operations
+       */
+      long run(int thread, AtomicBoolean running) throws Exception;
+   }
+
+   private static class Worker implements Callable<Long> {
+      private final Invoker invoker;
+      private final int thread;
+      private final AtomicBoolean running;
+
+      Worker(Invoker invoker, int thread, AtomicBoolean running) {
+         this.invoker = invoker;
+         this.thread = thread;
+         this.running = running;
+      }
+
+      @Override
+      public Long call() throws Exception {
+         return invoker.run(thread, running);
+      }
+   }
+
+   private static class BlockingInvoker implements Invoker {
+      private final RpcManager rpcManager;
+      private final List<Address> recipients;
+      private final ReplicableCommand command;
+
+      BlockingInvoker(RpcManager rpcManager, List<Address> recipients, ReplicableCommand command) {
+         this.rpcManager = rpcManager;
+         this.recipients = recipients;
+         this.command = command;
+      }
+
+      @Override
+      public long run(int thread, AtomicBoolean running) {
+         RpcOptions options = rpcManager.getDefaultRpcOptions(true);
+         long operations = 0;
+         while (running.get()) {
+            rpcManager.invokeRemotely(recipients, command, options);
+            operations++;
+         }
+         return operations;
+      }
+   }
+
+   private static class PipelinedInvoker implements Invoker {
+      private final RpcManager rpcManager;
+      private final List<Address> recipients;
+      private final ReplicableCommand command;
+
+      PipelinedInvoker(RpcManager rpcManager, List<Address> recipients, ReplicableCommand command) {
+         this.rpcManager = rpcManager;
+         this.recipients = recipients;
+         this.command = command;
+      }
+
+      @Override
+      public long run(int thread, AtomicBoolean running) throws Exception {
+         RpcOptions options = rpcManager.getDefaultRpcOptions(true);
+         Queue<NotifyingFuture<Map<Address, Response>>> inFlight =
+               new ArrayDeque<NotifyingFuture<Map<Address, Response>>>(PIPELINE_DEPTH);
+         long operations = 0;
+         while (running.get()) {
+            if (inFlight.size() == PIPELINE_DEPTH) {
+               inFlight.poll().get();
+               operations++;
+            }
+            inFlight.add(rpcManager.invokeRemotelyAsync(recipients, command, options));
+         }
+         for (NotifyingFuture<Map<Address, Response>> future : inFlight) {
+            future.get();
+            operations++;
+         }
+         return operations;
+      }
+   }
+
+   private class PutInvoker implements Invoker {
+      private final int numNodes;
+
+      PutInvoker(int numNodes) {
+         this.numNodes = numNodes;
+      }
+
+      @Override
+      public long run(int thread, AtomicBoolean running) {
+         Cache<Object, Object> cache = cache(thread % numNodes);
+         long operations = 0;
+         while (running.get()) {
+            cache.put("k" + thread + "-" + (operations % 1000), "v" + operations);
+            operations++;
+         }
+         return operations;
+      }
+   }
+}
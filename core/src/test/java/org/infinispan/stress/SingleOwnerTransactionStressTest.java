@@ -0,0 +1,142 @@
+package org.infinispan.stress;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.VersioningScheme;
+import org.infinispan.distribution.MagicKey;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.transaction.LockingMode;
+import org.infinispan.util.LogarithmicHistogram;
+import org.infinispan.util.concurrent.IsolationLevel;
+import org.testng.annotations.Test;
+
+import javax.transaction.TransactionManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput and the latency of optimistic transactions modifying keys with a single primary owner, the
+ * local node, on a 4-node cluster when they are committed in two phases and when their prepare commits them in one
+ * phase.
+ *
+ * @since 7.0
+ */
+@Test(groups = "stress", testName = "stress.SingleOwnerTransactionStressTest", description = "Disabled by default, designed to be run manually.")
+public class SingleOwnerTransactionStressTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_NODES = 4;
+   private static final int THREADS_PER_NODE = Integer.getInteger("threads", 4);
+   private static final int KEYS_PER_TX = 2;
+   private static final long WARMUP_MILLIS = Long.getLong("warmup", 5000);
+   private static final long DURATION_MILLIS = Long.getLong("duration", 30000);
+
+   public SingleOwnerTransactionStressTest() {
+      cleanup = CleanupPhase.AFTER_METHOD;
+   }
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      // start the cache managers in the test itself
+   }
+
+   public void testTwoPhaseCommit() throws Exception {
+      runBenchmark(false);
+   }
+
+   public void testOnePhaseCommit() throws Exception {
+      runBenchmark(true);
+   }
+
+   private void runBenchmark(boolean onePhaseCommit) throws Exception {
+      ConfigurationBuilder config = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, true);
+      config
+         .clustering().hash().numOwners(2)
+         .versioning().enable().scheme(VersioningScheme.SIMPLE)
+         .locking().isolationLevel(IsolationLevel.REPEATABLE_READ).writeSkewCheck(true)
+         .transaction().lockingMode(LockingMode.OPTIMISTIC).use1PcForSingleOwnerTransactions(onePhaseCommit);
+      createCluster(config, NUM_NODES);
+      waitForClusterToForm();
+
+      runWorkers(WARMUP_MILLIS);
+      List<Worker> workers = runWorkers(DURATION_MILLIS);
+
+      LogarithmicHistogram latencies = new LogarithmicHistogram("us");
+      long failures = 0;
+      for (Worker worker : workers) {
+         for (long latency : worker.latencies) {
+            latencies.record(latency);
+         }
+         failures += worker.failures;
+      }
+      double throughput = latencies.getCount() * 1000d / DURATION_MILLIS;
+      System.out.printf("%s: %.0f tx/s, median latency %d us, 99th percentile %d us, %d failed transactions%n",
+                        onePhaseCommit ? "One phase commit" : "Two phase commit", throughput,
+                        latencies.getPercentile(50), latencies.getPercentile(99), failures);
+      System.out.println(latencies);
+   }
+
+   private List<Worker> runWorkers(long durationMillis) throws Exception {
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+      List<Worker> workers = new ArrayList<Worker>();
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int i = 0; i < NUM_NODES; i++) {
+         for (int j = 0; j < THREADS_PER_NODE; j++) {
+            Worker worker = new Worker(i, j, deadline);
+            workers.add(worker);
+            futures.add(fork(worker));
+         }
+      }
+      for (Future<Void> future : futures) {
+         future.get(durationMillis + 60000, TimeUnit.MILLISECONDS);
+      }
+      return workers;
+   }
+
+   private class Worker implements Callable<Void> {
+      private final Cache<Object, Object> cache;
+      private final TransactionManager tm;
+      private final Object[] keys;
+      private final long deadline;
+      private final List<Long> latencies = new ArrayList<Long>();
+      private long failures;
+
+      Worker(int node, int thread, long deadline) {
+         this.cache = cache(node);
+         this.tm = tm(node);
+         this.deadline = deadline;
+         // each thread modifies its own keys, all owned by its node and backed up by the next one
+         keys = new Object[KEYS_PER_TX];
+         for (int i = 0; i < KEYS_PER_TX; i++) {
+            keys[i] = new MagicKey("k" + node + "-" + thread + "-" + i, cache, cache((node + 1) % NUM_NODES));
+         }
+      }
+
+      @Override
+      public Void call() throws Exception {
+         int iteration = 0;
+         while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+               tm.begin();
+               for (Object key : keys) {
+                  cache.get(key);
+                  cache.put(key, iteration);
+               }
+               tm.commit();
+               latencies.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            } catch (Exception e) {
+               failures++;
+               if (tm.getTransaction() != null) {
+                  tm.rollback();
+               }
+            }
+            iteration++;
+         }
+         return null;
+      }
+   }
+}
@@ -0,0 +1,134 @@
+package org.infinispan.stress;
+
+import org.infinispan.Cache;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.transaction.TransactionProtocol;
+import org.infinispan.util.LogarithmicHistogram;
+import org.testng.annotations.Test;
+
+import javax.transaction.TransactionManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput and the latency of total order transactions on a 3-node replicated cluster when all the
+ * transactions modify keys picked from 1, 10 or 100 hot keys, i.e. from fully conflicting to mostly disjoint prepares.
+ *
+ * @since 7.0
+ */
+@Test(groups = "stress", testName = "stress.TotalOrderHotKeysStressTest", description = "Disabled by default, designed to be run manually.")
+public class TotalOrderHotKeysStressTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_NODES = 3;
+   private static final int THREADS_PER_NODE = Integer.getInteger("threads", 8);
+   private static final int KEYS_PER_TX = 2;
+   private static final long WARMUP_MILLIS = Long.getLong("warmup", 5000);
+   private static final long DURATION_MILLIS = Long.getLong("duration", 30000);
+
+   public TotalOrderHotKeysStressTest() {
+      cleanup = CleanupPhase.AFTER_METHOD;
+   }
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      // start the cache managers in the test itself
+   }
+
+   public void testOneHotKey() throws Exception {
+      runBenchmark(1);
+   }
+
+   public void testTenHotKeys() throws Exception {
+      runBenchmark(10);
+   }
+
+   public void testHundredHotKeys() throws Exception {
+      runBenchmark(100);
+   }
+
+   private void runBenchmark(int hotKeys) throws Exception {
+      ConfigurationBuilder config = getDefaultClusteredCacheConfig(CacheMode.REPL_SYNC, true);
+      config.transaction().transactionProtocol(TransactionProtocol.TOTAL_ORDER).recovery().disable();
+      createCluster(config, NUM_NODES);
+      waitForClusterToForm();
+
+      runWorkers(hotKeys, WARMUP_MILLIS);
+      List<Worker> workers = runWorkers(hotKeys, DURATION_MILLIS);
+
+      LogarithmicHistogram latencies = new LogarithmicHistogram("us");
+      long failures = 0;
+      for (Worker worker : workers) {
+         for (long latency : worker.latencies) {
+            latencies.record(latency);
+         }
+         failures += worker.failures;
+      }
+      double throughput = latencies.getCount() * 1000d / DURATION_MILLIS;
+      System.out.printf("%d hot keys: %.0f tx/s, median latency %d us, 99th percentile %d us, %d failed transactions%n",
+                        hotKeys, throughput, latencies.getPercentile(50), latencies.getPercentile(99), failures);
+      System.out.println(latencies);
+   }
+
+   private List<Worker> runWorkers(int hotKeys, long durationMillis) throws Exception {
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+      List<Worker> workers = new ArrayList<Worker>();
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int i = 0; i < NUM_NODES; i++) {
+         for (int j = 0; j < THREADS_PER_NODE; j++) {
+            Worker worker = new Worker(i, hotKeys, deadline);
+            workers.add(worker);
+            futures.add(fork(worker));
+         }
+      }
+      for (Future<Void> future : futures) {
+         future.get(durationMillis + 60000, TimeUnit.MILLISECONDS);
+      }
+      return workers;
+   }
+
+   private class Worker implements Callable<Void> {
+      private final Cache<Object, Object> cache;
+      private final TransactionManager tm;
+      private final int hotKeys;
+      private final long deadline;
+      private final Random random = new Random();
+      private final List<Long> latencies = new ArrayList<Long>();
+      private long failures;
+
+      Worker(int node, int hotKeys, long deadline) {
+         this.cache = cache(node);
+         this.tm = tm(node);
+         this.hotKeys = hotKeys;
+         this.deadline = deadline;
+      }
+
+      @Override
+      public Void call() throws Exception {
+         int iteration = 0;
+         while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+               tm.begin();
+               for (int i = 0; i < KEYS_PER_TX; i++) {
+                  cache.put("hot-" + random.nextInt(hotKeys), iteration);
+               }
+               tm.commit();
+               latencies.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            } catch (Exception e) {
+               failures++;
+               if (tm.getTransaction() != null) {
+                  tm.rollback();
+               }
+            }
+            iteration++;
+         }
+         return null;
+      }
+   }
+}
@@ -0,0 +1,93 @@
+package org.infinispan.transaction.impl;
+
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.transaction.xa.GlobalTransaction;
+import org.infinispan.transaction.xa.TransactionFactory;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests {@link CompletedTransactions}.
+ *
+ * @since 7.0
+ */
+@Test(groups = "unit", testName = "transaction.impl.CompletedTransactionsTest")
+public class CompletedTransactionsTest extends AbstractInfinispanTest {
+
+   private static final long TIMEOUT = 1000;
+
+   private final Address a = new TestAddress(1, "A");
+   private final Address b = new TestAddress(2, "B");
+   private final List<Address> members = Arrays.asList(a, b);
+   private CompletedTransactions completedTransactions;
+
+   @BeforeMethod
+   public void setUp() {
+      completedTransactions = new CompletedTransactions();
+   }
+
+   public void testCompletedPerOriginator() {
+      completedTransactions.markCompleted(gtx(a, 1));
+      completedTransactions.markCompleted(gtx(a, 5000));
+      completedTransactions.markCompleted(gtx(b, 2));
+
+      assertTrue(completedTransactions.isCompleted(gtx(a, 1)));
+      assertTrue(completedTransactions.isCompleted(gtx(a, 5000)));
+      assertTrue(completedTransactions.isCompleted(gtx(b, 2)));
+      assertFalse(completedTransactions.isCompleted(gtx(a, 2)));
+      assertFalse(completedTransactions.isCompleted(gtx(b, 1)));
+      assertFalse(completedTransactions.isCompleted(gtx(a, 4999)));
+   }
+
+   public void testPruneAfterTimeout() {
+      for (long id = 1; id <= 10000; id += 2) {
+         completedTransactions.markCompleted(gtx(a, id));
+      }
+      assertFalse(completedTransactions.isCompleted(gtx(a, 2)));
+
+      // the first run records the highest completed id, but the transactions are too recent to be forgotten
+      completedTransactions.prune(0, -TIMEOUT, members);
+      assertFalse(completedTransactions.isCompleted(gtx(a, 2)));
+      completedTransactions.markCompleted(gtx(a, 20001));
+
+      // once the first run is older than the timeout, all the ids it recorded are considered completed
+      int chunks = completedTransactions.prune(TIMEOUT + 1, 1, members);
+      assertTrue(completedTransactions.isCompleted(gtx(a, 2)));
+      assertTrue(completedTransactions.isCompleted(gtx(a, 9999)));
+      assertFalse(completedTransactions.isCompleted(gtx(a, 10000)));
+      assertFalse(completedTransactions.isCompleted(gtx(a, 20000)));
+      assertTrue(completedTransactions.isCompleted(gtx(a, 20001)));
+      // only the chunks holding ids after the last pruned one are kept
+      assertEquals(chunks, 2);
+   }
+
+   public void testLeaverForgottenOncePruned() {
+      completedTransactions.markCompleted(gtx(b, 7));
+      List<Address> onlyA = Collections.singletonList(a);
+
+      completedTransactions.prune(0, -TIMEOUT, onlyA);
+      assertTrue(completedTransactions.isCompleted(gtx(b, 7)));
+      assertFalse(completedTransactions.isEmpty());
+
+      completedTransactions.prune(TIMEOUT + 1, 1, onlyA);
+      assertTrue(completedTransactions.isEmpty());
+      assertFalse(completedTransactions.isCompleted(gtx(b, 7)));
+   }
+
+   private GlobalTransaction gtx(Address address, long id) {
+      GlobalTransaction gtx = TransactionFactory.TxFactoryEnum.NODLD_NORECOVERY_XA.newGlobalTransaction();
+      gtx.setAddress(address);
+      gtx.setId(id);
+      return gtx;
+   }
+}
@@ -0,0 +1,155 @@
+package org.infinispan.transaction.totalorder;
+
+import org.infinispan.distribution.TestAddress;
+import org.infinispan.executors.BlockingTaskAwareExecutorServiceTest;
+import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.transaction.impl.TotalOrderRemoteTransactionState;
+import org.infinispan.transaction.xa.GlobalTransaction;
+import org.infinispan.transaction.xa.TransactionFactory;
+import org.infinispan.util.concurrent.BlockingTaskAwareExecutorServiceImpl;
+import org.infinispan.util.concurrent.ResourceBlockingRunnable;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collection;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+/**
+ * Tests the order in which the {@link TotalOrderManager} hands the prepares to the total order executor.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "transaction.totalorder.TotalOrderManagerTest")
+public class TotalOrderManagerTest extends AbstractInfinispanTest {
+
+   private BlockingTaskAwareExecutorServiceImpl executorService;
+   private TotalOrderManager totalOrderManager;
+   private long nextId;
+
+   @BeforeMethod
+   public void setUp() {
+      executorService = new BlockingTaskAwareExecutorServiceImpl(
+            new ThreadPoolExecutor(4, 4, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(1000),
+                                   new BlockingTaskAwareExecutorServiceTest.DummyThreadFactory()), TIME_SERVICE);
+      totalOrderManager = new TotalOrderManager();
+      totalOrderManager.inject(executorService);
+   }
+
+   @AfterMethod
+   public void tearDown() {
+      executorService.shutdownNow();
+   }
+
+   public void testConflictingPrepares() throws Exception {
+      Prepare tx1 = deliver("a");
+      Prepare tx2 = deliver("a", "b");
+      Prepare tx3 = deliver("c");
+      Prepare tx4 = deliver("b");
+
+      // the prepares not conflicting with an earlier one run right away
+      tx1.assertExecuted();
+      tx3.assertExecuted();
+      assertEquals(executorService.getBlockedTaskCount(), 2);
+
+      totalOrderManager.release(tx1.state);
+      tx2.assertExecuted();
+      assertFalse(tx4.executed);
+      assertEquals(executorService.getBlockedTaskCount(), 1);
+
+      totalOrderManager.release(tx3.state);
+      assertFalse(tx4.executed);
+      totalOrderManager.release(tx2.state);
+      tx4.assertExecuted();
+      totalOrderManager.release(tx4.state);
+      assertFalse(totalOrderManager.hasAnyLockAcquired());
+   }
+
+   public void testClear() throws Exception {
+      Prepare tx1 = deliver("a");
+      Prepare tx2 = deliver("b");
+      Prepare clear = deliver((Object[]) null);
+      Prepare tx3 = deliver("c");
+      tx1.assertExecuted();
+      tx2.assertExecuted();
+
+      // the clear waits for all the previous prepares, and the following ones wait for it
+      totalOrderManager.release(tx1.state);
+      assertFalse(clear.executed);
+      totalOrderManager.release(tx2.state);
+      clear.assertExecuted();
+      assertFalse(tx3.executed);
+
+      totalOrderManager.release(clear.state);
+      tx3.assertExecuted();
+      totalOrderManager.release(tx3.state);
+      assertFalse(totalOrderManager.hasAnyLockAcquired());
+   }
+
+   public void testStateTransfer() throws Exception {
+      Prepare tx1 = deliver("a");
+      tx1.assertExecuted();
+
+      Collection<TotalOrderLatch> pending = totalOrderManager.notifyStateTransferStart(1, true);
+      assertEquals(pending.size(), 1);
+      Prepare tx2 = deliver("b");
+      Prepare tx3 = deliver("a");
+
+      totalOrderManager.release(tx1.state);
+      assertFalse(tx2.executed);
+      assertFalse(tx3.executed);
+
+      totalOrderManager.notifyStateTransferEnd();
+      tx2.assertExecuted();
+      tx3.assertExecuted();
+      assertEquals(executorService.getBlockedTaskCount(), 0);
+   }
+
+   private Prepare deliver(Object... keys) throws InterruptedException {
+      GlobalTransaction gtx = TransactionFactory.TxFactoryEnum.NODLD_NORECOVERY_XA.newGlobalTransaction();
+      gtx.setAddress(new TestAddress(1, "A"));
+      gtx.setId(++nextId);
+      Prepare prepare = new Prepare(new TotalOrderRemoteTransactionState(gtx));
+      totalOrderManager.ensureOrder(prepare.state, keys);
+      executorService.execute(prepare);
+      return prepare;
+   }
+
+   private class Prepare implements ResourceBlockingRunnable {
+      final TotalOrderRemoteTransactionState state;
+      volatile boolean executed;
+
+      Prepare(TotalOrderRemoteTransactionState state) {
+         this.state = state;
+      }
+
+      @Override
+      public boolean isReady() {
+         return !state.hasPendingDependencies();
+      }
+
+      @Override
+      public Object getBlockingResource() {
+         return state.hasPendingDependencies() ? state : null;
+      }
+
+      @Override
+      public void run() {
+         executed = true;
+      }
+
+      void assertExecuted() {
+         eventually(new Condition() {
+            @Override
+            public boolean isSatisfied() throws Exception {
+               return executed;
+            }
+         });
+      }
+   }
+}
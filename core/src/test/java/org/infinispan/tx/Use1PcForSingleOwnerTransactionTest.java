@@ -0,0 +1,219 @@
+package org.infinispan.tx;
+
+import org.infinispan.Cache;
+import org.infinispan.commands.tx.CommitCommand;
+import org.infinispan.commands.tx.PrepareCommand;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.configuration.cache.VersioningScheme;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.container.versioning.InequalVersionComparisonResult;
+import org.infinispan.context.impl.TxInvocationContext;
+import org.infinispan.distribution.MagicKey;
+import org.infinispan.interceptors.base.CommandInterceptor;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.transaction.LockingMode;
+import org.infinispan.util.concurrent.IsolationLevel;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.transaction.RollbackException;
+import javax.transaction.Transaction;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+/**
+ * Tests that the optimistic transactions modifying keys with a single primary owner are committed by their prepare,
+ * when the primary owner is the originator or the only owner of the keys, and that the write skew check still applies.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "tx.Use1PcForSingleOwnerTransactionTest")
+public class Use1PcForSingleOwnerTransactionTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_NODES = 3;
+
+   private InvocationCountInterceptor[] counters;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder c = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, true);
+      c
+         .clustering().hash().numOwners(2)
+         .versioning().enable().scheme(VersioningScheme.SIMPLE)
+         .locking().isolationLevel(IsolationLevel.REPEATABLE_READ).writeSkewCheck(true)
+         .transaction().lockingMode(LockingMode.OPTIMISTIC).use1PcForSingleOwnerTransactions(true);
+
+      createCluster(c, NUM_NODES);
+      waitForClusterToForm();
+
+      counters = new InvocationCountInterceptor[NUM_NODES];
+      for (int i = 0; i < NUM_NODES; i++) {
+         counters[i] = new InvocationCountInterceptor();
+         advancedCache(i).addInterceptor(counters[i], 1);
+      }
+   }
+
+   @BeforeMethod(alwaysRun = true)
+   public void resetCounters() {
+      if (counters != null) {
+         for (InvocationCountInterceptor counter : counters) {
+            counter.reset();
+         }
+      }
+   }
+
+   public void testLocalPrimaryOwner() throws Exception {
+      MagicKey k1 = new MagicKey("k1", cache(0), cache(1));
+      MagicKey k2 = new MagicKey("k2", cache(0), cache(1));
+
+      tm(0).begin();
+      cache(0).put(k1, "v1");
+      cache(0).put(k2, "v2");
+      tm(0).commit();
+
+      assertOnePhaseCommit(0, 1);
+      assertValue(k1, "v1");
+      assertValue(k2, "v2");
+      assertSameVersion(k1, 0, 1);
+      assertSameVersion(k2, 0, 1);
+      assertNotLocked(k1);
+      assertNotLocked(k2);
+   }
+
+   public void testDifferentPrimaryOwners() throws Exception {
+      MagicKey k1 = new MagicKey("k1", cache(0), cache(1));
+      MagicKey k2 = new MagicKey("k2", cache(1), cache(0));
+
+      tm(0).begin();
+      cache(0).put(k1, "v1");
+      cache(0).put(k2, "v2");
+      tm(0).commit();
+
+      assertTwoPhaseCommit(0, 1);
+      assertValue(k1, "v1");
+      assertValue(k2, "v2");
+   }
+
+   public void testRemotePrimaryOwnerWithBackup() throws Exception {
+      MagicKey k = new MagicKey("k", cache(1), cache(2));
+
+      tm(0).begin();
+      cache(0).put(k, "v");
+      tm(0).commit();
+
+      // the backup owner would apply the one-phase prepare before the primary owner validates it
+      assertTwoPhaseCommit(1, 2);
+      assertValue(k, "v");
+   }
+
+   public void testNewVersionsSentToBackupOwner() throws Exception {
+      MagicKey k = new MagicKey("k", cache(0), cache(1));
+      cache(0).put(k, "v0");
+
+      for (int i = 1; i <= 3; i++) {
+         tm(0).begin();
+         assertEquals(cache(0).get(k), "v" + (i - 1));
+         cache(0).put(k, "v" + i);
+         tm(0).commit();
+         assertSameVersion(k, 0, 1);
+      }
+
+      // the backup owner read the latest version, so the write skew check on the primary owner passes
+      tm(1).begin();
+      assertEquals(cache(1).get(k), "v3");
+      cache(1).put(k, "v4");
+      tm(1).commit();
+      assertValue(k, "v4");
+      assertSameVersion(k, 0, 1);
+   }
+
+   public void testWriteSkewDetected() throws Exception {
+      MagicKey k = new MagicKey("k", cache(0), cache(1));
+      cache(0).put(k, "v0");
+
+      tm(0).begin();
+      assertEquals(cache(0).get(k), "v0");
+      Transaction tx = tm(0).suspend();
+
+      cache(2).put(k, "v1");
+
+      tm(0).resume(tx);
+      cache(0).put(k, "v2");
+      resetCounters();
+      try {
+         tm(0).commit();
+         fail("Transaction should roll back");
+      } catch (RollbackException e) {
+         // expected
+      }
+
+      // the primary owner failed the check before sending the prepare
+      assertEquals(counters[1].prepareInvocations, 0);
+      assertValue(k, "v1");
+      assertSameVersion(k, 0, 1);
+      assertNotLocked(k);
+   }
+
+   private void assertOnePhaseCommit(int... owners) {
+      for (int owner : owners) {
+         assertEquals(counters[owner].onePhasePrepareInvocations, 1);
+         assertEquals(counters[owner].commitInvocations, 0);
+      }
+   }
+
+   private void assertTwoPhaseCommit(int... owners) {
+      for (int owner : owners) {
+         assertEquals(counters[owner].onePhasePrepareInvocations, 0);
+         assertEquals(counters[owner].commitInvocations, 1);
+      }
+   }
+
+   private void assertValue(Object key, Object value) {
+      for (Cache<Object, Object> cache : this.<Object, Object>caches()) {
+         assertEquals(cache.get(key), value);
+      }
+   }
+
+   private void assertSameVersion(Object key, int primaryOwner, int backupOwner) {
+      EntryVersion primaryVersion = version(key, primaryOwner);
+      EntryVersion backupVersion = version(key, backupOwner);
+      assertEquals(primaryVersion.compareTo(backupVersion), InequalVersionComparisonResult.EQUAL,
+                   "Primary owner version " + primaryVersion + ", backup owner version " + backupVersion);
+   }
+
+   private EntryVersion version(Object key, int index) {
+      InternalCacheEntry entry = advancedCache(index).getDataContainer().peek(key);
+      return entry.getMetadata().version();
+   }
+
+   public static class InvocationCountInterceptor extends CommandInterceptor {
+
+      volatile int prepareInvocations;
+      volatile int onePhasePrepareInvocations;
+      volatile int commitInvocations;
+
+      @Override
+      public Object visitPrepareCommand(TxInvocationContext ctx, PrepareCommand command) throws Throwable {
+         prepareInvocations++;
+         if (command.isOnePhaseCommit()) {
+            onePhasePrepareInvocations++;
+         }
+         return super.visitPrepareCommand(ctx, command);
+      }
+
+      @Override
+      public Object visitCommitCommand(TxInvocationContext ctx, CommitCommand command) throws Throwable {
+         commitInvocations++;
+         return super.visitCommitCommand(ctx, command);
+      }
+
+      void reset() {
+         prepareInvocations = 0;
+         onePhasePrepareInvocations = 0;
+         commitInvocations = 0;
+      }
+   }
+}
@@ -0,0 +1,138 @@
+package org.infinispan.tx.dld;
+
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.distribution.MagicKey;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.PerCacheExecutorThread;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.transaction.LockingMode;
+import org.infinispan.util.concurrent.locks.DeadlockDetectedException;
+import org.infinispan.util.concurrent.locks.DeadlockDetectingLockManager;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests the detection of deadlocks whose cycle spans several nodes: each transaction locks a key owned by its own node,
+ * then a key owned by the next node, which is locked by the next transaction. Only the probes sent between the nodes
+ * can find these cycles, and the youngest transaction must be the only one aborted.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "tx.dld.DldCyclicDeadlockTest")
+public class DldCyclicDeadlockTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_NODES = 3;
+
+   private PerCacheExecutorThread[] executors;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder config = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, true);
+      config
+         .unsafe().unreliableReturnValues(true)
+         .clustering().hash().numOwners(1)
+         .deadlockDetection().enable()
+         .transaction().lockingMode(LockingMode.PESSIMISTIC);
+      createCluster(config, NUM_NODES);
+      waitForClusterToForm();
+   }
+
+   @BeforeMethod(alwaysRun = true)
+   public void startExecutors() {
+      executors = new PerCacheExecutorThread[NUM_NODES];
+      for (int i = 0; i < NUM_NODES; i++) {
+         executors[i] = new PerCacheExecutorThread(cache(i), i);
+         DeadlockDetectingLockManager lockManager = lockManager(i);
+         lockManager.setExposeJmxStats(true);
+         lockManager.resetStatistics();
+      }
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void stopExecutors() {
+      for (PerCacheExecutorThread executor : executors) {
+         executor.stopThread();
+      }
+   }
+
+   public void testTwoNodeCycle() throws Exception {
+      testCycle(2);
+   }
+
+   public void testThreeNodeCycle() throws Exception {
+      testCycle(3);
+   }
+
+   private void testCycle(int length) throws Exception {
+      Object[] keys = new Object[length];
+      for (int i = 0; i < length; i++) {
+         keys[i] = new MagicKey("k" + i + "-" + length, cache(i));
+      }
+
+      for (int i = 0; i < length; i++) {
+         PerCacheExecutorThread executor = executors[i];
+         assertEquals(executor.execute(PerCacheExecutorThread.Operations.BEGIN_TX),
+                      PerCacheExecutorThread.OperationsResult.BEGIN_TX_OK);
+         executor.setKeyValue(keys[i], "v" + i);
+         assertEquals(executor.execute(PerCacheExecutorThread.Operations.PUT_KEY_VALUE),
+                      PerCacheExecutorThread.OperationsResult.PUT_KEY_VALUE_OK);
+         // the transactions start in order, so the last one is the youngest
+         TestingUtil.sleepThread(10);
+      }
+
+      // close the cycle: each transaction waits for the key locked by the next one
+      for (int i = 0; i < length; i++) {
+         PerCacheExecutorThread executor = executors[i];
+         executor.setKeyValue(keys[(i + 1) % length], "v" + i);
+         executor.executeNoResponse(PerCacheExecutorThread.Operations.PUT_KEY_VALUE);
+      }
+
+      // the youngest transaction is aborted, and rolling it back lets the others complete in reverse order
+      int victim = length - 1;
+      Object victimResponse = executors[victim].waitForResponse();
+      assertTrue(isDeadlockDetected(victimResponse), "Unexpected response " + victimResponse);
+      assertEquals(executors[victim].getOngoingTransaction().getStatus(), Status.STATUS_MARKED_ROLLBACK);
+      assertTrue(executors[victim].execute(PerCacheExecutorThread.Operations.COMMIT_TX) instanceof RollbackException);
+
+      for (int i = victim - 1; i >= 0; i--) {
+         assertEquals(executors[i].waitForResponse(), PerCacheExecutorThread.OperationsResult.PUT_KEY_VALUE_OK);
+         assertEquals(executors[i].execute(PerCacheExecutorThread.Operations.COMMIT_TX),
+                      PerCacheExecutorThread.OperationsResult.COMMIT_TX_OK);
+      }
+
+      // every key but the first one is written last by the transaction locking it second
+      assertEquals(cache(0).get(keys[0]), "v0");
+      for (int i = 1; i < length; i++) {
+         assertEquals(cache(0).get(keys[i]), "v" + (i - 1));
+      }
+
+      long totalDeadlocks = 0;
+      for (int i = 0; i < NUM_NODES; i++) {
+         totalDeadlocks += lockManager(i).getTotalNumberOfDetectedDeadlocks();
+      }
+      assertEquals(totalDeadlocks, 1, "Expected a single deadlock to be detected");
+   }
+
+   private boolean isDeadlockDetected(Object response) {
+      Throwable t = response instanceof Throwable ? (Throwable) response : null;
+      while (t != null) {
+         if (t instanceof DeadlockDetectedException) {
+            return true;
+         }
+         t = t.getCause();
+      }
+      return false;
+   }
+
+   private DeadlockDetectingLockManager lockManager(int index) {
+      return (DeadlockDetectingLockManager) TestingUtil.extractLockManager(cache(index));
+   }
+}
@@ -1,6 +1,7 @@
 package org.infinispan.util;
 
 import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.commons.util.concurrent.NotifyingNotifiableFuture;
 import org.infinispan.remoting.RpcException;
 import org.infinispan.remoting.responses.Response;
@@ -11,6 +12,7 @@
 import org.infinispan.remoting.rpc.RpcOptionsBuilder;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.Transport;
+import org.infinispan.util.concurrent.CompletableNotifyingFuture;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -145,6 +147,20 @@ public Map<Address, Response> invokeRemotely(Collection<Address> recipients, Rep
       return afterInvokeRemotely(rpc, responses);
    }
 
+   /**
+    * Goes through {@link #invokeRemotely(java.util.Collection, org.infinispan.commands.ReplicableCommand, RpcOptions)},
+    * so that the subclasses overriding it control the asynchronous invocations too.
+    */
+   @Override
+   public NotifyingFuture<Map<Address, Response>> invokeRemotelyAsync(Collection<Address> recipients, ReplicableCommand rpc, RpcOptions options) {
+      log.trace("ControlledRpcManager.invokeRemotelyAsync");
+      try {
+         return CompletableNotifyingFuture.completed(invokeRemotely(recipients, rpc, options));
+      } catch (RuntimeException e) {
+         return CompletableNotifyingFuture.failed(e);
+      }
+   }
+
    @Override
    public void invokeRemotelyInFuture(Collection<Address> recipients, ReplicableCommand rpc, RpcOptions options, NotifyingNotifiableFuture<Object> future) {
       log.trace("ControlledRpcManager.invokeRemotelyInFuture5");
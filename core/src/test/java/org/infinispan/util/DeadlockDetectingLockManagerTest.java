@@ -4,6 +4,11 @@
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 
@@ -13,13 +18,18 @@
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.impl.LocalTxInvocationContext;
 import org.infinispan.context.impl.NonTxInvocationContext;
+import org.infinispan.interceptors.locking.ClusteringDependentLogic;
+import org.infinispan.remoting.transport.Address;
 import org.infinispan.test.AbstractInfinispanTest;
+import org.infinispan.test.TestingUtil;
 import org.infinispan.transaction.impl.LocalTransaction;
+import org.infinispan.transaction.impl.TransactionTable;
 import org.infinispan.transaction.xa.DldGlobalTransaction;
 import org.infinispan.transaction.xa.TransactionFactory;
+import org.infinispan.util.concurrent.CompletableNotifyingFuture;
 import org.infinispan.util.concurrent.locks.DeadlockDetectedException;
 import org.infinispan.util.concurrent.locks.DeadlockDetectingLockManager;
-import org.infinispan.util.concurrent.locks.containers.LockContainer;
+import org.infinispan.util.concurrent.locks.containers.AsyncLockContainer;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -33,15 +43,18 @@ public class DeadlockDetectingLockManagerTest extends AbstractInfinispanTest {
 
    DeadlockDetectingLockManagerMock lockManager;
    Configuration config = new ConfigurationBuilder().build();
-   private LockContainer lc;
-   private static final int SPIN_DURATION = 1000;
+   private AsyncLockContainer lc;
+   private static final int SPIN_DURATION = 100;
    private DldGlobalTransaction lockOwner;
 
    @BeforeMethod
    public void setUp() {
-      lc = mock(LockContainer.class);
+      lc = mock(AsyncLockContainer.class);
       lockManager = new DeadlockDetectingLockManagerMock(SPIN_DURATION, true, lc, config);
       lockManager.injectTimeService(TIME_SERVICE);
+      ClusteringDependentLogic cdl = mock(ClusteringDependentLogic.class);
+      when(cdl.getAddress()).thenReturn(mock(Address.class));
+      lockManager.injectDeadlockDetectionDependencies(mock(TransactionTable.class), null, null, cdl);
       lockOwner = (DldGlobalTransaction) TransactionFactory.TxFactoryEnum.DLD_NORECOVERY_XA.newGlobalTransaction();
    }
 
@@ -57,17 +70,46 @@ public void testNoTransaction() throws Exception {
 
    }
 
+   public void testNoWait() throws Exception {
+      InvocationContext localTxContext = buildLocalTxIc(lockOwner);
+
+      when(lc.acquireLockAsync(lockOwner, "k")).thenReturn(CompletableNotifyingFuture.completed(mock(Lock.class)));
+
+      assert lockManager.lockAndRecord("k", localTxContext, config.locking().lockAcquisitionTimeout());
+      assert lockManager.getOverlapWithNotDeadlockAwareLockOwners() == 0;
+      assert lockManager.getTotalNumberOfDetectedDeadlocks() == 0;
+   }
+
    public void testLockHeldByThread() throws Exception {
       InvocationContext localTxContext = buildLocalTxIc(new DldGlobalTransaction());
 
-      Lock mockLock = mock(Lock.class);
       //this makes sure that we cannot acquire lock from the first try
-      when(lc.acquireLock(localTxContext.getLockOwner(), "k", SPIN_DURATION, TimeUnit.MILLISECONDS)).thenReturn(null).thenReturn(mockLock);
-      lockManager.setOwner(Thread.currentThread() );
-      //next lock acquisition will succeed
+      final CompletableNotifyingFuture<Lock> request = new CompletableNotifyingFuture<Lock>();
+      when(lc.acquireLockAsync(localTxContext.getLockOwner(), "k")).thenReturn(request);
+      lockManager.setOwner("k", Thread.currentThread());
+      //the lock is granted while the transaction waits
+      fork(new Runnable() {
+         @Override
+         public void run() {
+            TestingUtil.sleepThread(SPIN_DURATION);
+            request.complete(mock(Lock.class));
+         }
+      });
 
       assert lockManager.lockAndRecord("k", localTxContext, config.locking().lockAcquisitionTimeout());
-      assert lockManager.getOverlapWithNotDeadlockAwareLockOwners() == 1;
+      assert lockManager.getOverlapWithNotDeadlockAwareLockOwners() >= 1;
+   }
+
+   public void testLockTimeout() throws Exception {
+      InvocationContext localTxContext = buildLocalTxIc(lockOwner);
+
+      CompletableNotifyingFuture<Lock> request = new CompletableNotifyingFuture<Lock>();
+      when(lc.acquireLockAsync(lockOwner, "k")).thenReturn(request);
+      lockManager.setOwner("k", TransactionFactory.TxFactoryEnum.DLD_NORECOVERY_XA.newGlobalTransaction());
+
+      assert !lockManager.lockAndRecord("k", localTxContext, 3 * SPIN_DURATION);
+      assert request.isCancelled();
+      assert lockManager.getTotalNumberOfDetectedDeadlocks() == 0;
    }
 
    public void testLocalDeadlock() throws Exception {
@@ -75,24 +117,79 @@ public void testLocalDeadlock() throws Exception {
 
       InvocationContext localTxContext = buildLocalTxIc(ddgt);
 
-      ddgt.setCoinToss(0);
-      lockOwner.setCoinToss(1);
-      assert ddgt.wouldLose(lockOwner);
+      // ddgt is the youngest, so it is the one to abort
+      lockOwner.setCoinToss(0);
+      ddgt.setCoinToss(1);
+      assert ddgt.isYoungerThan(lockOwner);
+
+      // lockOwner owns k1 and waits for k2, owned by ddgt
+      CompletableNotifyingFuture<Lock> ownerRequest = new CompletableNotifyingFuture<Lock>();
+      when(lc.acquireLockAsync(lockOwner, "k2")).thenReturn(ownerRequest);
+      when(lc.acquireLockAsync(ddgt, "k1")).thenReturn(new CompletableNotifyingFuture<Lock>());
+      lockManager.setOwner("k1", lockOwner);
+      lockManager.setOwner("k2", ddgt);
+      Future<Boolean> ownerLock = forkLockAndRecord(lockOwner, "k2");
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return lockOwner.getLockIntention() != null;
+         }
+      });
 
-      //this makes sure that we cannot acquire lock from the first try
-      Lock mockLock = mock(Lock.class);
-      when(lc.acquireLock(localTxContext.getLockOwner(), "k", SPIN_DURATION, TimeUnit.MILLISECONDS)).thenReturn(null).thenReturn(mockLock);
-      lockOwner.setRemote(false);
-      lockOwner.setLockIntention("k");
-      lockManager.setOwner(lockOwner);
-      lockManager.setOwnsLock(true);
       try {
-         lockManager.lockAndRecord("k", localTxContext, config.locking().lockAcquisitionTimeout());
+         lockManager.lockAndRecord("k1", localTxContext, config.locking().lockAcquisitionTimeout());
          assert false;
       } catch (DeadlockDetectedException e) {
          //expected
       }
       assertEquals(1l,lockManager.getDetectedLocalDeadlocks());
+
+      // the oldest transaction is not aborted, and gets its lock once ddgt rolls back
+      assert !ownerLock.isDone();
+      ownerRequest.complete(mock(Lock.class));
+      assert ownerLock.get(10, TimeUnit.SECONDS);
+   }
+
+   public void testYoungestTransactionAborted() throws Exception {
+      final DldGlobalTransaction ddgt = (DldGlobalTransaction) TransactionFactory.TxFactoryEnum.DLD_NORECOVERY_XA.newGlobalTransaction();
+
+      // lockOwner is the youngest, so it is aborted even if ddgt is the one finding the deadlock
+      lockOwner.setCoinToss(1);
+      ddgt.setCoinToss(0);
+
+      CompletableNotifyingFuture<Lock> request = new CompletableNotifyingFuture<Lock>();
+      when(lc.acquireLockAsync(lockOwner, "k2")).thenReturn(new CompletableNotifyingFuture<Lock>());
+      when(lc.acquireLockAsync(ddgt, "k1")).thenReturn(request);
+      lockManager.setOwner("k1", lockOwner);
+      lockManager.setOwner("k2", ddgt);
+      Future<Boolean> ownerLock = forkLockAndRecord(lockOwner, "k2");
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            return lockOwner.getLockIntention() != null;
+         }
+      });
+
+      Future<Boolean> lock = forkLockAndRecord(ddgt, "k1");
+      try {
+         ownerLock.get(10, TimeUnit.SECONDS);
+         assert false;
+      } catch (ExecutionException e) {
+         assert e.getCause() instanceof DeadlockDetectedException;
+      }
+      assertEquals(1l, lockManager.getDetectedLocalDeadlocks());
+
+      request.complete(mock(Lock.class));
+      assert lock.get(10, TimeUnit.SECONDS);
+   }
+
+   private Future<Boolean> forkLockAndRecord(final DldGlobalTransaction tx, final Object key) {
+      return fork(new Callable<Boolean>() {
+         @Override
+         public Boolean call() throws Exception {
+            return lockManager.lockAndRecord(key, buildLocalTxIc(tx), config.locking().lockAcquisitionTimeout());
+         }
+      });
    }
 
    private InvocationContext buildLocalTxIc(final DldGlobalTransaction ddgt) {
@@ -106,32 +203,22 @@ public Object getLockOwner() {
 
    public static class DeadlockDetectingLockManagerMock extends DeadlockDetectingLockManager {
 
-      private Object owner;
-      private boolean ownsLock;
+      private final Map<Object, Object> owners = new HashMap<Object, Object>();
 
-      public DeadlockDetectingLockManagerMock(long spinDuration, boolean exposeJmxStats, LockContainer lockContainer, Configuration configuration) {
+      public DeadlockDetectingLockManagerMock(long spinDuration, boolean exposeJmxStats, AsyncLockContainer lockContainer, Configuration configuration) {
          this.spinDuration = spinDuration;
          this.exposeJmxStats = exposeJmxStats;
          super.lockContainer = lockContainer;
          this.configuration = configuration;
       }
 
-      public void setOwner(Object owner) {
-         this.owner = owner;
-      }
-
-      public void setOwnsLock(boolean ownsLock) {
-         this.ownsLock = ownsLock;
-      }
-
-      @Override
-      public Object getOwner(Object key) {
-         return owner;
+      public synchronized void setOwner(Object key, Object owner) {
+         owners.put(key, owner);
       }
 
       @Override
-      public boolean ownsLock(Object key, Object owner) {
-         return ownsLock;
+      public synchronized Object getOwner(Object key) {
+         return owners.get(key);
       }
    }
 }
@@ -1,6 +1,7 @@
 package org.infinispan.util.concurrent;
 
 import org.infinispan.commons.equivalence.AnyEquivalence;
+import org.infinispan.eviction.EntrySizeCalculator;
 import org.infinispan.util.EquivalentHashMapTest;
 import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
 import org.infinispan.util.concurrent.BoundedConcurrentHashMap.EvictionListener;
@@ -8,9 +9,13 @@
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.testng.AssertJUnit.*;
 
@@ -139,10 +144,11 @@ public void testLRUCacheHits() throws InterruptedException
       final int THREADS = 10;
       final int COUNT = COUNT_PER_THREAD * THREADS;
 
+      final AtomicInteger evictions = new AtomicInteger();
       final EvictionListener<Integer, Integer> l = new NullEvictionListener<Integer, Integer>() {
          @Override
          public void onEntryChosenForEviction(Integer internalCacheEntry) {
-            assertEquals(COUNT, internalCacheEntry.intValue());
+            evictions.incrementAndGet();
          }
       };
 
@@ -170,10 +176,70 @@ public void run() {
       for (int i = 0; i < THREADS; i++)
          threads[i].join();
 
+      // adding one more entry must evict exactly one entry; hits recorded concurrently
+      // may be dropped, so which one is not deterministic
+      bchm.put(COUNT + 1, COUNT + 1);
+      assertEquals(1, evictions.get());
+      assertEquals(COUNT + 1, bchm.size());
+      assertNotNull(bchm.get(COUNT + 1));
+   }
+
+   public void testLRUSequentialHitsNotLost() {
+      final int COUNT = 10000;
+      final EvictionListener<Integer, Integer> l = new NullEvictionListener<Integer, Integer>() {
+         @Override
+         public void onEntryChosenForEviction(Integer internalCacheEntry) {
+            assertEquals(COUNT, internalCacheEntry.intValue());
+         }
+      };
+
+      Map<Integer, Integer> bchm = new BoundedConcurrentHashMap<Integer, Integer>(
+            COUNT + 1, 1, Eviction.LRU, l, AnyEquivalence.INT, AnyEquivalence.INT);
+
+      for (int i = 0; i <= COUNT; i++)
+         bchm.put(i, i);
+      // without contention, no hit is dropped
+      for (int i = 0; i < COUNT; i++)
+         assertNotNull(bchm.get(i));
+
       // adding one more entry must evict COUNT
       bchm.put(COUNT + 1, COUNT + 1);
    }
 
+   public void testConcurrentReadsWithEviction() throws InterruptedException {
+      final int CAPACITY = 1000;
+      final int THREADS = 8;
+      for (final Eviction eviction : new Eviction[]{Eviction.LRU, Eviction.LIRS, Eviction.TINYLFU}) {
+         final Map<Integer, Integer> bchm = new BoundedConcurrentHashMap<Integer, Integer>(
+               CAPACITY, 4, eviction, AnyEquivalence.INT, AnyEquivalence.INT);
+         final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+         Thread threads[] = new Thread[THREADS];
+         for (int t = 0; t < THREADS; t++) {
+            final int seed = t;
+            threads[t] = new Thread() {
+               public void run() {
+                  try {
+                     Random random = new Random(seed);
+                     for (int i = 0; i < 100000; i++) {
+                        int key = random.nextInt(CAPACITY * 2);
+                        if (bchm.get(key) == null)
+                           bchm.put(key, key);
+                     }
+                  } catch (Throwable t) {
+                     failure.set(t);
+                  }
+               }
+            };
+         }
+         for (Thread thread : threads)
+            thread.start();
+         for (Thread thread : threads)
+            thread.join();
+         assertNull(eviction + " failed: " + failure.get(), failure.get());
+         assertTrue(eviction + " size " + bchm.size(), bchm.size() <= CAPACITY);
+      }
+   }
+
    public void testLRUEvictionOrder() throws InterruptedException
    {
       final EvictionListener<Integer, Integer> l = new NullEvictionListener<Integer, Integer>() {
@@ -195,4 +261,95 @@ public void onEntryChosenForEviction(Integer internalCacheEntry) {
       bchm.put(3, 3); // evict 1, LRU: 0, 2, 3
       bchm.put(4, 4); // evict 0, LRU: 2, 3, 4
    }
+
+   public void testMemoryBoundedWithoutCapacity() {
+      final int COUNT = 100000;
+      EntrySizeCalculator<Integer, Integer> oneByte = new EntrySizeCalculator<Integer, Integer>() {
+         @Override
+         public long calculateSize(Integer key, Integer value) {
+            return 1;
+         }
+      };
+      for (Eviction eviction : new Eviction[]{Eviction.LRU, Eviction.LIRS, Eviction.TINYLFU}) {
+         final AtomicReference<Map<Integer, Integer>> evicted = new AtomicReference<Map<Integer, Integer>>();
+         EvictionListener<Integer, Integer> l = new NullEvictionListener<Integer, Integer>() {
+            @Override
+            public void onEntryEviction(Map<Integer, Integer> e) {
+               assertNull(evicted.getAndSet(e));
+            }
+         };
+         BoundedConcurrentHashMap<Integer, Integer> bchm = new BoundedConcurrentHashMap<Integer, Integer>(
+               0, 1, eviction, l, AnyEquivalence.INT, AnyEquivalence.INT, oneByte, COUNT);
+
+         // no entry count bound, the table grows with the entries
+         for (int i = 0; i < COUNT; i++)
+            bchm.put(i, i);
+         assertNull(eviction + " evicted " + evicted.get(), evicted.get());
+         assertEquals(COUNT, bchm.size());
+         assertEquals(COUNT, bchm.memoryUsed());
+
+         // growing the table kept the eviction order: 1 is the least recently used entry
+         assertNotNull(bchm.get(0));
+         bchm.put(COUNT, COUNT);
+         assertEquals(eviction.toString(), Collections.singletonMap(1, 1), evicted.get());
+         assertEquals(COUNT, bchm.size());
+         assertTrue(bchm.containsKey(0));
+      }
+   }
+
+   public void testTinyLFURemoveKeepsQueuePlacement() {
+      EntrySizeCalculator<CollidingKey, Integer> valueSize = new EntrySizeCalculator<CollidingKey, Integer>() {
+         @Override
+         public long calculateSize(CollidingKey key, Integer value) {
+            return value;
+         }
+      };
+      // window of 1 entry, protected queue of 7 entries
+      BoundedConcurrentHashMap<CollidingKey, Integer> bchm = new BoundedConcurrentHashMap<CollidingKey, Integer>(
+            10, 1, Eviction.TINYLFU, new NullEvictionListener<CollidingKey, Integer>(),
+            AnyEquivalence.<CollidingKey>getInstance(), AnyEquivalence.INT, valueSize, 12);
+
+      for (int i = 0; i < 10; i++)
+         bchm.put(new CollidingKey(i), 1);
+      // promote 1..7 to the protected queue, 1 being the least recently used
+      for (int i = 1; i <= 7; i++)
+         assertNotNull(bchm.get(new CollidingKey(i)));
+      // 10 pushes 9 out of the window, which loses against 0 in probation
+      bchm.put(new CollidingKey(10), 1);
+      assertFalse(bchm.containsKey(new CollidingKey(9)));
+
+      // all the keys share a bucket, removing the oldest one copies all the others
+      bchm.remove(new CollidingKey(0));
+      assertEquals(9, bchm.size());
+
+      // memory evicts probation (8, 10) first, then protected in LRU order
+      bchm.put(new CollidingKey(11), 8);
+      for (int i : new int[]{1, 2, 3, 8, 10})
+         assertFalse("Key " + i, bchm.containsKey(new CollidingKey(i)));
+      for (int i : new int[]{4, 5, 6, 7, 11})
+         assertTrue("Key " + i, bchm.containsKey(new CollidingKey(i)));
+   }
+
+   private static final class CollidingKey {
+      final int id;
+
+      CollidingKey(int id) {
+         this.id = id;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+      }
+
+      @Override
+      public int hashCode() {
+         return 0;
+      }
+
+      @Override
+      public String toString() {
+         return "CollidingKey" + id;
+      }
+   }
 }
@@ -0,0 +1,141 @@
+package org.infinispan.util.concurrent;
+
+import org.infinispan.commons.equivalence.AnyEquivalence;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+import org.testng.annotations.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Trace driven simulator comparing the hit rates of the eviction policies of {@link BoundedConcurrentHashMap}.
+ * <p/>
+ * Recorded traces, one key per line, can be replayed by pointing the <tt>infinispan.test.eviction.traces</tt> system
+ * property at a comma separated list of files. Synthetic traces are always replayed, and used to check that TinyLFU
+ * does not fall behind LRU on skewed and scan-heavy access patterns.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "util.concurrent.EvictionPolicySimulatorTest")
+public class EvictionPolicySimulatorTest {
+
+   private static final Log log = LogFactory.getLog(EvictionPolicySimulatorTest.class);
+
+   private static final int CAPACITY = 1000;
+   private static final int KEY_SPACE = 20000;
+   private static final int TRACE_LENGTH = 200000;
+   private static final Eviction[] POLICIES = {Eviction.LRU, Eviction.LIRS, Eviction.TINYLFU};
+
+   public void testZipfTrace() {
+      Map<Eviction, Double> hitRates = simulate("zipf", zipfTrace(new Random(17), TRACE_LENGTH));
+      assertTrue(hitRates.toString(), hitRates.get(Eviction.TINYLFU) >= hitRates.get(Eviction.LRU));
+   }
+
+   public void testScanHeavyTrace() {
+      Random random = new Random(23);
+      int[] trace = zipfTrace(random, TRACE_LENGTH);
+      // every 5000 accesses, read 2000 keys which are never accessed again
+      int scanKey = KEY_SPACE;
+      for (int start = 0; start + 2000 < trace.length; start += 5000) {
+         for (int i = start; i < start + 2000; i++) {
+            trace[i] = scanKey++;
+         }
+      }
+      Map<Eviction, Double> hitRates = simulate("zipf+scan", trace);
+      assertTrue(hitRates.toString(), hitRates.get(Eviction.TINYLFU) > hitRates.get(Eviction.LRU));
+   }
+
+   public void testLoopTrace() {
+      // a loop slightly larger than the cache defeats LRU completely
+      int[] trace = new int[TRACE_LENGTH];
+      for (int i = 0; i < trace.length; i++) {
+         trace[i] = i % (CAPACITY + CAPACITY / 10);
+      }
+      Map<Eviction, Double> hitRates = simulate("loop", trace);
+      assertTrue(hitRates.toString(), hitRates.get(Eviction.TINYLFU) >= hitRates.get(Eviction.LRU));
+   }
+
+   public void testRecordedTraces() throws IOException {
+      String traces = System.getProperty("infinispan.test.eviction.traces");
+      if (traces == null) {
+         log.debug("No recorded traces configured, skipping");
+         return;
+      }
+      for (String fileName : traces.split(",")) {
+         File file = new File(fileName.trim());
+         simulate(file.getName(), readTrace(file));
+      }
+   }
+
+   private Map<Eviction, Double> simulate(String traceName, int[] trace) {
+      Map<Eviction, Double> hitRates = new EnumMap<Eviction, Double>(Eviction.class);
+      for (Eviction policy : POLICIES) {
+         hitRates.put(policy, replay(policy, trace));
+      }
+      log.infof("Hit rates for trace %s (%d accesses, capacity %d): %s", traceName, trace.length, CAPACITY, hitRates);
+      return hitRates;
+   }
+
+   private double replay(Eviction policy, int[] trace) {
+      BoundedConcurrentHashMap<Integer, Integer> map = new BoundedConcurrentHashMap<Integer, Integer>(
+            CAPACITY, 1, policy, AnyEquivalence.INT, AnyEquivalence.INT);
+      long hits = 0;
+      for (int key : trace) {
+         if (map.get(key) != null) {
+            hits++;
+         } else {
+            map.put(key, key);
+         }
+         assertTrue(map.size() <= CAPACITY);
+      }
+      return (double) hits / trace.length;
+   }
+
+   private static int[] zipfTrace(Random random, int length) {
+      double[] cdf = new double[KEY_SPACE];
+      double sum = 0;
+      for (int i = 0; i < KEY_SPACE; i++) {
+         sum += 1.0 / Math.pow(i + 1, 0.9);
+         cdf[i] = sum;
+      }
+      int[] trace = new int[length];
+      for (int i = 0; i < length; i++) {
+         int index = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+         trace[i] = index >= 0 ? index : Math.min(-index - 1, KEY_SPACE - 1);
+      }
+      return trace;
+   }
+
+   private static int[] readTrace(File file) throws IOException {
+      List<Integer> keys = new ArrayList<Integer>();
+      BufferedReader reader = new BufferedReader(new FileReader(file));
+      try {
+         String line;
+         while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty()) {
+               keys.add(line.hashCode());
+            }
+         }
+      } finally {
+         reader.close();
+      }
+      int[] trace = new int[keys.size()];
+      for (int i = 0; i < trace.length; i++) {
+         trace[i] = keys.get(i);
+      }
+      return trace;
+   }
+}
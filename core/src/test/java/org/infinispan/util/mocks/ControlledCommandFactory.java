@@ -23,6 +23,7 @@
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
+import org.infinispan.commands.remote.DeadlockProbeCommand;
 import org.infinispan.commands.remote.MultipleRpcCommand;
 import org.infinispan.commands.remote.SingleRpcCommand;
 import org.infinispan.commands.remote.recovery.CompleteTransactionCommand;
@@ -47,6 +48,7 @@
 import org.infinispan.statetransfer.StateRequestCommand;
 import org.infinispan.statetransfer.StateResponseCommand;
 import org.infinispan.test.TestingUtil;
+import org.infinispan.transaction.xa.DldGlobalTransaction;
 import org.infinispan.transaction.xa.GlobalTransaction;
 import org.infinispan.util.concurrent.ReclosableLatch;
 import org.infinispan.util.logging.Log;
@@ -373,4 +375,11 @@ public <K, C> EntryResponseCommand buildEntryResponseCommand(UUID identifier, Se
    public GetKeysInGroupCommand buildGetKeysInGroupCommand(Set<Flag> flags, String groupName) {
       return actual.buildGetKeysInGroupCommand(flags, groupName);
    }
+
+   @Override
+   public DeadlockProbeCommand buildDeadlockProbeCommand(DldGlobalTransaction initiator, DldGlobalTransaction victim,
+                                                         Address victimNode, DldGlobalTransaction target,
+                                                         Set<DldGlobalTransaction> visited, boolean abort) {
+      return actual.buildDeadlockProbeCommand(initiator, victim, victimNode, target, visited, abort);
+   }
 }
@@ -1,6 +1,7 @@
 package org.infinispan.stats.wrappers;
 
 import org.infinispan.commons.util.CollectionFactory;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.container.entries.CacheEntry;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.stats.CacheStatisticManager;
@@ -48,6 +49,11 @@ public boolean lockAndRecord(Object key, InvocationContext ctx, long timeoutMill
       return actual.lockAndRecord(key, ctx, timeoutMillis);
    }
 
+   @Override
+   public NotifyingFuture<Boolean> acquireLocksAsync(Collection<Object> keys, Object lockOwner, long timeoutMillis) {
+      return actual.acquireLocksAsync(keys, lockOwner, timeoutMillis);
+   }
+
    @Override
    public void unlock(Collection<Object> lockedKeys, Object lockOwner) {
       final long timestamp = timeService.time();
@@ -6,6 +6,8 @@
 import org.infinispan.commands.tx.CommitCommand;
 import org.infinispan.commands.tx.PrepareCommand;
 import org.infinispan.commands.tx.RollbackCommand;
+import org.infinispan.commons.util.concurrent.FutureListener;
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.commons.util.concurrent.NotifyingNotifiableFuture;
 import org.infinispan.remoting.RpcException;
 import org.infinispan.remoting.responses.Response;
@@ -29,6 +31,7 @@
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.infinispan.stats.container.ExtendedStatistic.*;
@@ -179,6 +182,22 @@ public Map<Address, Response> invokeRemotely(Collection<Address> recipients, Rep
       return responseMap;
    }
 
+   @Override
+   public NotifyingFuture<Map<Address, Response>> invokeRemotelyAsync(final Collection<Address> recipients,
+                                                                      final ReplicableCommand rpc,
+                                                                      final RpcOptions options) {
+      final long start = timeService.time();
+      NotifyingFuture<Map<Address, Response>> future = actual.invokeRemotelyAsync(recipients, rpc, options);
+      future.attachListener(new FutureListener<Map<Address, Response>>() {
+         @Override
+         public void futureDone(Future<Map<Address, Response>> future) {
+            updateStats(rpc, options.responseMode().isSynchronous(), timeService.timeDuration(start, NANOSECONDS),
+                        recipients);
+         }
+      });
+      return future;
+   }
+
    @Override
    public void invokeRemotelyInFuture(Collection<Address> recipients, ReplicableCommand rpc, RpcOptions options, NotifyingNotifiableFuture<Object> future) {
       long start = timeService.time();
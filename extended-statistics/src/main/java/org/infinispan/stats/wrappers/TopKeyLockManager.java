@@ -1,5 +1,6 @@
 package org.infinispan.stats.wrappers;
 
+import org.infinispan.commons.util.concurrent.NotifyingFuture;
 import org.infinispan.container.entries.CacheEntry;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.stats.topK.StreamSummaryContainer;
@@ -41,6 +42,11 @@ public boolean lockAndRecord(Object key, InvocationContext ctx, long timeoutMill
       }
    }
 
+   @Override
+   public NotifyingFuture<Boolean> acquireLocksAsync(Collection<Object> keys, Object lockOwner, long timeoutMillis) {
+      return current.acquireLocksAsync(keys, lockOwner, timeoutMillis);
+   }
+
    @Override
    public void unlock(Collection<Object> lockedKeys, Object lockOwner) {
       current.unlock(lockedKeys, lockOwner);
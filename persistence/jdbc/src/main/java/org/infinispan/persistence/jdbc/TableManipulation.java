@@ -224,6 +224,32 @@ public String getSelectIdRowSql() {
       return selectIdRowSql;
    }
 
+   /**
+    * @return a query selecting the ids of the rows whose id is one of <tt>count</tt> parameters. It is not cached, as
+    *         it depends on the number of ids.
+    */
+   public String getSelectIdRowsSql(int count) {
+      String param;
+      switch(getDialect()) {
+         case SYBASE:
+            param = "convert(" + config.idColumnType() + "," + "?)";
+            break;
+         case POSTGRES:
+            param = "cast(? as " + config.idColumnType() + ")";
+            break;
+         default:
+            param = "?";
+            break;
+      }
+      StringBuilder sql = new StringBuilder("SELECT ").append(config.idColumnName()).append(" FROM ").append(getTableName())
+            .append(" WHERE ").append(config.idColumnName()).append(" IN (");
+      for (int i = 0; i < count; i++) {
+         if (i > 0) sql.append(", ");
+         sql.append(param);
+      }
+      return sql.append(')').toString();
+   }
+
    public String getCountRowsSql() {
       if (countRowsSql == null) {
          countRowsSql = "SELECT COUNT(*) FROM " + getTableName();
@@ -8,6 +8,11 @@
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
@@ -31,6 +36,7 @@
 import org.infinispan.persistence.keymappers.TwoWayKey2StringMapper;
 import org.infinispan.persistence.keymappers.UnsupportedKeyTypeException;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.BatchCacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.util.KeyValuePair;
@@ -71,7 +77,7 @@
  * @see org.infinispan.persistence.keymappers.DefaultTwoWayKey2StringMapper
  */
 @ConfiguredBy(JdbcStringBasedStoreConfiguration.class)
-public class JdbcStringBasedStore implements AdvancedLoadWriteStore {
+public class JdbcStringBasedStore implements AdvancedLoadWriteStore, BatchCacheWriter {
 
    private static final Log log = LogFactory.getLog(JdbcStringBasedStore.class, Log.class);
 
@@ -186,6 +192,124 @@ public void write(MarshalledEntry entry) {
       }
    }
 
+   /**
+    * Upserts the entries with JDBC batches of {@link TableManipulation#getBatchSize()} rows: a batch updating the
+    * existing rows, then a batch inserting the rows the first one did not find.
+    */
+   @Override
+   public void writeBatch(Iterable entries) {
+      List<MarshalledEntry> batch = new ArrayList<MarshalledEntry>(tableManipulation.getBatchSize());
+      Connection connection = null;
+      try {
+         connection = connectionFactory.getConnection();
+         for (Object entry : entries) {
+            batch.add((MarshalledEntry) entry);
+            if (batch.size() == tableManipulation.getBatchSize()) {
+               upsertBatch(connection, batch);
+               batch.clear();
+            }
+         }
+         if (!batch.isEmpty()) {
+            upsertBatch(connection, batch);
+         }
+      } catch (SQLException ex) {
+         log.sqlFailureStoringKeys(ex);
+         throw new PersistenceException("Error while storing string keys to database", ex);
+      } catch (InterruptedException e) {
+         if (log.isTraceEnabled()) {
+            log.trace("Interrupted while marshalling to store");
+         }
+         Thread.currentThread().interrupt();
+      } finally {
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
+   private void upsertBatch(Connection connection, List<MarshalledEntry> batch) throws SQLException, InterruptedException {
+      String[] keyStrs = new String[batch.size()];
+      for (int i = 0; i < keyStrs.length; i++) {
+         keyStrs[i] = key2Str(batch.get(i).getKey());
+      }
+      List<Integer> missing = new ArrayList<Integer>();
+      List<Integer> unknown = new ArrayList<Integer>();
+      PreparedStatement ps = null;
+      try {
+         String sql = tableManipulation.getUpdateRowSql();
+         if (log.isTraceEnabled()) {
+            log.tracef("Running sql '%s' on %d keys", sql, keyStrs.length);
+         }
+         ps = connection.prepareStatement(sql);
+         for (int i = 0; i < keyStrs.length; i++) {
+            updateStatement(batch.get(i), keyStrs[i], ps);
+            ps.addBatch();
+         }
+         int[] updateCounts = ps.executeBatch();
+         for (int i = 0; i < keyStrs.length; i++) {
+            if (updateCounts[i] == 0) {
+               missing.add(i);
+            } else if (updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+               // some drivers don't report the number of rows updated by each statement of a batch
+               unknown.add(i);
+            }
+         }
+      } finally {
+         JdbcUtil.safeClose(ps);
+      }
+      if (!unknown.isEmpty()) {
+         Set<String> existing = selectExistingRows(connection, keyStrs, unknown);
+         for (int i : unknown) {
+            if (!existing.contains(keyStrs[i])) {
+               missing.add(i);
+            }
+         }
+      }
+      if (missing.isEmpty()) {
+         return;
+      }
+      ps = null;
+      try {
+         String sql = tableManipulation.getInsertRowSql();
+         if (log.isTraceEnabled()) {
+            log.tracef("Running sql '%s' on %d keys", sql, missing.size());
+         }
+         ps = connection.prepareStatement(sql);
+         for (int i : missing) {
+            updateStatement(batch.get(i), keyStrs[i], ps);
+            ps.addBatch();
+         }
+         ps.executeBatch();
+      } finally {
+         JdbcUtil.safeClose(ps);
+      }
+   }
+
+   /**
+    * Finds out which of the rows at the given indexes of <tt>keyStrs</tt> exist, with a single query.
+    */
+   private Set<String> selectExistingRows(Connection connection, String[] keyStrs, List<Integer> indexes) throws SQLException {
+      PreparedStatement ps = null;
+      ResultSet rs = null;
+      try {
+         String sql = tableManipulation.getSelectIdRowsSql(indexes.size());
+         if (log.isTraceEnabled()) {
+            log.tracef("Running sql '%s' on %d keys", sql, indexes.size());
+         }
+         ps = connection.prepareStatement(sql);
+         for (int i = 0; i < indexes.size(); i++) {
+            ps.setString(i + 1, keyStrs[indexes.get(i)]);
+         }
+         rs = ps.executeQuery();
+         Set<String> existing = new HashSet<String>(indexes.size() * 2);
+         while (rs.next()) {
+            existing.add(rs.getString(1));
+         }
+         return existing;
+      } finally {
+         JdbcUtil.safeClose(rs);
+         JdbcUtil.safeClose(ps);
+      }
+   }
+
    @Override
    public MarshalledEntry load(Object key) {
       String lockingKey = key2Str(key);
@@ -244,6 +368,41 @@ public boolean delete(Object key) {
       }
    }
 
+   @Override
+   public void deleteBatch(Iterable keys) {
+      Connection connection = null;
+      PreparedStatement ps = null;
+      try {
+         String sql = tableManipulation.getDeleteRowSql();
+         connection = connectionFactory.getConnection();
+         ps = connection.prepareStatement(sql);
+         int batchSize = 0;
+         for (Object key : keys) {
+            ps.setString(1, key2Str(key));
+            ps.addBatch();
+            if (++batchSize == tableManipulation.getBatchSize()) {
+               if (log.isTraceEnabled()) {
+                  log.tracef("Running sql '%s' on %d keys", sql, batchSize);
+               }
+               ps.executeBatch();
+               batchSize = 0;
+            }
+         }
+         if (batchSize > 0) {
+            if (log.isTraceEnabled()) {
+               log.tracef("Running sql '%s' on %d keys", sql, batchSize);
+            }
+            ps.executeBatch();
+         }
+      } catch (SQLException ex) {
+         log.sqlFailureRemovingKeys(ex);
+         throw new PersistenceException("Error while removing string keys from database", ex);
+      } finally {
+         JdbcUtil.safeClose(ps);
+         connectionFactory.releaseConnection(connection);
+      }
+   }
+
    @Override
    public void clear() throws PersistenceException {
       Connection conn = null;
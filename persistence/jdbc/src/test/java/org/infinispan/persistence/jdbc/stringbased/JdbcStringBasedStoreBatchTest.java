@@ -0,0 +1,159 @@
+package org.infinispan.persistence.jdbc.stringbased;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.marshall.core.MarshalledEntry;
+import org.infinispan.persistence.PersistenceUtil;
+import org.infinispan.persistence.jdbc.configuration.ConnectionFactoryConfiguration;
+import org.infinispan.persistence.jdbc.configuration.JdbcStringBasedStoreConfigurationBuilder;
+import org.infinispan.persistence.jdbc.connectionfactory.ConnectionFactory;
+import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.test.fwk.UnitTestDatabaseManager;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Runs the {@link JdbcStringBasedStore} tests with JDBC batches of 3 statements and a driver which answers
+ * {@link Statement#SUCCESS_NO_INFO} for every statement of a batch, so that batch writes have to look up which rows
+ * exist before inserting the others.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "persistence.jdbc.stringbased.JdbcStringBasedStoreBatchTest")
+public class JdbcStringBasedStoreBatchTest extends JdbcStringBasedStoreTest {
+
+   private static final int BATCH_SIZE = 3;
+
+   private final List<Integer> executedBatchSizes = new ArrayList<Integer>();
+
+   @Override
+   protected AdvancedLoadWriteStore createStore() throws Exception {
+      ConfigurationBuilder builder = TestCacheManagerFactory.getDefaultCacheConfiguration(false);
+      JdbcStringBasedStoreConfigurationBuilder storeBuilder = builder
+            .persistence()
+               .addStore(JdbcStringBasedStoreConfigurationBuilder.class);
+      UnitTestDatabaseManager.configureUniqueConnectionFactory(storeBuilder);
+      UnitTestDatabaseManager.buildTableManipulation(storeBuilder.table(), false);
+      storeBuilder.table().batchSize(BATCH_SIZE);
+      JdbcStringBasedStore stringBasedCacheStore = new JdbcStringBasedStore() {
+         @Override
+         public void initializeConnectionFactory(ConnectionFactory connectionFactory) throws PersistenceException {
+            super.initializeConnectionFactory(new NoBatchInfoConnectionFactory(connectionFactory));
+         }
+      };
+      stringBasedCacheStore.init(createContext(builder.build()));
+      return stringBasedCacheStore;
+   }
+
+   public void testWriteBatchIsChunked() throws PersistenceException {
+      for (int i = 0; i < 4; i++) {
+         cl.write(marshalledEntry("k" + i, "v" + i, null));
+      }
+      List<MarshalledEntry<?, ?>> batch = new ArrayList<MarshalledEntry<?, ?>>();
+      for (int i = 0; i < 7; i++) {
+         batch.add(marshalledEntry("k" + i, "v" + i + "-new", null));
+      }
+      executedBatchSizes.clear();
+      PersistenceUtil.writeBatch(cl, batch);
+
+      // each chunk updates its rows, then inserts the ones which were not found: k4 and k5, then k6
+      assertEquals(Arrays.asList(3, 3, 2, 1, 1), executedBatchSizes);
+      assertEquals(7, cl.size());
+      for (int i = 0; i < 7; i++) {
+         assertEquals("v" + i + "-new", cl.load("k" + i).getValue());
+      }
+   }
+
+   public void testDeleteBatchIsChunked() throws PersistenceException {
+      for (int i = 0; i < 5; i++) {
+         cl.write(marshalledEntry("k" + i, "v" + i, null));
+      }
+      executedBatchSizes.clear();
+      PersistenceUtil.deleteBatch(cl, Arrays.<Object>asList("k0", "k1", "k2", "k3", "missing"));
+
+      assertEquals(Arrays.asList(3, 2), executedBatchSizes);
+      assertEquals(1, cl.size());
+      assertTrue(cl.contains("k4"));
+   }
+
+   /**
+    * Hands out connections whose prepared statements don't report the number of rows updated by a batch, and records
+    * the size of each batch.
+    */
+   private class NoBatchInfoConnectionFactory extends ConnectionFactory {
+      private final ConnectionFactory delegate;
+
+      NoBatchInfoConnectionFactory(ConnectionFactory delegate) {
+         this.delegate = delegate;
+      }
+
+      @Override
+      public void start(ConnectionFactoryConfiguration factoryConfiguration, ClassLoader classLoader) throws PersistenceException {
+         delegate.start(factoryConfiguration, classLoader);
+      }
+
+      @Override
+      public void stop() {
+         delegate.stop();
+      }
+
+      @Override
+      public Connection getConnection() throws PersistenceException {
+         return proxy(Connection.class, delegate.getConnection());
+      }
+
+      @Override
+      public void releaseConnection(Connection conn) {
+         delegate.releaseConnection(conn == null ? null : ((Handler) Proxy.getInvocationHandler(conn)).target);
+      }
+
+      private <T> T proxy(Class<T> type, Object target) {
+         return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{type}, new Handler(target)));
+      }
+
+      private class Handler implements InvocationHandler {
+         final Object target;
+         int batchSize;
+
+         Handler(Object target) {
+            this.target = target;
+         }
+
+         @Override
+         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+               result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+               throw e.getCause();
+            }
+            String name = method.getName();
+            if (name.equals("prepareStatement")) {
+               return proxy(PreparedStatement.class, result);
+            } else if (name.equals("addBatch")) {
+               batchSize++;
+            } else if (name.equals("executeBatch")) {
+               executedBatchSizes.add(batchSize);
+               batchSize = 0;
+               int[] updateCounts = (int[]) result;
+               Arrays.fill(updateCounts, Statement.SUCCESS_NO_INFO);
+            }
+            return result;
+         }
+      }
+   }
+}
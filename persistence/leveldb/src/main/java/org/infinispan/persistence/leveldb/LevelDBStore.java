@@ -25,6 +25,7 @@
 import org.infinispan.persistence.leveldb.configuration.LevelDBStoreConfiguration;
 import org.infinispan.persistence.leveldb.logging.Log;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.BatchCacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.util.logging.LogFactory;
@@ -34,9 +35,10 @@
 import org.iq80.leveldb.DBIterator;
 import org.iq80.leveldb.Options;
 import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.WriteBatch;
 
 @ConfiguredBy(LevelDBStoreConfiguration.class)
-public class LevelDBStore implements AdvancedLoadWriteStore {
+public class LevelDBStore implements AdvancedLoadWriteStore, BatchCacheWriter {
    private static final Log log = LogFactory.getLog(LevelDBStore.class, Log.class);
 
    private static final String JNI_DB_FACTORY_CLASS_NAME = "org.fusesource.leveldbjni.JniDBFactory";
@@ -403,6 +405,75 @@ public void write(MarshalledEntry me)  {
       }
    }
 
+   @Override
+   public void writeBatch(Iterable entries) {
+      try {
+         List<MarshalledEntry> written = new ArrayList<MarshalledEntry>();
+         List<byte[]> marshalledKeys = new ArrayList<byte[]>();
+         List<byte[]> marshalledEntries = new ArrayList<byte[]>();
+         for (Object entry : entries) {
+            MarshalledEntry me = (MarshalledEntry) entry;
+            written.add(me);
+            marshalledKeys.add(marshall(me.getKey()));
+            marshalledEntries.add(marshall(me));
+         }
+         semaphore.acquire();
+         try {
+            if (stopped) {
+               throw new PersistenceException("LevelDB is stopped");
+            }
+            WriteBatch batch = db.createWriteBatch();
+            try {
+               for (int i = 0; i < marshalledKeys.size(); i++) {
+                  batch.put(marshalledKeys.get(i), marshalledEntries.get(i));
+               }
+               db.write(batch);
+            } finally {
+               batch.close();
+            }
+         } finally {
+            semaphore.release();
+         }
+         for (MarshalledEntry me : written) {
+            InternalMetadata meta = me.getMetadata();
+            if (meta != null && meta.expiryTime() > -1) {
+               addNewExpiry(me);
+            }
+         }
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   @Override
+   public void deleteBatch(Iterable keys) {
+      try {
+         List<byte[]> marshalledKeys = new ArrayList<byte[]>();
+         for (Object key : keys) {
+            marshalledKeys.add(marshall(key));
+         }
+         semaphore.acquire();
+         try {
+            if (stopped) {
+               throw new PersistenceException("LevelDB is stopped");
+            }
+            WriteBatch batch = db.createWriteBatch();
+            try {
+               for (byte[] keyBytes : marshalledKeys) {
+                  batch.delete(keyBytes);
+               }
+               db.write(batch);
+            } finally {
+               batch.close();
+            }
+         } finally {
+            semaphore.release();
+         }
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
    @Override
    public MarshalledEntry load(Object key)  {
       try {
@@ -25,6 +25,7 @@
 import org.infinispan.persistence.remote.logging.Log;
 import org.infinispan.persistence.remote.wrapper.HotRodEntryMarshaller;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.BatchCacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.metadata.EmbeddedMetadata;
@@ -33,7 +34,11 @@
 import org.infinispan.metadata.impl.InternalMetadataImpl;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -53,7 +58,7 @@
  */
 @ThreadSafe
 @ConfiguredBy(RemoteStoreConfiguration.class)
-public class RemoteStore implements AdvancedLoadWriteStore {
+public class RemoteStore implements AdvancedLoadWriteStore, BatchCacheWriter {
 
    private static final Log log = LogFactory.getLog(RemoteStore.class, Log.class);
 
@@ -169,6 +174,50 @@ public void write(MarshalledEntry entry) throws PersistenceException {
       remoteCache.put(entry.getKey(), configuration.rawValues() ? entry.getValue() : entry, toSeconds(lifespan, entry.getKey(), LIFESPAN), TimeUnit.SECONDS, toSeconds(maxIdle, entry.getKey(), MAXIDLE), TimeUnit.SECONDS);
    }
 
+   /**
+    * Hot Rod has no operation writing many entries at once, so the puts are sent concurrently, through the connection
+    * pool, instead of waiting for each response before sending the next put.
+    */
+   @Override
+   public void writeBatch(Iterable entries) {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (Object o : entries) {
+         MarshalledEntry entry = (MarshalledEntry) o;
+         if (log.isTraceEnabled()) {
+            log.tracef("Adding entry: %s", entry);
+         }
+         InternalMetadata metadata = entry.getMetadata();
+         long lifespan = metadata != null ? metadata.lifespan() : -1;
+         long maxIdle = metadata != null ? metadata.maxIdle() : -1;
+         futures.add(remoteCache.putAsync(entry.getKey(), configuration.rawValues() ? entry.getValue() : entry,
+                                          toSeconds(lifespan, entry.getKey(), LIFESPAN), TimeUnit.SECONDS,
+                                          toSeconds(maxIdle, entry.getKey(), MAXIDLE), TimeUnit.SECONDS));
+      }
+      waitForAll(futures);
+   }
+
+   @Override
+   public void deleteBatch(Iterable keys) {
+      List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (Object key : keys) {
+         futures.add(remoteCache.removeAsync(key));
+      }
+      waitForAll(futures);
+   }
+
+   private void waitForAll(List<Future<?>> futures) {
+      try {
+         for (Future<?> future : futures) {
+            future.get();
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new PersistenceException(e);
+      } catch (ExecutionException e) {
+         throw new PersistenceException(e.getCause());
+      }
+   }
+
    @Override
    public void clear() throws PersistenceException {
       remoteCache.clear();
@@ -29,6 +29,7 @@ class Compactor extends Thread {
    private final BlockingQueue<Integer> scheduledCompaction = new LinkedBlockingQueue<Integer>();
    private final BlockingQueue<IndexRequest> indexQueue;
    private final FileProvider fileProvider;
+   private final SegmentDirectory segmentDirectory;
    private final TemporaryTable temporaryTable;
    private final Marshaller marshaller;
    private final TimeService timeService;
@@ -44,11 +45,13 @@ class Compactor extends Thread {
 
 
    public Compactor(FileProvider fileProvider,
+                    SegmentDirectory segmentDirectory,
                     TemporaryTable temporaryTable,
                     BlockingQueue<IndexRequest> indexQueue,
                     Marshaller marshaller, TimeService timeService, int maxFileSize, double compactionThreshold) {
       super("BCS-Compactor");
       this.fileProvider = fileProvider;
+      this.segmentDirectory = segmentDirectory;
       this.temporaryTable = temporaryTable;
       this.indexQueue = indexQueue;
       this.marshaller = marshaller;
@@ -62,8 +65,12 @@ public void setIndex(Index index) {
       this.index = index;
    }
 
-   public void releaseStats(int file) {
+   /**
+    * Forgets the file after it was deleted.
+    */
+   public void releaseFile(int file) {
       fileStats.remove(file);
+      segmentDirectory.removeFile(file);
    }
 
    public void free(int file, int size) {
@@ -228,6 +235,9 @@ public void run() {
 
                   EntryRecord.writeEntry(logFile.fileChannel, serializedKey, serializedMetadata, serializedValue, header.seqId(), header.expiryTime());
                   temporaryTable.setConditionally(key, logFile.fileId, entryOffset, scheduledFile, scheduledOffset);
+                  if (entryOffset >= 0) {
+                     segmentDirectory.add(logFile.fileId, key, entryOffset);
+                  }
                   if (trace) {
                      log.tracef("Update %d:%d -> %d:%d | %d,%d", scheduledFile, scheduledOffset, logFile.fileId, entryOffset, logFile.fileChannel.position(), logFile.fileChannel.size());
                   }
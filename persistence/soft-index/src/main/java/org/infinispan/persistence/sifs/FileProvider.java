@@ -157,6 +157,14 @@ protected FileChannel openChannel(int fileId) throws FileNotFoundException {
       return new RandomAccessFile(new File(dataDir, String.valueOf(fileId)), "r").getChannel();
    }
 
+   /**
+    * Opens another channel for writing to a log returned by {@link #getFileForLog()}, when its channel has been
+    * closed by an interrupt.
+    */
+   public FileChannel reopenLog(int fileId) throws FileNotFoundException {
+      return new RandomAccessFile(new File(dataDir, String.valueOf(fileId)), "rw").getChannel();
+   }
+
    public Log getFileForLog() throws IOException {
       lock.writeLock().lock();
       try {
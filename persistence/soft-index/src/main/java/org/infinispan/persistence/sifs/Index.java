@@ -162,7 +162,7 @@ public void run() {
                      // the last segment that processes the delete request actually deletes the file
                      if (request.countDown()) {
                         fileProvider.deleteFile(request.getFile());
-                        compactor.releaseStats(request.getFile());
+                        compactor.releaseFile(request.getFile());
                      }
                      continue;
                   case STOP:
@@ -1,123 +1,394 @@
 package org.infinispan.persistence.sifs;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
-import org.infinispan.commons.io.ByteBuffer;
+import org.infinispan.commons.equivalence.Equivalence;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 /**
- * This component has the only thread that polls the queue with requests to write some entry into the cache store.
- * It writes the records to append-only log files, inserts the entry position into TemporaryTable and queues the position
- * to be persisted in Index.
+ * Appends the records to append-only log files. The threads storing the entries serialize the records themselves and
+ * reserve space for them in the current log file by atomically moving its end, so that they write to the file
+ * concurrently. Then they insert the entry position into TemporaryTable and queue the position to be persisted in
+ * Index.
+ * <p/>
+ * The appender thread only starts a new file when the current one is full, holds the writers off when the store is
+ * paused and forces the records to the disk when the writes must be synchronous: all the writers waiting for the
+ * disk are released by a single force.
+ * <p/>
+ * The records are published in the order of their positions in the file - a writer completes only after all the
+ * records in front of its own were written - so that a record which has been stored is never behind a hole when the
+ * file is read after a crash. For the same reason a record which fails to be written fails the appender, and none of
+ * the records behind it completes. The writers of the same key are serialized by striped locks, therefore the sequence
+ * ids, TemporaryTable and Index see the modifications of a key in the same order.
  *
  * @author Radim Vansa &lt;rvansa@redhat.com&gt;
  */
 public class LogAppender extends Thread {
    private static final Log log = LogFactory.getLog(LogAppender.class);
+   private static final int KEY_LOCKS = 256;
+   private static final int SEALED = -1;
 
-   private final SyncProcessingQueue<LogRequest> queue;
    private final BlockingQueue<IndexRequest> indexQueue;
    private final boolean syncWrites;
    private final TemporaryTable temporaryTable;
    private final int maxFileSize;
    private final Compactor compactor;
    private final FileProvider fileProvider;
-   private LogRequest pausedRequest;
-   private long seqId = 0;
+   private final SegmentDirectory segmentDirectory;
+   private final Equivalence<Object> keyEquivalence;
+   private final ReentrantLock[] keyLocks = new ReentrantLock[KEY_LOCKS];
+   private final AtomicLong seqId = new AtomicLong();
 
-   LogAppender(SyncProcessingQueue<LogRequest> inboundQueue,
-               BlockingQueue<IndexRequest> indexQueue,
+   // changed only by the appender thread, while holding the monitor
+   private volatile LogFile current;
+   // the rest is guarded by the monitor; the positions count all the bytes appended since the start
+   private LogFile fullFile;
+   private long syncRequested;
+   private long synced;
+   private boolean pauseRequested;
+   private boolean clearRequested;
+   private boolean paused;
+   private boolean stopRequested;
+   private boolean stopped;
+   // also read without the monitor by the writers, once they have published their space
+   private volatile boolean error;
+
+   LogAppender(BlockingQueue<IndexRequest> indexQueue,
                TemporaryTable temporaryTable,
                Compactor compactor,
-               FileProvider fileProvider, boolean syncWrites, int maxFileSize) {
+               FileProvider fileProvider, SegmentDirectory segmentDirectory, Equivalence<Object> keyEquivalence,
+               boolean syncWrites, int maxFileSize) throws IOException {
       super("BCS-LogAppender");
       this.setDaemon(true);
-      this.queue = inboundQueue;
       this.indexQueue = indexQueue;
       this.temporaryTable = temporaryTable;
       this.compactor = compactor;
       this.fileProvider = fileProvider;
+      this.segmentDirectory = segmentDirectory;
+      this.keyEquivalence = keyEquivalence;
       this.syncWrites = syncWrites;
       this.maxFileSize = maxFileSize;
+      for (int i = 0; i < KEY_LOCKS; i++) {
+         keyLocks[i] = new ReentrantLock();
+      }
+      current = new LogFile(fileProvider.getFileForLog(), 0);
+      log.debug("Appending records to " + current.log.fileId);
       start();
    }
 
    public void setSeqId(long seqId) {
-      this.seqId = seqId;
+      this.seqId.set(seqId);
    }
 
    public void pause() throws InterruptedException {
-      LogRequest pause = LogRequest.pauseRequest();
-      queue.pushAndWait(pause);
-      pausedRequest = pause;
+      requestPause(false);
    }
 
    public void clearAndPause() throws InterruptedException {
-      LogRequest clear = LogRequest.clearRequest();
-      queue.pushAndWait(clear);
-      pausedRequest = clear;
+      requestPause(true);
    }
 
-   public void resumeAfterPause() {
-      pausedRequest.resume();
-      pausedRequest = null;
+   private synchronized void requestPause(boolean clear) throws InterruptedException {
+      pauseRequested = true;
+      clearRequested = clear;
+      notifyAll();
+      while (!paused) {
+         checkRunning();
+         wait();
+      }
    }
 
-   @Override
-   public void run() {
+   public synchronized void resumeAfterPause() {
+      pauseRequested = false;
+      notifyAll();
+   }
+
+   public void append(LogRequest request) throws IOException, InterruptedException {
+      append(Collections.singletonList(request));
+   }
+
+   /**
+    * Appends the records one after another, as a single group, in the calling thread.
+    */
+   public void append(List<LogRequest> requests) throws IOException, InterruptedException {
+      if (error) {
+         throw new IllegalStateException("Exception in log appender");
+      }
+      int length = 0;
+      for (LogRequest request : requests) {
+         length += request.length();
+      }
+      long end;
+      ReentrantLock[] locks = lockKeys(requests);
       try {
-         FileProvider.Log logFile = fileProvider.getFileForLog();
-         int currentOffset = 0;
-         while (true) {
-            LogRequest request = queue.pop();
-            if (request != null) {
-               if (request.isClear()) {
-                  logFile.close();
-                  queue.notifyNoWait();
-                  request.pause();
-                  currentOffset = 0;
-                  logFile = fileProvider.getFileForLog();
-                  log.debug("Appending records to " + logFile.fileId);
-                  continue;
-               } else if (request.isStop()) {
-                  queue.notifyNoWait();
-                  break;
-               } else if (request.isPause()) {
-                  queue.notifyNoWait();
-                  request.pause();
-                  continue;
+         ByteBuffer buffer = ByteBuffer.allocate(length);
+         for (LogRequest request : requests) {
+            EntryRecord.writeEntry(buffer, request.getSerializedKey(), request.getSerializedMetadata(),
+                  request.getSerializedValue(), seqId.getAndIncrement(), request.getExpiration());
+         }
+         buffer.flip();
+
+         LogFile file;
+         int offset;
+         for (;;) {
+            file = current;
+            offset = file.reserve(length);
+            if (offset >= 0) break;
+            awaitAppendable(file, length);
+         }
+         try {
+            boolean written = false;
+            try {
+               file.write(buffer, offset);
+               written = true;
+            } finally {
+               if (!written) {
+                  // the records behind the hole would be lost when the log is scanned, so none of them may complete
+                  fail();
                }
-               if (currentOffset + request.length() > maxFileSize) {
-                  // switch to next file
-                  logFile.close();
-                  compactor.completeFile(logFile.fileId);
-                  currentOffset = 0;
-                  logFile = fileProvider.getFileForLog();
-                  log.debug("Appending records to " + logFile.fileId);
+               file.publish(offset, offset + length);
+            }
+            if (error) {
+               throw new IOException("Cannot append behind a record which failed to be written");
+            }
+            end = file.position + offset + length;
+
+            for (LogRequest request : requests) {
+               int recordOffset = request.getSerializedValue() == null ? ~offset : offset;
+               temporaryTable.set(request.getKey(), file.log.fileId, recordOffset);
+               if (recordOffset >= 0) {
+                  segmentDirectory.add(file.log.fileId, request.getKey(), recordOffset);
                }
-               EntryRecord.writeEntry(logFile.fileChannel, request.getSerializedKey(), request.getSerializedMetadata(), request.getSerializedValue(), nextSeqId(), request.getExpiration());
-               int offset = request.getSerializedValue() == null ? ~currentOffset : currentOffset;
-               temporaryTable.set(request.getKey(), logFile.fileId, offset);
                IndexRequest indexRequest = new IndexRequest(request.getKey(), raw(request.getSerializedKey()),
-                     logFile.fileId, offset, request.length());
+                     file.log.fileId, recordOffset, request.length());
                request.setIndexRequest(indexRequest);
-               indexQueue.put(indexRequest);
-               currentOffset += request.length();
-            } else {
-               if (syncWrites) {
-                  logFile.fileChannel.force(false);
+               putUninterruptibly(indexRequest);
+               offset += request.length();
+            }
+         } finally {
+            // a clear waits for the writers, so it must not miss the positions they are about to record
+            file.releaseWriter();
+         }
+      } finally {
+         for (ReentrantLock lock : locks) {
+            lock.unlock();
+         }
+      }
+      if (syncWrites) {
+         awaitSync(end);
+      }
+   }
+
+   /**
+    * The record has been written already, so an interrupt of the writer must not keep it out of the index.
+    */
+   private void putUninterruptibly(IndexRequest indexRequest) {
+      boolean interrupted = false;
+      for (;;) {
+         try {
+            indexQueue.put(indexRequest);
+            break;
+         } catch (InterruptedException e) {
+            interrupted = true;
+         }
+      }
+      if (interrupted) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private ReentrantLock[] lockKeys(List<LogRequest> requests) {
+      // always lock in the same order to prevent deadlocks between batches
+      int[] indices = new int[requests.size()];
+      for (int i = 0; i < indices.length; i++) {
+         int h = keyEquivalence.hashCode(requests.get(i).getKey());
+         indices[i] = (h ^ (h >>> 16)) & (KEY_LOCKS - 1);
+      }
+      Arrays.sort(indices);
+      int unique = 0;
+      for (int i = 0; i < indices.length; i++) {
+         if (i == 0 || indices[i] != indices[i - 1]) {
+            indices[unique++] = indices[i];
+         }
+      }
+      ReentrantLock[] locks = new ReentrantLock[unique];
+      for (int i = 0; i < unique; i++) {
+         locks[i] = keyLocks[indices[i]];
+         locks[i].lock();
+      }
+      return locks;
+   }
+
+   /**
+    * Waits until the record could be appended to the current file, or to a new one.
+    */
+   private synchronized void awaitAppendable(LogFile file, int length) throws InterruptedException {
+      for (;;) {
+         checkRunning();
+         if (pauseRequested || paused) {
+            wait();
+         } else if (current != file) {
+            return;
+         } else if (file.isSealed()) {
+            // the file is being closed or reopened after a pause
+            wait();
+         } else if (file.fits(length)) {
+            return;
+         } else {
+            if (fullFile != file) {
+               fullFile = file;
+               notifyAll();
+            }
+            wait();
+         }
+      }
+   }
+
+   private synchronized void awaitSync(long position) throws InterruptedException {
+      if (position > syncRequested) {
+         syncRequested = position;
+         notifyAll();
+      }
+      while (synced < position) {
+         checkRunning();
+         wait();
+      }
+   }
+
+   private synchronized void fail() {
+      error = true;
+      notifyAll();
+   }
+
+   private void checkRunning() {
+      if (error) {
+         throw new IllegalStateException("Exception in log appender");
+      } else if (stopped) {
+         throw new IllegalStateException("Log appender was stopped");
+      }
+   }
+
+   @Override
+   public void run() {
+      try {
+         for (;;) {
+            boolean rollover, pause, stop;
+            synchronized (this) {
+               while (fullFile != current && syncRequested <= synced && !pauseRequested && !stopRequested) {
+                  wait();
+               }
+               rollover = fullFile == current;
+               pause = pauseRequested;
+               stop = stopRequested;
+            }
+            if (rollover) {
+               LogFile file = current;
+               retire(file);
+               compactor.completeFile(file.log.fileId);
+               startNextFile(file);
+            }
+            if (isSyncRequested()) {
+               sync(current);
+            }
+            if (pause) {
+               pause(current);
+            }
+            if (stop) {
+               retire(current);
+               synchronized (this) {
+                  stopped = true;
+                  notifyAll();
                }
-               queue.notifyAndWait();
+               break;
             }
          }
       } catch (Exception e) {
-         queue.notifyError();
+         fail();
          throw new RuntimeException(e);
       }
    }
 
-   private byte[] raw(ByteBuffer buffer) {
+   private void pause(LogFile file) throws IOException, InterruptedException {
+      boolean clear;
+      synchronized (this) {
+         clear = clearRequested;
+      }
+      if (clear) {
+         retire(file);
+      } else {
+         file.seal();
+         file.awaitWriters();
+         if (isSyncRequested()) {
+            sync(file);
+         }
+      }
+      synchronized (this) {
+         paused = true;
+         notifyAll();
+         while (pauseRequested) {
+            wait();
+         }
+         paused = false;
+      }
+      if (clear) {
+         startNextFile(file);
+      } else {
+         synchronized (this) {
+            file.unseal();
+            notifyAll();
+         }
+      }
+   }
+
+   /**
+    * Stops appending to the file and closes it once all its writers are done.
+    */
+   private void retire(LogFile file) throws IOException, InterruptedException {
+      file.seal();
+      file.awaitWriters();
+      if (syncWrites) {
+         sync(file);
+      }
+      file.close();
+   }
+
+   private void startNextFile(LogFile previous) throws IOException {
+      LogFile file = new LogFile(fileProvider.getFileForLog(), previous.position + previous.sealedEnd);
+      log.debug("Appending records to " + file.log.fileId);
+      synchronized (this) {
+         current = file;
+         notifyAll();
+      }
+   }
+
+   private void sync(LogFile file) throws IOException {
+      // everything in front of the published position has been written
+      long position = file.position + file.published.get();
+      file.force();
+      synchronized (this) {
+         if (position > synced) {
+            synced = position;
+         }
+         notifyAll();
+      }
+   }
+
+   private synchronized boolean isSyncRequested() {
+      return syncRequested > synced;
+   }
+
+   private byte[] raw(org.infinispan.commons.io.ByteBuffer buffer) {
       if (buffer.getBuf().length == buffer.getLength()) {
          return buffer.getBuf();
       } else {
@@ -127,12 +398,172 @@ private byte[] raw(ByteBuffer buffer) {
       }
    }
 
-   private final long nextSeqId() {
-      return seqId++;
-   }
-
    public void stopOperations() throws InterruptedException {
-      queue.pushAndWait(LogRequest.stopRequest());
+      synchronized (this) {
+         stopRequested = true;
+         notifyAll();
+      }
       this.join();
    }
+
+   /**
+    * The log file currently appended to, with the state shared by its writers.
+    */
+   private class LogFile {
+      final FileProvider.Log log;
+      // position of the start of the file among all the bytes appended
+      final long position;
+      // end of the reserved space, or SEALED when no more space may be reserved
+      final AtomicInteger end = new AtomicInteger();
+      // end of the space written without holes
+      final AtomicInteger published = new AtomicInteger();
+      final AtomicInteger writers = new AtomicInteger();
+      final AtomicInteger publishWaiters = new AtomicInteger();
+      // end of the reserved space when the file was sealed, accessed only by the appender thread
+      int sealedEnd;
+      // the channel of the log, or the one reopened after it was closed by an interrupt
+      volatile FileChannel channel;
+
+      LogFile(FileProvider.Log log, long position) {
+         this.log = log;
+         this.position = position;
+         this.channel = log.fileChannel;
+      }
+
+      /**
+       * Writes the buffer at the offset. A thread interrupted while writing to a FileChannel closes it, so an
+       * interrupt of the caller is delayed until the write is done, and a write failing because another writer closed
+       * the channel is retried on a new channel: the file is never closed while it has writers.
+       */
+      void write(ByteBuffer buffer, int offset) throws IOException {
+         boolean interrupted = Thread.interrupted();
+         int start = buffer.position();
+         try {
+            for (;;) {
+               FileChannel channel = this.channel;
+               try {
+                  EntryRecord.write(channel, buffer, offset);
+                  return;
+               } catch (ClosedChannelException e) {
+                  interrupted |= Thread.interrupted();
+                  buffer.position(start);
+                  reopen(channel);
+               }
+            }
+         } finally {
+            if (interrupted) {
+               Thread.currentThread().interrupt();
+            }
+         }
+      }
+
+      void force() throws IOException {
+         for (;;) {
+            FileChannel channel = this.channel;
+            try {
+               // the data written through a closed channel is forced as well, as it belongs to the same file
+               channel.force(false);
+               return;
+            } catch (ClosedChannelException e) {
+               reopen(channel);
+            }
+         }
+      }
+
+      private synchronized void reopen(FileChannel closed) throws IOException {
+         if (channel == closed) {
+            LogAppender.log.debugf("Reopening log file %d closed by an interrupted writer", log.fileId);
+            channel = fileProvider.reopenLog(log.fileId);
+         }
+      }
+
+      void close() throws IOException {
+         FileChannel channel = this.channel;
+         log.close();
+         if (channel != log.fileChannel) {
+            channel.close();
+         }
+      }
+
+      /**
+       * @return offset of the reserved space, or -1 if the file is sealed or full; on success the caller must
+       *         publish the space and release the writer afterwards
+       */
+      int reserve(int length) {
+         writers.incrementAndGet();
+         for (;;) {
+            int offset = end.get();
+            if (offset == SEALED || offset > 0 && (long) offset + length > maxFileSize) {
+               releaseWriter();
+               return -1;
+            }
+            if (end.compareAndSet(offset, offset + length)) {
+               return offset;
+            }
+         }
+      }
+
+      boolean fits(int length) {
+         int offset = end.get();
+         return offset != SEALED && (offset == 0 || (long) offset + length <= maxFileSize);
+      }
+
+      boolean isSealed() {
+         return end.get() == SEALED;
+      }
+
+      void seal() {
+         sealedEnd = end.getAndSet(SEALED);
+      }
+
+      void unseal() {
+         end.set(sealedEnd);
+      }
+
+      void releaseWriter() {
+         if (writers.decrementAndGet() == 0 && isSealed()) {
+            synchronized (LogAppender.this) {
+               LogAppender.this.notifyAll();
+            }
+         }
+      }
+
+      void awaitWriters() throws InterruptedException {
+         synchronized (LogAppender.this) {
+            while (writers.get() > 0) {
+               LogAppender.this.wait();
+            }
+         }
+      }
+
+      /**
+       * Waits until the space in front of the offset is published and then publishes the space up to the end.
+       */
+      void publish(int offset, int end) {
+         if (!published.compareAndSet(offset, end)) {
+            boolean interrupted = false;
+            publishWaiters.incrementAndGet();
+            synchronized (this) {
+               while (published.get() != offset) {
+                  try {
+                     wait();
+                  } catch (InterruptedException e) {
+                     // the writers behind us would wait forever
+                     interrupted = true;
+                  }
+               }
+            }
+            publishWaiters.decrementAndGet();
+            published.set(end);
+            if (interrupted) {
+               Thread.currentThread().interrupt();
+            }
+         }
+         if (publishWaiters.get() > 0) {
+            synchronized (this) {
+               notifyAll();
+            }
+         }
+      }
+   }
 }
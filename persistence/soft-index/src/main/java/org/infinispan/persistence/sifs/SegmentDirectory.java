@@ -0,0 +1,89 @@
+package org.infinispan.persistence.sifs;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.infinispan.distribution.ch.SegmentMapper;
+
+/**
+ * Keeps the offsets of the records in each log file grouped by the segment of their key, so that the entries of some
+ * segments can be read without reading the records of the other segments. Only the records with a value are tracked,
+ * and a record is tracked until its file is deleted even after it was overwritten: readers have to check the position
+ * of the key in the index.
+ * <p/>
+ * Each record takes 4 bytes of memory; the keys are not kept in memory.
+ *
+ * @since 7.0
+ */
+class SegmentDirectory {
+   private static final int[] NO_OFFSETS = new int[0];
+
+   private final ConcurrentMap<Integer, FileOffsets> files = new ConcurrentHashMap<Integer, FileOffsets>();
+   private final SegmentMapper segmentMapper;
+
+   public SegmentDirectory(SegmentMapper segmentMapper) {
+      this.segmentMapper = segmentMapper;
+   }
+
+   public void add(int file, Object key, int offset) {
+      FileOffsets fileOffsets = files.get(file);
+      if (fileOffsets == null) {
+         fileOffsets = new FileOffsets(segmentMapper.getNumSegments());
+         FileOffsets other = files.putIfAbsent(file, fileOffsets);
+         if (other != null) {
+            fileOffsets = other;
+         }
+      }
+      fileOffsets.add(segmentMapper.getSegment(key), offset);
+   }
+
+   public Set<Integer> getFiles() {
+      return new HashSet<Integer>(files.keySet());
+   }
+
+   public int[] getOffsets(int file, int segment) {
+      FileOffsets fileOffsets = files.get(file);
+      return fileOffsets == null ? NO_OFFSETS : fileOffsets.get(segment);
+   }
+
+   public void removeFile(int file) {
+      files.remove(file);
+   }
+
+   public void clear() {
+      files.clear();
+   }
+
+   private static class FileOffsets {
+      private final int[][] offsets;
+      private final int[] counts;
+
+      private FileOffsets(int numSegments) {
+         offsets = new int[numSegments][];
+         counts = new int[numSegments];
+      }
+
+      public synchronized void add(int segment, int offset) {
+         int[] segmentOffsets = offsets[segment];
+         int count = counts[segment];
+         if (segmentOffsets == null) {
+            segmentOffsets = offsets[segment] = new int[16];
+         } else if (count == segmentOffsets.length) {
+            segmentOffsets = offsets[segment] = Arrays.copyOf(segmentOffsets, count * 2);
+         }
+         segmentOffsets[count] = offset;
+         counts[segment] = count + 1;
+      }
+
+      public synchronized int[] get(int segment) {
+         if (segment < 0 || segment >= counts.length) {
+            return NO_OFFSETS;
+         }
+         int count = counts[segment];
+         return count == 0 ? NO_OFFSETS : Arrays.copyOf(offsets[segment], count);
+      }
+   }
+}
@@ -1,14 +1,19 @@
 package org.infinispan.persistence.sifs;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.infinispan.commons.equivalence.Equivalence;
 import org.infinispan.commons.io.ByteBuffer;
 import org.infinispan.commons.io.ByteBufferFactory;
 import org.infinispan.commons.marshall.StreamingMarshaller;
+import org.infinispan.distribution.ch.SegmentMapper;
 import org.infinispan.filter.KeyFilter;
 import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.marshall.core.MarshalledEntryFactory;
@@ -16,10 +21,12 @@
 import org.infinispan.persistence.PersistenceUtil;
 import org.infinispan.persistence.TaskContextImpl;
 import org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfiguration;
-import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.BatchCacheWriter;
 import org.infinispan.persistence.spi.InitializationContext;
 import org.infinispan.persistence.spi.PersistenceException;
+import org.infinispan.persistence.spi.SegmentedAdvancedLoadWriteStore;
 import org.infinispan.util.TimeService;
+import org.infinispan.util.concurrent.WithinThreadExecutor;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -29,13 +36,13 @@
  *
  * * DESIGN:
  * There are three threads operating in the cache-store:
- * - LogAppender:  Requests to store entries are passed to the LogAppender thread
- *                 via queue, then the requestor threads wait until LogAppender notifies
- *                 them about successful store. LogAppender serializes the writes
- *                 into append-only file, writes the offset into TemporaryTable
- *                 and enqueues request to update index into UpdateQueue.
- *                 The append-only files have limited size, when the file is full,
- *                 new file is started.
+ * - LogAppender:  The threads storing entries serialize the records themselves,
+ *                 reserve space for them at the end of the current append-only file
+ *                 by an atomic increment and write them there concurrently. Then they
+ *                 write the offset into TemporaryTable and enqueue request to update
+ *                 index into UpdateQueue. The append-only files have limited size,
+ *                 when the file is full, the LogAppender thread starts new file; it
+ *                 also flushes the disk operations for all the waiting writers at once.
  * - IndexUpdater: Reads the UpdateQueue, applies the operation into B-tree-like
  *                 structure Index (exact description below) and then removes
  *                 the entry from TemporaryTable. When the Index is overwriten,
@@ -97,7 +104,7 @@
  *
  * @author Radim Vansa &lt;rvansa@redhat.com&gt;
  */
-public class SoftIndexFileStore implements AdvancedLoadWriteStore {
+public class SoftIndexFileStore implements SegmentedAdvancedLoadWriteStore, BatchCacheWriter {
 
    private static final Log log = LogFactory.getLog(SoftIndexFileStore.class);
    private static final boolean trace = log.isTraceEnabled();
@@ -105,7 +112,6 @@ public class SoftIndexFileStore implements AdvancedLoadWriteStore {
    private SoftIndexFileStoreConfiguration configuration;
    private TemporaryTable temporaryTable;
    private IndexQueue indexQueue;
-   private SyncProcessingQueue<LogRequest> storeQueue;
    private FileProvider fileProvider;
    private LogAppender logAppender;
    private Index index;
@@ -116,6 +122,8 @@ public class SoftIndexFileStore implements AdvancedLoadWriteStore {
    private TimeService timeService;
    private Equivalence<Object> keyEquivalence;
    private int maxKeyLength;
+   private SegmentMapper segmentMapper;
+   private SegmentDirectory segmentDirectory;
 
    @Override
    public void init(InitializationContext ctx) {
@@ -126,17 +134,23 @@ public void init(InitializationContext ctx) {
       timeService = ctx.getTimeService();
       keyEquivalence = ctx.getCache().getAdvancedCache().getCacheConfiguration().dataContainer().keyEquivalence();
       maxKeyLength = configuration.maxNodeSize() - IndexNode.RESERVED_SPACE;
+      segmentMapper = SegmentMapper.forCache(ctx.getCache());
    }
 
    @Override
    public void start() {
       log.info("Starting using configuration " + configuration);
       temporaryTable = new TemporaryTable(configuration.indexQueueLength() * configuration.indexSegments(), keyEquivalence);
-      storeQueue = new SyncProcessingQueue<LogRequest>();
       indexQueue = new IndexQueue(configuration.indexSegments(), configuration.indexQueueLength(), keyEquivalence);
       fileProvider = new FileProvider(configuration.dataLocation(), configuration.openFilesLimit());
-      compactor = new Compactor(fileProvider, temporaryTable, indexQueue, marshaller, timeService, configuration.maxFileSize(), configuration.compactionThreshold());
-      logAppender = new LogAppender(storeQueue, indexQueue, temporaryTable, compactor, fileProvider, configuration.syncWrites(), configuration.maxFileSize());
+      segmentDirectory = new SegmentDirectory(segmentMapper);
+      compactor = new Compactor(fileProvider, segmentDirectory, temporaryTable, indexQueue, marshaller, timeService, configuration.maxFileSize(), configuration.compactionThreshold());
+      try {
+         logAppender = new LogAppender(indexQueue, temporaryTable, compactor, fileProvider, segmentDirectory,
+               keyEquivalence, configuration.syncWrites(), configuration.maxFileSize());
+      } catch (IOException e) {
+         throw new PersistenceException("Cannot create log file in " + configuration.dataLocation(), e);
+      }
       try {
          index = new Index(fileProvider, configuration.indexLocation(), configuration.indexSegments(),
                configuration.minNodeSize(), configuration.maxNodeSize(),
@@ -179,6 +193,9 @@ public boolean apply(int file, int offset, int size, byte[] serializedKey, byte[
                      }
                   }
                   temporaryTable.set(key, file, offset);
+                  if (offset >= 0) {
+                     segmentDirectory.add(file, key, offset);
+                  }
                   indexQueue.put(new IndexRequest(key, serializedKey, file, offset, size));
                } catch (InterruptedException e) {
                   log.error("Interrupted building of index, the index won't be built properly!", e);
@@ -207,9 +224,9 @@ public void stop() {
          index = null;
          fileProvider.stop();
          fileProvider = null;
+         segmentDirectory = null;
          temporaryTable = null;
          indexQueue = null;
-         storeQueue = null;
       } catch (InterruptedException e) {
          throw new PersistenceException("Cannot stop cache store", e);
       }
@@ -233,6 +250,7 @@ public synchronized void clear() throws PersistenceException {
       } catch (IOException e) {
          throw new PersistenceException("Cannot clear data directory!", e);
       }
+      segmentDirectory.clear();
       temporaryTable.clear();
       compactor.resumeAfterPause();
       logAppender.resumeAfterPause();
@@ -252,6 +270,30 @@ public synchronized int size() {
       }
    }
 
+   @Override
+   public int size(Set segments) {
+      final AtomicInteger size = new AtomicInteger();
+      process(segments, null, new CacheLoaderTask() {
+         @Override
+         public void processEntry(MarshalledEntry marshalledEntry, TaskContext taskContext) {
+            size.incrementAndGet();
+         }
+      }, new WithinThreadExecutor(), false, false);
+      return size.get();
+   }
+
+   @Override
+   public void clear(Set segments) {
+      final List<Object> keys = new ArrayList<Object>();
+      process(segments, null, new CacheLoaderTask() {
+         @Override
+         public void processEntry(MarshalledEntry marshalledEntry, TaskContext taskContext) {
+            keys.add(marshalledEntry.getKey());
+         }
+      }, new WithinThreadExecutor(), false, false);
+      deleteBatch(keys);
+   }
+
    @Override
    public void purge(Executor threadPool, PurgeListener listener) {
       log.trace("Purge method not supported, ignoring.");
@@ -260,6 +302,51 @@ public void purge(Executor threadPool, PurgeListener listener) {
 
    @Override
    public void write(MarshalledEntry entry) {
+      checkKeyLength(entry);
+      try {
+         logAppender.append(LogRequest.storeRequest(entry));
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   /**
+    * Appends the records of all the entries to the log as a single group, written at once.
+    */
+   @Override
+   public void writeBatch(Iterable entries) {
+      try {
+         List<LogRequest> requests = new ArrayList<LogRequest>();
+         for (Object entry : entries) {
+            checkKeyLength((MarshalledEntry) entry);
+            requests.add(LogRequest.storeRequest((MarshalledEntry) entry));
+         }
+         if (!requests.isEmpty()) {
+            logAppender.append(requests);
+         }
+      } catch (PersistenceException e) {
+         throw e;
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   @Override
+   public void deleteBatch(Iterable keys) {
+      try {
+         List<LogRequest> requests = new ArrayList<LogRequest>();
+         for (Object key : keys) {
+            requests.add(LogRequest.deleteRequest(key, toBuffer(marshaller.objectToByteBuffer(key))));
+         }
+         if (!requests.isEmpty()) {
+            logAppender.append(requests);
+         }
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   private void checkKeyLength(MarshalledEntry entry) {
       int keyLength = entry.getKeyBytes().getLength();
       if (keyLength > maxKeyLength) {
          throw new PersistenceException("Configuration 'maxNodeSize' is too low - with maxNodeSize="
@@ -269,18 +356,13 @@ public void write(MarshalledEntry entry) {
          // TODO this limitation could be removed by different key length encoding
          throw new PersistenceException("SoftIndexFileStore is limited to keys with serialized size <= 32767 bytes");
       }
-      try {
-         storeQueue.pushAndWait(LogRequest.storeRequest(entry));
-      } catch (Exception e) {
-         throw new PersistenceException(e);
-      }
    }
 
    @Override
    public boolean delete(Object key) {
       try {
          LogRequest request = LogRequest.deleteRequest(key, toBuffer(marshaller.objectToByteBuffer(key)));
-         storeQueue.pushAndWait(request);
+         logAppender.append(request);
          return (Boolean) request.getIndexRequest().getResult();
       } catch (Exception e) {
          throw new PersistenceException(e);
@@ -419,28 +501,16 @@ private void forEachOnDisk(boolean readMetadata, boolean readValues, EntryFuncto
                   if (header == null) {
                      break; // end of file;
                   }
+                  if (header.keyLength() <= 0) {
+                     break; // space reserved by a concurrent writer, not written yet
+                  }
                   try {
                      byte[] serializedKey = EntryRecord.readKey(handle, header, offset);
                      if (serializedKey == null) {
                         break; // we have read the file concurrently with writing there
                         //throw new CacheLoaderException("File " + file + " appears corrupt when reading key from " + offset + ": header is " + header);
                      }
-                     byte[] serializedMetadata = null;
-                     if (readMetadata && header.metadataLength() > 0) {
-                        serializedMetadata = EntryRecord.readMetadata(handle, header, offset);
-                     }
-                     byte[] serializedValue = null;
-                     int offsetOrNegation = offset;
-                     if (header.valueLength() > 0) {
-                        if (header.expiryTime() >= 0 && header.expiryTime() <= timeService.wallClockTime()) {
-                           offsetOrNegation = ~offset;
-                        } else if (readValues) {
-                           serializedValue = EntryRecord.readValue(handle, header, offset);
-                        }
-                     } else {
-                        offsetOrNegation = ~offset;
-                     }
-                     if (!functor.apply(file, offsetOrNegation, header.totalLength(), serializedKey, serializedMetadata, serializedValue, header.seqId(), header.expiryTime())) {
+                     if (!applyOnRecord(handle, file, offset, header, serializedKey, readMetadata, readValues, functor)) {
                         return;
                      }
                   } finally {
@@ -457,13 +527,71 @@ private void forEachOnDisk(boolean readMetadata, boolean readValues, EntryFuncto
       }
    }
 
+   /**
+    * Iterates only over the records of the given segments, as found in the segment directory.
+    */
+   private void forEachInSegments(Set segments, boolean readMetadata, boolean readValues, EntryFunctor functor) throws PersistenceException {
+      try {
+         for (int file : segmentDirectory.getFiles()) {
+            FileProvider.Handle handle = fileProvider.getFile(file);
+            if (handle == null) {
+               log.debug("File " + file + " was deleted during iteration");
+               continue;
+            }
+            try {
+               for (Object segment : segments) {
+                  for (int offset : segmentDirectory.getOffsets(file, (Integer) segment)) {
+                     EntryHeader header = EntryRecord.readEntryHeader(handle, offset);
+                     byte[] serializedKey = header == null ? null : EntryRecord.readKey(handle, header, offset);
+                     if (serializedKey == null) {
+                        throw new IllegalStateException("Cannot read " + file + ":" + offset);
+                     }
+                     if (!applyOnRecord(handle, file, offset, header, serializedKey, readMetadata, readValues, functor)) {
+                        return;
+                     }
+                  }
+               }
+            } finally {
+               handle.close();
+            }
+         }
+      } catch (Exception e) {
+         throw new PersistenceException(e);
+      }
+   }
+
+   private boolean applyOnRecord(FileProvider.Handle handle, int file, int offset, EntryHeader header, byte[] serializedKey,
+                                 boolean readMetadata, boolean readValues, EntryFunctor functor) throws Exception {
+      byte[] serializedMetadata = null;
+      if (readMetadata && header.metadataLength() > 0) {
+         serializedMetadata = EntryRecord.readMetadata(handle, header, offset);
+      }
+      byte[] serializedValue = null;
+      int offsetOrNegation = offset;
+      if (header.valueLength() > 0) {
+         if (header.expiryTime() >= 0 && header.expiryTime() <= timeService.wallClockTime()) {
+            offsetOrNegation = ~offset;
+         } else if (readValues) {
+            serializedValue = EntryRecord.readValue(handle, header, offset);
+         }
+      } else {
+         offsetOrNegation = ~offset;
+      }
+      return functor.apply(file, offsetOrNegation, header.totalLength(), serializedKey, serializedMetadata, serializedValue, header.seqId(), header.expiryTime());
+   }
+
    @Override
-   public void process(KeyFilter filter, final CacheLoaderTask task, final Executor executor, final boolean fetchValue, final boolean fetchMetadata) {
+   public void process(KeyFilter filter, CacheLoaderTask task, Executor executor, boolean fetchValue, boolean fetchMetadata) {
+      process(null, filter, task, executor, fetchValue, fetchMetadata);
+   }
+
+   @Override
+   public void process(Set segments, KeyFilter filter, final CacheLoaderTask task, final Executor executor, final boolean fetchValue, final boolean fetchMetadata) {
       final TaskContext context = new TaskContextImpl();
       final KeyFilter notNullFilter = PersistenceUtil.notNull(filter);
       final AtomicLong tasksSubmitted = new AtomicLong();
       final AtomicLong tasksFinished = new AtomicLong();
-      forEachOnDisk(fetchMetadata, fetchValue, new EntryFunctor() {
+      EntryFunctor functor = new EntryFunctor() {
          @Override
          public boolean apply(int file, int offset, int size,
                               final byte[] serializedKey, final byte[] serializedMetadata, final byte[] serializedValue,
@@ -496,7 +624,8 @@ public boolean apply(int file, int offset, int size,
                // entry is not in index = it was deleted
                return true;
             }
-            if (serializedValue != null && (expiration < 0 || expiration > timeService.wallClockTime())) {
+            // negative offset = tombstone or expired record
+            if (offset >= 0 && (expiration < 0 || expiration > timeService.wallClockTime())) {
                executor.execute(new Runnable() {
                   @Override
                   public void run() {
@@ -522,12 +651,17 @@ public void run() {
             }
             return true;
          }
-      }, new FileFunctor() {
-         @Override
-         public void afterFile(int file) {
-            // noop
-         }
-      });
+      };
+      if (segments == null) {
+         forEachOnDisk(fetchMetadata, fetchValue, functor, new FileFunctor() {
+            @Override
+            public void afterFile(int file) {
+               // noop
+            }
+         });
+      } else {
+         forEachInSegments(segments, fetchMetadata, fetchValue, functor);
+      }
       while (tasksSubmitted.longValue() > tasksFinished.longValue()) {
          synchronized (context) {
             try {
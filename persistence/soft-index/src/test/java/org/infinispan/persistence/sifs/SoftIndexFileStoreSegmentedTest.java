@@ -0,0 +1,30 @@
+package org.infinispan.persistence.sifs;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.persistence.BaseSegmentedStoreTest;
+import org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfigurationBuilder;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the segment operations of {@link SoftIndexFileStore}.
+ *
+ * @since 7.0
+ */
+@Test(groups = "functional", testName = "persistence.sifs.SoftIndexFileStoreSegmentedTest")
+public class SoftIndexFileStoreSegmentedTest extends BaseSegmentedStoreTest {
+
+   private final String tmpDirectory = TestingUtil.tmpDirectory(this.getClass());
+
+   @AfterClass(alwaysRun = true)
+   protected void clearTempDir() {
+      TestingUtil.recursiveFileRemove(tmpDirectory);
+   }
+
+   @Override
+   protected void configurePersistence(ConfigurationBuilder builder) {
+      builder.persistence().addStore(SoftIndexFileStoreConfigurationBuilder.class)
+            .indexLocation(tmpDirectory).dataLocation(tmpDirectory + "/data");
+   }
+}
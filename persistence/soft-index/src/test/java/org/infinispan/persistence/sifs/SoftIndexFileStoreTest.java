@@ -3,12 +3,22 @@
 import static org.infinispan.persistence.PersistenceUtil.internalMetadata;
 import static org.infinispan.test.TestingUtil.recursiveFileRemove;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.infinispan.configuration.cache.ConfigurationBuilder;
 import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.marshall.core.MarshalledEntry;
 import org.infinispan.marshall.core.MarshalledEntryImpl;
 import org.infinispan.persistence.BaseStoreTest;
 import org.infinispan.persistence.sifs.configuration.SoftIndexFileStoreConfigurationBuilder;
 import org.infinispan.persistence.spi.AdvancedLoadWriteStore;
+import org.infinispan.persistence.spi.PersistenceException;
 import org.infinispan.test.TestingUtil;
 import org.infinispan.test.fwk.TestCacheManagerFactory;
 import org.infinispan.test.fwk.TestInternalCacheEntryFactory;
@@ -26,6 +36,10 @@
 @Test(groups = "unit", testName = "persistence.SoftIndexFileStoreTest")
 public class SoftIndexFileStoreTest extends BaseStoreTest {
 
+   private static final int DEFAULT_MAX_FILE_SIZE = 16 * 1024 * 1024;
+   // a few records per file, so that the writers keep running into the end of the file
+   private static final int SMALL_MAX_FILE_SIZE = 1024;
+
    SoftIndexFileStore store;
    String tmpDirectory;
 
@@ -41,19 +55,32 @@ protected void clearTempDir() {
 
    @Override
    protected AdvancedLoadWriteStore createStore() throws Exception {
+      return createStore(DEFAULT_MAX_FILE_SIZE, false);
+   }
+
+   private SoftIndexFileStore createStore(int maxFileSize, boolean syncWrites) {
       clearTempDir();
       store = new SoftIndexFileStore();
       ConfigurationBuilder builder = TestCacheManagerFactory
             .getDefaultCacheConfiguration(false);
       builder.persistence()
                .addStore(SoftIndexFileStoreConfigurationBuilder.class)
-                  .indexLocation(tmpDirectory).dataLocation(tmpDirectory + "/data");
+                  .indexLocation(tmpDirectory).dataLocation(tmpDirectory + "/data")
+                  .maxFileSize(maxFileSize).syncWrites(syncWrites);
 
       store.init(createContext(builder.build()));
       store.start();
       return store;
    }
 
+   /**
+    * Replaces the store created for the test method by one with a different configuration, on an empty directory.
+    */
+   private void replaceStore(int maxFileSize, boolean syncWrites) {
+      cl.stop();
+      cl = createStore(maxFileSize, syncWrites);
+   }
+
    @Override
    protected boolean storePurgesAllExpired() {
       return false;
@@ -83,6 +110,143 @@ public void testLoadUnload() {
       }
    }
 
+   public void testConcurrentWrites() throws Exception {
+      writeConcurrently(8, 2000);
+   }
+
+   public void testConcurrentWritesSmallFiles() throws Exception {
+      replaceStore(SMALL_MAX_FILE_SIZE, false);
+      writeConcurrently(8, 2000);
+   }
+
+   public void testConcurrentWritesSyncWrites() throws Exception {
+      replaceStore(SMALL_MAX_FILE_SIZE, true);
+      writeConcurrently(8, 500);
+   }
+
+   public void testConcurrentWritesAndClear() throws Exception {
+      replaceStore(SMALL_MAX_FILE_SIZE, false);
+      final int numThreads = 8;
+      final int numEntries = 2000;
+      final AtomicBoolean writing = new AtomicBoolean(true);
+      Future<Void> clearing = fork(new Callable<Void>() {
+         @Override
+         public Void call() throws Exception {
+            while (writing.get()) {
+               store.clear();
+               Thread.sleep(1);
+            }
+            return null;
+         }
+      });
+      try {
+         writeAll(numThreads, numEntries);
+      } finally {
+         writing.set(false);
+      }
+      clearing.get();
+
+      // every key was either cleared or written completely
+      Map<String, Object> loaded = new HashMap<String, Object>();
+      for (int i = 0; i < numEntries; ++i) {
+         MarshalledEntry entry = store.load(key(i));
+         if (entry != null) {
+            AssertJUnit.assertEquals("value" + i, entry.getValue());
+            loaded.put(key(i), entry.getValue());
+         }
+      }
+
+      // no cleared record comes back and no stored record is lost when the index is rebuilt from the log files
+      store.stop();
+      store.start();
+      for (int i = 0; i < numEntries; ++i) {
+         MarshalledEntry entry = store.load(key(i));
+         AssertJUnit.assertEquals("Key " + key(i), loaded.get(key(i)), entry == null ? null : entry.getValue());
+      }
+   }
+
+   public void testInterruptedWriters() throws Exception {
+      replaceStore(SMALL_MAX_FILE_SIZE, false);
+      final int numThreads = 8;
+      final int numEntries = 2000;
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int t = 0; t < numThreads; ++t) {
+         final int thread = t;
+         futures.add(fork(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               try {
+                  for (int i = thread; i < numEntries; i += numThreads) {
+                     InternalCacheEntry ice = TestInternalCacheEntryFactory.create(key(i), "value" + i);
+                     MarshalledEntry entry = new MarshalledEntryImpl(ice.getKey(), ice.getValue(), internalMetadata(ice), getMarshaller());
+                     // half of the writers are interrupted before every other write, the rest run alongside them
+                     if (thread % 2 == 0 && i % 2 == 0) {
+                        Thread.currentThread().interrupt();
+                     }
+                     try {
+                        store.write(entry);
+                     } catch (PersistenceException e) {
+                        // a writer interrupted while waiting for a new log file gives up, but the store keeps working
+                        if (!(e.getCause() instanceof InterruptedException)) throw e;
+                        Thread.interrupted();
+                        store.write(entry);
+                     }
+                  }
+               } finally {
+                  Thread.interrupted();
+               }
+               return null;
+            }
+         }));
+      }
+      for (Future<Void> future : futures) {
+         future.get();
+      }
+      assertAllLoaded(numEntries);
+
+      store.stop();
+      store.start();
+      assertAllLoaded(numEntries);
+   }
+
+   private void writeConcurrently(int numThreads, int numEntries) throws Exception {
+      writeAll(numThreads, numEntries);
+      assertAllLoaded(numEntries);
+
+      // the index is rebuilt from the log files
+      store.stop();
+      store.start();
+      assertAllLoaded(numEntries);
+   }
+
+   private void writeAll(final int numThreads, final int numEntries) throws Exception {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int t = 0; t < numThreads; ++t) {
+         final int thread = t;
+         futures.add(fork(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               for (int i = thread; i < numEntries; i += numThreads) {
+                  InternalCacheEntry ice = TestInternalCacheEntryFactory.create(key(i), "value" + i);
+                  store.write(new MarshalledEntryImpl(ice.getKey(), ice.getValue(), internalMetadata(ice), getMarshaller()));
+               }
+               return null;
+            }
+         }));
+      }
+      for (Future<Void> future : futures) {
+         future.get();
+      }
+   }
+
+   private void assertAllLoaded(int numEntries) {
+      for (int i = 0; i < numEntries; ++i) {
+         MarshalledEntry entry = store.load(key(i));
+         AssertJUnit.assertNotNull("Key " + key(i) + " not found", entry);
+         AssertJUnit.assertEquals("value" + i, entry.getValue());
+      }
+   }
+
    private String key(int i) {
       return String.format("key%010d", i);
    }
@@ -8,6 +8,7 @@
 import org.infinispan.interceptors.ActivationInterceptor;
 import org.infinispan.interceptors.CacheMgmtInterceptor;
 import org.infinispan.interceptors.CacheWriterInterceptor;
+import org.infinispan.interceptors.InterceptorTimings;
 import org.infinispan.interceptors.InvalidationInterceptor;
 import org.infinispan.interceptors.TxInterceptor;
 import org.infinispan.interceptors.base.CommandInterceptor;
@@ -67,6 +68,8 @@ public enum CacheMetrics {
         REMOVE_MISSES(MetricKeys.REMOVE_MISSES, ModelType.LONG, true),
         STORES(MetricKeys.STORES, ModelType.LONG, true),
         TIME_SINCE_RESET(MetricKeys.TIME_SINCE_RESET, ModelType.LONG, true),
+        // InterceptorTimings
+        INTERCEPTOR_TIMINGS(MetricKeys.INTERCEPTOR_TIMINGS, ModelType.STRING, true),
         // TxInterceptor
         COMMITS(MetricKeys.COMMITS, ModelType.LONG, true),
         PREPARES(MetricKeys.PREPARES, ModelType.LONG, true),
@@ -238,6 +241,13 @@ protected void executeRuntimeStep(OperationContext context, ModelNode operation)
                     result.set(cacheMgmtInterceptor != null ? cacheMgmtInterceptor.getTimeSinceReset() : 0);
                     break;
                 }
+                case INTERCEPTOR_TIMINGS: {
+                    InterceptorTimings interceptorTimings = registry.getComponent(InterceptorTimings.class);
+                    if (interceptorTimings != null) {
+                        result.set(interceptorTimings.getTimings());
+                    }
+                    break;
+                }
                 case AVERAGE_REPLICATION_TIME: {
                     result.set(rpcManager.getAverageReplicationTime());
                     break;
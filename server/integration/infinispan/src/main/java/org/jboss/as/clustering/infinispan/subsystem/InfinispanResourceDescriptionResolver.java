@@ -147,6 +147,7 @@ private String getVariableBundleKey(final String name, final String... variable)
         sharedAttributeResolver.put(MetricKeys.ELAPSED_TIME, "cache");
         sharedAttributeResolver.put(MetricKeys.HIT_RATIO, "cache");
         sharedAttributeResolver.put(MetricKeys.HITS, "cache");
+        sharedAttributeResolver.put(MetricKeys.INTERCEPTOR_TIMINGS, "cache");
         sharedAttributeResolver.put(MetricKeys.INVALIDATIONS, "cache");
         sharedAttributeResolver.put(MetricKeys.MISSES, "cache");
         sharedAttributeResolver.put(MetricKeys.NUMBER_OF_ENTRIES, "cache");
@@ -65,6 +65,8 @@ public class MetricKeys {
     public static final String REMOVE_MISSES = "remove-misses";
     public static final String STORES = "stores";
     public static final String TIME_SINCE_RESET = "time-since-reset";
+    // interceptor timings
+    public static final String INTERCEPTOR_TIMINGS = "interceptor-timings";
     // transaction manager
     public static final String COMMITS = "commits";
     public static final String PREPARES = "prepares";